@@ -0,0 +1,47 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the benchmarks jar built by the 'jmh' Maven profile.
+ * <p>
+ * Accepts the standard JMH command line options, and always adds the
+ * GC profiler so every result includes the allocation rate (see the
+ * 'gc.alloc.rate.norm' rows, in bytes per operation) next to the
+ * throughput.
+ * <p>
+ * Run from the project root, so the benchmarks load the same
+ * configuration file as the GDA.
+ *
+ */
+public class BenchmarkRunner
+{
+	public static void main(String[] args) throws Exception
+	{
+		CommandLineOptions cmdLineOptions = new CommandLineOptions(args);
+
+		Options options =
+			new OptionsBuilder()
+				.parent(cmdLineOptions)
+				.addProfiler(GCProfiler.class)
+				.build();
+
+		new Runner(options).run();
+	}
+
+}
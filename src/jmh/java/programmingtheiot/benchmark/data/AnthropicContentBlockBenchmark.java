@@ -0,0 +1,181 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.benchmark.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import programmingtheiot.data.AnthropicContentBlock;
+import programmingtheiot.data.AnthropicContentBlockTypeAdapter;
+import programmingtheiot.data.AnthropicMessage;
+import programmingtheiot.data.AnthropicRole;
+import programmingtheiot.data.LLMHttpResponse;
+import programmingtheiot.data.LLMHttpResponseDeserializer;
+import programmingtheiot.data.PuetceResponse;
+import programmingtheiot.data.PuetceResponseReader;
+import programmingtheiot.data.ToolResultContentBlock;
+
+/**
+ * JMH benchmarks for reading and writing LLM conversation content
+ * blocks via AnthropicContentBlockTypeAdapter, and for reading a whole
+ * PUETCE message response, both via the Gson tree (as DeviceDataManager
+ * used to) and via the single pass PuetceResponseReader.
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnthropicContentBlockBenchmark
+{
+	// private var's
+
+	private Gson gson = null;
+	private Gson responseGson = null;
+
+	private AnthropicContentBlock textBlock = null;
+	private AnthropicContentBlock toolUseBlock = null;
+	private AnthropicContentBlock toolResultBlock = null;
+
+	private String textBlockJson = null;
+	private String toolUseBlockJson = null;
+	private String toolResultBlockJson = null;
+	private String messageResponseJson = null;
+
+
+	// setup methods
+
+	@Setup
+	public void setUp()
+	{
+		this.gson = new GsonBuilder()
+			.registerTypeAdapter(AnthropicContentBlock.class, new AnthropicContentBlockTypeAdapter())
+			.create();
+		this.responseGson = new GsonBuilder()
+			.registerTypeAdapter(AnthropicContentBlock.class, new AnthropicContentBlockTypeAdapter())
+			.registerTypeAdapter(LLMHttpResponse.class, new LLMHttpResponseDeserializer())
+			.create();
+
+		JsonObject input = new JsonObject();
+		input.addProperty("command", 1);
+		input.addProperty("value", 40.0f);
+
+		this.textBlock = new AnthropicContentBlock.Text(
+			"The current temperature is 21.5 C and the humidity is 35 percent, which is within the nominal range.");
+		this.toolUseBlock = new AnthropicContentBlock.ToolUse(
+			"toolu_01A09q90qw90lq917835lq9", "set_humidifier", input);
+		this.toolResultBlock = new AnthropicContentBlock.ToolResult(
+			"toolu_01A09q90qw90lq917835lq9",
+			Collections.singletonList(new ToolResultContentBlock.Text("Humidifier turned on.")),
+			false);
+
+		this.textBlockJson = writeBlock(this.textBlock);
+		this.toolUseBlockJson = writeBlock(this.toolUseBlock);
+		this.toolResultBlockJson = writeBlock(this.toolResultBlock);
+
+		JsonObject response = new JsonObject();
+		response.addProperty("status", "success");
+		response.add("data", this.gson.toJsonTree(new AnthropicMessage(
+			AnthropicRole.ASSISTANT, Arrays.asList(this.textBlock, this.toolUseBlock))));
+
+		this.messageResponseJson = response.toString();
+	}
+
+
+	// benchmark methods
+
+	@Benchmark
+	public String writeTextBlock()
+	{
+		return writeBlock(this.textBlock);
+	}
+
+	@Benchmark
+	public String writeToolUseBlock()
+	{
+		return writeBlock(this.toolUseBlock);
+	}
+
+	@Benchmark
+	public String writeToolResultBlock()
+	{
+		return writeBlock(this.toolResultBlock);
+	}
+
+	@Benchmark
+	public AnthropicContentBlock readTextBlock()
+	{
+		return readBlock(this.textBlockJson);
+	}
+
+	@Benchmark
+	public AnthropicContentBlock readToolUseBlock()
+	{
+		return readBlock(this.toolUseBlockJson);
+	}
+
+	@Benchmark
+	public AnthropicContentBlock readToolResultBlock()
+	{
+		return readBlock(this.toolResultBlockJson);
+	}
+
+
+	@Benchmark
+	public AnthropicMessage readMessageResponseViaTree()
+	{
+		LLMHttpResponse response = this.responseGson.fromJson(
+			this.messageResponseJson.replace("null", "\"\""), LLMHttpResponse.class);
+
+		return this.responseGson.fromJson(response.data, AnthropicMessage.class);
+	}
+
+	@Benchmark
+	public AnthropicMessage readMessageResponse()
+	{
+		PuetceResponse response = PuetceResponseReader.read(this.messageResponseJson);
+
+		return response.getMessage();
+	}
+
+
+	// private methods
+
+	private String writeBlock(AnthropicContentBlock block)
+	{
+		return this.gson.toJson(block, AnthropicContentBlock.class);
+	}
+
+	private AnthropicContentBlock readBlock(String json)
+	{
+		return this.gson.fromJson(json, AnthropicContentBlock.class);
+	}
+
+}
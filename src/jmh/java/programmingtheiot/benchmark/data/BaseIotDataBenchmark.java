@@ -0,0 +1,100 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.benchmark.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.data.ActuatorData;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+
+/**
+ * JMH benchmarks for constructing the data model classes. Every
+ * BaseIotData constructor looks up the location ID in ConfigUtil and
+ * formats the current time stamp, so this is a per-message cost on
+ * both the decode and the sampling paths.
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BaseIotDataBenchmark
+{
+	// private var's
+
+	private SensorData sensorData = null;
+	private SensorData sourceData = null;
+
+
+	// setup methods
+
+	@Setup
+	public void setUp()
+	{
+		// load the configuration outside of the measured code
+		ConfigUtil.getInstance();
+
+		this.sensorData = new SensorData(ConfigConst.TEMP_SENSOR_TYPE);
+		this.sourceData = new SensorData(ConfigConst.TEMP_SENSOR_TYPE);
+		this.sourceData.setValue(21.5f);
+	}
+
+
+	// benchmark methods
+
+	@Benchmark
+	public SensorData newSensorData()
+	{
+		return new SensorData(ConfigConst.TEMP_SENSOR_TYPE);
+	}
+
+	@Benchmark
+	public ActuatorData newActuatorData()
+	{
+		return new ActuatorData();
+	}
+
+	@Benchmark
+	public SystemPerformanceData newSystemPerformanceData()
+	{
+		return new SystemPerformanceData();
+	}
+
+	/**
+	 * Copies another instance's properties, which also updates the time stamp.
+	 *
+	 */
+	@Benchmark
+	public SensorData updateData()
+	{
+		this.sensorData.updateData(this.sourceData);
+
+		return this.sensorData;
+	}
+
+}
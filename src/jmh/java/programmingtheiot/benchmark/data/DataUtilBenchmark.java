@@ -0,0 +1,139 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.benchmark.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.data.ActuatorData;
+import programmingtheiot.data.DataUtil;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+
+/**
+ * JMH benchmarks for the DataUtil JSON conversions used on the
+ * CDA message path (inbound decode) and the cloud / persistence
+ * paths (outbound encode).
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataUtilBenchmark
+{
+	// private var's
+
+	private DataUtil dataUtil = null;
+
+	private SensorData sensorData = null;
+	private ActuatorData actuatorData = null;
+	private SystemPerformanceData sysPerfData = null;
+
+	private String sensorDataJson = null;
+	private String actuatorDataJson = null;
+	private String sysPerfDataJson = null;
+
+
+	// setup methods
+
+	@Setup
+	public void setUp()
+	{
+		this.dataUtil = DataUtil.getInstance();
+
+		this.sensorData = new SensorData(ConfigConst.TEMP_SENSOR_TYPE);
+		this.sensorData.setName(ConfigConst.TEMP_SENSOR_NAME);
+		this.sensorData.setLocationID("constraineddevice001");
+		this.sensorData.setValue(21.5f);
+
+		this.actuatorData = new ActuatorData();
+		this.actuatorData.setTypeID(ConfigConst.HUMIDIFIER_ACTUATOR_TYPE);
+		this.actuatorData.setName(ConfigConst.HUMIDIFIER_ACTUATOR_NAME);
+		this.actuatorData.setCommand(ConfigConst.ON_COMMAND);
+		this.actuatorData.setValue(40.0f);
+
+		this.sysPerfData = new SystemPerformanceData();
+		this.sysPerfData.setCpuUtilization(12.5f);
+		this.sysPerfData.setMemoryUtilization(45.0f);
+		this.sysPerfData.setDiskUtilization(60.0f);
+
+		this.sensorDataJson = this.dataUtil.sensorDataToJson(this.sensorData);
+		this.actuatorDataJson = this.dataUtil.actuatorDataToJson(this.actuatorData);
+		this.sysPerfDataJson = this.dataUtil.systemPerformanceDataToJson(this.sysPerfData);
+	}
+
+
+	// benchmark methods
+
+	@Benchmark
+	public String sensorDataToJson()
+	{
+		return this.dataUtil.sensorDataToJson(this.sensorData);
+	}
+
+	@Benchmark
+	public SensorData jsonToSensorData()
+	{
+		return this.dataUtil.jsonToSensorData(this.sensorDataJson);
+	}
+
+	@Benchmark
+	public String sensorDataToTVJson()
+	{
+		return this.dataUtil.sensorDataToTVJson(this.sensorData);
+	}
+
+	@Benchmark
+	public String actuatorDataToJson()
+	{
+		return this.dataUtil.actuatorDataToJson(this.actuatorData);
+	}
+
+	@Benchmark
+	public ActuatorData jsonToActuatorData()
+	{
+		return this.dataUtil.jsonToActuatorData(this.actuatorDataJson);
+	}
+
+	@Benchmark
+	public String systemPerformanceDataToJson()
+	{
+		return this.dataUtil.systemPerformanceDataToJson(this.sysPerfData);
+	}
+
+	@Benchmark
+	public SystemPerformanceData jsonToSystemPerformanceData()
+	{
+		return this.dataUtil.jsonToSystemPerformanceData(this.sysPerfDataJson);
+	}
+
+	@Benchmark
+	public SystemPerformanceData systemPerformanceDataRoundTrip()
+	{
+		return this.dataUtil.jsonToSystemPerformanceData(this.dataUtil.systemPerformanceDataToJson(this.sysPerfData));
+	}
+
+}
@@ -316,6 +316,151 @@ public class ConfigConst
 	
 	public static final String VERBOSE_TOOL_EXECUTIONS_KEY		= "verboseToolExecutions";
 	
+	public static final String MAX_CONNECTIONS_KEY = "maxConnections";
+	
+	public static final int    DEFAULT_MAX_CONNECTIONS = 8;
+	
+	// ingest pipeline
+	public static final String ENABLE_INGEST_PIPELINE_KEY      = "enableIngestPipeline";
+	public static final String DECODE_STAGE_WORKERS_KEY        = "decodeStageWorkers";
+	public static final String DECODE_STAGE_QUEUE_SIZE_KEY     = "decodeStageQueueSize";
+	public static final String PERSIST_STAGE_WORKERS_KEY       = "persistStageWorkers";
+	public static final String PERSIST_STAGE_QUEUE_SIZE_KEY    = "persistStageQueueSize";
+	public static final String ANALYZE_STAGE_WORKERS_KEY       = "analyzeStageWorkers";
+	public static final String ANALYZE_STAGE_QUEUE_SIZE_KEY    = "analyzeStageQueueSize";
+	public static final String UPLINK_STAGE_WORKERS_KEY        = "uplinkStageWorkers";
+	public static final String UPLINK_STAGE_QUEUE_SIZE_KEY     = "uplinkStageQueueSize";
+	public static final String PIPELINE_SUBMIT_TIMEOUT_KEY     = "pipelineSubmitTimeoutMillis";
+	public static final String PIPELINE_METRICS_LOG_SECS_KEY   = "pipelineMetricsLogSecs";
+	public static final String PIPELINE_MAX_BATCH_SIZE_KEY     = "pipelineMaxBatchSize";
+	
+	public static final int    DEFAULT_STAGE_WORKERS           = 2;
+	public static final int    DEFAULT_STAGE_QUEUE_SIZE        = 1024;
+	public static final int    DEFAULT_PIPELINE_SUBMIT_TIMEOUT = 0;
+	public static final int    DEFAULT_PIPELINE_METRICS_LOG_SECS = 60;
+	public static final int    DEFAULT_PIPELINE_MAX_BATCH_SIZE = 64;
+	
+	// pooled decode
+	public static final String ENABLE_POOLED_DECODE_KEY        = "enablePooledDecode";
+	public static final String DECODE_POOL_SIZE_KEY            = "decodePoolSize";
+	public static final String ENABLE_POOL_LEAK_DETECTION_KEY  = "enablePoolLeakDetection";
+	
+	public static final int    DEFAULT_DECODE_POOL_SIZE        = 256;
+	
+	// MQTT publish batching
+	public static final String ENABLE_PUBLISH_BATCHING_KEY     = "enablePublishBatching";
+	public static final String BATCH_TOPICS_KEY                = "batchTopics";
+	public static final String BATCH_WINDOW_MILLIS_KEY         = "batchWindowMillis";
+	public static final String BATCH_MAX_BYTES_KEY             = "batchMaxBytes";
+	public static final String BATCH_MAX_COUNT_KEY             = "batchMaxCount";
+	
+	public static final int    DEFAULT_BATCH_WINDOW_MILLIS     = 5;
+	public static final int    DEFAULT_BATCH_MAX_BYTES         = 16384;
+	public static final int    DEFAULT_BATCH_MAX_COUNT         = 64;
+	
+	// MQTT pipelined publish (with useAsyncClient)
+	public static final String MAX_INFLIGHT_KEY                = "maxInflight";
+	public static final String OUTBOUND_QUEUE_SIZE_KEY         = "outboundQueueSize";
+	public static final String OUTBOUND_QUEUE_POLICY_KEY       = "outboundQueuePolicy";
+	public static final String PUBLISH_TIMEOUT_MILLIS_KEY      = "publishTimeoutMillis";
+	public static final String WAIT_FOR_DELIVERY_KEY           = "waitForDelivery";
+	
+	public static final int    DEFAULT_MAX_INFLIGHT            = 10;
+	public static final int    DEFAULT_OUTBOUND_QUEUE_SIZE     = 1024;
+	public static final int    DEFAULT_PUBLISH_TIMEOUT_MILLIS  = 5000;
+	
+	// MQTT per-device topics, e.g. PIOT/ConstrainedDevice/SensorMsg/<device ID>
+	public static final String ENABLE_PER_DEVICE_TOPICS_KEY    = "enablePerDeviceTopics";
+	
+	// MQTT connections (topics are sharded across them)
+	public static final String MQTT_CONNECTION_COUNT_KEY       = "connectionCount";
+	
+	public static final int    DEFAULT_MQTT_CONNECTION_COUNT   = 1;
+	
+	// MQTT client persistence (for QoS 1 and 2 in-flight messages)
+	public static final String MQTT_PERSISTENCE_KEY            = "mqttPersistence";
+	public static final String MQTT_PERSISTENCE_PATH_KEY       = "mqttPersistencePath";
+	public static final String MQTT_PERSISTENCE_SEGMENT_SIZE_KEY = "mqttPersistenceSegmentSize";
+	public static final String MQTT_PERSISTENCE_SYNC_WRITES_KEY  = "mqttPersistenceSyncWrites";
+	
+	public static final String MQTT_PERSISTENCE_MEMORY         = "memory";
+	public static final String MQTT_PERSISTENCE_FILE           = "file";
+	
+	public static final String DEFAULT_MQTT_PERSISTENCE_PATH   = "./data/mqtt";
+	public static final int    DEFAULT_MQTT_PERSISTENCE_SEGMENT_SIZE = 1048576;
+	
+	// payload scan (routing before decode)
+	public static final String ENABLE_PAYLOAD_SCAN_KEY         = "enablePayloadScan";
+	
+	// cloud uplink deadband filter
+	public static final String ENABLE_DEADBAND_FILTER_KEY      = "enableDeadbandFilter";
+	public static final String DEADBAND_KEY                    = "deadband";
+	public static final String DEADBAND_PERCENT_KEY            = "deadbandPercent";
+	public static final String MAX_SILENCE_SECS_KEY            = "maxSilenceSecs";
+	
+	public static final float  DEFAULT_DEADBAND                = 0.0f;
+	public static final float  DEFAULT_DEADBAND_PERCENT        = 0.0f;
+	public static final int    DEFAULT_MAX_SILENCE_SECS        = 300;
+	
+	// ordered dispatch
+	public static final String ENABLE_ORDERED_DISPATCH_KEY     = "enableOrderedDispatch";
+	public static final String DISPATCH_LANES_KEY              = "dispatchLanes";
+	public static final String DISPATCH_QUEUE_SIZE_KEY         = "dispatchQueueSize";
+	
+	public static final int    DEFAULT_DISPATCH_LANES          = 0; // 0 = one per available processor
+	public static final int    DEFAULT_DISPATCH_QUEUE_SIZE     = 1024;
+	
+	// thread mode
+	public static final String ENABLE_VIRTUAL_THREADS_KEY      = "enableVirtualThreads";
+	public static final String TASK_POOL_SIZE_KEY              = "taskPoolSize";
+	
+	public static final int    DEFAULT_TASK_POOL_SIZE          = 8;
+	
+	// event logging
+	public static final String ENABLE_ASYNC_EVENT_LOG_KEY      = "enableAsyncEventLog";
+	public static final String EVENT_LOG_QUEUE_SIZE_KEY        = "eventLogQueueSize";
+	public static final String EVENT_LOG_SAMPLE_LIMIT_KEY      = "eventLogSampleLimit";
+	public static final String EVENT_LOG_SAMPLE_WINDOW_KEY     = "eventLogSampleWindowMillis";
+	
+	public static final int    DEFAULT_EVENT_LOG_QUEUE_SIZE    = 4096;
+	public static final int    DEFAULT_EVENT_LOG_SAMPLE_LIMIT  = 5;
+	public static final int    DEFAULT_EVENT_LOG_SAMPLE_WINDOW = 1000;
+	
+	// latency tracing
+	public static final String ENABLE_LATENCY_TRACING_KEY      = "enableLatencyTracing";
+	public static final String LATENCY_REPORT_SECS_KEY         = "latencyReportSecs";
+	
+	public static final int    DEFAULT_LATENCY_REPORT_SECS     = 60;
+
+	// loopback pub/sub and fleet simulation
+	public static final String USE_LOOPBACK_PUB_SUB_KEY        = "useLoopbackPubSub";
+	public static final String LOOPBACK_QUEUE_SIZE_KEY         = "loopbackQueueSize";
+	public static final String LOOPBACK_DELIVERY_THREADS_KEY   = "loopbackDeliveryThreads";
+	public static final String ENABLE_FLEET_SIMULATOR_KEY      = "enableFleetSimulator";
+	public static final String FLEET_SIZE_KEY                  = "fleetSize";
+	public static final String FLEET_LOCATION_ID_PREFIX_KEY    = "fleetLocationIDPrefix";
+	public static final String FLEET_SENSOR_INTERVAL_KEY       = "fleetSensorIntervalMillis";
+	public static final String FLEET_SYS_PERF_INTERVAL_KEY     = "fleetSysPerfIntervalMillis";
+	public static final String FLEET_JITTER_PCT_KEY            = "fleetJitterPct";
+	public static final String FLEET_THREADS_KEY               = "fleetThreads";
+	public static final String FLEET_REPORT_SECS_KEY           = "fleetReportSecs";
+
+	public static final int    DEFAULT_LOOPBACK_QUEUE_SIZE     = 16384;
+	public static final int    DEFAULT_LOOPBACK_DELIVERY_THREADS = 1;
+	public static final int    DEFAULT_FLEET_SIZE              = 100;
+	public static final String DEFAULT_FLEET_LOCATION_ID_PREFIX = "constraineddevice";
+	public static final int    DEFAULT_FLEET_SENSOR_INTERVAL   = 1000;
+	public static final int    DEFAULT_FLEET_SYS_PERF_INTERVAL = 5000;
+	public static final int    DEFAULT_FLEET_JITTER_PCT        = 20;
+	public static final int    DEFAULT_FLEET_THREADS           = 2;
+	public static final int    DEFAULT_FLEET_REPORT_SECS       = 10;
+
+	// payload formats; the per-resource key is PAYLOAD_FORMAT_KEY followed
+	// by the resource type (e.g. payloadFormatActuatorCmd)
+	public static final String PAYLOAD_FORMAT_KEY              = "payloadFormat";
+
+	public static final String DEFAULT_PAYLOAD_FORMAT          = "json";
+
 	// constructors
 	
 	/**
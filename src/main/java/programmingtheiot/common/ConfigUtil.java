@@ -57,6 +57,9 @@ public class ConfigUtil
 	private boolean isLoaded = false;
 	private String  configFileName = ConfigConst.DEFAULT_CONFIG_FILE_NAME;
 	
+	// incremented on every (re)load, so cached values can be refreshed
+	private volatile int loadCount = 0;
+	
 	
 	// constructors
 	
@@ -267,6 +270,19 @@ public class ConfigUtil
 		return isLoaded;
 	}
 	
+	/**
+	 * Returns the number of times the configuration has been loaded. This
+	 * isn't synchronized, so callers that cache values read from the
+	 * configuration (to avoid the synchronized getters on a hot path) can
+	 * cheaply check whether the cached values need to be read again.
+	 * 
+	 * @return int The load count, which is at least 1 once constructed.
+	 */
+	public int getLoadCount()
+	{
+		return this.loadCount;
+	}
+	
 	/**
 	 * Attempts to load a separate configuration 'credential' file comprised
 	 * of simple key = value pairs. The assumption with this call is that
@@ -381,6 +397,8 @@ public class ConfigUtil
 		
 		this.initBackingProperties();
 		this.loadConfig();
+		
+		this.loadCount++;
 	}
 	
 	// private methods
@@ -0,0 +1,366 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.common;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Structured, low-overhead event logger for hot paths (e.g. once per
+ * inbound message), built on top of java.util.logging.
+ * <p>
+ * Events are a name plus key / value pairs, written as
+ * 'event key1=value1 key2=value2'. To keep the cost on the calling
+ * thread down:
+ * <ul>
+ * <li>Nothing is formatted if the level isn't loggable.</li>
+ * <li>Formatting is deferred to a single background appender thread,
+ * which hands the record to the underlying logger's handlers. The
+ * appender queue is bounded; if it fills up, events are dropped and
+ * counted rather than blocking the caller.</li>
+ * <li>Sampled events are rate limited per (event, sample key), e.g. per
+ * resource or device, to {@link ConfigConst#EVENT_LOG_SAMPLE_LIMIT_KEY}
+ * events per window. The next event emitted for a key reports how many
+ * were suppressed.</li>
+ * </ul>
+ * Since formatting is deferred, values should be immutable (strings,
+ * numbers, enums) or at least not modified after they're logged.
+ *
+ */
+public class EventLogger
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(EventLogger.class.getName());
+
+	private static final int MAX_SAMPLE_KEYS = 10000;
+
+	private static final Map<String, EventLogger> _Loggers = new ConcurrentHashMap<>();
+
+	private static final Appender _Appender = new Appender();
+
+	/**
+	 * Returns the event logger for the given class, creating it if needed.
+	 *
+	 * @param cls The class doing the logging.
+	 * @return EventLogger
+	 */
+	public static EventLogger getLogger(Class<?> cls)
+	{
+		return _Loggers.computeIfAbsent(cls.getName(), (name) -> new EventLogger(name));
+	}
+
+
+	// private var's
+
+	private final String name;
+	private final Logger logger;
+	private final Map<String, Map<Object, SampleWindow>> sampleWindows = new ConcurrentHashMap<>();
+
+	// constructors
+
+	private EventLogger(String name)
+	{
+		super();
+
+		this.name = name;
+		this.logger = Logger.getLogger(name);
+	}
+
+
+	// public methods
+
+	public boolean isLoggable(Level level)
+	{
+		return this.logger.isLoggable(level);
+	}
+
+	public void fine(String event, Object... keyValues)
+	{
+		log(Level.FINE, event, keyValues);
+	}
+
+	public void info(String event, Object... keyValues)
+	{
+		log(Level.INFO, event, keyValues);
+	}
+
+	public void warning(String event, Object... keyValues)
+	{
+		log(Level.WARNING, event, keyValues);
+	}
+
+	public void fineSampled(String event, Object sampleKey, Object... keyValues)
+	{
+		logSampled(Level.FINE, event, sampleKey, keyValues);
+	}
+
+	public void infoSampled(String event, Object sampleKey, Object... keyValues)
+	{
+		logSampled(Level.INFO, event, sampleKey, keyValues);
+	}
+
+	/**
+	 * Logs the event, unless the level isn't loggable.
+	 *
+	 * @param level The log level.
+	 * @param event The event name.
+	 * @param keyValues Alternating keys and values.
+	 */
+	public void log(Level level, String event, Object... keyValues)
+	{
+		if (this.logger.isLoggable(level)) {
+			_Appender.append(new Event(this, level, event, keyValues, 0));
+		}
+	}
+
+	/**
+	 * Logs the event, unless the level isn't loggable or the rate limit
+	 * for the (event, sample key) pair has been reached.
+	 *
+	 * @param level The log level.
+	 * @param event The event name.
+	 * @param sampleKey The key to rate limit on (e.g. the resource or location ID).
+	 * @param keyValues Alternating keys and values.
+	 */
+	public void logSampled(Level level, String event, Object sampleKey, Object... keyValues)
+	{
+		if (! this.logger.isLoggable(level)) {
+			return;
+		}
+
+		Map<Object, SampleWindow> windows =
+			this.sampleWindows.computeIfAbsent(event, (key) -> new ConcurrentHashMap<>());
+
+		if (windows.size() > MAX_SAMPLE_KEYS) {
+			windows.clear();
+		}
+
+		SampleWindow window =
+			windows.computeIfAbsent((sampleKey != null ? sampleKey : ConfigConst.NOT_SET), (key) -> new SampleWindow());
+
+		int suppressedCount = window.tryAcquire(System.currentTimeMillis());
+
+		if (suppressedCount >= 0) {
+			_Appender.append(new Event(this, level, event, keyValues, suppressedCount));
+		}
+	}
+
+	/**
+	 * Returns the number of events dropped because the appender queue was full.
+	 *
+	 * @return long
+	 */
+	public static long getDroppedCount()
+	{
+		return _Appender.droppedCount.get();
+	}
+
+	public static int getSampleLimit()
+	{
+		return _Appender.sampleLimit;
+	}
+
+	public static long getSampleWindowMillis()
+	{
+		return _Appender.sampleWindowMillis;
+	}
+
+
+	// private methods
+
+	private void write(Event event)
+	{
+		LogRecord record = new LogRecord(event.level, event.format());
+
+		// setting these explicitly avoids JUL walking the stack to infer them
+		record.setLoggerName(this.name);
+		record.setSourceClassName(this.name);
+		record.setSourceMethodName(event.event);
+		record.setInstant(Instant.ofEpochMilli(event.timeStampMillis));
+
+		this.logger.log(record);
+	}
+
+
+	/**
+	 * A single event, captured unformatted.
+	 *
+	 */
+	private static final class Event
+	{
+		private final EventLogger source;
+		private final Level level;
+		private final String event;
+		private final Object[] keyValues;
+		private final int suppressedCount;
+		private final long timeStampMillis = System.currentTimeMillis();
+
+		private Event(EventLogger source, Level level, String event, Object[] keyValues, int suppressedCount)
+		{
+			this.source = source;
+			this.level = level;
+			this.event = event;
+			this.keyValues = keyValues;
+			this.suppressedCount = suppressedCount;
+		}
+
+		private String format()
+		{
+			StringBuilder sb = new StringBuilder(this.event);
+
+			if (this.keyValues != null) {
+				for (int i = 0; i < this.keyValues.length; i += 2) {
+					sb.append(' ').append(this.keyValues[i]).append('=');
+
+					if (i + 1 < this.keyValues.length) {
+						sb.append(this.keyValues[i + 1]);
+					}
+				}
+			}
+
+			if (this.suppressedCount > 0) {
+				sb.append(" suppressed=").append(this.suppressedCount);
+			}
+
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * Fixed window rate limiter for a single sample key.
+	 *
+	 */
+	private static final class SampleWindow
+	{
+		private final AtomicLong windowStartMillis = new AtomicLong();
+		private final AtomicInteger windowCount = new AtomicInteger();
+		private final AtomicInteger suppressedCount = new AtomicInteger();
+
+		/**
+		 * Returns the number of events suppressed since the last one that
+		 * was allowed, or -1 if this event should be suppressed.
+		 *
+		 */
+		private int tryAcquire(long nowMillis)
+		{
+			long startMillis = this.windowStartMillis.get();
+
+			if (nowMillis - startMillis >= _Appender.sampleWindowMillis &&
+				this.windowStartMillis.compareAndSet(startMillis, nowMillis)) {
+				this.windowCount.set(0);
+			}
+
+			if (this.windowCount.incrementAndGet() <= _Appender.sampleLimit) {
+				return this.suppressedCount.getAndSet(0);
+			}
+
+			this.suppressedCount.incrementAndGet();
+
+			return -1;
+		}
+	}
+
+	/**
+	 * Bounded, asynchronous appender shared by all event loggers.
+	 *
+	 */
+	private static final class Appender
+	{
+		private final boolean isAsync;
+		private final int sampleLimit;
+		private final long sampleWindowMillis;
+		private final BlockingQueue<Event> queue;
+		private final AtomicLong droppedCount = new AtomicLong();
+
+		private Appender()
+		{
+			ConfigUtil configUtil = ConfigUtil.getInstance();
+
+			this.isAsync = configUtil.getBoolean(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_ASYNC_EVENT_LOG_KEY);
+			this.sampleLimit = configUtil.getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.EVENT_LOG_SAMPLE_LIMIT_KEY, ConfigConst.DEFAULT_EVENT_LOG_SAMPLE_LIMIT);
+			this.sampleWindowMillis = configUtil.getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.EVENT_LOG_SAMPLE_WINDOW_KEY, ConfigConst.DEFAULT_EVENT_LOG_SAMPLE_WINDOW);
+
+			int queueSize = configUtil.getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.EVENT_LOG_QUEUE_SIZE_KEY, ConfigConst.DEFAULT_EVENT_LOG_QUEUE_SIZE);
+
+			this.queue = (this.isAsync ? new ArrayBlockingQueue<>(Math.max(1, queueSize)) : null);
+
+			if (this.isAsync) {
+				Thread thread = new Thread(this::run, "event-log-appender");
+				thread.setDaemon(true);
+				thread.start();
+
+				Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "event-log-flush"));
+			}
+		}
+
+		private void append(Event event)
+		{
+			if (! this.isAsync) {
+				event.source.write(event);
+			} else if (! this.queue.offer(event)) {
+				this.droppedCount.incrementAndGet();
+			}
+		}
+
+		private void run()
+		{
+			long lastDroppedCount = 0L;
+
+			while (true) {
+				try {
+					Event event = this.queue.poll(1L, TimeUnit.SECONDS);
+
+					if (event != null) {
+						event.source.write(event);
+					}
+
+					long droppedCount = this.droppedCount.get();
+
+					if (droppedCount != lastDroppedCount && this.queue.isEmpty()) {
+						_Logger.warning("Event log queue full. Dropped events: " + (droppedCount - lastDroppedCount));
+						lastDroppedCount = droppedCount;
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				} catch (Exception e) {
+					_Logger.log(Level.WARNING, "Failed to write event.", e);
+				}
+			}
+		}
+
+		private void drain()
+		{
+			Event event = null;
+
+			while ((event = this.queue.poll()) != null) {
+				event.source.write(event);
+			}
+		}
+	}
+
+}
@@ -9,6 +9,9 @@
 package programmingtheiot.common;
 
 import programmingtheiot.data.ActuatorData;
+import java.util.List;
+
+import programmingtheiot.data.DataUtil;
 import programmingtheiot.data.SensorData;
 import programmingtheiot.data.SystemPerformanceData;
 
@@ -29,6 +32,33 @@ public interface IDataMessageListener
 	 */
 	public boolean handleActuatorCommandResponse(ResourceNameEnum resourceName, ActuatorData data);
 
+	/**
+	 * Callback signature for passing a batch of actuator command responses.
+	 * <p>
+	 * The default implementation calls
+	 * {@link #handleActuatorCommandResponse(ResourceNameEnum, ActuatorData)}
+	 * for each item. Implementations should override this if they can
+	 * handle the batch with less per-item overhead.
+	 * 
+	 * @param resourceName The enum representing the String resource name.
+	 * @param dataList The ActuatorData batch, in the order received.
+	 * @return True if every item was handled successfully; false otherwise.
+	 */
+	public default boolean handleActuatorCommandResponses(ResourceNameEnum resourceName, List<ActuatorData> dataList)
+	{
+		if (dataList == null) {
+			return false;
+		}
+		
+		boolean success = true;
+		
+		for (ActuatorData data : dataList) {
+			success &= handleActuatorCommandResponse(resourceName, data);
+		}
+		
+		return success;
+	}
+
 	/**
 	 * Callback signature for data message passing using the given parameters.
 	 * 
@@ -49,6 +79,64 @@ public interface IDataMessageListener
 	 */
 	public boolean handleIncomingMessage(ResourceNameEnum resourceName, String msg);
 	
+	/**
+	 * Callback signature for passing a raw (undecoded) JSON payload
+	 * received from a connection using either MQTT or CoAP.
+	 * <p>
+	 * The default implementation calls
+	 * {@link #handleRawDataMessage(ResourceNameEnum, byte[], PayloadFormatEnum)}
+	 * with {@link PayloadFormatEnum#JSON}.
+	 * 
+	 * @param resourceName The enum representing the String resource name.
+	 * @param payload The raw message payload.
+	 * @return True on success; false otherwise.
+	 */
+	public default boolean handleRawDataMessage(ResourceNameEnum resourceName, byte[] payload)
+	{
+		return handleRawDataMessage(resourceName, payload, PayloadFormatEnum.JSON);
+	}
+	
+	/**
+	 * Callback signature for passing a raw (undecoded) payload received
+	 * from a connection using either MQTT or CoAP, in the given format.
+	 * <p>
+	 * The default implementation decodes the payload on the calling thread
+	 * based on the resource name and delegates to the matching typed callback.
+	 * Implementations may override this to defer decoding (e.g. to hand the
+	 * payload off to a worker thread so the connection's callback thread
+	 * isn't blocked).
+	 * 
+	 * @param resourceName The enum representing the String resource name.
+	 * @param payload The raw message payload.
+	 * @param format The payload format.
+	 * @return True on success; false otherwise.
+	 */
+	public default boolean handleRawDataMessage(ResourceNameEnum resourceName, byte[] payload, PayloadFormatEnum format)
+	{
+		if (resourceName == null || payload == null) {
+			return false;
+		}
+		
+		DataUtil dataUtil = DataUtil.getInstance();
+		
+		switch (resourceName) {
+			case CDA_ACTUATOR_RESPONSE_RESOURCE:
+				return handleActuatorCommandResponse(
+					resourceName, dataUtil.bytesToActuatorData(payload, format));
+				
+			case CDA_SENSOR_MSG_RESOURCE:
+				return handleSensorMessage(
+					resourceName, dataUtil.bytesToSensorData(payload, format));
+				
+			case CDA_SYSTEM_PERF_MSG_RESOURCE:
+				return handleSystemPerformanceMessage(
+					resourceName, dataUtil.bytesToSystemPerformanceData(payload, format));
+				
+			default:
+				return false;
+		}
+	}
+	
 	/**
 	 * Callback signature for data message passing using the given parameters.
 	 * 
@@ -59,6 +147,33 @@ public interface IDataMessageListener
 	 */
 	public boolean handleSensorMessage(ResourceNameEnum resourceName, SensorData data);
 	
+	/**
+	 * Callback signature for passing a batch of sensor messages.
+	 * <p>
+	 * The default implementation calls
+	 * {@link #handleSensorMessage(ResourceNameEnum, SensorData)}
+	 * for each item. Implementations should override this if they can
+	 * handle the batch with less per-item overhead.
+	 * 
+	 * @param resourceName The enum representing the String resource name.
+	 * @param dataList The SensorData batch, in the order received.
+	 * @return True if every item was handled successfully; false otherwise.
+	 */
+	public default boolean handleSensorMessages(ResourceNameEnum resourceName, List<SensorData> dataList)
+	{
+		if (dataList == null) {
+			return false;
+		}
+		
+		boolean success = true;
+		
+		for (SensorData data : dataList) {
+			success &= handleSensorMessage(resourceName, data);
+		}
+		
+		return success;
+	}
+	
 	/**
 	 * Callback signature for data message passing using the given parameters.
 	 * 
@@ -69,6 +184,34 @@ public interface IDataMessageListener
 	 */
 	public boolean handleSystemPerformanceMessage(ResourceNameEnum resourceName, SystemPerformanceData data);
 	
+	/**
+	 * Callback signature for passing a batch of system performance messages.
+	 * <p>
+	 * The default implementation calls
+	 * {@link #handleSystemPerformanceMessage(ResourceNameEnum, SystemPerformanceData)}
+	 * for each item. Implementations should override this if they can
+	 * handle the batch with less per-item overhead.
+	 * 
+	 * @param resourceName The enum representing the String resource name.
+	 * @param dataList The SystemPerformanceData batch, in the order received.
+	 * @return True if every item was handled successfully; false otherwise.
+	 */
+	public default boolean handleSystemPerformanceMessages(
+		ResourceNameEnum resourceName, List<SystemPerformanceData> dataList)
+	{
+		if (dataList == null) {
+			return false;
+		}
+		
+		boolean success = true;
+		
+		for (SystemPerformanceData data : dataList) {
+			success &= handleSystemPerformanceMessage(resourceName, data);
+		}
+		
+		return success;
+	}
+	
 	/**
 	 * Sets the actuator data listener.
 	 * 
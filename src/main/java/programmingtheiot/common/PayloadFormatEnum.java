@@ -0,0 +1,146 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.common;
+
+/**
+ * The wire formats supported for IoT data payloads, and how each is
+ * signalled: by CoAP Content-Format (see RFC 7252 and RFC 8949), and
+ * by a suffix appended to the MQTT topic. JSON is the default, and is
+ * used whenever the format isn't signalled or isn't recognized.
+ *
+ */
+public enum PayloadFormatEnum
+{
+	// static
+
+	JSON("json", 50, ""),
+	CBOR("cbor", 60, "/cbor");
+
+	/**
+	 * Convenience method for looking up an enum type based on its name
+	 * (case insensitive), as used in the config file. If the lookup
+	 * fails, null will be returned.
+	 *
+	 * @param valStr The name of the enum to lookup.
+	 * @return PayloadFormatEnum The enum instance, or null if not found.
+	 */
+	public static PayloadFormatEnum getEnumFromValue(String valStr)
+	{
+		if (valStr != null) {
+			for (PayloadFormatEnum format : values()) {
+				if (format.name.equalsIgnoreCase(valStr.trim())) {
+					return format;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the format for the CoAP Content-Format option value,
+	 * falling back to JSON if the value isn't set or isn't recognized.
+	 *
+	 * @param contentFormat The Content-Format value (-1 if not set).
+	 * @return PayloadFormatEnum
+	 */
+	public static PayloadFormatEnum getEnumFromContentFormat(int contentFormat)
+	{
+		return (contentFormat == CBOR.contentFormat ? CBOR : JSON);
+	}
+
+	/**
+	 * Returns the format signalled by the MQTT topic's suffix, falling
+	 * back to JSON if it has none.
+	 *
+	 * @param topic The topic.
+	 * @return PayloadFormatEnum
+	 */
+	public static PayloadFormatEnum getEnumFromTopic(String topic)
+	{
+		return (topic != null && topic.endsWith(CBOR.topicSuffix) ? CBOR : JSON);
+	}
+
+
+	// private var's
+
+	private String name = null;
+	private int contentFormat = 0;
+	private String topicSuffix = null;
+
+
+	// constructor
+
+	private PayloadFormatEnum(String name, int contentFormat, String topicSuffix)
+	{
+		this.name = name;
+		this.contentFormat = contentFormat;
+		this.topicSuffix = topicSuffix;
+	}
+
+
+	// public methods
+
+	/**
+	 *
+	 * @return String The name, as used in the config file.
+	 */
+	public String getName()
+	{
+		return this.name;
+	}
+
+	/**
+	 *
+	 * @return int The CoAP Content-Format option value.
+	 */
+	public int getContentFormat()
+	{
+		return this.contentFormat;
+	}
+
+	/**
+	 *
+	 * @return String The suffix appended to the MQTT topic (empty for JSON).
+	 */
+	public String getTopicSuffix()
+	{
+		return this.topicSuffix;
+	}
+
+	/**
+	 * Returns the MQTT topic to use for the resource in this format.
+	 *
+	 * @param resource The resource.
+	 * @return String
+	 */
+	public String getTopic(ResourceNameEnum resource)
+	{
+		return resource.getResourceName() + this.topicSuffix;
+	}
+
+	/**
+	 * Returns the resource topic with this format's suffix removed, if it has it.
+	 *
+	 * @param topic The topic.
+	 * @return String
+	 */
+	public String stripTopicSuffix(String topic)
+	{
+		if (this.topicSuffix.isEmpty() || ! topic.endsWith(this.topicSuffix)) {
+			return topic;
+		}
+
+		return topic.substring(0, topic.length() - this.topicSuffix.length());
+	}
+
+}
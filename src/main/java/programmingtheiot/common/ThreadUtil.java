@@ -0,0 +1,218 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.common;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates the threads and executors used for blocking, per-message work
+ * within the gateway.
+ * <p>
+ * If virtual thread mode is enabled (see
+ * {@link ConfigConst#ENABLE_VIRTUAL_THREADS_KEY}) and the JVM supports
+ * virtual threads (Java 21+), the factories and executors returned here
+ * create virtual threads, so blocking I/O no longer ties up a small pool
+ * of platform threads. Otherwise they fall back to daemon platform threads.
+ * <p>
+ * The project still targets Java 11, so the virtual thread API is
+ * accessed via reflection.
+ *
+ */
+public class ThreadUtil
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(ThreadUtil.class.getName());
+
+	private static final ThreadUtil _Instance = new ThreadUtil();
+
+	/**
+	 * Returns the Singleton instance of this class.
+	 *
+	 * @return ThreadUtil
+	 */
+	public static final ThreadUtil getInstance()
+	{
+		return _Instance;
+	}
+
+
+	// private var's
+
+	private boolean isVirtualThreadSupported = false;
+	private boolean useVirtualThreads = false;
+	private int taskPoolSize = ConfigConst.DEFAULT_TASK_POOL_SIZE;
+
+	// constructors
+
+	/**
+	 * Default (private).
+	 *
+	 */
+	private ThreadUtil()
+	{
+		super();
+
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		this.isVirtualThreadSupported = checkVirtualThreadSupport();
+
+		this.taskPoolSize = configUtil.getInteger(
+			ConfigConst.GATEWAY_DEVICE, ConfigConst.TASK_POOL_SIZE_KEY, ConfigConst.DEFAULT_TASK_POOL_SIZE);
+
+		if (this.taskPoolSize <= 0) {
+			this.taskPoolSize = ConfigConst.DEFAULT_TASK_POOL_SIZE;
+		}
+
+		if (configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_VIRTUAL_THREADS_KEY)) {
+			if (this.isVirtualThreadSupported) {
+				this.useVirtualThreads = true;
+				_Logger.info("Virtual thread mode enabled");
+			} else {
+				_Logger.warning(
+					"Virtual thread mode requested, but not supported by this JVM (" +
+					System.getProperty("java.version") + "). Using platform threads.");
+			}
+		}
+	}
+
+
+	// public methods
+
+	/**
+	 * Returns true if the running JVM supports virtual threads.
+	 *
+	 * @return boolean
+	 */
+	public boolean isVirtualThreadSupported()
+	{
+		return this.isVirtualThreadSupported;
+	}
+
+	/**
+	 * Returns true if virtual thread mode is enabled and supported.
+	 *
+	 * @return boolean
+	 */
+	public boolean useVirtualThreads()
+	{
+		return this.useVirtualThreads;
+	}
+
+	public int getTaskPoolSize()
+	{
+		return this.taskPoolSize;
+	}
+
+	/**
+	 * Returns a thread factory using the configured thread mode.
+	 *
+	 * @param namePrefix The thread name prefix; threads are named with a
+	 * sequence number appended, starting at 1.
+	 * @return ThreadFactory
+	 */
+	public ThreadFactory createThreadFactory(String namePrefix)
+	{
+		return createThreadFactory(namePrefix, this.useVirtualThreads);
+	}
+
+	/**
+	 * Returns a thread factory for either virtual or platform threads.
+	 * Platform threads are created as daemon threads.
+	 *
+	 * @param namePrefix The thread name prefix.
+	 * @param useVirtualThreads True for virtual threads; ignored if they aren't supported.
+	 * @return ThreadFactory
+	 */
+	public ThreadFactory createThreadFactory(String namePrefix, boolean useVirtualThreads)
+	{
+		if (useVirtualThreads && this.isVirtualThreadSupported) {
+			try {
+				Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+				Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+
+				builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 1L);
+
+				return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+			} catch (Exception e) {
+				_Logger.log(Level.WARNING, "Failed to create virtual thread factory. Using platform threads.", e);
+			}
+		}
+
+		AtomicInteger threadCount = new AtomicInteger();
+
+		return (runnable) -> {
+			Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+
+			return thread;
+		};
+	}
+
+	/**
+	 * Returns an executor for blocking tasks using the configured thread
+	 * mode. In virtual thread mode, every task gets its own virtual
+	 * thread; otherwise tasks share a fixed pool of platform threads
+	 * sized by {@link ConfigConst#TASK_POOL_SIZE_KEY}.
+	 *
+	 * @param namePrefix The thread name prefix.
+	 * @return ExecutorService
+	 */
+	public ExecutorService createTaskExecutor(String namePrefix)
+	{
+		return createTaskExecutor(namePrefix, this.useVirtualThreads);
+	}
+
+	/**
+	 * Returns an executor for blocking tasks on either virtual or platform threads.
+	 *
+	 * @param namePrefix The thread name prefix.
+	 * @param useVirtualThreads True for virtual threads; ignored if they aren't supported.
+	 * @return ExecutorService
+	 */
+	public ExecutorService createTaskExecutor(String namePrefix, boolean useVirtualThreads)
+	{
+		if (useVirtualThreads && this.isVirtualThreadSupported) {
+			try {
+				Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+
+				return (ExecutorService) method.invoke(null, createThreadFactory(namePrefix, true));
+			} catch (Exception e) {
+				_Logger.log(Level.WARNING, "Failed to create virtual thread executor. Using platform threads.", e);
+			}
+		}
+
+		return Executors.newFixedThreadPool(this.taskPoolSize, createThreadFactory(namePrefix, false));
+	}
+
+
+	// private methods
+
+	private boolean checkVirtualThreadSupport()
+	{
+		try {
+			Thread.class.getMethod("ofVirtual");
+
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+}
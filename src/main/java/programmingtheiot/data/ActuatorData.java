@@ -21,6 +21,17 @@ public class ActuatorData extends BaseIotData
 {
 	// static
 	
+	private static final byte[] JSON_COMMAND     = JsonByteWriter.encodeName(ConfigConst.COMMAND_PROP);
+	private static final byte[] JSON_VALUE       = JsonByteWriter.encodeName(ConfigConst.VALUE_PROP);
+	private static final byte[] JSON_IS_RESPONSE = JsonByteWriter.encodeName(ConfigConst.IS_RESPONSE_PROP);
+	private static final byte[] JSON_STATE_DATA  = JsonByteWriter.encodeName(ConfigConst.STATE_DATA_PROP);
+	
+	// CBOR map keys (see BaseIotData)
+	private static final int CBOR_VALUE       = 10;
+	private static final int CBOR_STATE_DATA  = 11;
+	private static final int CBOR_COMMAND     = 12;
+	private static final int CBOR_IS_RESPONSE = 13;
+	
 	
 	// private var's
 	
@@ -40,6 +51,17 @@ public class ActuatorData extends BaseIotData
 		super();
 	}
 	
+	/**
+	 * Constructor for decoders, which skips the config file defaults
+	 * (see {@link BaseIotData#BaseIotData(boolean)}).
+	 * 
+	 * @param useConfigDefaults If true, the location ID is set from the config file.
+	 */
+	ActuatorData(boolean useConfigDefaults)
+	{
+		super(useConfigDefaults);
+	}
+	
 	
 	// public methods
 	
@@ -103,6 +125,86 @@ public class ActuatorData extends BaseIotData
 	
 	// protected methods
 	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleWriteJson(programmingtheiot.data.JsonByteWriter)
+	 */
+	protected void handleWriteJson(JsonByteWriter writer)
+	{
+		writer.name(JSON_COMMAND).value(this.command);
+		writer.name(JSON_VALUE).value(this.value);
+		writer.name(JSON_IS_RESPONSE).value(this.isResponse);
+		
+		if (this.stateData != null) { writer.name(JSON_STATE_DATA).value(this.stateData); }
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleReadJson(programmingtheiot.data.JsonByteReader)
+	 */
+	protected boolean handleReadJson(JsonByteReader reader)
+	{
+		if (reader.isName(JSON_COMMAND)) {
+			if (! reader.nextNull()) { this.command = reader.nextInt(); }
+		} else if (reader.isName(JSON_VALUE)) {
+			if (! reader.nextNull()) { this.value = reader.nextFloat(); }
+		} else if (reader.isName(JSON_IS_RESPONSE)) {
+			if (! reader.nextNull()) { this.isResponse = reader.nextBoolean(); }
+		} else if (reader.isName(JSON_STATE_DATA)) {
+			this.stateData = reader.nextString();
+		} else {
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleWriteCbor(programmingtheiot.data.CborByteWriter)
+	 */
+	protected void handleWriteCbor(CborByteWriter writer)
+	{
+		writer.key(CBOR_COMMAND).value(this.command);
+		writer.key(CBOR_VALUE).value(this.value);
+		
+		if (this.isResponse) { writer.key(CBOR_IS_RESPONSE).value(true); }
+		if (this.stateData != null) { writer.key(CBOR_STATE_DATA).value(this.stateData); }
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleReadCbor(int, programmingtheiot.data.CborByteReader)
+	 */
+	protected boolean handleReadCbor(int key, CborByteReader reader)
+	{
+		switch (key) {
+			case CBOR_COMMAND:
+				if (! reader.nextNull()) { this.command = reader.nextInt(); }
+				break;
+			case CBOR_VALUE:
+				if (! reader.nextNull()) { this.value = reader.nextFloat(); }
+				break;
+			case CBOR_IS_RESPONSE:
+				if (! reader.nextNull()) { this.isResponse = reader.nextBoolean(); }
+				break;
+			case CBOR_STATE_DATA:
+				this.stateData = reader.nextString();
+				break;
+			default:
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleResetData()
+	 */
+	protected void handleResetData()
+	{
+		this.command = ConfigConst.DEFAULT_COMMAND;
+		this.value = ConfigConst.DEFAULT_VAL;
+		this.isResponse = false;
+		this.stateData = "";
+	}
+	
 	/* (non-Javadoc)
 	 * @see programmingtheiot.data.BaseIotData#handleUpdateData(programmingtheiot.data.BaseIotData)
 	 */
@@ -0,0 +1,164 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.Gson;
+
+/**
+ * The messages of an LLM conversation, with each message's JSON encoding
+ * cached as it's appended. A send message request is assembled by
+ * splicing the cached encodings together (see
+ * {@link #toSendMessageJson(String, boolean, float)}), so the cost of
+ * encoding a request depends on the new message, rather than on the
+ * length of the conversation.
+ * <p>
+ * The request is the same, byte for byte, as Gson's encoding of an
+ * {@link LLMHttpRequest} wrapping a {@link MessagesRequest}. Messages
+ * must not be changed once they're appended, as their cached encoding
+ * wouldn't change with them.
+ * <p>
+ * Instances are thread-safe.
+ *
+ */
+public class AnthropicConversation
+{
+	// static
+
+	public static final String SEND_MESSAGE_ENDPOINT = "send_message";
+
+	private static final String REQUEST_PREFIX =
+		"{\"endpoint\":\"" + SEND_MESSAGE_ENDPOINT + "\",\"data\":{\"messages\":[";
+
+	private static final Gson _Gson = new Gson();
+
+
+	// private var's
+
+	private final List<AnthropicMessage> messages = new ArrayList<>();
+
+	// the cached message encodings, comma separated
+	private final StringBuilder messagesJson = new StringBuilder(1024);
+
+	// reused for each request
+	private final StringBuilder requestJson = new StringBuilder(1024);
+
+	private String systemPrompt = null;
+	private String systemPromptJson = null;
+
+
+	// constructors
+
+	/**
+	 * Default constructor.
+	 *
+	 */
+	public AnthropicConversation()
+	{
+		super();
+	}
+
+
+	// public methods
+
+	/**
+	 * Appends the message, and caches its JSON encoding.
+	 *
+	 * @param message The message to append. Null is ignored.
+	 */
+	public synchronized void add(AnthropicMessage message)
+	{
+		if (message != null) {
+			if (! this.messages.isEmpty()) {
+				this.messagesJson.append(',');
+			}
+
+			this.messagesJson.append(_Gson.toJson(message));
+			this.messages.add(message);
+		}
+	}
+
+	/**
+	 * Removes all messages. The buffers are kept, for the next conversation.
+	 *
+	 */
+	public synchronized void clear()
+	{
+		this.messages.clear();
+		this.messagesJson.setLength(0);
+	}
+
+	/**
+	 * Returns an unmodifiable copy of the messages.
+	 *
+	 * @return List<AnthropicMessage>
+	 */
+	public synchronized List<AnthropicMessage> getMessages()
+	{
+		return Collections.unmodifiableList(new ArrayList<>(this.messages));
+	}
+
+	public synchronized boolean isEmpty()
+	{
+		return this.messages.isEmpty();
+	}
+
+	public synchronized int size()
+	{
+		return this.messages.size();
+	}
+
+	/**
+	 * Returns the JSON for a send message request with the conversation's
+	 * messages. Only the system prompt is encoded, and only if it has
+	 * changed since the last request.
+	 *
+	 * @param systemPrompt The system prompt. If null, it's omitted.
+	 * @param useTools True if the LLM may use tools.
+	 * @param randomness The randomness (temperature) of the response.
+	 * @return String The request JSON.
+	 * @throws IllegalArgumentException If randomness is NaN or infinite,
+	 * which Gson wouldn't encode either.
+	 */
+	public synchronized String toSendMessageJson(String systemPrompt, boolean useTools, float randomness)
+	{
+		if (! Float.isFinite(randomness)) {
+			throw new IllegalArgumentException("Invalid randomness: " + randomness);
+		}
+
+		if (systemPrompt == null) {
+			this.systemPrompt = null;
+			this.systemPromptJson = null;
+		} else if (! systemPrompt.equals(this.systemPrompt)) {
+			this.systemPrompt = systemPrompt;
+			this.systemPromptJson = _Gson.toJson(systemPrompt);
+		}
+
+		StringBuilder json = this.requestJson;
+
+		json.setLength(0);
+		json.append(REQUEST_PREFIX).append(this.messagesJson);
+		json.append("],\"randomness\":").append(randomness);
+
+		if (this.systemPromptJson != null) {
+			json.append(",\"sys_prompt\":").append(this.systemPromptJson);
+		}
+
+		json.append(",\"use_tools\":").append(useTools).append("}}");
+
+		return json.toString();
+	}
+
+}
@@ -32,10 +32,65 @@ public abstract class BaseIotData implements Serializable
 	 */
 	private static final long serialVersionUID = 7388066213262859698L;
 	
+	// JSON property names; these must match the field names used by Gson,
+	// and are package-private for use by PayloadFieldScanner
+	static final byte[] JSON_NAME              = JsonByteWriter.encodeName(ConfigConst.NAME_PROP);
+	static final byte[] JSON_TIME_STAMP        = JsonByteWriter.encodeName(ConfigConst.TIMESTAMP_PROP);
+	static final byte[] JSON_STATUS_CODE       = JsonByteWriter.encodeName(ConfigConst.STATUS_CODE_PROP);
+	static final byte[] JSON_TYPE_ID           = JsonByteWriter.encodeName(ConfigConst.TYPE_ID_PROP);
+	static final byte[] JSON_LOCATION_ID       = JsonByteWriter.encodeName(ConfigConst.LOCATION_ID_PROP);
+	static final byte[] JSON_LATITUDE          = JsonByteWriter.encodeName(ConfigConst.LATITUDE_PROP);
+	static final byte[] JSON_LONGITUDE         = JsonByteWriter.encodeName(ConfigConst.LONGITUDE_PROP);
+	static final byte[] JSON_ELEVATION         = JsonByteWriter.encodeName(ConfigConst.ELEVATION_PROP);
+	static final byte[] JSON_TIME_STAMP_MILLIS = JsonByteWriter.encodeName("timeStampMillis");
+	
+	// CBOR map keys; 1 - 9 are used here, and sub-classes use 10 - 23
+	// (which encode as a single byte), sharing keys for common properties
+	static final int CBOR_NAME              = 1;
+	static final int CBOR_TIME_STAMP        = 2;
+	static final int CBOR_STATUS_CODE       = 3;
+	static final int CBOR_TYPE_ID           = 4;
+	static final int CBOR_LOCATION_ID       = 5;
+	static final int CBOR_LATITUDE          = 6;
+	static final int CBOR_LONGITUDE         = 7;
+	static final int CBOR_ELEVATION         = 8;
+	static final int CBOR_TIME_STAMP_MILLIS = 9;
+	
+	// names and location IDs repeat from message to message, so are
+	// shared rather than decoded for every message (or scanned, see
+	// PayloadFieldScanner)
+	static final StringInterner _Interner = new StringInterner();
+	
+	// the configured location ID, and the config load count it was read at
+	private static volatile String _DefaultLocationID = null;
+	private static volatile int    _DefaultLocationIDLoadCount = 0;
+	
+	/**
+	 * Returns the location ID from the config file, which is cached so the
+	 * (synchronized) config lookup isn't repeated for every instance. The
+	 * cached value is refreshed if the config is reloaded.
+	 * 
+	 * @return String The location ID, or null if it isn't set.
+	 */
+	private static String getDefaultLocationID()
+	{
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+		int loadCount = configUtil.getLoadCount();
+		
+		if (_DefaultLocationIDLoadCount != loadCount) {
+			_DefaultLocationID =
+				configUtil.getProperty(ConfigConst.GATEWAY_DEVICE, ConfigConst.DEVICE_LOCATION_ID_KEY);
+			_DefaultLocationIDLoadCount = loadCount;
+		}
+		
+		return _DefaultLocationID;
+	}
+	
 	// private var's
 	
     private String  name       = ConfigConst.NOT_SET;
-	private String  timeStamp  = "";
+	// formatted from timeStampMillis on first access, if not set
+	private String  timeStamp  = null;
     private int     statusCode = ConfigConst.DEFAULT_STATUS;
     private int     typeID     = ConfigConst.DEFAULT_TYPE_ID;
     
@@ -57,14 +112,29 @@ public abstract class BaseIotData implements Serializable
 	 * 
 	 */
 	protected BaseIotData()
+	{
+		this(true);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * Updates the timestamp, and if requested, initializes the location ID
+	 * from the config file. Decoders, which set the properties from the
+	 * message, can skip the latter; properties missing from the message
+	 * then keep their declared defaults (e.g. {@see ConfigConst.NOT_SET}),
+	 * except for the location ID, which {@link #readJson(JsonByteReader)}
+	 * and {@link #readCbor(CborByteReader)} set from the config file.
+	 * 
+	 * @param useConfigDefaults If true, the location ID is set from the config file.
+	 */
+	protected BaseIotData(boolean useConfigDefaults)
 	{
 		super();
 		
-		String locID =
-			ConfigUtil.getInstance().getProperty(
-				ConfigConst.GATEWAY_DEVICE, ConfigConst.DEVICE_LOCATION_ID_KEY);
-		
-		this.setLocationID(locID);
+		if (useConfigDefaults) {
+			this.setLocationID(getDefaultLocationID());
+		}
 		
 		updateTimeStamp();
 	}
@@ -144,7 +214,15 @@ public abstract class BaseIotData implements Serializable
 	 */
 	public String getTimeStamp()
 	{
-		return this.timeStamp;
+		String timeStamp = this.timeStamp;
+		
+		// formatted on first use, as most instances never need it
+		if (timeStamp == null) {
+			timeStamp = DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(this.timeStampMillis));
+			this.timeStamp = timeStamp;
+		}
+		
+		return timeStamp;
 	}
 	
 	/**
@@ -281,7 +359,7 @@ public abstract class BaseIotData implements Serializable
 		
 		sb.append(ConfigConst.NAME_PROP).append('=').append(this.name).append(',');
 		sb.append(ConfigConst.TYPE_ID_PROP).append('=').append(this.typeID).append(',');
-		sb.append(ConfigConst.TIMESTAMP_PROP).append('=').append(this.timeStamp).append(',');
+		sb.append(ConfigConst.TIMESTAMP_PROP).append('=').append(getTimeStamp()).append(',');
 		sb.append(ConfigConst.STATUS_CODE_PROP).append('=').append(this.statusCode).append(',');
 		sb.append(ConfigConst.HAS_ERROR_PROP).append('=').append(this.hasError()).append(',');
 		sb.append(ConfigConst.LOCATION_ID_PROP).append('=').append(this.locationID).append(',');
@@ -323,9 +401,218 @@ public abstract class BaseIotData implements Serializable
 		}
 	}
 	
+	/**
+	 * Restores the state of a new instance created for decoding (see
+	 * {@link #BaseIotData(boolean)}), so the instance can be reused: all
+	 * properties are set back to their declared defaults, and the
+	 * timestamp is updated.
+	 * <p>
+	 * This will also trigger a call to the template method {@see #handleResetData()},
+	 * so the sub-class can do the same for its own properties.
+	 * 
+	 */
+	final void resetData()
+	{
+		this.name       = ConfigConst.NOT_SET;
+		this.statusCode = ConfigConst.DEFAULT_STATUS;
+		this.typeID     = ConfigConst.DEFAULT_TYPE_ID;
+		this.locationID = ConfigConst.NOT_SET;
+		this.latitude   = ConfigConst.DEFAULT_LAT;
+		this.longitude  = ConfigConst.DEFAULT_LON;
+		this.elevation  = ConfigConst.DEFAULT_ELEVATION;
+		
+		updateTimeStamp();
+		
+		handleResetData();
+	}
+	
+	
+	/**
+	 * Writes this instance as a JSON object, with the same content and
+	 * property order as Gson's default serialization: the sub-class
+	 * properties first (see {@link #handleWriteJson(JsonByteWriter)}),
+	 * then the base class properties, omitting any that are null.
+	 * 
+	 * @param writer The writer to write to.
+	 */
+	public final void writeJson(JsonByteWriter writer)
+	{
+		writer.beginObject();
+		
+		handleWriteJson(writer);
+		
+		if (this.name != null)       { writer.name(JSON_NAME).value(this.name); }
+		writer.name(JSON_TIME_STAMP).value(getTimeStamp());
+		writer.name(JSON_STATUS_CODE).value(this.statusCode);
+		writer.name(JSON_TYPE_ID).value(this.typeID);
+		if (this.locationID != null) { writer.name(JSON_LOCATION_ID).value(this.locationID); }
+		writer.name(JSON_LATITUDE).value(this.latitude);
+		writer.name(JSON_LONGITUDE).value(this.longitude);
+		writer.name(JSON_ELEVATION).value(this.elevation);
+		writer.name(JSON_TIME_STAMP_MILLIS).value(this.timeStampMillis);
+		
+		writer.endObject();
+	}
+	
+	/**
+	 * Reads a JSON object into this instance, as Gson would: properties
+	 * are set directly (without validation, or updating the timestamp),
+	 * unknown properties are ignored, and a null for a primitive property
+	 * leaves it unchanged. If there's no location ID, it's the one from
+	 * the config file, as with Gson's (default constructed) instances.
+	 * 
+	 * @param reader The reader, positioned at the start of the object.
+	 */
+	public final void readJson(JsonByteReader reader)
+	{
+		initDefaultLocationID();
+		
+		reader.beginObject();
+		
+		while (reader.hasNext()) {
+			reader.nextName();
+			
+			if (! handleReadJson(reader) && ! readJsonProperty(reader)) {
+				reader.skipValue();
+			}
+		}
+		
+		reader.endObject();
+	}
+	
+	/**
+	 * Writes this instance as a CBOR map with integer keys. To keep the
+	 * encoding compact, the time stamp is written only as milliseconds
+	 * (the ISO 8601 string is derived from it when read), and numeric
+	 * properties that have their default value are omitted.
+	 * 
+	 * @param writer The writer to write to.
+	 */
+	public final void writeCbor(CborByteWriter writer)
+	{
+		writer.beginMap();
+		
+		handleWriteCbor(writer);
+		
+		if (this.name != null)       { writer.key(CBOR_NAME).value(this.name); }
+		if (this.statusCode != ConfigConst.DEFAULT_STATUS) { writer.key(CBOR_STATUS_CODE).value(this.statusCode); }
+		writer.key(CBOR_TYPE_ID).value(this.typeID);
+		if (this.locationID != null) { writer.key(CBOR_LOCATION_ID).value(this.locationID); }
+		if (this.latitude != ConfigConst.DEFAULT_LAT)        { writer.key(CBOR_LATITUDE).value(this.latitude); }
+		if (this.longitude != ConfigConst.DEFAULT_LON)       { writer.key(CBOR_LONGITUDE).value(this.longitude); }
+		if (this.elevation != ConfigConst.DEFAULT_ELEVATION) { writer.key(CBOR_ELEVATION).value(this.elevation); }
+		writer.key(CBOR_TIME_STAMP_MILLIS).value(this.timeStampMillis);
+		
+		writer.endMap();
+	}
+	
+	/**
+	 * Reads a CBOR map into this instance. Properties are set directly,
+	 * as with {@link #readJson(JsonByteReader)}, and unknown keys are
+	 * ignored. If there's no ISO 8601 time stamp, it's set from the
+	 * time stamp milliseconds, and if there's no location ID, it's the
+	 * one from the config file.
+	 * 
+	 * @param reader The reader, positioned at the start of the map.
+	 */
+	public final void readCbor(CborByteReader reader)
+	{
+		boolean hasTimeStamp = false;
+		boolean hasTimeStampMillis = false;
+		
+		initDefaultLocationID();
+		
+		reader.beginMap();
+		
+		while (reader.hasNext()) {
+			int key = reader.nextKey();
+			
+			if (key == CBOR_TIME_STAMP) {
+				this.timeStamp = reader.nextString();
+				hasTimeStamp = true;
+			} else if (key == CBOR_TIME_STAMP_MILLIS) {
+				if (! reader.nextNull()) {
+					this.timeStampMillis = reader.nextLong();
+					hasTimeStampMillis = true;
+				}
+			} else if (! handleReadCbor(key, reader) && ! readCborProperty(key, reader)) {
+				reader.skipValue();
+			}
+		}
+		
+		reader.endMap();
+		
+		if (hasTimeStampMillis && ! hasTimeStamp) {
+			// formatted from the millis read, when needed
+			this.timeStamp = null;
+		}
+	}
+	
 	
 	// protected methods
 	
+	/**
+	 * Template method to write the sub-class properties, in declaration
+	 * order, within {@link #writeJson(JsonByteWriter)}. The default
+	 * implementation writes nothing.
+	 * 
+	 * @param writer The writer to write to.
+	 */
+	protected void handleWriteJson(JsonByteWriter writer)
+	{
+	}
+	
+	/**
+	 * Template method to read a sub-class property within
+	 * {@link #readJson(JsonByteReader)}. The property name has been read
+	 * already (see {@link JsonByteReader#isName(byte[])}); if it's one of
+	 * the sub-class properties, its value should be read. The default
+	 * implementation reads nothing.
+	 * 
+	 * @param reader The reader, positioned at the property value.
+	 * @return boolean True if the value was read; false otherwise.
+	 */
+	protected boolean handleReadJson(JsonByteReader reader)
+	{
+		return false;
+	}
+	
+	/**
+	 * Template method to write the sub-class properties within
+	 * {@link #writeCbor(CborByteWriter)}. The default implementation
+	 * writes nothing.
+	 * 
+	 * @param writer The writer to write to.
+	 */
+	protected void handleWriteCbor(CborByteWriter writer)
+	{
+	}
+	
+	/**
+	 * Template method to read a sub-class property within
+	 * {@link #readCbor(CborByteReader)}. If the key is one of the
+	 * sub-class keys, its value should be read. The default
+	 * implementation reads nothing.
+	 * 
+	 * @param key The map key.
+	 * @param reader The reader, positioned at the value.
+	 * @return boolean True if the value was read; false otherwise.
+	 */
+	protected boolean handleReadCbor(int key, CborByteReader reader)
+	{
+		return false;
+	}
+	
+	/**
+	 * Template method to set the sub-class properties back to their
+	 * declared defaults within {@link #resetData()}. The default
+	 * implementation does nothing.
+	 * 
+	 */
+	protected void handleResetData()
+	{
+	}
+	
 	/**
 	 * Template method to handle data update for the sub-class.
 	 * 
@@ -334,21 +621,106 @@ public abstract class BaseIotData implements Serializable
 	 */
 	protected abstract void handleUpdateData(BaseIotData data);
 	
+	/**
+	 * Sets the timestamp in milliseconds (since the Epoch), e.g. when
+	 * copying it from another representation of the same data. The time
+	 * stamp string is derived from it when needed.
+	 * 
+	 * @param timeStampMillis The timestamp.
+	 */
+	final void setTimeStampMillis(long timeStampMillis)
+	{
+		this.timeStampMillis = timeStampMillis;
+		this.timeStamp       = null;
+	}
+	
 	/**
 	 * Stores the latest timestamp in milliseconds (since the Epoch) within
-	 * {@see #timeStampMillis}, then sets the internal time stamp string
-	 * {@see #timeStamp} to represent a new Date based on {@see #timeStampMillis}
+	 * {@see #timeStampMillis}, and clears the internal time stamp string
+	 * {@see #timeStamp}. The string is only created when first needed
+	 * (see {@see #getTimeStamp()}), to represent {@see #timeStampMillis}
 	 * in ISO 8601 format using {@see DateTimeFormatter.ISO_INSTANT}, as follows:
 	 * <p>
-	 * e.g. 2020-12-27T10:13:30Z
+	 * e.g. 2020-12-27T10:13:30.123Z
 	 * 
 	 */
 	protected final void updateTimeStamp()
 	{
-		Instant instant = Instant.now();
+		this.timeStampMillis = System.currentTimeMillis();
+		this.timeStamp       = null;
+	}
+	
+	
+	// private methods
+	
+	/**
+	 * Sets the location ID to the one from the config file (or
+	 * {@see ConfigConst.NOT_SET} if there isn't one), before it's read.
+	 * 
+	 */
+	private void initDefaultLocationID()
+	{
+		String locationID = getDefaultLocationID();
+		
+		this.locationID = (locationID != null ? locationID : ConfigConst.NOT_SET);
+	}
+	
+	private boolean readJsonProperty(JsonByteReader reader)
+	{
+		if (reader.isName(JSON_NAME)) {
+			this.name = reader.nextString(_Interner);
+		} else if (reader.isName(JSON_TIME_STAMP)) {
+			this.timeStamp = reader.nextString();
+		} else if (reader.isName(JSON_STATUS_CODE)) {
+			if (! reader.nextNull()) { this.statusCode = reader.nextInt(); }
+		} else if (reader.isName(JSON_TYPE_ID)) {
+			if (! reader.nextNull()) { this.typeID = reader.nextInt(); }
+		} else if (reader.isName(JSON_LOCATION_ID)) {
+			this.locationID = reader.nextString(_Interner);
+		} else if (reader.isName(JSON_LATITUDE)) {
+			if (! reader.nextNull()) { this.latitude = reader.nextFloat(); }
+		} else if (reader.isName(JSON_LONGITUDE)) {
+			if (! reader.nextNull()) { this.longitude = reader.nextFloat(); }
+		} else if (reader.isName(JSON_ELEVATION)) {
+			if (! reader.nextNull()) { this.elevation = reader.nextFloat(); }
+		} else if (reader.isName(JSON_TIME_STAMP_MILLIS)) {
+			if (! reader.nextNull()) { this.timeStampMillis = reader.nextLong(); }
+		} else {
+			return false;
+		}
+		
+		return true;
+	}
+	
+	private boolean readCborProperty(int key, CborByteReader reader)
+	{
+		switch (key) {
+			case CBOR_NAME:
+				this.name = reader.nextString(_Interner);
+				break;
+			case CBOR_STATUS_CODE:
+				if (! reader.nextNull()) { this.statusCode = reader.nextInt(); }
+				break;
+			case CBOR_TYPE_ID:
+				if (! reader.nextNull()) { this.typeID = reader.nextInt(); }
+				break;
+			case CBOR_LOCATION_ID:
+				this.locationID = reader.nextString(_Interner);
+				break;
+			case CBOR_LATITUDE:
+				if (! reader.nextNull()) { this.latitude = reader.nextFloat(); }
+				break;
+			case CBOR_LONGITUDE:
+				if (! reader.nextNull()) { this.longitude = reader.nextFloat(); }
+				break;
+			case CBOR_ELEVATION:
+				if (! reader.nextNull()) { this.elevation = reader.nextFloat(); }
+				break;
+			default:
+				return false;
+		}
 		
-		this.timeStampMillis = instant.toEpochMilli();
-		this.timeStamp       = DateTimeFormatter.ISO_INSTANT.format(instant);
+		return true;
 	}
 	
 }
@@ -0,0 +1,574 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.data;
+
+import static programmingtheiot.data.CborByteWriter.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming CBOR (RFC 8949) reader that decodes directly from bytes.
+ * <p>
+ * Maps may have definite or indefinite length. Keys are expected to be
+ * integers; any other key is skipped, along with its value (see
+ * {@link #nextKey()}). Numbers may be read as any of the integer or
+ * float encodings, as long as the value fits the requested type. Values
+ * of types that aren't read directly (byte strings, arrays, tags, etc.)
+ * can be skipped with {@link #skipValue()}.
+ * <p>
+ * Malformed or unexpected input is reported with
+ * {@link IllegalArgumentException}. Instances are NOT thread-safe.
+ *
+ */
+public final class CborByteReader
+{
+	// static
+
+	public static final int UNKNOWN_KEY = -1;
+
+	private static final int MAX_DEPTH = 64;
+
+	/**
+	 * Returns a reader for the remaining bytes of the given buffer. The
+	 * buffer's position is not changed.
+	 *
+	 * @param buffer The buffer to read.
+	 * @return CborByteReader
+	 */
+	public static CborByteReader forBuffer(ByteBuffer buffer)
+	{
+		if (buffer.hasArray()) {
+			return new CborByteReader(
+				buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+		}
+
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+
+		return new CborByteReader(bytes, 0, bytes.length);
+	}
+
+
+	// private var's
+
+	private byte[] buf;
+	private int limit;
+	private int pos;
+
+	// per nesting level: the number of map entries left to read,
+	// or -1 if the map has indefinite length
+	private long[] remaining = new long[8];
+	private int depth = 0;
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param buf The CBOR encoded data.
+	 * @param offset The offset of the data within buf.
+	 * @param length The length of the data, in bytes.
+	 */
+	public CborByteReader(byte[] buf, int offset, int length)
+	{
+		super();
+
+		reset(buf, offset, length);
+	}
+
+
+	// public methods
+
+	/**
+	 * Starts reading a new document, so the reader can be reused.
+	 *
+	 * @param buf The CBOR encoded data.
+	 * @param offset The offset of the data within buf.
+	 * @param length The length of the data, in bytes.
+	 * @return CborByteReader This instance.
+	 */
+	public CborByteReader reset(byte[] buf, int offset, int length)
+	{
+		if (offset < 0 || length < 0 || offset + length > buf.length) {
+			throw new IndexOutOfBoundsException(
+				"Offset " + offset + " and length " + length + " out of range for length " + buf.length);
+		}
+
+		this.buf = buf;
+		this.pos = offset;
+		this.limit = offset + length;
+		this.depth = 0;
+
+		return this;
+	}
+
+	/**
+	 * Returns true if there's nothing left to read.
+	 *
+	 * @return boolean
+	 */
+	public boolean isEndOfDocument()
+	{
+		return this.pos >= this.limit;
+	}
+
+	/**
+	 * Checks that the whole document has been read.
+	 *
+	 */
+	public void endDocument()
+	{
+		if (this.depth != 0 || this.pos != this.limit) {
+			throw error("Unexpected data after the end of the document");
+		}
+	}
+
+	/**
+	 * Reads the start of a map, of either definite or indefinite length.
+	 *
+	 */
+	public void beginMap()
+	{
+		int initial = readByte();
+
+		if ((initial >> 5) != MAJOR_MAP) {
+			throw error("Expected a map but was 0x" + Integer.toHexString(initial));
+		}
+
+		if (this.depth + 1 > MAX_DEPTH) {
+			throw error("Nesting too deep");
+		}
+
+		if (++this.depth == this.remaining.length) {
+			this.remaining = Arrays.copyOf(this.remaining, this.remaining.length * 2);
+		}
+
+		this.remaining[this.depth] = ((initial & 0x1F) == INDEFINITE ? -1L : readLength(initial));
+	}
+
+	public void endMap()
+	{
+		if (this.depth == 0) {
+			throw error("Nesting problem: no map to end");
+		}
+
+		if (this.remaining[this.depth] < 0L) {
+			if (readByte() != BREAK) {
+				throw error("Expected the end of the map");
+			}
+		} else if (this.remaining[this.depth] != 0L) {
+			throw error("Expected the end of the map");
+		}
+
+		this.depth--;
+	}
+
+	/**
+	 * Reads the start of a definite-length array, which is followed by
+	 * the returned number of values, with no end marker.
+	 *
+	 * @return int The number of values in the array.
+	 */
+	public int beginArray()
+	{
+		int initial = readByte();
+
+		if ((initial >> 5) != MAJOR_ARRAY || (initial & 0x1F) == INDEFINITE) {
+			throw error("Expected a definite-length array but was 0x" + Integer.toHexString(initial));
+		}
+
+		// every value takes at least a byte
+		return checkLength(readLength(initial));
+	}
+
+	/**
+	 * Returns true if the current map has another entry.
+	 *
+	 * @return boolean
+	 */
+	public boolean hasNext()
+	{
+		long left = this.remaining[this.depth];
+
+		return (left < 0L ? peekByte() != BREAK : left > 0L);
+	}
+
+	/**
+	 * Reads the next map key.
+	 *
+	 * @return int The key, or {@link #UNKNOWN_KEY} if the key isn't a
+	 * non-negative int (in which case it's skipped, and the value should
+	 * be skipped too).
+	 */
+	public int nextKey()
+	{
+		if (this.remaining[this.depth] > 0L) {
+			this.remaining[this.depth]--;
+		}
+
+		int initial = peekByte();
+
+		if ((initial >> 5) == MAJOR_UNSIGNED) {
+			this.pos++;
+
+			long key = readLength(initial);
+
+			return (key <= Integer.MAX_VALUE ? (int) key : UNKNOWN_KEY);
+		}
+
+		skipValue();
+
+		return UNKNOWN_KEY;
+	}
+
+	/**
+	 * Consumes a null (or undefined) value, if that's what's next.
+	 *
+	 * @return boolean True if a null was read; false otherwise.
+	 */
+	public boolean nextNull()
+	{
+		int initial = peekByte();
+
+		if (initial == NULL || initial == UNDEFINED) {
+			this.pos++;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Reads a text string value, or null.
+	 *
+	 * @return String
+	 */
+	public String nextString()
+	{
+		if (nextNull()) {
+			return null;
+		}
+
+		int initial = readByte();
+
+		if ((initial >> 5) != MAJOR_TEXT || (initial & 0x1F) == INDEFINITE) {
+			throw error("Expected a definite-length text string but was 0x" + Integer.toHexString(initial));
+		}
+
+		int length = checkLength(readLength(initial));
+		String s = new String(this.buf, this.pos, length, StandardCharsets.UTF_8);
+
+		this.pos += length;
+
+		return s;
+	}
+
+	/**
+	 * Reads a text string value, or null, as {@link #nextString()} does,
+	 * but returns the interned instance.
+	 *
+	 * @param interner The interner to use.
+	 * @return String
+	 */
+	public String nextString(StringInterner interner)
+	{
+		int initial = peekByte();
+
+		if ((initial >> 5) != MAJOR_TEXT || (initial & 0x1F) == INDEFINITE) {
+			return nextString();
+		}
+
+		this.pos++;
+
+		int length = checkLength(readLength(initial));
+		String s = interner.intern(this.buf, this.pos, length);
+
+		this.pos += length;
+
+		return s;
+	}
+
+	public boolean nextBoolean()
+	{
+		int initial = readByte();
+
+		if (initial == TRUE) {
+			return true;
+		} else if (initial == FALSE) {
+			return false;
+		}
+
+		throw error("Expected a boolean but was 0x" + Integer.toHexString(initial));
+	}
+
+	/**
+	 * Reads a number, of any integer or float encoding, as a double.
+	 *
+	 * @return double
+	 */
+	public double nextDouble()
+	{
+		int initial = readByte();
+
+		switch (initial) {
+			case HALF_FLOAT:
+				return fromHalfFloat((int) readBits(2));
+
+			case FLOAT:
+				return Float.intBitsToFloat((int) readBits(4));
+
+			case DOUBLE:
+				return Double.longBitsToDouble(readBits(8));
+
+			default:
+				return readInteger(initial);
+		}
+	}
+
+	public float nextFloat()
+	{
+		return (float) nextDouble();
+	}
+
+	/**
+	 * Reads an integer, or a float with an integral value.
+	 *
+	 * @return long
+	 */
+	public long nextLong()
+	{
+		int initial = peekByte();
+
+		if ((initial >> 5) == MAJOR_UNSIGNED || (initial >> 5) == MAJOR_NEGATIVE) {
+			this.pos++;
+			return readInteger(initial);
+		}
+
+		double value = nextDouble();
+		long longValue = (long) value;
+
+		if (longValue != value) {
+			throw error("Expected a long but was " + value);
+		}
+
+		return longValue;
+	}
+
+	public int nextInt()
+	{
+		long value = nextLong();
+
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			throw error("Expected an int but was " + value);
+		}
+
+		return (int) value;
+	}
+
+	/**
+	 * Skips the next value, including any nested content.
+	 *
+	 */
+	public void skipValue()
+	{
+		skipValue(0);
+	}
+
+
+	// package methods
+
+	/**
+	 * Converts IEEE 754 half-precision bits to a float.
+	 *
+	 */
+	static float fromHalfFloat(int half)
+	{
+		int sign = (half & 0x8000) << 16;
+		int exp = (half >> 10) & 0x1F;
+		int mantissa = half & 0x3FF;
+
+		if (exp == 0) {
+			// zero or sub-normal: mantissa * 2^-24
+			float value = mantissa * 0x1p-24f;
+			return (sign != 0 ? -value : value);
+		}
+
+		if (exp == 0x1F) {
+			return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+		}
+
+		return Float.intBitsToFloat(sign | ((exp - 15 + 127) << 23) | (mantissa << 13));
+	}
+
+
+	// private methods
+
+	private IllegalArgumentException error(String message)
+	{
+		return new IllegalArgumentException("Malformed CBOR at offset " + this.pos + ": " + message);
+	}
+
+	private int peekByte()
+	{
+		if (this.pos >= this.limit) {
+			throw error("Unexpected end of input");
+		}
+
+		return this.buf[this.pos] & 0xFF;
+	}
+
+	private int readByte()
+	{
+		int b = peekByte();
+
+		this.pos++;
+
+		return b;
+	}
+
+	private long readBits(int byteCount)
+	{
+		if (this.limit - this.pos < byteCount) {
+			throw error("Unexpected end of input");
+		}
+
+		long bits = 0L;
+
+		for (int i = 0; i < byteCount; i++) {
+			bits = (bits << 8) | (this.buf[this.pos++] & 0xFF);
+		}
+
+		return bits;
+	}
+
+	/**
+	 * Reads the argument that follows the initial byte: a length, count,
+	 * integer value or tag number.
+	 *
+	 */
+	private long readLength(int initial)
+	{
+		int info = initial & 0x1F;
+
+		if (info < 24) {
+			return info;
+		}
+
+		switch (info) {
+			case 24: return readBits(1);
+			case 25: return readBits(2);
+			case 26: return readBits(4);
+			case 27:
+				long length = readBits(8);
+
+				if (length < 0L) {
+					throw error("Argument out of range");
+				}
+
+				return length;
+
+			default:
+				throw error("Invalid additional information: " + info);
+		}
+	}
+
+	private long readInteger(int initial)
+	{
+		int majorType = initial >> 5;
+
+		if (majorType != MAJOR_UNSIGNED && majorType != MAJOR_NEGATIVE) {
+			throw error("Expected a number but was 0x" + Integer.toHexString(initial));
+		}
+
+		long value = readLength(initial);
+
+		return (majorType == MAJOR_UNSIGNED ? value : -1L - value);
+	}
+
+	private int checkLength(long length)
+	{
+		if (length > this.limit - this.pos) {
+			throw error("Unexpected end of input");
+		}
+
+		return (int) length;
+	}
+
+	private void skipValue(int nesting)
+	{
+		if (nesting > MAX_DEPTH) {
+			throw error("Nesting too deep");
+		}
+
+		int initial = readByte();
+		int majorType = initial >> 5;
+		boolean indefinite = (initial & 0x1F) == INDEFINITE;
+
+		switch (majorType) {
+			case MAJOR_UNSIGNED:
+			case MAJOR_NEGATIVE:
+				readLength(initial);
+				break;
+
+			case MAJOR_BYTES:
+			case MAJOR_TEXT:
+				if (indefinite) {
+					while (peekByte() != BREAK) {
+						skipValue(nesting + 1);
+					}
+
+					this.pos++;
+				} else {
+					this.pos += checkLength(readLength(initial));
+				}
+				break;
+
+			case MAJOR_ARRAY:
+			case MAJOR_MAP:
+				if (indefinite) {
+					while (peekByte() != BREAK) {
+						skipValue(nesting + 1);
+					}
+
+					this.pos++;
+				} else {
+					long itemCount = readLength(initial) * (majorType == MAJOR_MAP ? 2 : 1);
+
+					for (long i = 0; i < itemCount; i++) {
+						skipValue(nesting + 1);
+					}
+				}
+				break;
+
+			case MAJOR_TAG:
+				readLength(initial);
+				skipValue(nesting + 1);
+				break;
+
+			default:
+				switch (initial) {
+					case 0xF8:       readBits(1); break;
+					case HALF_FLOAT: readBits(2); break;
+					case FLOAT:      readBits(4); break;
+					case DOUBLE:     readBits(8); break;
+					case BREAK:      throw error("Unexpected break");
+					default:
+						if ((initial & 0x1F) > 24) {
+							throw error("Invalid simple value: 0x" + Integer.toHexString(initial));
+						}
+				}
+		}
+	}
+
+}
@@ -0,0 +1,451 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.data;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Streaming CBOR (RFC 8949) writer that encodes to a growable byte
+ * buffer, which can be reset and reused.
+ * <p>
+ * Only the subset needed for the IoT data types is supported: maps with
+ * integer keys, arrays, text strings, integers, floats, booleans and null.
+ * Maps are written with indefinite length, so the number of entries
+ * needn't be known up front. Integers and lengths use the shortest
+ * encoding, and floats are written as half-precision when that's
+ * exact, as single-precision otherwise.
+ * <p>
+ * Instances are NOT thread-safe.
+ *
+ */
+public final class CborByteWriter
+{
+	// static
+
+	public static final int DEFAULT_CAPACITY = 256;
+
+	// initial bytes (major type << 5 | additional info)
+	static final int MAJOR_UNSIGNED = 0;
+	static final int MAJOR_NEGATIVE = 1;
+	static final int MAJOR_BYTES    = 2;
+	static final int MAJOR_TEXT     = 3;
+	static final int MAJOR_ARRAY    = 4;
+	static final int MAJOR_MAP      = 5;
+	static final int MAJOR_TAG      = 6;
+	static final int MAJOR_SIMPLE   = 7;
+
+	static final int FALSE       = 0xF4;
+	static final int TRUE        = 0xF5;
+	static final int NULL        = 0xF6;
+	static final int UNDEFINED   = 0xF7;
+	static final int HALF_FLOAT  = 0xF9;
+	static final int FLOAT       = 0xFA;
+	static final int DOUBLE      = 0xFB;
+	static final int BREAK       = 0xFF;
+	static final int INDEFINITE  = 31;
+
+
+	// private var's
+
+	private byte[] buffer = null;
+	private int count = 0;
+	private int depth = 0;
+
+	// constructors
+
+	/**
+	 * Default.
+	 *
+	 */
+	public CborByteWriter()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param initialCapacity The initial buffer size, in bytes.
+	 */
+	public CborByteWriter(int initialCapacity)
+	{
+		super();
+
+		this.buffer = new byte[Math.max(16, initialCapacity)];
+	}
+
+
+	// public methods
+
+	/**
+	 * Clears the content, keeping the buffer for reuse.
+	 *
+	 * @return CborByteWriter This instance.
+	 */
+	public CborByteWriter reset()
+	{
+		this.count = 0;
+		this.depth = 0;
+
+		return this;
+	}
+
+	/**
+	 * Returns the number of bytes written.
+	 *
+	 * @return int
+	 */
+	public int size()
+	{
+		return this.count;
+	}
+
+	/**
+	 * Returns the internal buffer. Only the first {@link #size()} bytes
+	 * are valid, and the buffer may be replaced by later writes.
+	 *
+	 * @return byte[]
+	 */
+	public byte[] getBuffer()
+	{
+		return this.buffer;
+	}
+
+	/**
+	 * Returns a copy of the bytes written.
+	 *
+	 * @return byte[]
+	 */
+	public byte[] toByteArray()
+	{
+		return Arrays.copyOf(this.buffer, this.count);
+	}
+
+	/**
+	 * Copies the bytes written into the given buffer, at its position.
+	 *
+	 * @param target The buffer to write to.
+	 * @throws java.nio.BufferOverflowException If there isn't enough room.
+	 */
+	public void writeTo(ByteBuffer target)
+	{
+		target.put(this.buffer, 0, this.count);
+	}
+
+	/**
+	 * Starts an indefinite-length map.
+	 *
+	 * @return CborByteWriter This instance.
+	 */
+	public CborByteWriter beginMap()
+	{
+		writeByte((MAJOR_MAP << 5) | INDEFINITE);
+		this.depth++;
+
+		return this;
+	}
+
+	public CborByteWriter endMap()
+	{
+		if (this.depth == 0) {
+			throw new IllegalStateException("Nesting problem: no map to end");
+		}
+
+		writeByte(BREAK);
+		this.depth--;
+
+		return this;
+	}
+
+	/**
+	 * Starts a definite-length array. Exactly length values must follow,
+	 * and there's no end marker.
+	 *
+	 * @param length The number of values in the array.
+	 * @return CborByteWriter This instance.
+	 */
+	public CborByteWriter beginArray(int length)
+	{
+		if (length < 0) {
+			throw new IllegalArgumentException("Invalid array length: " + length);
+		}
+
+		writeTypeAndLength(MAJOR_ARRAY, length);
+
+		return this;
+	}
+
+	/**
+	 * Writes a map key. Keys 0 - 23 take a single byte.
+	 *
+	 * @param key The key, which must not be negative.
+	 * @return CborByteWriter This instance.
+	 */
+	public CborByteWriter key(int key)
+	{
+		if (key < 0) {
+			throw new IllegalArgumentException("Invalid map key: " + key);
+		}
+
+		writeTypeAndLength(MAJOR_UNSIGNED, key);
+
+		return this;
+	}
+
+	public CborByteWriter nullValue()
+	{
+		writeByte(NULL);
+
+		return this;
+	}
+
+	/**
+	 * Writes a text string value, or null if the value is null.
+	 *
+	 * @param value The value to write.
+	 * @return CborByteWriter This instance.
+	 */
+	public CborByteWriter value(String value)
+	{
+		if (value == null) {
+			return nullValue();
+		}
+
+		writeText(value);
+
+		return this;
+	}
+
+	public CborByteWriter value(boolean value)
+	{
+		writeByte(value ? TRUE : FALSE);
+
+		return this;
+	}
+
+	public CborByteWriter value(int value)
+	{
+		return value((long) value);
+	}
+
+	public CborByteWriter value(long value)
+	{
+		if (value >= 0L) {
+			writeTypeAndLength(MAJOR_UNSIGNED, value);
+		} else {
+			// -1 - n, which can't overflow
+			writeTypeAndLength(MAJOR_NEGATIVE, -1L - value);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Writes a float value, as half-precision if that's exact, or
+	 * single-precision otherwise.
+	 *
+	 * @param value The value to write.
+	 * @return CborByteWriter This instance.
+	 */
+	public CborByteWriter value(float value)
+	{
+		int half = toHalfFloat(value);
+
+		if (half >= 0) {
+			ensureCapacity(3);
+			this.buffer[this.count++] = (byte) HALF_FLOAT;
+			this.buffer[this.count++] = (byte) (half >> 8);
+			this.buffer[this.count++] = (byte) half;
+		} else {
+			int bits = Float.floatToIntBits(value);
+
+			ensureCapacity(5);
+			this.buffer[this.count++] = (byte) FLOAT;
+			this.buffer[this.count++] = (byte) (bits >> 24);
+			this.buffer[this.count++] = (byte) (bits >> 16);
+			this.buffer[this.count++] = (byte) (bits >> 8);
+			this.buffer[this.count++] = (byte) bits;
+		}
+
+		return this;
+	}
+
+
+	// package methods
+
+	/**
+	 * Returns the IEEE 754 half-precision bits for the value, or -1 if
+	 * it can't be represented exactly. NaN is returned as the canonical
+	 * half-precision NaN.
+	 *
+	 */
+	static int toHalfFloat(float value)
+	{
+		int bits = Float.floatToRawIntBits(value);
+		int sign = (bits >>> 16) & 0x8000;
+		int exp = (bits >>> 23) & 0xFF;
+		int mantissa = bits & 0x7FFFFF;
+
+		if (exp == 0xFF) {
+			if (mantissa == 0) {
+				return sign | 0x7C00;
+			}
+
+			return 0x7E00;
+		}
+
+		if (exp == 0) {
+			// zero; float sub-normals are too small for half-precision
+			return (mantissa == 0 ? sign : -1);
+		}
+
+		int unbiasedExp = exp - 127;
+
+		if (unbiasedExp >= -14 && unbiasedExp <= 15) {
+			if ((mantissa & 0x1FFF) != 0) {
+				return -1;
+			}
+
+			return sign | ((unbiasedExp + 15) << 10) | (mantissa >> 13);
+		}
+
+		if (unbiasedExp >= -24 && unbiasedExp < -14) {
+			// a half-precision sub-normal: the significand, shifted down
+			int significand = mantissa | 0x800000;
+			int shift = -(unbiasedExp + 1);
+
+			if ((significand & ((1 << shift) - 1)) != 0) {
+				return -1;
+			}
+
+			return sign | (significand >> shift);
+		}
+
+		return -1;
+	}
+
+
+	// private methods
+
+	private void ensureCapacity(int extra)
+	{
+		int required = this.count + extra;
+
+		if (required > this.buffer.length) {
+			this.buffer = Arrays.copyOf(this.buffer, Math.max(required, this.buffer.length * 2));
+		}
+	}
+
+	private void writeByte(int b)
+	{
+		ensureCapacity(1);
+		this.buffer[this.count++] = (byte) b;
+	}
+
+	private void writeTypeAndLength(int majorType, long length)
+	{
+		int type = majorType << 5;
+
+		ensureCapacity(9);
+
+		byte[] buf = this.buffer;
+
+		if (length < 24L) {
+			buf[this.count++] = (byte) (type | (int) length);
+		} else if (length <= 0xFFL) {
+			buf[this.count++] = (byte) (type | 24);
+			buf[this.count++] = (byte) length;
+		} else if (length <= 0xFFFFL) {
+			buf[this.count++] = (byte) (type | 25);
+			buf[this.count++] = (byte) (length >> 8);
+			buf[this.count++] = (byte) length;
+		} else if (length <= 0xFFFFFFFFL) {
+			buf[this.count++] = (byte) (type | 26);
+			buf[this.count++] = (byte) (length >> 24);
+			buf[this.count++] = (byte) (length >> 16);
+			buf[this.count++] = (byte) (length >> 8);
+			buf[this.count++] = (byte) length;
+		} else {
+			buf[this.count++] = (byte) (type | 27);
+
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				buf[this.count++] = (byte) (length >> shift);
+			}
+		}
+	}
+
+	/**
+	 * Writes the text string as UTF-8. Unpaired surrogates are written
+	 * as '?', as {@link String#getBytes(java.nio.charset.Charset)} does.
+	 *
+	 */
+	private void writeText(String s)
+	{
+		int len = s.length();
+		int utf8Length = 0;
+
+		for (int i = 0; i < len; i++) {
+			char c = s.charAt(i);
+
+			if (c < 0x80) {
+				utf8Length++;
+			} else if (c < 0x800) {
+				utf8Length += 2;
+			} else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+					utf8Length += 4;
+					i++;
+				} else {
+					utf8Length++;
+				}
+			} else {
+				utf8Length += 3;
+			}
+		}
+
+		writeTypeAndLength(MAJOR_TEXT, utf8Length);
+		ensureCapacity(utf8Length);
+
+		byte[] buf = this.buffer;
+		int pos = this.count;
+
+		for (int i = 0; i < len; i++) {
+			char c = s.charAt(i);
+
+			if (c < 0x80) {
+				buf[pos++] = (byte) c;
+			} else if (c < 0x800) {
+				buf[pos++] = (byte) (0xC0 | (c >> 6));
+				buf[pos++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+					int cp = Character.toCodePoint(c, s.charAt(++i));
+
+					buf[pos++] = (byte) (0xF0 | (cp >> 18));
+					buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+					buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+					buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+				} else {
+					buf[pos++] = '?';
+				}
+			} else {
+				buf[pos++] = (byte) (0xE0 | (c >> 12));
+				buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				buf[pos++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+
+		this.count = pos;
+	}
+
+}
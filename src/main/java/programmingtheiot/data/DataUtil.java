@@ -16,19 +16,65 @@ package programmingtheiot.data;
 // import java.nio.file.Path;
 // import java.util.List;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
 import com.google.gson.Gson;
 
-import kotlin.NotImplementedError;
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.common.ResourceNameEnum;
 
 /**
  * Shell representation of class for student implementation.
+ * <p>
+ * The String-based JSON methods use Gson. The byte-based methods use
+ * the streaming {@link JsonByteWriter} and {@link JsonByteReader}
+ * codecs instead, which read and write UTF-8 directly, without an
+ * intermediate String or reflection; their JSON is the same as Gson's,
+ * so either form can be used at each end of a connection.
+ * <p>
+ * The CBOR methods use {@link CborByteWriter} and {@link CborByteReader},
+ * for a more compact alternative (see {@link BaseIotData#writeCbor(CborByteWriter)}).
+ * The format used per resource is configurable; see {@link #getPayloadFormat(ResourceNameEnum)}.
+ * <p>
+ * For high rate ingest, the pooled decode methods decode into an
+ * instance from an {@link IotDataPool}, which the caller releases when
+ * done with it, using a per-thread reader; along with the interned
+ * names and location IDs, this makes decoding close to allocation free.
  *
  */
 public class DataUtil
 {
 	// static
 	
+	private static final Logger _Logger =
+		Logger.getLogger(DataUtil.class.getName());
+	
 	private static final DataUtil _Instance = new DataUtil();
+	
+	private static final byte[] NULL_JSON = "null".getBytes(StandardCharsets.US_ASCII);
+	
+	// per thread, so the encode buffer is reused
+	private static final ThreadLocal<JsonByteWriter> _JsonWriter =
+		ThreadLocal.withInitial(JsonByteWriter::new);
+	
+	private static final ThreadLocal<CborByteWriter> _CborWriter =
+		ThreadLocal.withInitial(CborByteWriter::new);
+	
+	private static final byte[] NULL_CBOR = { (byte) 0xF6 };
+	
+	// per thread, so pooled decoding doesn't allocate a reader per message
+	private static final ThreadLocal<JsonByteReader> _JsonReader =
+		ThreadLocal.withInitial(() -> new JsonByteReader(new byte[0], 0, 0));
+	
+	private static final ThreadLocal<CborByteReader> _CborReader =
+		ThreadLocal.withInitial(() -> new CborByteReader(new byte[0], 0, 0));
 
 	/**
 	 * Returns the Singleton instance of this class.
@@ -44,6 +90,9 @@ public class DataUtil
 	// private var's
 	private Gson gson = new Gson();
 	
+	// loaded from the config on first use
+	private volatile Map<ResourceNameEnum, PayloadFormatEnum> payloadFormats = null;
+	
 	// constructors
 	
 	/**
@@ -61,7 +110,7 @@ public class DataUtil
 	
 	public String actuatorDataToJson(ActuatorData actuatorData)
 	{
-		return gson.toJson(actuatorData);
+		return new String(actuatorDataToJsonBytes(actuatorData), StandardCharsets.UTF_8);
 	}
 
 	public String actuatorDataToTVJson(ActuatorData data)
@@ -73,7 +122,7 @@ public class DataUtil
 	
 	public String sensorDataToJson(SensorData sensorData)
 	{
-		return gson.toJson(sensorData);
+		return new String(sensorDataToJsonBytes(sensorData), StandardCharsets.UTF_8);
 	}
 
 	public String sensorDataToTVJson(SensorData data)
@@ -85,12 +134,12 @@ public class DataUtil
 	
 	public String systemPerformanceDataToJson(SystemPerformanceData sysPerfData)
 	{
-		return gson.toJson(sysPerfData);
+		return new String(systemPerformanceDataToJsonBytes(sysPerfData), StandardCharsets.UTF_8);
 	}
 	
 	public String systemStateDataToJson(SystemStateData sysStateData)
 	{
-		throw new NotImplementedError("dont call me pls");
+		return new String(systemStateDataToJsonBytes(sysStateData), StandardCharsets.UTF_8);
 	}
 	
 	public ActuatorData jsonToActuatorData(String jsonData)
@@ -108,9 +157,513 @@ public class DataUtil
 		return gson.fromJson(jsonData, SystemPerformanceData.class);
 	}
 	
+	/**
+	 * Unlike the other String decode methods, this doesn't use Gson, as
+	 * the item lists are aggregated by name (see {@link SystemStateData}).
+	 * 
+	 * @param jsonData The JSON to decode.
+	 * @return SystemStateData
+	 */
 	public SystemStateData jsonToSystemStateData(String jsonData)
 	{
-		throw new NotImplementedError("dont call me pls");
+		return (jsonData != null ? jsonToSystemStateData(jsonData.getBytes(StandardCharsets.UTF_8)) : null);
+	}
+	
+	public byte[] actuatorDataToJsonBytes(ActuatorData actuatorData)
+	{
+		return iotDataToJsonBytes(actuatorData);
+	}
+	
+	public byte[] sensorDataToJsonBytes(SensorData sensorData)
+	{
+		return iotDataToJsonBytes(sensorData);
+	}
+	
+	public byte[] systemPerformanceDataToJsonBytes(SystemPerformanceData sysPerfData)
+	{
+		return iotDataToJsonBytes(sysPerfData);
+	}
+	
+	public byte[] systemStateDataToJsonBytes(SystemStateData sysStateData)
+	{
+		return iotDataToJsonBytes(sysStateData);
+	}
+	
+	/**
+	 * Writes the data as JSON to the given writer, e.g. to reuse the
+	 * caller's own buffer. Null data is written as a JSON null.
+	 * 
+	 * @param data The data to write.
+	 * @param writer The writer to write to.
+	 */
+	public void iotDataToJson(BaseIotData data, JsonByteWriter writer)
+	{
+		if (data != null) {
+			data.writeJson(writer);
+		} else {
+			writer.nullValue();
+		}
+	}
+	
+	public ActuatorData jsonToActuatorData(byte[] jsonData)
+	{
+		return jsonToActuatorData(jsonData, 0, (jsonData != null ? jsonData.length : 0));
+	}
+	
+	public ActuatorData jsonToActuatorData(byte[] jsonData, int offset, int length)
+	{
+		return (jsonData != null ? readIotData(new JsonByteReader(jsonData, offset, length), () -> new ActuatorData(false)) : null);
+	}
+	
+	public ActuatorData jsonToActuatorData(ByteBuffer jsonData)
+	{
+		return (jsonData != null ? readIotData(JsonByteReader.forBuffer(jsonData), () -> new ActuatorData(false)) : null);
+	}
+	
+	public SensorData jsonToSensorData(byte[] jsonData)
+	{
+		return jsonToSensorData(jsonData, 0, (jsonData != null ? jsonData.length : 0));
+	}
+	
+	public SensorData jsonToSensorData(byte[] jsonData, int offset, int length)
+	{
+		return (jsonData != null ? readIotData(new JsonByteReader(jsonData, offset, length), () -> new SensorData(false)) : null);
+	}
+	
+	public SensorData jsonToSensorData(ByteBuffer jsonData)
+	{
+		return (jsonData != null ? readIotData(JsonByteReader.forBuffer(jsonData), () -> new SensorData(false)) : null);
+	}
+	
+	public SystemPerformanceData jsonToSystemPerformanceData(byte[] jsonData)
+	{
+		return jsonToSystemPerformanceData(jsonData, 0, (jsonData != null ? jsonData.length : 0));
+	}
+	
+	public SystemPerformanceData jsonToSystemPerformanceData(byte[] jsonData, int offset, int length)
+	{
+		return (jsonData != null ? readIotData(new JsonByteReader(jsonData, offset, length), () -> new SystemPerformanceData(false)) : null);
+	}
+	
+	public SystemPerformanceData jsonToSystemPerformanceData(ByteBuffer jsonData)
+	{
+		return (jsonData != null ? readIotData(JsonByteReader.forBuffer(jsonData), () -> new SystemPerformanceData(false)) : null);
+	}
+	
+	public SystemStateData jsonToSystemStateData(byte[] jsonData)
+	{
+		return jsonToSystemStateData(jsonData, 0, (jsonData != null ? jsonData.length : 0));
+	}
+	
+	public SystemStateData jsonToSystemStateData(byte[] jsonData, int offset, int length)
+	{
+		return (jsonData != null ? readIotData(new JsonByteReader(jsonData, offset, length), () -> new SystemStateData(false)) : null);
+	}
+	
+	
+	public byte[] actuatorDataToCbor(ActuatorData actuatorData)
+	{
+		return iotDataToCborBytes(actuatorData);
+	}
+	
+	public byte[] sensorDataToCbor(SensorData sensorData)
+	{
+		return iotDataToCborBytes(sensorData);
+	}
+	
+	public byte[] systemPerformanceDataToCbor(SystemPerformanceData sysPerfData)
+	{
+		return iotDataToCborBytes(sysPerfData);
+	}
+	
+	public byte[] systemStateDataToCbor(SystemStateData sysStateData)
+	{
+		return iotDataToCborBytes(sysStateData);
+	}
+	
+	/**
+	 * Writes the data as CBOR to the given writer, e.g. to reuse the
+	 * caller's own buffer. Null data is written as a CBOR null.
+	 * 
+	 * @param data The data to write.
+	 * @param writer The writer to write to.
+	 */
+	public void iotDataToCbor(BaseIotData data, CborByteWriter writer)
+	{
+		if (data != null) {
+			data.writeCbor(writer);
+		} else {
+			writer.nullValue();
+		}
+	}
+	
+	public ActuatorData cborToActuatorData(byte[] cborData)
+	{
+		return cborToActuatorData(cborData, 0, (cborData != null ? cborData.length : 0));
+	}
+	
+	public ActuatorData cborToActuatorData(byte[] cborData, int offset, int length)
+	{
+		return (cborData != null ? readIotData(new CborByteReader(cborData, offset, length), () -> new ActuatorData(false)) : null);
+	}
+	
+	public SensorData cborToSensorData(byte[] cborData)
+	{
+		return cborToSensorData(cborData, 0, (cborData != null ? cborData.length : 0));
+	}
+	
+	public SensorData cborToSensorData(byte[] cborData, int offset, int length)
+	{
+		return (cborData != null ? readIotData(new CborByteReader(cborData, offset, length), () -> new SensorData(false)) : null);
+	}
+	
+	public SystemPerformanceData cborToSystemPerformanceData(byte[] cborData)
+	{
+		return cborToSystemPerformanceData(cborData, 0, (cborData != null ? cborData.length : 0));
+	}
+	
+	public SystemPerformanceData cborToSystemPerformanceData(byte[] cborData, int offset, int length)
+	{
+		return (cborData != null ? readIotData(new CborByteReader(cborData, offset, length), () -> new SystemPerformanceData(false)) : null);
+	}
+	
+	public SystemStateData cborToSystemStateData(byte[] cborData)
+	{
+		return cborToSystemStateData(cborData, 0, (cborData != null ? cborData.length : 0));
+	}
+	
+	public SystemStateData cborToSystemStateData(byte[] cborData, int offset, int length)
+	{
+		return (cborData != null ? readIotData(new CborByteReader(cborData, offset, length), () -> new SystemStateData(false)) : null);
+	}
+	
+	/**
+	 * Encodes the data in the given format.
+	 * 
+	 * @param data The data to encode.
+	 * @param format The format (JSON if null).
+	 * @return byte[]
+	 */
+	public byte[] iotDataToBytes(BaseIotData data, PayloadFormatEnum format)
+	{
+		return (format == PayloadFormatEnum.CBOR ? iotDataToCborBytes(data) : iotDataToJsonBytes(data));
+	}
+	
+	public ActuatorData bytesToActuatorData(byte[] payload, PayloadFormatEnum format)
+	{
+		return (format == PayloadFormatEnum.CBOR ? cborToActuatorData(payload) : jsonToActuatorData(payload));
+	}
+	
+	public SensorData bytesToSensorData(byte[] payload, PayloadFormatEnum format)
+	{
+		return (format == PayloadFormatEnum.CBOR ? cborToSensorData(payload) : jsonToSensorData(payload));
+	}
+	
+	/**
+	 * Decodes the payload into an instance acquired from the pool. The
+	 * caller must release the instance (see {@link IotDataPool#release(BaseIotData)})
+	 * when done with it. If the payload is invalid, the instance is
+	 * released before the exception is thrown.
+	 * 
+	 * @param payload The encoded data.
+	 * @param format The format (JSON if null).
+	 * @param pool The pool to acquire the instance from.
+	 * @return ActuatorData The decoded data, or null if the payload is empty or null.
+	 */
+	public ActuatorData bytesToActuatorData(byte[] payload, PayloadFormatEnum format, IotDataPool<ActuatorData> pool)
+	{
+		return readPooledIotData(payload, format, pool);
+	}
+	
+	/**
+	 * Pooled version of {@link #bytesToSensorData(byte[], PayloadFormatEnum)};
+	 * see {@link #bytesToActuatorData(byte[], PayloadFormatEnum, IotDataPool)}.
+	 * 
+	 * @param payload The encoded data.
+	 * @param format The format (JSON if null).
+	 * @param pool The pool to acquire the instance from.
+	 * @return SensorData The decoded data, or null if the payload is empty or null.
+	 */
+	public SensorData bytesToSensorData(byte[] payload, PayloadFormatEnum format, IotDataPool<SensorData> pool)
+	{
+		return readPooledIotData(payload, format, pool);
+	}
+	
+	public SystemPerformanceData bytesToSystemPerformanceData(byte[] payload, PayloadFormatEnum format)
+	{
+		return (format == PayloadFormatEnum.CBOR ? cborToSystemPerformanceData(payload) : jsonToSystemPerformanceData(payload));
+	}
+	
+	public SystemStateData bytesToSystemStateData(byte[] payload, PayloadFormatEnum format)
+	{
+		return (format == PayloadFormatEnum.CBOR ? cborToSystemStateData(payload) : jsonToSystemStateData(payload));
+	}
+	
+	public byte[] sensorDataBatchToJsonBytes(SensorDataBatch batch)
+	{
+		if (batch == null) {
+			return NULL_JSON.clone();
+		}
+		
+		JsonByteWriter writer = _JsonWriter.get().reset();
+		batch.writeJson(writer);
+		
+		return writer.toByteArray();
+	}
+	
+	/**
+	 * Encodes one reading of the batch as {@link SensorData} JSON, the
+	 * same as {@link #sensorDataToJsonBytes(SensorData)} would for
+	 * {@link SensorDataBatch#toSensorData(int)}, without creating it.
+	 * 
+	 * @param batch The batch.
+	 * @param index The reading index.
+	 * @return byte[]
+	 */
+	public byte[] sensorDataBatchItemToJsonBytes(SensorDataBatch batch, int index)
+	{
+		JsonByteWriter writer = _JsonWriter.get().reset();
+		batch.writeJson(index, writer);
+		
+		return writer.toByteArray();
+	}
+	
+	public SensorDataBatch jsonToSensorDataBatch(byte[] jsonData)
+	{
+		if (jsonData == null) {
+			return null;
+		}
+		
+		JsonByteReader reader = new JsonByteReader(jsonData, 0, jsonData.length);
+		
+		if (reader.isEndOfDocument() || reader.nextNull()) {
+			reader.endDocument();
+			return null;
+		}
+		
+		SensorDataBatch batch = new SensorDataBatch();
+		batch.readJson(reader);
+		reader.endDocument();
+		
+		return batch;
+	}
+	
+	public byte[] sensorDataBatchToCbor(SensorDataBatch batch)
+	{
+		if (batch == null) {
+			return NULL_CBOR.clone();
+		}
+		
+		CborByteWriter writer = _CborWriter.get().reset();
+		batch.writeCbor(writer);
+		
+		return writer.toByteArray();
+	}
+	
+	public SensorDataBatch cborToSensorDataBatch(byte[] cborData)
+	{
+		if (cborData == null) {
+			return null;
+		}
+		
+		CborByteReader reader = new CborByteReader(cborData, 0, cborData.length);
+		
+		if (reader.isEndOfDocument() || reader.nextNull()) {
+			reader.endDocument();
+			return null;
+		}
+		
+		SensorDataBatch batch = new SensorDataBatch();
+		batch.readCbor(reader);
+		reader.endDocument();
+		
+		return batch;
+	}
+	
+	/**
+	 * Encodes the batch in the given format, in a single pass over its
+	 * columns (see {@link SensorDataBatch}).
+	 * 
+	 * @param batch The batch to encode.
+	 * @param format The format (JSON if null).
+	 * @return byte[]
+	 */
+	public byte[] sensorDataBatchToBytes(SensorDataBatch batch, PayloadFormatEnum format)
+	{
+		return (format == PayloadFormatEnum.CBOR ? sensorDataBatchToCbor(batch) : sensorDataBatchToJsonBytes(batch));
+	}
+	
+	public SensorDataBatch bytesToSensorDataBatch(byte[] payload, PayloadFormatEnum format)
+	{
+		return (format == PayloadFormatEnum.CBOR ? cborToSensorDataBatch(payload) : jsonToSensorDataBatch(payload));
+	}
+	
+	/**
+	 * Returns the format to use when encoding messages for the resource.
+	 * This is set in the GatewayDevice section of the config file, by
+	 * resource type (e.g. payloadFormatSensorMsg) or for all resources
+	 * (payloadFormat), and is JSON by default, or if the configured
+	 * format isn't recognized.
+	 * 
+	 * @param resource The resource.
+	 * @return PayloadFormatEnum
+	 */
+	public PayloadFormatEnum getPayloadFormat(ResourceNameEnum resource)
+	{
+		Map<ResourceNameEnum, PayloadFormatEnum> formats = this.payloadFormats;
+		
+		if (formats == null) {
+			formats = loadPayloadFormats();
+			this.payloadFormats = formats;
+		}
+		
+		return (resource != null ? formats.get(resource) : PayloadFormatEnum.JSON);
+	}
+	
+	
+	// private methods
+	
+	private byte[] iotDataToCborBytes(BaseIotData data)
+	{
+		if (data == null) {
+			return NULL_CBOR.clone();
+		}
+		
+		CborByteWriter writer = _CborWriter.get().reset();
+		data.writeCbor(writer);
+		
+		return writer.toByteArray();
+	}
+	
+	/**
+	 * Reads a single CBOR map, as {@link #readIotData(JsonByteReader, Supplier)}
+	 * does for JSON: an empty document or a CBOR null returns null, and
+	 * anything after the map is an error.
+	 * 
+	 */
+	private <T extends BaseIotData> T readIotData(CborByteReader reader, Supplier<T> factory)
+	{
+		if (reader.isEndOfDocument() || reader.nextNull()) {
+			reader.endDocument();
+			return null;
+		}
+		
+		T data = factory.get();
+		
+		try {
+			data.readCbor(reader);
+			reader.endDocument();
+		} catch (RuntimeException e) {
+			releasePooledIotData(data, factory);
+			throw e;
+		}
+		
+		return data;
+	}
+	
+	private <T extends BaseIotData> T readPooledIotData(byte[] payload, PayloadFormatEnum format, IotDataPool<T> pool)
+	{
+		if (payload == null) {
+			return null;
+		}
+		
+		if (format == PayloadFormatEnum.CBOR) {
+			return readIotData(_CborReader.get().reset(payload, 0, payload.length), pool);
+		}
+		
+		return readIotData(_JsonReader.get().reset(payload, 0, payload.length), pool);
+	}
+	
+	/**
+	 * Returns an instance that failed to decode to its pool, if the
+	 * factory it came from is one.
+	 * 
+	 */
+	private <T extends BaseIotData> void releasePooledIotData(T data, Supplier<T> factory)
+	{
+		if (factory instanceof IotDataPool) {
+			((IotDataPool<?>) factory).release(data);
+		}
+	}
+	
+	private Map<ResourceNameEnum, PayloadFormatEnum> loadPayloadFormats()
+	{
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+		
+		PayloadFormatEnum defaultFormat = parsePayloadFormat(
+			ConfigConst.PAYLOAD_FORMAT_KEY,
+			configUtil.getProperty(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.PAYLOAD_FORMAT_KEY, ConfigConst.DEFAULT_PAYLOAD_FORMAT),
+			PayloadFormatEnum.JSON);
+		
+		Map<ResourceNameEnum, PayloadFormatEnum> formats = new EnumMap<>(ResourceNameEnum.class);
+		
+		for (ResourceNameEnum resource : ResourceNameEnum.values()) {
+			PayloadFormatEnum format = defaultFormat;
+			
+			if (resource.getResourceType() != null) {
+				String key = ConfigConst.PAYLOAD_FORMAT_KEY + resource.getResourceType();
+				format = parsePayloadFormat(key, configUtil.getProperty(ConfigConst.GATEWAY_DEVICE, key), defaultFormat);
+			}
+			
+			formats.put(resource, format);
+		}
+		
+		return formats;
+	}
+	
+	private PayloadFormatEnum parsePayloadFormat(String key, String value, PayloadFormatEnum defaultFormat)
+	{
+		if (value == null || value.isBlank()) {
+			return defaultFormat;
+		}
+		
+		PayloadFormatEnum format = PayloadFormatEnum.getEnumFromValue(value);
+		
+		if (format == null) {
+			_Logger.warning("Unknown payload format for " + key + ": " + value + ". Using " + defaultFormat.getName());
+			return defaultFormat;
+		}
+		
+		return format;
+	}
+	
+	private byte[] iotDataToJsonBytes(BaseIotData data)
+	{
+		if (data == null) {
+			return NULL_JSON.clone();
+		}
+		
+		JsonByteWriter writer = _JsonWriter.get().reset();
+		data.writeJson(writer);
+		
+		return writer.toByteArray();
+	}
+	
+	/**
+	 * Reads a single JSON object, as Gson's fromJson() would: an empty
+	 * document or a JSON null returns null, and anything after the
+	 * object is an error.
+	 * 
+	 */
+	private <T extends BaseIotData> T readIotData(JsonByteReader reader, Supplier<T> factory)
+	{
+		if (reader.isEndOfDocument() || reader.nextNull()) {
+			reader.endDocument();
+			return null;
+		}
+		
+		T data = factory.get();
+		
+		try {
+			data.readJson(reader);
+			reader.endDocument();
+		} catch (RuntimeException e) {
+			releasePooledIotData(data, factory);
+			throw e;
+		}
+		
+		return data;
 	}
 	
 }
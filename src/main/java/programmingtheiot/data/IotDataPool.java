@@ -0,0 +1,409 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.data;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of reusable IoT data instances for decoders, so high
+ * rate ingest doesn't allocate a new instance for every message.
+ * <p>
+ * Instances are acquired on one thread (e.g. a decode worker) and
+ * released on another (e.g. an uplink worker), so the pool is shared
+ * rather than thread-local: it's a fixed array of slots, each claimed
+ * and filled with a single compare-and-set, and is lock-free. Each
+ * thread starts scanning at a random slot to spread contention. If the
+ * pool is empty, a new instance is created; if it's full, a released
+ * instance is left for the garbage collector.
+ * <p>
+ * A reused instance is reset (see {@link BaseIotData#resetData()}) when
+ * it's acquired, so it's indistinguishable from a new decoder instance.
+ * An instance must be released exactly once, and must not be used, or
+ * referenced, once released; anything that needs the data later must
+ * copy it (e.g. as a {@link SensorReading}).
+ * <p>
+ * Leak detection can be enabled for debugging. Every acquired instance
+ * is then tracked, with the stack trace of the acquiring call, and an
+ * instance that's garbage collected without having been released is
+ * logged as a leak. Releasing an instance that isn't tracked (released
+ * twice, or not from this pool) is refused and logged. Tracking costs
+ * an allocation and a stack trace per acquire, so it's off by default.
+ *
+ * @param <T> The IoT data type.
+ */
+public final class IotDataPool<T extends BaseIotData> implements Supplier<T>
+{
+	// static
+
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private static final Logger _Logger =
+		Logger.getLogger(IotDataPool.class.getName());
+
+	/**
+	 * Creates a pool of {@link SensorData} decoder instances.
+	 *
+	 * @param capacity The max number of idle instances kept.
+	 * @param detectLeaks If true, leak detection is enabled.
+	 * @return IotDataPool
+	 */
+	public static IotDataPool<SensorData> createSensorDataPool(int capacity, boolean detectLeaks)
+	{
+		return new IotDataPool<>(
+			"SensorData", SensorData.class, capacity, () -> new SensorData(false), detectLeaks);
+	}
+
+	/**
+	 * Creates a pool of {@link ActuatorData} decoder instances.
+	 *
+	 * @param capacity The max number of idle instances kept.
+	 * @param detectLeaks If true, leak detection is enabled.
+	 * @return IotDataPool
+	 */
+	public static IotDataPool<ActuatorData> createActuatorDataPool(int capacity, boolean detectLeaks)
+	{
+		return new IotDataPool<>(
+			"ActuatorData", ActuatorData.class, capacity, () -> new ActuatorData(false), detectLeaks);
+	}
+
+
+	// private var's
+
+	private final String name;
+	private final Class<T> type;
+	private final Supplier<T> factory;
+	private final AtomicReferenceArray<T> slots;
+	private final LeakDetector<T> leakDetector;
+
+	// the number of filled slots, so an empty pool isn't scanned
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	private final AtomicLong createdCount   = new AtomicLong();
+	private final AtomicLong reusedCount    = new AtomicLong();
+	private final AtomicLong releasedCount  = new AtomicLong();
+	private final AtomicLong discardedCount = new AtomicLong();
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name The pool name, used for logging and metrics.
+	 * @param type The IoT data type.
+	 * @param capacity The max number of idle instances kept (minimum 1).
+	 * @param factory Creates a new instance when the pool is empty.
+	 * @param detectLeaks If true, leak detection is enabled.
+	 */
+	public IotDataPool(String name, Class<T> type, int capacity, Supplier<T> factory, boolean detectLeaks)
+	{
+		super();
+
+		this.name = name;
+		this.type = type;
+		this.factory = factory;
+		this.slots = new AtomicReferenceArray<>(Math.max(1, capacity));
+		this.leakDetector = (detectLeaks ? new LeakDetector<>(name) : null);
+	}
+
+
+	// public methods
+
+	/**
+	 * Returns an idle instance, reset to its defaults, or a new instance
+	 * if there are none.
+	 *
+	 * @return T
+	 */
+	public T acquire()
+	{
+		T data = poll();
+
+		if (data != null) {
+			data.resetData();
+			this.reusedCount.incrementAndGet();
+		} else {
+			data = this.factory.get();
+			this.createdCount.incrementAndGet();
+		}
+
+		if (this.leakDetector != null) {
+			this.leakDetector.track(data);
+		}
+
+		return data;
+	}
+
+	/**
+	 * Same as {@link #acquire()}, so the pool can be passed to decoders
+	 * that take a {@link Supplier}.
+	 *
+	 * @return T
+	 */
+	@Override
+	public T get()
+	{
+		return acquire();
+	}
+
+	/**
+	 * Returns an instance to the pool. The caller must not use the
+	 * instance after this.
+	 *
+	 * @param data The instance, which must have been acquired from this pool.
+	 * @return boolean True if the instance was kept for reuse; false if
+	 * the pool is full, or the instance isn't of this pool's type (or,
+	 * with leak detection enabled, wasn't acquired from this pool).
+	 */
+	public boolean release(BaseIotData data)
+	{
+		if (! this.type.isInstance(data)) {
+			return false;
+		}
+
+		T pooledData = this.type.cast(data);
+
+		if (this.leakDetector != null && ! this.leakDetector.untrack(pooledData)) {
+			_Logger.log(Level.WARNING,
+				"Pool '" + this.name + "': instance released twice, or not acquired from this pool",
+				new IllegalStateException("Released here"));
+			return false;
+		}
+
+		if (offer(pooledData)) {
+			this.releasedCount.incrementAndGet();
+			return true;
+		}
+
+		this.discardedCount.incrementAndGet();
+
+		return false;
+	}
+
+	public String getName()
+	{
+		return this.name;
+	}
+
+	public int getIdleCount()
+	{
+		return this.idleCount.get();
+	}
+
+	public long getCreatedCount()
+	{
+		return this.createdCount.get();
+	}
+
+	public long getReusedCount()
+	{
+		return this.reusedCount.get();
+	}
+
+	public long getReleasedCount()
+	{
+		return this.releasedCount.get();
+	}
+
+	public long getDiscardedCount()
+	{
+		return this.discardedCount.get();
+	}
+
+	public boolean isLeakDetectionEnabled()
+	{
+		return (this.leakDetector != null);
+	}
+
+	/**
+	 * Logs any instances that have been garbage collected since the last
+	 * check without having been released. This is also done on every
+	 * acquire, so only needs to be called explicitly (e.g. on shutdown,
+	 * or from tests) to get an up to date count.
+	 *
+	 * @return long The total number of leaks detected, or 0 if leak
+	 * detection isn't enabled.
+	 */
+	public long checkForLeaks()
+	{
+		return (this.leakDetector != null ? this.leakDetector.checkForLeaks() : 0L);
+	}
+
+	/**
+	 * Returns a string representation of the pool metrics.
+	 *
+	 * @return String The metrics in CSV 'key=value' format.
+	 */
+	public String getMetricsSummary()
+	{
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("pool=").append(this.name).append(',');
+		sb.append("idle=").append(getIdleCount()).append('/').append(this.slots.length()).append(',');
+		sb.append("created=").append(getCreatedCount()).append(',');
+		sb.append("reused=").append(getReusedCount()).append(',');
+		sb.append("released=").append(getReleasedCount()).append(',');
+		sb.append("discarded=").append(getDiscardedCount());
+
+		if (this.leakDetector != null) {
+			sb.append(",outstanding=").append(this.leakDetector.getOutstandingCount());
+			sb.append(",leaked=").append(this.leakDetector.checkForLeaks());
+		}
+
+		return sb.toString();
+	}
+
+
+	// private methods
+
+	private T poll()
+	{
+		if (this.idleCount.get() <= 0) {
+			return null;
+		}
+
+		int slotCount = this.slots.length();
+		int index = ThreadLocalRandom.current().nextInt(slotCount);
+
+		for (int i = 0; i < slotCount; i++) {
+			T data = this.slots.get(index);
+
+			if (data != null && this.slots.compareAndSet(index, data, null)) {
+				this.idleCount.decrementAndGet();
+				return data;
+			}
+
+			if (++index == slotCount) {
+				index = 0;
+			}
+		}
+
+		return null;
+	}
+
+	private boolean offer(T data)
+	{
+		int slotCount = this.slots.length();
+
+		if (this.idleCount.get() >= slotCount) {
+			return false;
+		}
+
+		int index = ThreadLocalRandom.current().nextInt(slotCount);
+
+		for (int i = 0; i < slotCount; i++) {
+			if (this.slots.get(index) == null && this.slots.compareAndSet(index, null, data)) {
+				this.idleCount.incrementAndGet();
+				return true;
+			}
+
+			if (++index == slotCount) {
+				index = 0;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Tracks acquired instances with weak references, so an instance
+	 * that's garbage collected while still tracked (i.e. never released)
+	 * shows up on the reference queue.
+	 *
+	 */
+	private static final class LeakDetector<T>
+	{
+		private final String poolName;
+		private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+		private final Set<Tracker<T>> trackers = ConcurrentHashMap.newKeySet();
+
+		// weak keys, so tracking doesn't keep an instance reachable
+		private final Map<T, Tracker<T>> trackersByData = Collections.synchronizedMap(new WeakHashMap<>());
+
+		private final AtomicLong leakCount = new AtomicLong();
+
+		private LeakDetector(String poolName)
+		{
+			this.poolName = poolName;
+		}
+
+		private void track(T data)
+		{
+			checkForLeaks();
+
+			Tracker<T> tracker = new Tracker<>(data, this.queue);
+
+			this.trackers.add(tracker);
+			this.trackersByData.put(data, tracker);
+		}
+
+		private boolean untrack(T data)
+		{
+			Tracker<T> tracker = this.trackersByData.remove(data);
+
+			if (tracker == null) {
+				return false;
+			}
+
+			// a cleared reference is never queued
+			tracker.clear();
+			this.trackers.remove(tracker);
+
+			return true;
+		}
+
+		private int getOutstandingCount()
+		{
+			return this.trackers.size();
+		}
+
+		private long checkForLeaks()
+		{
+			Object ref = null;
+
+			while ((ref = this.queue.poll()) != null) {
+				if (this.trackers.remove(ref)) {
+					this.leakCount.incrementAndGet();
+
+					_Logger.log(Level.WARNING,
+						"Pool '" + this.poolName + "': instance garbage collected without being released",
+						((Tracker<?>) ref).acquiredAt);
+				}
+			}
+
+			return this.leakCount.get();
+		}
+	}
+
+	private static final class Tracker<T> extends WeakReference<T>
+	{
+		private final Throwable acquiredAt = new Throwable("Acquired here");
+
+		private Tracker(T data, ReferenceQueue<T> queue)
+		{
+			super(data, queue);
+		}
+	}
+
+}
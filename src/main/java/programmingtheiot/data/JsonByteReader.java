@@ -0,0 +1,845 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.google.gson.JsonSyntaxException;
+
+/**
+ * Streaming JSON reader that decodes directly from UTF-8 bytes, with no
+ * intermediate String for the document. Member names are matched
+ * against pre-encoded names (see {@link JsonByteWriter#encodeName(String)})
+ * without being decoded.
+ * <p>
+ * Value conversions follow Gson's for the same target types, so data
+ * that Gson accepts is read the same way: numbers may be quoted, strings
+ * may be read from numbers or booleans, and integers may be written with
+ * a zero fraction (e.g. 1.0). Of Gson's lenient syntax extensions,
+ * only unquoted literals (such as NaN) are accepted; comments,
+ * single-quoted strings and unquoted names are not.
+ * <p>
+ * Errors are reported with {@link JsonSyntaxException}, as Gson does.
+ * Instances are NOT thread-safe.
+ *
+ */
+public final class JsonByteReader
+{
+	// static
+
+	private static final int MAX_DEPTH = 64;
+
+	// 10^0 to 10^22 are exactly representable as doubles
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/**
+	 * Returns a reader for the remaining bytes of the given buffer. The
+	 * buffer's position is not changed.
+	 *
+	 * @param buffer The buffer to read.
+	 * @return JsonByteReader
+	 */
+	public static JsonByteReader forBuffer(ByteBuffer buffer)
+	{
+		if (buffer.hasArray()) {
+			return new JsonByteReader(
+				buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+		}
+
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+
+		return new JsonByteReader(bytes, 0, bytes.length);
+	}
+
+
+	// private var's
+
+	private byte[] buf;
+	private int limit;
+	private int pos;
+
+	// the last name read by nextName(): its content offset and length,
+	// and whether it contains escapes (so can't be compared as-is)
+	private int nameStart = 0;
+	private int nameLength = 0;
+	private boolean nameHasEscapes = false;
+	private String decodedName = null;
+
+	// per nesting level: true once the first element has been read
+	private boolean[] hasElement = new boolean[8];
+	private int depth = 0;
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param buf The UTF-8 encoded JSON.
+	 * @param offset The offset of the JSON within buf.
+	 * @param length The length of the JSON, in bytes.
+	 */
+	public JsonByteReader(byte[] buf, int offset, int length)
+	{
+		super();
+
+		reset(buf, offset, length);
+	}
+
+
+	// public methods
+
+	/**
+	 * Starts reading a new document, so the reader can be reused.
+	 *
+	 * @param buf The UTF-8 encoded JSON.
+	 * @param offset The offset of the JSON within buf.
+	 * @param length The length of the JSON, in bytes.
+	 * @return JsonByteReader This instance.
+	 */
+	public JsonByteReader reset(byte[] buf, int offset, int length)
+	{
+		if (offset < 0 || length < 0 || offset + length > buf.length) {
+			throw new IndexOutOfBoundsException(
+				"Offset " + offset + " and length " + length + " out of range for length " + buf.length);
+		}
+
+		this.buf = buf;
+		this.pos = offset;
+		this.limit = offset + length;
+		this.nameStart = 0;
+		this.nameLength = 0;
+		this.nameHasEscapes = false;
+		this.decodedName = null;
+		this.depth = 0;
+
+		Arrays.fill(this.hasElement, false);
+
+		return this;
+	}
+
+	/**
+	 * Returns true if there's nothing but whitespace left to read.
+	 *
+	 * @return boolean
+	 */
+	public boolean isEndOfDocument()
+	{
+		return skipWhitespace() == -1;
+	}
+
+	/**
+	 * Checks there's nothing but whitespace left to read.
+	 *
+	 * @throws JsonSyntaxException If there is.
+	 */
+	public void endDocument()
+	{
+		if (! isEndOfDocument()) {
+			throw syntaxError("Expected end of document");
+		}
+	}
+
+	public void beginObject()
+	{
+		expect('{');
+		push();
+	}
+
+	public void endObject()
+	{
+		expect('}');
+		pop();
+	}
+
+	public void beginArray()
+	{
+		expect('[');
+		push();
+	}
+
+	public void endArray()
+	{
+		expect(']');
+		pop();
+	}
+
+	/**
+	 * Returns true if the current object or array has another element,
+	 * consuming the comma before it, if any.
+	 *
+	 * @return boolean
+	 */
+	public boolean hasNext()
+	{
+		int c = skipWhitespace();
+
+		if (c == '}' || c == ']' || c == -1) {
+			return false;
+		}
+
+		if (this.hasElement[this.depth]) {
+			if (c != ',') {
+				throw syntaxError("Expected ',' or end of object or array");
+			}
+
+			this.pos++;
+		}
+
+		this.hasElement[this.depth] = true;
+
+		return true;
+	}
+
+	/**
+	 * Reads an object member name, and the colon after it. The name can
+	 * then be checked with {@link #isName(byte[])}.
+	 *
+	 */
+	public void nextName()
+	{
+		expect('"');
+
+		this.nameStart = this.pos;
+		this.nameHasEscapes = false;
+		this.decodedName = null;
+
+		int end = scanString();
+
+		this.nameLength = end - this.nameStart;
+		this.pos = end + 1;
+
+		expect(':');
+	}
+
+	/**
+	 * Returns true if the last name read matches the given name.
+	 *
+	 * @param encodedName The name, as returned by {@link JsonByteWriter#encodeName(String)}.
+	 * @return boolean
+	 */
+	public boolean isName(byte[] encodedName)
+	{
+		// the encoded name is quoted, with a trailing colon
+		int length = encodedName.length - 3;
+
+		if (this.nameHasEscapes) {
+			if (this.decodedName == null) {
+				this.decodedName = decodeString(this.nameStart, this.nameStart + this.nameLength);
+			}
+
+			return this.decodedName.equals(new String(encodedName, 1, length, StandardCharsets.UTF_8));
+		}
+
+		if (length != this.nameLength) {
+			return false;
+		}
+
+		for (int i = 0; i < length; i++) {
+			if (this.buf[this.nameStart + i] != encodedName[i + 1]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the last name read.
+	 *
+	 * @return String
+	 */
+	public String getName()
+	{
+		if (this.decodedName == null) {
+			this.decodedName = decodeString(this.nameStart, this.nameStart + this.nameLength);
+		}
+
+		return this.decodedName;
+	}
+
+	/**
+	 * Consumes a null value, if that's what's next.
+	 *
+	 * @return boolean True if a null was consumed; false otherwise.
+	 */
+	public boolean nextNull()
+	{
+		if (skipWhitespace() == 'n') {
+			int end = scanLiteral();
+
+			if (isLiteral(end, "null")) {
+				this.pos = end;
+				return true;
+			}
+
+			throw syntaxError("Unexpected value");
+		}
+
+		return false;
+	}
+
+	/**
+	 * Reads a string value. As with Gson, a number or boolean is returned
+	 * as its text, and null as null.
+	 *
+	 * @return String
+	 */
+	public String nextString()
+	{
+		int c = skipWhitespace();
+
+		if (c == '"') {
+			int start = ++this.pos;
+			int end = scanString();
+
+			this.pos = end + 1;
+
+			return decodeString(start, end);
+		}
+
+		int end = scanValueLiteral();
+
+		if (isLiteral(end, "null")) {
+			this.pos = end;
+			return null;
+		}
+
+		String literal = new String(this.buf, this.pos, end - this.pos, StandardCharsets.US_ASCII);
+
+		this.pos = end;
+
+		return literal;
+	}
+
+	/**
+	 * Reads a string value, as {@link #nextString()} does, but returns
+	 * the interned instance for strings without escapes.
+	 *
+	 * @param interner The interner to use.
+	 * @return String
+	 */
+	public String nextString(StringInterner interner)
+	{
+		int c = skipWhitespace();
+
+		if (c == '"') {
+			int start = this.pos + 1;
+			int end = start;
+
+			while (end < this.limit && this.buf[end] != '"' && this.buf[end] != '\\') {
+				end++;
+			}
+
+			if (end < this.limit && this.buf[end] == '"') {
+				this.pos = end + 1;
+
+				return interner.intern(this.buf, start, end - start);
+			}
+		}
+
+		return nextString();
+	}
+
+	/**
+	 * Reads a boolean value, which may also be a string, as with Gson.
+	 *
+	 * @return boolean
+	 */
+	public boolean nextBoolean()
+	{
+		int c = skipWhitespace();
+
+		if (c == '"') {
+			return Boolean.parseBoolean(nextString());
+		}
+
+		int end = scanValueLiteral();
+		boolean value = false;
+
+		if (isLiteral(end, "true")) {
+			value = true;
+		} else if (! isLiteral(end, "false")) {
+			throw syntaxError("Expected a boolean");
+		}
+
+		this.pos = end;
+
+		return value;
+	}
+
+	/**
+	 * Reads a number value, which may also be a quoted number.
+	 *
+	 * @return double
+	 */
+	public double nextDouble()
+	{
+		int c = skipWhitespace();
+
+		if (c == '"') {
+			String s = nextString();
+
+			try {
+				return Double.parseDouble(s);
+			} catch (NumberFormatException e) {
+				throw new JsonSyntaxException("Expected a double but was " + s, e);
+			}
+		}
+
+		int start = this.pos;
+		int end = scanValueLiteral();
+		double value = parseDouble(start, end);
+
+		this.pos = end;
+
+		return value;
+	}
+
+	public float nextFloat()
+	{
+		return (float) nextDouble();
+	}
+
+	/**
+	 * Reads a long value, which may also be quoted, or have a zero fraction.
+	 *
+	 * @return long
+	 */
+	public long nextLong()
+	{
+		int c = skipWhitespace();
+
+		if (c == '"') {
+			String s = nextString();
+
+			try {
+				return Long.parseLong(s);
+			} catch (NumberFormatException e) {
+				return toLong(parseDoubleText(s));
+			}
+		}
+
+		int start = this.pos;
+		int end = scanValueLiteral();
+		long value = 0L;
+		boolean negative = (this.buf[start] == '-');
+		int i = negative ? start + 1 : start;
+
+		// fast path: plain integer digits, without overflow
+		boolean isPlainInteger = (i < end && end - i <= 18);
+
+		for (; isPlainInteger && i < end; i++) {
+			int digit = this.buf[i] - '0';
+
+			if (digit < 0 || digit > 9) {
+				isPlainInteger = false;
+			} else {
+				value = value * 10L + digit;
+			}
+		}
+
+		if (! isPlainInteger) {
+			value = toLong(parseDouble(start, end));
+		} else if (negative) {
+			value = -value;
+		}
+
+		this.pos = end;
+
+		return value;
+	}
+
+	public int nextInt()
+	{
+		long value = nextLong();
+
+		if (value != (int) value) {
+			throw new JsonSyntaxException("Expected an int but was " + value);
+		}
+
+		return (int) value;
+	}
+
+	/**
+	 * Skips the next value, including any nested objects or arrays.
+	 *
+	 */
+	public void skipValue()
+	{
+		int c = skipWhitespace();
+
+		if (c == '{') {
+			beginObject();
+
+			while (hasNext()) {
+				nextName();
+				skipValue();
+			}
+
+			endObject();
+		} else if (c == '[') {
+			beginArray();
+
+			while (hasNext()) {
+				skipValue();
+			}
+
+			endArray();
+		} else if (c == '"') {
+			this.pos++;
+			this.pos = scanString() + 1;
+		} else {
+			this.pos = scanValueLiteral();
+		}
+	}
+
+
+	// private methods
+
+	private JsonSyntaxException syntaxError(String message)
+	{
+		return new JsonSyntaxException(message + " at offset " + this.pos);
+	}
+
+	private void push()
+	{
+		if (this.depth + 1 >= MAX_DEPTH) {
+			throw syntaxError("Nesting too deep");
+		}
+
+		if (++this.depth == this.hasElement.length) {
+			boolean[] newElements = new boolean[this.hasElement.length * 2];
+			System.arraycopy(this.hasElement, 0, newElements, 0, this.hasElement.length);
+			this.hasElement = newElements;
+		}
+
+		this.hasElement[this.depth] = false;
+	}
+
+	private void pop()
+	{
+		this.depth--;
+	}
+
+	private void expect(char c)
+	{
+		if (skipWhitespace() != c) {
+			throw syntaxError("Expected '" + c + "'");
+		}
+
+		this.pos++;
+	}
+
+	/**
+	 * Skips whitespace, and returns the next byte (without consuming
+	 * it), or -1 at the end.
+	 *
+	 */
+	private int skipWhitespace()
+	{
+		while (this.pos < this.limit) {
+			byte b = this.buf[this.pos];
+
+			if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+				this.pos++;
+			} else {
+				return b;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns the offset of the closing quote of the string whose content
+	 * starts at pos, recording whether it contains escapes.
+	 *
+	 */
+	private int scanString()
+	{
+		for (int i = this.pos; i < this.limit; i++) {
+			byte b = this.buf[i];
+
+			if (b == '"') {
+				return i;
+			} else if (b == '\\') {
+				this.nameHasEscapes = true;
+				i++;
+			}
+		}
+
+		throw syntaxError("Unterminated string");
+	}
+
+	/**
+	 * Returns the end offset of the unquoted literal (number, true, false
+	 * or null) starting at pos.
+	 *
+	 */
+	private int scanLiteral()
+	{
+		int i = this.pos;
+
+		while (i < this.limit) {
+			byte b = this.buf[i];
+
+			if (b == ',' || b == '}' || b == ']' || b == ':' ||
+				b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+				break;
+			}
+
+			i++;
+		}
+
+		return i;
+	}
+
+	/**
+	 * As {@link #scanLiteral()}, but fails if there's no literal at pos.
+	 *
+	 */
+	private int scanValueLiteral()
+	{
+		int c = skipWhitespace();
+
+		if (c == -1 || c == '{' || c == '[' || c == '"') {
+			throw syntaxError(c == -1 ? "Unexpected end of document" : "Unexpected value");
+		}
+
+		int end = scanLiteral();
+
+		if (end == this.pos) {
+			throw syntaxError("Unexpected value");
+		}
+
+		return end;
+	}
+
+	private boolean isLiteral(int end, String literal)
+	{
+		int length = literal.length();
+
+		if (end - this.pos != length) {
+			return false;
+		}
+
+		for (int i = 0; i < length; i++) {
+			if (this.buf[this.pos + i] != literal.charAt(i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Decodes the string content between start and end, which have
+	 * already been checked by {@link #scanString()}.
+	 *
+	 */
+	private String decodeString(int start, int end)
+	{
+		int escape = start;
+
+		while (escape < end && this.buf[escape] != '\\') {
+			escape++;
+		}
+
+		if (escape == end) {
+			return new String(this.buf, start, end - start, StandardCharsets.UTF_8);
+		}
+
+		StringBuilder sb = new StringBuilder(end - start);
+		int segmentStart = start;
+
+		for (int i = escape; i < end; i++) {
+			if (this.buf[i] != '\\') {
+				continue;
+			}
+
+			if (i > segmentStart) {
+				sb.append(new String(this.buf, segmentStart, i - segmentStart, StandardCharsets.UTF_8));
+			}
+
+			if (++i >= end) {
+				throw syntaxError("Unterminated escape sequence");
+			}
+
+			byte b = this.buf[i];
+
+			switch (b) {
+				case '"':  sb.append('"');  break;
+				case '\\': sb.append('\\'); break;
+				case '/':  sb.append('/');  break;
+				case '\'': sb.append('\''); break;
+				case 'b':  sb.append('\b'); break;
+				case 'f':  sb.append('\f'); break;
+				case 'n':  sb.append('\n'); break;
+				case 'r':  sb.append('\r'); break;
+				case 't':  sb.append('\t'); break;
+				case 'u':
+					if (i + 4 >= end) {
+						throw syntaxError("Unterminated escape sequence");
+					}
+
+					int value = 0;
+
+					for (int j = 1; j <= 4; j++) {
+						int digit = Character.digit(this.buf[i + j], 16);
+
+						if (digit < 0) {
+							throw syntaxError("Malformed Unicode escape");
+						}
+
+						value = (value << 4) | digit;
+					}
+
+					sb.append((char) value);
+					i += 4;
+					break;
+				default:
+					throw syntaxError("Invalid escape sequence");
+			}
+
+			segmentStart = i + 1;
+		}
+
+		if (segmentStart < end) {
+			sb.append(new String(this.buf, segmentStart, end - segmentStart, StandardCharsets.UTF_8));
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Parses the number between start and end. Numbers with up to 15
+	 * significant digits and a small exponent (the usual case for sensor
+	 * data) are converted exactly without creating a String; the result
+	 * is the same as {@link Double#parseDouble(String)}.
+	 *
+	 */
+	private double parseDouble(int start, int end)
+	{
+		int i = start;
+		boolean negative = false;
+
+		if (this.buf[i] == '-') {
+			negative = true;
+			i++;
+		}
+
+		long mantissa = 0L;
+		int digitCount = 0;
+		int exponent = 0;
+		boolean hasDigits = false;
+		boolean isFastPath = true;
+
+		for (; i < end && isDigit(this.buf[i]); i++) {
+			hasDigits = true;
+
+			if (mantissa != 0L || this.buf[i] != '0') {
+				mantissa = mantissa * 10L + (this.buf[i] - '0');
+
+				if (++digitCount > 15) {
+					isFastPath = false;
+					break;
+				}
+			}
+		}
+
+		if (isFastPath && i < end && this.buf[i] == '.') {
+			i++;
+
+			for (; i < end && isDigit(this.buf[i]); i++) {
+				hasDigits = true;
+
+				if (mantissa != 0L || this.buf[i] != '0') {
+					mantissa = mantissa * 10L + (this.buf[i] - '0');
+
+					if (++digitCount > 15) {
+						isFastPath = false;
+						break;
+					}
+				}
+
+				exponent--;
+			}
+		}
+
+		if (isFastPath && hasDigits && i < end && (this.buf[i] == 'e' || this.buf[i] == 'E')) {
+			i++;
+
+			boolean negativeExponent = false;
+
+			if (i < end && (this.buf[i] == '-' || this.buf[i] == '+')) {
+				negativeExponent = (this.buf[i] == '-');
+				i++;
+			}
+
+			int explicitExponent = 0;
+			boolean hasExponentDigits = false;
+
+			for (; i < end && isDigit(this.buf[i]) && explicitExponent < 1000; i++) {
+				hasExponentDigits = true;
+				explicitExponent = explicitExponent * 10 + (this.buf[i] - '0');
+			}
+
+			if (! hasExponentDigits) {
+				isFastPath = false;
+			}
+
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+
+		if (isFastPath && hasDigits && i == end && exponent >= -22 && exponent <= 22) {
+			double value = (double) mantissa;
+
+			value = (exponent < 0 ? value / POWERS_OF_TEN[-exponent] : value * POWERS_OF_TEN[exponent]);
+
+			return negative ? -value : value;
+		}
+
+		return parseDoubleText(new String(this.buf, start, end - start, StandardCharsets.US_ASCII));
+	}
+
+	private double parseDoubleText(String s)
+	{
+		try {
+			return Double.parseDouble(s);
+		} catch (NumberFormatException e) {
+			throw new JsonSyntaxException("Expected a number but was " + s + " at offset " + this.pos, e);
+		}
+	}
+
+	private long toLong(double value)
+	{
+		long longValue = (long) value;
+
+		if (longValue != value) {
+			throw new JsonSyntaxException("Expected a long but was " + value + " at offset " + this.pos);
+		}
+
+		return longValue;
+	}
+
+	private boolean isDigit(byte b)
+	{
+		return b >= '0' && b <= '9';
+	}
+
+}
@@ -0,0 +1,460 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming JSON writer that encodes directly to a growable UTF-8 byte
+ * buffer, which can be reset and reused, so writing a message doesn't
+ * need an intermediate String.
+ * <p>
+ * The output matches Gson's default (HTML-safe, compact) output for the
+ * same values: strings are escaped the same way, floats are written
+ * using {@link Float#toString(float)}, and NaN or infinite values are
+ * rejected. Commas are inserted automatically; the caller is expected
+ * to write well-formed structures (names only within objects, etc.).
+ * <p>
+ * Instances are NOT thread-safe.
+ *
+ */
+public final class JsonByteWriter
+{
+	// static
+
+	public static final int DEFAULT_CAPACITY = 512;
+
+	private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] NULL_BYTES = "null".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] TRUE_BYTES = "true".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] FALSE_BYTES = "false".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Returns the encoded form of an object member name - the quoted,
+	 * escaped name followed by a colon - for use with {@link #name(byte[])}.
+	 * Names are normally constant, so this is intended to be called once
+	 * per name, e.g. to initialize a static field.
+	 *
+	 * @param name The member name.
+	 * @return byte[]
+	 */
+	public static byte[] encodeName(String name)
+	{
+		JsonByteWriter writer = new JsonByteWriter(name.length() + 8);
+		writer.writeString(name);
+		writer.writeByte(':');
+
+		return writer.toByteArray();
+	}
+
+
+	// private var's
+
+	private byte[] buffer = null;
+	private int count = 0;
+
+	// per nesting level: true once the first element has been written
+	private boolean[] hasElement = new boolean[8];
+	private int depth = 0;
+	private boolean afterName = false;
+
+	// constructors
+
+	/**
+	 * Default.
+	 *
+	 */
+	public JsonByteWriter()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param initialCapacity The initial buffer size, in bytes.
+	 */
+	public JsonByteWriter(int initialCapacity)
+	{
+		super();
+
+		this.buffer = new byte[Math.max(16, initialCapacity)];
+	}
+
+
+	// public methods
+
+	/**
+	 * Clears the content, keeping the buffer for reuse.
+	 *
+	 * @return JsonByteWriter This instance.
+	 */
+	public JsonByteWriter reset()
+	{
+		this.count = 0;
+		this.depth = 0;
+		this.afterName = false;
+		this.hasElement[0] = false;
+
+		return this;
+	}
+
+	/**
+	 * Returns the number of bytes written.
+	 *
+	 * @return int
+	 */
+	public int size()
+	{
+		return this.count;
+	}
+
+	/**
+	 * Returns the internal buffer. Only the first {@link #size()} bytes
+	 * are valid, and the buffer may be replaced by later writes.
+	 *
+	 * @return byte[]
+	 */
+	public byte[] getBuffer()
+	{
+		return this.buffer;
+	}
+
+	/**
+	 * Returns a copy of the bytes written.
+	 *
+	 * @return byte[]
+	 */
+	public byte[] toByteArray()
+	{
+		return Arrays.copyOf(this.buffer, this.count);
+	}
+
+	/**
+	 * Copies the bytes written into the given buffer, at its position.
+	 *
+	 * @param target The buffer to write to.
+	 * @throws java.nio.BufferOverflowException If there isn't enough room.
+	 */
+	public void writeTo(ByteBuffer target)
+	{
+		target.put(this.buffer, 0, this.count);
+	}
+
+	/**
+	 * Decodes the bytes written as a String.
+	 *
+	 * @return String
+	 */
+	public String toString()
+	{
+		return new String(this.buffer, 0, this.count, StandardCharsets.UTF_8);
+	}
+
+	public JsonByteWriter beginObject()
+	{
+		beforeValue();
+		writeByte('{');
+		push();
+
+		return this;
+	}
+
+	public JsonByteWriter endObject()
+	{
+		pop();
+		writeByte('}');
+
+		return this;
+	}
+
+	public JsonByteWriter beginArray()
+	{
+		beforeValue();
+		writeByte('[');
+		push();
+
+		return this;
+	}
+
+	public JsonByteWriter endArray()
+	{
+		pop();
+		writeByte(']');
+
+		return this;
+	}
+
+	/**
+	 * Writes an object member name.
+	 *
+	 * @param encodedName The name, as returned by {@link #encodeName(String)}.
+	 * @return JsonByteWriter This instance.
+	 */
+	public JsonByteWriter name(byte[] encodedName)
+	{
+		if (this.hasElement[this.depth]) {
+			writeByte(',');
+		}
+
+		this.hasElement[this.depth] = true;
+		this.afterName = true;
+
+		writeBytes(encodedName);
+
+		return this;
+	}
+
+	public JsonByteWriter nullValue()
+	{
+		beforeValue();
+		writeBytes(NULL_BYTES);
+
+		return this;
+	}
+
+	/**
+	 * Writes a string value, or null if the value is null.
+	 *
+	 * @param value The value to write.
+	 * @return JsonByteWriter This instance.
+	 */
+	public JsonByteWriter value(String value)
+	{
+		if (value == null) {
+			return nullValue();
+		}
+
+		beforeValue();
+		writeString(value);
+
+		return this;
+	}
+
+	public JsonByteWriter value(boolean value)
+	{
+		beforeValue();
+		writeBytes(value ? TRUE_BYTES : FALSE_BYTES);
+
+		return this;
+	}
+
+	public JsonByteWriter value(int value)
+	{
+		return value((long) value);
+	}
+
+	public JsonByteWriter value(long value)
+	{
+		beforeValue();
+
+		if (value == Long.MIN_VALUE) {
+			writeAscii(Long.toString(value));
+			return this;
+		}
+
+		if (value < 0L) {
+			writeByte('-');
+			value = -value;
+		}
+
+		// digits are generated backwards, then written in place
+		int digitCount = 1;
+
+		for (long v = value / 10L; v > 0L; v /= 10L) {
+			digitCount++;
+		}
+
+		ensureCapacity(digitCount);
+
+		for (int i = this.count + digitCount - 1; i >= this.count; i--) {
+			this.buffer[i] = (byte) ('0' + (value % 10L));
+			value /= 10L;
+		}
+
+		this.count += digitCount;
+
+		return this;
+	}
+
+	/**
+	 * Writes a float value, formatted as {@link Float#toString(float)}.
+	 *
+	 * @param value The value to write.
+	 * @return JsonByteWriter This instance.
+	 * @throws IllegalArgumentException If the value is NaN or infinite.
+	 */
+	public JsonByteWriter value(float value)
+	{
+		if (Float.isNaN(value) || Float.isInfinite(value)) {
+			throw new IllegalArgumentException(
+				value + " is not a valid double value as per JSON specification.");
+		}
+
+		beforeValue();
+		writeAscii(Float.toString(value));
+
+		return this;
+	}
+
+
+	// private methods
+
+	private void beforeValue()
+	{
+		if (this.afterName) {
+			this.afterName = false;
+		} else if (this.depth > 0) {
+			// an array element
+			if (this.hasElement[this.depth]) {
+				writeByte(',');
+			}
+
+			this.hasElement[this.depth] = true;
+		}
+	}
+
+	private void push()
+	{
+		if (++this.depth == this.hasElement.length) {
+			this.hasElement = Arrays.copyOf(this.hasElement, this.hasElement.length * 2);
+		}
+
+		this.hasElement[this.depth] = false;
+	}
+
+	private void pop()
+	{
+		if (this.depth == 0) {
+			throw new IllegalStateException("Nesting problem: no object or array to end");
+		}
+
+		this.depth--;
+		this.afterName = false;
+	}
+
+	private void ensureCapacity(int extra)
+	{
+		int required = this.count + extra;
+
+		if (required > this.buffer.length) {
+			this.buffer = Arrays.copyOf(this.buffer, Math.max(required, this.buffer.length * 2));
+		}
+	}
+
+	private void writeByte(int b)
+	{
+		ensureCapacity(1);
+		this.buffer[this.count++] = (byte) b;
+	}
+
+	private void writeBytes(byte[] bytes)
+	{
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, this.buffer, this.count, bytes.length);
+		this.count += bytes.length;
+	}
+
+	private void writeAscii(String s)
+	{
+		int len = s.length();
+
+		ensureCapacity(len);
+
+		for (int i = 0; i < len; i++) {
+			this.buffer[this.count++] = (byte) s.charAt(i);
+		}
+	}
+
+	/**
+	 * Writes the quoted, escaped string as UTF-8, using the same escapes
+	 * as Gson's HTML-safe mode. Unpaired surrogates are written as '?',
+	 * as {@link String#getBytes(java.nio.charset.Charset)} does.
+	 *
+	 */
+	private void writeString(String s)
+	{
+		int len = s.length();
+
+		// worst case is 6 bytes per char (a \\u escape)
+		ensureCapacity(len * 6 + 2);
+
+		byte[] buf = this.buffer;
+		int pos = this.count;
+
+		buf[pos++] = '"';
+
+		for (int i = 0; i < len; i++) {
+			char c = s.charAt(i);
+
+			if (c < 0x80) {
+				switch (c) {
+					case '"':  buf[pos++] = '\\'; buf[pos++] = '"';  break;
+					case '\\': buf[pos++] = '\\'; buf[pos++] = '\\'; break;
+					case '\t': buf[pos++] = '\\'; buf[pos++] = 't';  break;
+					case '\b': buf[pos++] = '\\'; buf[pos++] = 'b';  break;
+					case '\n': buf[pos++] = '\\'; buf[pos++] = 'n';  break;
+					case '\r': buf[pos++] = '\\'; buf[pos++] = 'r';  break;
+					case '\f': buf[pos++] = '\\'; buf[pos++] = 'f';  break;
+					case '<': case '>': case '&': case '=': case '\'':
+						pos = writeUnicodeEscape(buf, pos, c);
+						break;
+					default:
+						if (c < 0x20) {
+							pos = writeUnicodeEscape(buf, pos, c);
+						} else {
+							buf[pos++] = (byte) c;
+						}
+				}
+			} else if (c < 0x800) {
+				buf[pos++] = (byte) (0xC0 | (c >> 6));
+				buf[pos++] = (byte) (0x80 | (c & 0x3F));
+			} else if (c == '\u2028' || c == '\u2029') {
+				pos = writeUnicodeEscape(buf, pos, c);
+			} else if (Character.isSurrogate(c)) {
+				if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+					int cp = Character.toCodePoint(c, s.charAt(++i));
+
+					buf[pos++] = (byte) (0xF0 | (cp >> 18));
+					buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+					buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+					buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+				} else {
+					buf[pos++] = '?';
+				}
+			} else {
+				buf[pos++] = (byte) (0xE0 | (c >> 12));
+				buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				buf[pos++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+
+		buf[pos++] = '"';
+
+		this.count = pos;
+	}
+
+	private int writeUnicodeEscape(byte[] buf, int pos, char c)
+	{
+		buf[pos++] = '\\';
+		buf[pos++] = 'u';
+		buf[pos++] = HEX_DIGITS[(c >> 12) & 0xF];
+		buf[pos++] = HEX_DIGITS[(c >> 8) & 0xF];
+		buf[pos++] = HEX_DIGITS[(c >> 4) & 0xF];
+		buf[pos++] = HEX_DIGITS[c & 0xF];
+
+		return pos;
+	}
+
+}
@@ -0,0 +1,266 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.data;
+
+import static programmingtheiot.data.BaseIotData.*;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.PayloadFormatEnum;
+
+/**
+ * Scans an encoded IoT data payload (JSON or CBOR) for the properties
+ * needed to route it - the type ID, location ID, name and time stamp
+ * (the ISO 8601 string, as sent by the CDA, or the millis) - without
+ * creating a data instance. Values of any other property are skipped,
+ * and the scan stops as soon as all four (including the millis, which
+ * are encoded after the string) have been found, so messages that are
+ * dropped or re-routed never pay the full decode cost. A payload without
+ * millis, such as the CDA's, is scanned to its end.
+ * <p>
+ * Only the top level properties are read, so this works for any of the
+ * {@link BaseIotData} sub-classes. Names and location IDs are interned
+ * as they are when decoding, so they can be compared and used as map
+ * keys cheaply.
+ * <p>
+ * The readers are reused from scan to scan, so instances are NOT
+ * thread-safe; use one per thread.
+ *
+ */
+public final class PayloadFieldScanner
+{
+	// private var's
+
+	private JsonByteReader jsonReader = null;
+	private CborByteReader cborReader = null;
+
+	private boolean hasTypeID = false;
+	private boolean hasTimeStampMillis = false;
+
+	private int    typeID = ConfigConst.DEFAULT_TYPE_ID;
+	private String locationID = null;
+	private String name = null;
+	private String timeStamp = null;
+	private long   timeStampMillis = 0L;
+
+
+	// constructors
+
+	/**
+	 * Default constructor.
+	 *
+	 */
+	public PayloadFieldScanner()
+	{
+		super();
+	}
+
+
+	// public methods
+
+	/**
+	 * Scans the given payload. The properties found are available from
+	 * the getters until the next scan; any that weren't found are left
+	 * unset (see {@link #hasTypeID()} and {@link #hasTimeStampMillis()},
+	 * and the string getters return null).
+	 *
+	 * @param payload The encoded payload.
+	 * @param format The payload format.
+	 * @return boolean True if the payload is a well-formed object (as far
+	 * as it was read), false if it's empty or malformed.
+	 */
+	public boolean scan(byte[] payload, PayloadFormatEnum format)
+	{
+		clear();
+
+		if (payload == null || payload.length == 0) {
+			return false;
+		}
+
+		try {
+			if (format == PayloadFormatEnum.CBOR) {
+				scanCbor(payload);
+			} else {
+				scanJson(payload);
+			}
+
+			return true;
+		} catch (RuntimeException e) {
+			// the full decode will report the error, if it's attempted
+			clear();
+
+			return false;
+		}
+	}
+
+	/**
+	 * Clears the properties of the last scan.
+	 *
+	 */
+	public void clear()
+	{
+		this.hasTypeID          = false;
+		this.hasTimeStampMillis = false;
+		this.typeID             = ConfigConst.DEFAULT_TYPE_ID;
+		this.locationID         = null;
+		this.name               = null;
+		this.timeStamp          = null;
+		this.timeStampMillis    = 0L;
+	}
+
+	public boolean hasTypeID()
+	{
+		return this.hasTypeID;
+	}
+
+	public boolean hasTimeStampMillis()
+	{
+		return this.hasTimeStampMillis;
+	}
+
+	public int getTypeID()
+	{
+		return this.typeID;
+	}
+
+	public String getLocationID()
+	{
+		return this.locationID;
+	}
+
+	public String getName()
+	{
+		return this.name;
+	}
+
+	public long getTimeStampMillis()
+	{
+		return this.timeStampMillis;
+	}
+
+	/**
+	 * Returns true if the payload has a time stamp, as an ISO 8601 string
+	 * or millis.
+	 *
+	 * @return boolean
+	 */
+	public boolean hasTimeStamp()
+	{
+		return this.timeStamp != null || this.hasTimeStampMillis;
+	}
+
+	/**
+	 * Returns the time stamp as it would be decoded (see
+	 * {@link BaseIotData#getTimeStamp()}): the ISO 8601 string, if the
+	 * payload has one (as the CDA's do), otherwise formatted from the
+	 * millis.
+	 *
+	 * @return String The time stamp, or null if the payload has neither.
+	 */
+	public String getTimeStamp()
+	{
+		if (this.timeStamp == null && this.hasTimeStampMillis) {
+			this.timeStamp = DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(this.timeStampMillis));
+		}
+
+		return this.timeStamp;
+	}
+
+
+	// private methods
+
+	private boolean isComplete()
+	{
+		return this.hasTypeID && this.hasTimeStampMillis && this.locationID != null && this.name != null;
+	}
+
+	private void scanJson(byte[] payload)
+	{
+		if (this.jsonReader == null) {
+			this.jsonReader = new JsonByteReader(payload, 0, payload.length);
+		} else {
+			this.jsonReader.reset(payload, 0, payload.length);
+		}
+
+		JsonByteReader reader = this.jsonReader;
+
+		reader.beginObject();
+
+		while (reader.hasNext() && ! isComplete()) {
+			reader.nextName();
+
+			if (reader.isName(JSON_TYPE_ID)) {
+				if (! reader.nextNull()) {
+					this.typeID = reader.nextInt();
+					this.hasTypeID = true;
+				}
+			} else if (reader.isName(JSON_LOCATION_ID)) {
+				this.locationID = reader.nextString(_Interner);
+			} else if (reader.isName(JSON_NAME)) {
+				this.name = reader.nextString(_Interner);
+			} else if (reader.isName(JSON_TIME_STAMP)) {
+				this.timeStamp = reader.nextString();
+			} else if (reader.isName(JSON_TIME_STAMP_MILLIS)) {
+				if (! reader.nextNull()) {
+					this.timeStampMillis = reader.nextLong();
+					this.hasTimeStampMillis = true;
+				}
+			} else {
+				reader.skipValue();
+			}
+		}
+	}
+
+	private void scanCbor(byte[] payload)
+	{
+		if (this.cborReader == null) {
+			this.cborReader = new CborByteReader(payload, 0, payload.length);
+		} else {
+			this.cborReader.reset(payload, 0, payload.length);
+		}
+
+		CborByteReader reader = this.cborReader;
+
+		reader.beginMap();
+
+		while (reader.hasNext() && ! isComplete()) {
+			switch (reader.nextKey()) {
+				case CBOR_TYPE_ID:
+					if (! reader.nextNull()) {
+						this.typeID = reader.nextInt();
+						this.hasTypeID = true;
+					}
+					break;
+				case CBOR_LOCATION_ID:
+					this.locationID = reader.nextString(_Interner);
+					break;
+				case CBOR_NAME:
+					this.name = reader.nextString(_Interner);
+					break;
+				case CBOR_TIME_STAMP:
+					this.timeStamp = reader.nextString();
+					break;
+				case CBOR_TIME_STAMP_MILLIS:
+					if (! reader.nextNull()) {
+						this.timeStampMillis = reader.nextLong();
+						this.hasTimeStampMillis = true;
+					}
+					break;
+				default:
+					reader.skipValue();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,86 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.data;
+
+import java.util.List;
+
+/**
+ * A decoded PUETCE backend response (see {@link PuetceResponseReader}).
+ * The data is decoded by its shape: an object is a message, an array is
+ * a list of tool result blocks, and a primitive is text (e.g. an error
+ * description). The others are null.
+ *
+ */
+public class PuetceResponse
+{
+	// static
+
+	public static final String SUCCESS_STATUS = "success";
+
+
+	// private var's
+
+	private String status = null;
+	private AnthropicMessage message = null;
+	private List<ToolResultContentBlock> toolResults = null;
+	private String text = null;
+
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param status The response status.
+	 * @param message The message data, or null.
+	 * @param toolResults The tool result data, or null.
+	 * @param text The text data, or null.
+	 */
+	public PuetceResponse(String status, AnthropicMessage message, List<ToolResultContentBlock> toolResults, String text)
+	{
+		super();
+
+		this.status = status;
+		this.message = message;
+		this.toolResults = toolResults;
+		this.text = text;
+	}
+
+
+	// public methods
+
+	public String getStatus()
+	{
+		return this.status;
+	}
+
+	public boolean isSuccess()
+	{
+		return SUCCESS_STATUS.equalsIgnoreCase(this.status);
+	}
+
+	public AnthropicMessage getMessage()
+	{
+		return this.message;
+	}
+
+	public List<ToolResultContentBlock> getToolResults()
+	{
+		return this.toolResults;
+	}
+
+	public String getText()
+	{
+		return this.text;
+	}
+
+}
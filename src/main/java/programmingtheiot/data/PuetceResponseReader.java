@@ -0,0 +1,298 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.data;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Decodes PUETCE backend responses - {"status": ..., "data": ...} - in a
+ * single streaming pass, building the {@link AnthropicMessage} or
+ * {@link ToolResultContentBlock} list directly, rather than through a
+ * JSON tree. The only tree built is a tool use's input, which is kept
+ * as a JsonObject.
+ * <p>
+ * Content blocks are created by their "type", wherever it appears in
+ * the block. Blocks of an unknown type are skipped, as are tool result
+ * blocks other than text. Null values are read as null (or false, for
+ * booleans), and unknown properties are ignored.
+ * <p>
+ * This class has no state, so it's thread-safe.
+ *
+ */
+public final class PuetceResponseReader
+{
+	// static
+
+	public static final String TEXT_TYPE        = "text";
+	public static final String TOOL_USE_TYPE    = "tool_use";
+	public static final String TOOL_RESULT_TYPE = "tool_result";
+
+
+	// constructors
+
+	private PuetceResponseReader()
+	{
+		super();
+	}
+
+
+	// public methods
+
+	/**
+	 * Decodes a response.
+	 *
+	 * @param json The response JSON.
+	 * @return PuetceResponse The response, or null if json is null or empty.
+	 * @throws JsonSyntaxException If the JSON is malformed, or isn't a response object.
+	 */
+	public static PuetceResponse read(String json)
+	{
+		if (json == null || json.isEmpty()) {
+			return null;
+		}
+
+		try (JsonReader in = new JsonReader(new StringReader(json))) {
+			String status = null;
+			AnthropicMessage message = null;
+			List<ToolResultContentBlock> toolResults = null;
+			String text = null;
+
+			in.beginObject();
+
+			while (in.hasNext()) {
+				String name = in.nextName();
+
+				if (name.equals("status")) {
+					status = nextString(in);
+				} else if (name.equals("data")) {
+					JsonToken token = in.peek();
+
+					if (token == JsonToken.BEGIN_OBJECT) {
+						message = readMessage(in);
+					} else if (token == JsonToken.BEGIN_ARRAY) {
+						toolResults = readToolResults(in);
+					} else {
+						text = nextString(in);
+					}
+				} else {
+					in.skipValue();
+				}
+			}
+
+			in.endObject();
+
+			return new PuetceResponse(status, message, toolResults, text);
+		} catch (IOException | IllegalStateException e) {
+			throw new JsonSyntaxException(e);
+		}
+	}
+
+
+	// private methods
+
+	private static AnthropicMessage readMessage(JsonReader in) throws IOException
+	{
+		AnthropicRole role = null;
+		List<AnthropicContentBlock> content = new ArrayList<>();
+
+		in.beginObject();
+
+		while (in.hasNext()) {
+			String name = in.nextName();
+
+			if (name.equals("role")) {
+				role = toRole(nextString(in));
+			} else if (name.equals("content") && in.peek() == JsonToken.BEGIN_ARRAY) {
+				in.beginArray();
+
+				while (in.hasNext()) {
+					AnthropicContentBlock block = readContentBlock(in);
+
+					if (block != null) {
+						content.add(block);
+					}
+				}
+
+				in.endArray();
+			} else {
+				in.skipValue();
+			}
+		}
+
+		in.endObject();
+
+		return new AnthropicMessage(role, content);
+	}
+
+	private static AnthropicContentBlock readContentBlock(JsonReader in) throws IOException
+	{
+		if (in.peek() != JsonToken.BEGIN_OBJECT) {
+			in.skipValue();
+			return null;
+		}
+
+		String type = null;
+		String text = null;
+		String id = null;
+		String toolName = null;
+		JsonObject input = null;
+		String toolUseId = null;
+		List<ToolResultContentBlock> toolResults = null;
+		boolean isError = false;
+
+		in.beginObject();
+
+		while (in.hasNext()) {
+			String name = in.nextName();
+
+			switch (name) {
+				case "type":
+					type = nextString(in);
+					break;
+				case "text":
+					text = nextString(in);
+					break;
+				case "id":
+					id = nextString(in);
+					break;
+				case "name":
+					toolName = nextString(in);
+					break;
+				case "input":
+					JsonElement element = JsonParser.parseReader(in);
+					input = (element.isJsonObject() ? element.getAsJsonObject() : null);
+					break;
+				case "tool_use_id":
+					toolUseId = nextString(in);
+					break;
+				case "content":
+					if (in.peek() == JsonToken.BEGIN_ARRAY) {
+						toolResults = readToolResults(in);
+					} else if (in.peek() == JsonToken.STRING) {
+						// the content may also be given as a single string
+						toolResults = new ArrayList<>();
+						toolResults.add(new ToolResultContentBlock.Text(in.nextString()));
+					} else {
+						in.skipValue();
+					}
+					break;
+				case "is_error":
+					isError = nextBoolean(in);
+					break;
+				default:
+					in.skipValue();
+			}
+		}
+
+		in.endObject();
+
+		if (TEXT_TYPE.equals(type)) {
+			return new AnthropicContentBlock.Text(text);
+		} else if (TOOL_USE_TYPE.equals(type)) {
+			return new AnthropicContentBlock.ToolUse(id, toolName, input);
+		} else if (TOOL_RESULT_TYPE.equals(type)) {
+			return new AnthropicContentBlock.ToolResult(toolUseId, toolResults, isError);
+		}
+
+		return null;
+	}
+
+	private static List<ToolResultContentBlock> readToolResults(JsonReader in) throws IOException
+	{
+		List<ToolResultContentBlock> blocks = new ArrayList<>();
+
+		in.beginArray();
+
+		while (in.hasNext()) {
+			if (in.peek() != JsonToken.BEGIN_OBJECT) {
+				in.skipValue();
+				continue;
+			}
+
+			String type = null;
+			String text = null;
+
+			in.beginObject();
+
+			while (in.hasNext()) {
+				String name = in.nextName();
+
+				if (name.equals("type")) {
+					type = nextString(in);
+				} else if (name.equals("text")) {
+					text = nextString(in);
+				} else {
+					in.skipValue();
+				}
+			}
+
+			in.endObject();
+
+			// only text is supported; a block without a type is taken as text
+			if (type == null || TEXT_TYPE.equals(type)) {
+				blocks.add(new ToolResultContentBlock.Text(text));
+			}
+		}
+
+		in.endArray();
+
+		return blocks;
+	}
+
+	private static String nextString(JsonReader in) throws IOException
+	{
+		switch (in.peek()) {
+			case NULL:
+				in.nextNull();
+				return null;
+			case BOOLEAN:
+				return Boolean.toString(in.nextBoolean());
+			default:
+				// as with Gson, a number is read as its text
+				return in.nextString();
+		}
+	}
+
+	private static boolean nextBoolean(JsonReader in) throws IOException
+	{
+		if (in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return false;
+		}
+
+		return in.nextBoolean();
+	}
+
+	private static AnthropicRole toRole(String role)
+	{
+		if (role != null) {
+			switch (role) {
+				case "user":      return AnthropicRole.USER;
+				case "assistant": return AnthropicRole.ASSISTANT;
+				default:          break;
+			}
+		}
+
+		return null;
+	}
+
+}
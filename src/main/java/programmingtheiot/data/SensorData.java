@@ -21,6 +21,13 @@ public class SensorData extends BaseIotData
 {
 	// static
 	
+	private static final byte[] JSON_VALUE      = JsonByteWriter.encodeName(ConfigConst.VALUE_PROP);
+	private static final byte[] JSON_STATE_DATA = JsonByteWriter.encodeName(ConfigConst.STATE_DATA_PROP);
+	
+	// CBOR map keys (see BaseIotData)
+	private static final int CBOR_VALUE      = 10;
+	private static final int CBOR_STATE_DATA = 11;
+	
 	
 	// private var's
 
@@ -34,6 +41,17 @@ public class SensorData extends BaseIotData
 		super();
 	}
 	
+	/**
+	 * Constructor for decoders, which skips the config file defaults
+	 * (see {@link BaseIotData#BaseIotData(boolean)}).
+	 * 
+	 * @param useConfigDefaults If true, the location ID is set from the config file.
+	 */
+	SensorData(boolean useConfigDefaults)
+	{
+		super(useConfigDefaults);
+	}
+	
 	public SensorData(int sensorType)
 	{
 		super();
@@ -83,6 +101,70 @@ public class SensorData extends BaseIotData
 	
 	// protected methods
 	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleWriteJson(programmingtheiot.data.JsonByteWriter)
+	 */
+	protected void handleWriteJson(JsonByteWriter writer)
+	{
+		writer.name(JSON_VALUE).value(this.value);
+		
+		if (this.stateData != null) { writer.name(JSON_STATE_DATA).value(this.stateData); }
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleReadJson(programmingtheiot.data.JsonByteReader)
+	 */
+	protected boolean handleReadJson(JsonByteReader reader)
+	{
+		if (reader.isName(JSON_VALUE)) {
+			if (! reader.nextNull()) { this.value = reader.nextFloat(); }
+		} else if (reader.isName(JSON_STATE_DATA)) {
+			this.stateData = reader.nextString();
+		} else {
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleWriteCbor(programmingtheiot.data.CborByteWriter)
+	 */
+	protected void handleWriteCbor(CborByteWriter writer)
+	{
+		writer.key(CBOR_VALUE).value(this.value);
+		
+		if (this.stateData != null) { writer.key(CBOR_STATE_DATA).value(this.stateData); }
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleReadCbor(int, programmingtheiot.data.CborByteReader)
+	 */
+	protected boolean handleReadCbor(int key, CborByteReader reader)
+	{
+		switch (key) {
+			case CBOR_VALUE:
+				if (! reader.nextNull()) { this.value = reader.nextFloat(); }
+				break;
+			case CBOR_STATE_DATA:
+				this.stateData = reader.nextString();
+				break;
+			default:
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleResetData()
+	 */
+	protected void handleResetData()
+	{
+		this.value = ConfigConst.DEFAULT_VAL;
+		this.stateData = null;
+	}
+	
 	/* (non-Javadoc)
 	 * @see programmingtheiot.data.BaseIotData#handleUpdateData(programmingtheiot.data.BaseIotData)
 	 */
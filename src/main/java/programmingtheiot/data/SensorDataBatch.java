@@ -0,0 +1,876 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.data;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import programmingtheiot.common.ConfigConst;
+
+/**
+ * Columnar container for a batch of sensor readings, for bulk paths
+ * (persistence flushes, cloud batches, replays) where a list of
+ * {@link SensorData} would cost several objects per reading.
+ * <p>
+ * Values, time stamp millis, type IDs, status codes, latitudes,
+ * longitudes and elevations are stored in primitive arrays, one per
+ * property, and state data (usually null) in an array of references.
+ * Names and location IDs, which repeat throughout a batch, are
+ * dictionary encoded: each distinct value is stored once, in order of
+ * first use, and each reading holds its index. A batch of any size is
+ * therefore a handful of arrays, and can be cleared and refilled
+ * without allocating.
+ * <p>
+ * The JSON and CBOR encodings (see
+ * {@link DataUtil#sensorDataBatchToBytes(SensorDataBatch, programmingtheiot.common.PayloadFormatEnum)})
+ * are columnar too. The location and state data columns are only
+ * written if a reading has a location or state data, e.g.
+ * <p>
+ * {"names":["TempSensor"],"locationIDs":["constraineddevice001"],"nameIndex":[0,0],
+ * "locationIDIndex":[0,0],"typeID":[1013,1013],"statusCode":[0,0],"value":[21.5,21.25],
+ * "timeStampMillis":[1700000000000,1700000001000]}
+ * <p>
+ * Instances are NOT thread-safe.
+ *
+ */
+public class SensorDataBatch
+{
+	// static
+
+	public static final int DEFAULT_CAPACITY = 64;
+
+	private static final byte[] JSON_NAMES             = JsonByteWriter.encodeName("names");
+	private static final byte[] JSON_LOCATION_IDS      = JsonByteWriter.encodeName("locationIDs");
+	private static final byte[] JSON_NAME_INDEX        = JsonByteWriter.encodeName("nameIndex");
+	private static final byte[] JSON_LOCATION_ID_INDEX = JsonByteWriter.encodeName("locationIDIndex");
+	private static final byte[] JSON_TYPE_ID           = JsonByteWriter.encodeName("typeID");
+	private static final byte[] JSON_STATUS_CODE       = JsonByteWriter.encodeName("statusCode");
+	private static final byte[] JSON_VALUE             = JsonByteWriter.encodeName("value");
+	private static final byte[] JSON_TIME_STAMP_MILLIS = JsonByteWriter.encodeName("timeStampMillis");
+	private static final byte[] JSON_LATITUDE          = JsonByteWriter.encodeName("latitude");
+	private static final byte[] JSON_LONGITUDE         = JsonByteWriter.encodeName("longitude");
+	private static final byte[] JSON_ELEVATION         = JsonByteWriter.encodeName("elevation");
+	private static final byte[] JSON_STATE_DATA        = JsonByteWriter.encodeName("stateData");
+
+	private static final int CBOR_NAMES             = 1;
+	private static final int CBOR_LOCATION_IDS      = 2;
+	private static final int CBOR_NAME_INDEX        = 3;
+	private static final int CBOR_LOCATION_ID_INDEX = 4;
+	private static final int CBOR_TYPE_ID           = 5;
+	private static final int CBOR_STATUS_CODE       = 6;
+	private static final int CBOR_VALUE             = 7;
+	private static final int CBOR_TIME_STAMP_MILLIS = 8;
+	private static final int CBOR_LATITUDE          = 9;
+	private static final int CBOR_LONGITUDE         = 10;
+	private static final int CBOR_ELEVATION         = 11;
+	private static final int CBOR_STATE_DATA        = 12;
+
+	// the column sizes while decoding, in the order of the column
+	// constants; the last OPTIONAL_COLUMN_COUNT may be left out
+	private static final int COLUMN_COUNT = 10;
+	private static final int OPTIONAL_COLUMN_COUNT = 4;
+
+	private static final StringInterner _Interner = new StringInterner();
+
+
+	// private var's
+
+	private int size = 0;
+
+	private float[] values;
+	private long[]  timeStampMillis;
+	private int[]   typeIDs;
+	private int[]   statusCodes;
+	private int[]   nameIndices;
+	private int[]   locationIDIndices;
+	private float[] latitudes;
+	private float[] longitudes;
+	private float[] elevations;
+	private String[] stateData;
+
+	private final Dictionary names       = new Dictionary();
+	private final Dictionary locationIDs = new Dictionary();
+
+	// constructors
+
+	/**
+	 * Default.
+	 *
+	 */
+	public SensorDataBatch()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param initialCapacity The number of readings to allocate room for.
+	 */
+	public SensorDataBatch(int initialCapacity)
+	{
+		super();
+
+		int capacity = Math.max(1, initialCapacity);
+
+		this.values            = new float[capacity];
+		this.timeStampMillis   = new long[capacity];
+		this.typeIDs           = new int[capacity];
+		this.statusCodes       = new int[capacity];
+		this.nameIndices       = new int[capacity];
+		this.locationIDIndices = new int[capacity];
+		this.latitudes         = new float[capacity];
+		this.longitudes        = new float[capacity];
+		this.elevations        = new float[capacity];
+		this.stateData         = new String[capacity];
+	}
+
+
+	// public methods
+
+	public int size()
+	{
+		return this.size;
+	}
+
+	public boolean isEmpty()
+	{
+		return (this.size == 0);
+	}
+
+	/**
+	 * Removes all readings, keeping the arrays for reuse.
+	 *
+	 */
+	public void clear()
+	{
+		Arrays.fill(this.stateData, 0, this.size, null);
+
+		this.size = 0;
+		this.names.clear();
+		this.locationIDs.clear();
+	}
+
+	/**
+	 * Appends the reading held by the sensor data, including its location
+	 * and state data. Null is ignored.
+	 *
+	 * @param data The sensor data.
+	 */
+	public void add(SensorData data)
+	{
+		if (data != null) {
+			int index = add(data.getName(), data.getLocationID(), data.getTypeID(), data.getStatusCode(),
+				data.getValue(), data.getTimeStampMillis());
+
+			this.latitudes[index]  = data.getLatitude();
+			this.longitudes[index] = data.getLongitude();
+			this.elevations[index] = data.getElevation();
+			this.stateData[index]  = data.getStateData();
+		}
+	}
+
+	/**
+	 * Appends each of the sensor data readings, in order. Null items are ignored.
+	 *
+	 * @param dataList The sensor data.
+	 */
+	public void addAll(List<? extends SensorData> dataList)
+	{
+		ensureCapacity(this.size + dataList.size());
+
+		for (SensorData data : dataList) {
+			add(data);
+		}
+	}
+
+	/**
+	 * Appends a reading, with the default location and no state data.
+	 *
+	 * @param name The sensor name.
+	 * @param locationID The location ID of the device that sent the reading.
+	 * @param typeID The sensor type ID.
+	 * @param statusCode The sensor status code.
+	 * @param value The sensor value.
+	 * @param timeStampMillis The time of the reading, in milliseconds since the Epoch.
+	 * @return int The index of the reading.
+	 */
+	public int add(String name, String locationID, int typeID, int statusCode, float value, long timeStampMillis)
+	{
+		ensureCapacity(this.size + 1);
+
+		int index = this.size++;
+
+		this.nameIndices[index]       = this.names.indexOf(name);
+		this.locationIDIndices[index] = this.locationIDs.indexOf(locationID);
+		this.typeIDs[index]           = typeID;
+		this.statusCodes[index]       = statusCode;
+		this.values[index]            = value;
+		this.timeStampMillis[index]   = timeStampMillis;
+		this.latitudes[index]         = ConfigConst.DEFAULT_LAT;
+		this.longitudes[index]        = ConfigConst.DEFAULT_LON;
+		this.elevations[index]        = ConfigConst.DEFAULT_ELEVATION;
+		this.stateData[index]         = null;
+
+		return index;
+	}
+
+	public String getName(int index)
+	{
+		return this.names.get(this.nameIndices[checkIndex(index)]);
+	}
+
+	public String getLocationID(int index)
+	{
+		return this.locationIDs.get(this.locationIDIndices[checkIndex(index)]);
+	}
+
+	public int getTypeID(int index)
+	{
+		return this.typeIDs[checkIndex(index)];
+	}
+
+	public int getStatusCode(int index)
+	{
+		return this.statusCodes[checkIndex(index)];
+	}
+
+	public float getValue(int index)
+	{
+		return this.values[checkIndex(index)];
+	}
+
+	public long getTimeStampMillis(int index)
+	{
+		return this.timeStampMillis[checkIndex(index)];
+	}
+
+	public float getLatitude(int index)
+	{
+		return this.latitudes[checkIndex(index)];
+	}
+
+	public float getLongitude(int index)
+	{
+		return this.longitudes[checkIndex(index)];
+	}
+
+	public float getElevation(int index)
+	{
+		return this.elevations[checkIndex(index)];
+	}
+
+	public String getStateData(int index)
+	{
+		return this.stateData[checkIndex(index)];
+	}
+
+	/**
+	 * Returns the index of the reading's name in the name dictionary,
+	 * e.g. to group readings by name without comparing strings.
+	 *
+	 * @param index The reading index.
+	 * @return int The dictionary index.
+	 */
+	public int getNameIndex(int index)
+	{
+		return this.nameIndices[checkIndex(index)];
+	}
+
+	public int getLocationIDIndex(int index)
+	{
+		return this.locationIDIndices[checkIndex(index)];
+	}
+
+	/**
+	 * Returns the number of distinct names in the batch.
+	 *
+	 * @return int
+	 */
+	public int getNameCount()
+	{
+		return this.names.size();
+	}
+
+	/**
+	 * Returns the name at the given index in the name dictionary.
+	 *
+	 * @param nameIndex The dictionary index (see {@link #getNameIndex(int)}).
+	 * @return String
+	 */
+	public String getNameByIndex(int nameIndex)
+	{
+		return this.names.get(nameIndex);
+	}
+
+	public int getLocationIDCount()
+	{
+		return this.locationIDs.size();
+	}
+
+	public String getLocationIDByIndex(int locationIDIndex)
+	{
+		return this.locationIDs.get(locationIDIndex);
+	}
+
+	/**
+	 * Creates a new SensorData instance holding the reading.
+	 *
+	 * @param index The reading index.
+	 * @return SensorData
+	 */
+	public SensorData toSensorData(int index)
+	{
+		SensorData data = new SensorData(false);
+
+		data.setName(getName(index));
+		data.setLocationID(getLocationID(index));
+		data.setTypeID(getTypeID(index));
+		data.setStatusCode(getStatusCode(index));
+		data.setValue(getValue(index));
+		data.setTimeStampMillis(getTimeStampMillis(index));
+		data.setLatitude(this.latitudes[index]);
+		data.setLongitude(this.longitudes[index]);
+		data.setElevation(this.elevations[index]);
+		data.setStateData(this.stateData[index]);
+
+		return data;
+	}
+
+	/**
+	 * Creates a new SensorData instance for each reading, e.g. for
+	 * consumers that don't handle batches.
+	 *
+	 * @return List The sensor data, in order.
+	 */
+	public List<SensorData> toSensorDataList()
+	{
+		List<SensorData> dataList = new ArrayList<>(this.size);
+
+		for (int i = 0; i < this.size; i++) {
+			dataList.add(toSensorData(i));
+		}
+
+		return dataList;
+	}
+
+	public SensorData[] toSensorDataArray()
+	{
+		SensorData[] dataArray = new SensorData[this.size];
+
+		for (int i = 0; i < this.size; i++) {
+			dataArray[i] = toSensorData(i);
+		}
+
+		return dataArray;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder(getClass().getSimpleName());
+
+		sb.append("[size=").append(this.size);
+		sb.append(",names=").append(this.names.size());
+		sb.append(",locationIDs=").append(this.locationIDs.size()).append(']');
+
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the batch as a JSON object, with one array per column.
+	 *
+	 * @param writer The writer to write to.
+	 */
+	public final void writeJson(JsonByteWriter writer)
+	{
+		writer.beginObject();
+
+		writer.name(JSON_NAMES).beginArray();
+		for (int i = 0; i < this.names.size(); i++) { writer.value(this.names.get(i)); }
+		writer.endArray();
+
+		writer.name(JSON_LOCATION_IDS).beginArray();
+		for (int i = 0; i < this.locationIDs.size(); i++) { writer.value(this.locationIDs.get(i)); }
+		writer.endArray();
+
+		writer.name(JSON_NAME_INDEX).beginArray();
+		for (int i = 0; i < this.size; i++) { writer.value(this.nameIndices[i]); }
+		writer.endArray();
+
+		writer.name(JSON_LOCATION_ID_INDEX).beginArray();
+		for (int i = 0; i < this.size; i++) { writer.value(this.locationIDIndices[i]); }
+		writer.endArray();
+
+		writer.name(JSON_TYPE_ID).beginArray();
+		for (int i = 0; i < this.size; i++) { writer.value(this.typeIDs[i]); }
+		writer.endArray();
+
+		writer.name(JSON_STATUS_CODE).beginArray();
+		for (int i = 0; i < this.size; i++) { writer.value(this.statusCodes[i]); }
+		writer.endArray();
+
+		writer.name(JSON_VALUE).beginArray();
+		for (int i = 0; i < this.size; i++) { writer.value(this.values[i]); }
+		writer.endArray();
+
+		writer.name(JSON_TIME_STAMP_MILLIS).beginArray();
+		for (int i = 0; i < this.size; i++) { writer.value(this.timeStampMillis[i]); }
+		writer.endArray();
+
+		if (hasLocations()) {
+			writer.name(JSON_LATITUDE).beginArray();
+			for (int i = 0; i < this.size; i++) { writer.value(this.latitudes[i]); }
+			writer.endArray();
+
+			writer.name(JSON_LONGITUDE).beginArray();
+			for (int i = 0; i < this.size; i++) { writer.value(this.longitudes[i]); }
+			writer.endArray();
+
+			writer.name(JSON_ELEVATION).beginArray();
+			for (int i = 0; i < this.size; i++) { writer.value(this.elevations[i]); }
+			writer.endArray();
+		}
+
+		if (hasStateData()) {
+			writer.name(JSON_STATE_DATA).beginArray();
+			for (int i = 0; i < this.size; i++) { writer.value(this.stateData[i]); }
+			writer.endArray();
+		}
+
+		writer.endObject();
+	}
+
+	/**
+	 * Writes one reading as a {@link SensorData} JSON object, the same as
+	 * {@link #toSensorData(int)} would encode, without creating it. This
+	 * is for consumers that store or send readings one by one.
+	 *
+	 * @param index The reading index.
+	 * @param writer The writer to write to.
+	 */
+	public final void writeJson(int index, JsonByteWriter writer)
+	{
+		checkIndex(index);
+
+		String name = this.names.get(this.nameIndices[index]);
+		String locationID = this.locationIDs.get(this.locationIDIndices[index]);
+		long millis = this.timeStampMillis[index];
+
+		writer.beginObject();
+
+		writer.name(JSON_VALUE).value(this.values[index]);
+		if (this.stateData[index] != null) { writer.name(JSON_STATE_DATA).value(this.stateData[index]); }
+
+		if (name != null)       { writer.name(BaseIotData.JSON_NAME).value(name); }
+		writer.name(BaseIotData.JSON_TIME_STAMP).value(DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(millis)));
+		writer.name(JSON_STATUS_CODE).value(this.statusCodes[index]);
+		writer.name(JSON_TYPE_ID).value(this.typeIDs[index]);
+		if (locationID != null) { writer.name(BaseIotData.JSON_LOCATION_ID).value(locationID); }
+		writer.name(JSON_LATITUDE).value(this.latitudes[index]);
+		writer.name(JSON_LONGITUDE).value(this.longitudes[index]);
+		writer.name(JSON_ELEVATION).value(this.elevations[index]);
+		writer.name(JSON_TIME_STAMP_MILLIS).value(millis);
+
+		writer.endObject();
+	}
+
+	/**
+	 * Reads a JSON object, as written by {@link #writeJson(JsonByteWriter)},
+	 * replacing the content of this batch. Unknown properties are ignored.
+	 *
+	 * @param reader The reader, positioned at the start of the object.
+	 * @throws IllegalArgumentException If the columns don't all have the
+	 * same length, or an index is out of range for its dictionary.
+	 */
+	public final void readJson(JsonByteReader reader)
+	{
+		int[] columnSizes = newColumnSizes();
+
+		clear();
+		reader.beginObject();
+
+		while (reader.hasNext()) {
+			reader.nextName();
+
+			if (reader.isName(JSON_NAMES)) {
+				reader.beginArray();
+				while (reader.hasNext()) { this.names.add(reader.nextString(_Interner)); }
+				reader.endArray();
+			} else if (reader.isName(JSON_LOCATION_IDS)) {
+				reader.beginArray();
+				while (reader.hasNext()) { this.locationIDs.add(reader.nextString(_Interner)); }
+				reader.endArray();
+			} else if (reader.isName(JSON_NAME_INDEX)) {
+				reader.beginArray();
+				for (int i = 0; reader.hasNext(); i++) { ensureCapacity(i + 1); this.nameIndices[i] = reader.nextInt(); columnSizes[0]++; }
+				reader.endArray();
+			} else if (reader.isName(JSON_LOCATION_ID_INDEX)) {
+				reader.beginArray();
+				for (int i = 0; reader.hasNext(); i++) { ensureCapacity(i + 1); this.locationIDIndices[i] = reader.nextInt(); columnSizes[1]++; }
+				reader.endArray();
+			} else if (reader.isName(JSON_TYPE_ID)) {
+				reader.beginArray();
+				for (int i = 0; reader.hasNext(); i++) { ensureCapacity(i + 1); this.typeIDs[i] = reader.nextInt(); columnSizes[2]++; }
+				reader.endArray();
+			} else if (reader.isName(JSON_STATUS_CODE)) {
+				reader.beginArray();
+				for (int i = 0; reader.hasNext(); i++) { ensureCapacity(i + 1); this.statusCodes[i] = reader.nextInt(); columnSizes[3]++; }
+				reader.endArray();
+			} else if (reader.isName(JSON_VALUE)) {
+				reader.beginArray();
+				for (int i = 0; reader.hasNext(); i++) { ensureCapacity(i + 1); this.values[i] = reader.nextFloat(); columnSizes[4]++; }
+				reader.endArray();
+			} else if (reader.isName(JSON_TIME_STAMP_MILLIS)) {
+				reader.beginArray();
+				for (int i = 0; reader.hasNext(); i++) { ensureCapacity(i + 1); this.timeStampMillis[i] = reader.nextLong(); columnSizes[5]++; }
+				reader.endArray();
+			} else if (reader.isName(JSON_LATITUDE)) {
+				reader.beginArray();
+				columnSizes[6] = 0;
+				for (int i = 0; reader.hasNext(); i++) { ensureCapacity(i + 1); this.latitudes[i] = reader.nextFloat(); columnSizes[6]++; }
+				reader.endArray();
+			} else if (reader.isName(JSON_LONGITUDE)) {
+				reader.beginArray();
+				columnSizes[7] = 0;
+				for (int i = 0; reader.hasNext(); i++) { ensureCapacity(i + 1); this.longitudes[i] = reader.nextFloat(); columnSizes[7]++; }
+				reader.endArray();
+			} else if (reader.isName(JSON_ELEVATION)) {
+				reader.beginArray();
+				columnSizes[8] = 0;
+				for (int i = 0; reader.hasNext(); i++) { ensureCapacity(i + 1); this.elevations[i] = reader.nextFloat(); columnSizes[8]++; }
+				reader.endArray();
+			} else if (reader.isName(JSON_STATE_DATA)) {
+				reader.beginArray();
+				columnSizes[9] = 0;
+				for (int i = 0; reader.hasNext(); i++) { ensureCapacity(i + 1); this.stateData[i] = reader.nextString(); columnSizes[9]++; }
+				reader.endArray();
+			} else {
+				reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+
+		setDecodedSize(columnSizes);
+	}
+
+	/**
+	 * Writes the batch as a CBOR map, with integer keys and one array
+	 * per column (see {@link #writeJson(JsonByteWriter)}).
+	 *
+	 * @param writer The writer to write to.
+	 */
+	public final void writeCbor(CborByteWriter writer)
+	{
+		writer.beginMap();
+
+		writer.key(CBOR_NAMES).beginArray(this.names.size());
+		for (int i = 0; i < this.names.size(); i++) { writer.value(this.names.get(i)); }
+
+		writer.key(CBOR_LOCATION_IDS).beginArray(this.locationIDs.size());
+		for (int i = 0; i < this.locationIDs.size(); i++) { writer.value(this.locationIDs.get(i)); }
+
+		writer.key(CBOR_NAME_INDEX).beginArray(this.size);
+		for (int i = 0; i < this.size; i++) { writer.value(this.nameIndices[i]); }
+
+		writer.key(CBOR_LOCATION_ID_INDEX).beginArray(this.size);
+		for (int i = 0; i < this.size; i++) { writer.value(this.locationIDIndices[i]); }
+
+		writer.key(CBOR_TYPE_ID).beginArray(this.size);
+		for (int i = 0; i < this.size; i++) { writer.value(this.typeIDs[i]); }
+
+		writer.key(CBOR_STATUS_CODE).beginArray(this.size);
+		for (int i = 0; i < this.size; i++) { writer.value(this.statusCodes[i]); }
+
+		writer.key(CBOR_VALUE).beginArray(this.size);
+		for (int i = 0; i < this.size; i++) { writer.value(this.values[i]); }
+
+		writer.key(CBOR_TIME_STAMP_MILLIS).beginArray(this.size);
+		for (int i = 0; i < this.size; i++) { writer.value(this.timeStampMillis[i]); }
+
+		if (hasLocations()) {
+			writer.key(CBOR_LATITUDE).beginArray(this.size);
+			for (int i = 0; i < this.size; i++) { writer.value(this.latitudes[i]); }
+
+			writer.key(CBOR_LONGITUDE).beginArray(this.size);
+			for (int i = 0; i < this.size; i++) { writer.value(this.longitudes[i]); }
+
+			writer.key(CBOR_ELEVATION).beginArray(this.size);
+			for (int i = 0; i < this.size; i++) { writer.value(this.elevations[i]); }
+		}
+
+		if (hasStateData()) {
+			writer.key(CBOR_STATE_DATA).beginArray(this.size);
+			for (int i = 0; i < this.size; i++) { writer.value(this.stateData[i]); }
+		}
+
+		writer.endMap();
+	}
+
+	/**
+	 * Reads a CBOR map, as written by {@link #writeCbor(CborByteWriter)},
+	 * replacing the content of this batch. Unknown keys are ignored.
+	 *
+	 * @param reader The reader, positioned at the start of the map.
+	 * @throws IllegalArgumentException If the CBOR is malformed, the
+	 * columns don't all have the same length, or an index is out of
+	 * range for its dictionary.
+	 */
+	public final void readCbor(CborByteReader reader)
+	{
+		int[] columnSizes = newColumnSizes();
+
+		clear();
+		reader.beginMap();
+
+		while (reader.hasNext()) {
+			int key = reader.nextKey();
+			int count = 0;
+
+			switch (key) {
+				case CBOR_NAMES:
+					count = reader.beginArray();
+					for (int i = 0; i < count; i++) { this.names.add(reader.nextString(_Interner)); }
+					break;
+				case CBOR_LOCATION_IDS:
+					count = reader.beginArray();
+					for (int i = 0; i < count; i++) { this.locationIDs.add(reader.nextString(_Interner)); }
+					break;
+				case CBOR_NAME_INDEX:
+					count = columnSizes[0] = reader.beginArray();
+					ensureCapacity(count);
+					for (int i = 0; i < count; i++) { this.nameIndices[i] = reader.nextInt(); }
+					break;
+				case CBOR_LOCATION_ID_INDEX:
+					count = columnSizes[1] = reader.beginArray();
+					ensureCapacity(count);
+					for (int i = 0; i < count; i++) { this.locationIDIndices[i] = reader.nextInt(); }
+					break;
+				case CBOR_TYPE_ID:
+					count = columnSizes[2] = reader.beginArray();
+					ensureCapacity(count);
+					for (int i = 0; i < count; i++) { this.typeIDs[i] = reader.nextInt(); }
+					break;
+				case CBOR_STATUS_CODE:
+					count = columnSizes[3] = reader.beginArray();
+					ensureCapacity(count);
+					for (int i = 0; i < count; i++) { this.statusCodes[i] = reader.nextInt(); }
+					break;
+				case CBOR_VALUE:
+					count = columnSizes[4] = reader.beginArray();
+					ensureCapacity(count);
+					for (int i = 0; i < count; i++) { this.values[i] = reader.nextFloat(); }
+					break;
+				case CBOR_TIME_STAMP_MILLIS:
+					count = columnSizes[5] = reader.beginArray();
+					ensureCapacity(count);
+					for (int i = 0; i < count; i++) { this.timeStampMillis[i] = reader.nextLong(); }
+					break;
+				case CBOR_LATITUDE:
+					count = columnSizes[6] = reader.beginArray();
+					ensureCapacity(count);
+					for (int i = 0; i < count; i++) { this.latitudes[i] = reader.nextFloat(); }
+					break;
+				case CBOR_LONGITUDE:
+					count = columnSizes[7] = reader.beginArray();
+					ensureCapacity(count);
+					for (int i = 0; i < count; i++) { this.longitudes[i] = reader.nextFloat(); }
+					break;
+				case CBOR_ELEVATION:
+					count = columnSizes[8] = reader.beginArray();
+					ensureCapacity(count);
+					for (int i = 0; i < count; i++) { this.elevations[i] = reader.nextFloat(); }
+					break;
+				case CBOR_STATE_DATA:
+					count = columnSizes[9] = reader.beginArray();
+					ensureCapacity(count);
+					for (int i = 0; i < count; i++) { this.stateData[i] = reader.nextString(); }
+					break;
+				default:
+					reader.skipValue();
+			}
+		}
+
+		reader.endMap();
+
+		setDecodedSize(columnSizes);
+	}
+
+
+	// private methods
+
+	private int checkIndex(int index)
+	{
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of range for size " + this.size);
+		}
+
+		return index;
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity > this.values.length) {
+			int newCapacity = Math.max(capacity, this.values.length * 2);
+
+			this.values            = Arrays.copyOf(this.values, newCapacity);
+			this.timeStampMillis   = Arrays.copyOf(this.timeStampMillis, newCapacity);
+			this.typeIDs           = Arrays.copyOf(this.typeIDs, newCapacity);
+			this.statusCodes       = Arrays.copyOf(this.statusCodes, newCapacity);
+			this.nameIndices       = Arrays.copyOf(this.nameIndices, newCapacity);
+			this.locationIDIndices = Arrays.copyOf(this.locationIDIndices, newCapacity);
+			this.latitudes         = Arrays.copyOf(this.latitudes, newCapacity);
+			this.longitudes        = Arrays.copyOf(this.longitudes, newCapacity);
+			this.elevations        = Arrays.copyOf(this.elevations, newCapacity);
+			this.stateData         = Arrays.copyOf(this.stateData, newCapacity);
+		}
+	}
+
+	// returns true if any reading has a location other than the default
+	private boolean hasLocations()
+	{
+		for (int i = 0; i < this.size; i++) {
+			if (this.latitudes[i] != ConfigConst.DEFAULT_LAT ||
+				this.longitudes[i] != ConfigConst.DEFAULT_LON ||
+				this.elevations[i] != ConfigConst.DEFAULT_ELEVATION) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private boolean hasStateData()
+	{
+		for (int i = 0; i < this.size; i++) {
+			if (this.stateData[i] != null) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	// the optional columns are -1 until read, so they can be told apart
+	// from empty ones
+	private int[] newColumnSizes()
+	{
+		int[] columnSizes = new int[COLUMN_COUNT];
+
+		Arrays.fill(columnSizes, COLUMN_COUNT - OPTIONAL_COLUMN_COUNT, COLUMN_COUNT, -1);
+
+		return columnSizes;
+	}
+
+	/**
+	 * Checks the decoded columns are consistent, sets the defaults for
+	 * any optional columns left out, and sets the size.
+	 *
+	 */
+	private void setDecodedSize(int[] columnSizes)
+	{
+		int size = columnSizes[0];
+
+		for (int c = 0; c < COLUMN_COUNT; c++) {
+			boolean isMissingOptional = (c >= COLUMN_COUNT - OPTIONAL_COLUMN_COUNT && columnSizes[c] < 0);
+
+			if (columnSizes[c] != size && ! isMissingOptional) {
+				clear();
+				throw new IllegalArgumentException("Invalid sensor data batch: columns differ in length");
+			}
+		}
+
+		ensureCapacity(size);
+
+		if (columnSizes[6] < 0) { Arrays.fill(this.latitudes, 0, size, ConfigConst.DEFAULT_LAT); }
+		if (columnSizes[7] < 0) { Arrays.fill(this.longitudes, 0, size, ConfigConst.DEFAULT_LON); }
+		if (columnSizes[8] < 0) { Arrays.fill(this.elevations, 0, size, ConfigConst.DEFAULT_ELEVATION); }
+		if (columnSizes[9] < 0) { Arrays.fill(this.stateData, 0, size, null); }
+
+		for (int i = 0; i < size; i++) {
+			if (this.nameIndices[i] < 0 || this.nameIndices[i] >= this.names.size() ||
+				this.locationIDIndices[i] < 0 || this.locationIDIndices[i] >= this.locationIDs.size()) {
+				clear();
+				throw new IllegalArgumentException("Invalid sensor data batch: dictionary index out of range at " + i);
+			}
+		}
+
+		this.size = size;
+	}
+
+	/**
+	 * The distinct values of a string column, in order of first use.
+	 *
+	 */
+	private static final class Dictionary
+	{
+		private String[] values = new String[8];
+		private int count = 0;
+		private final Map<String, Integer> indices = new HashMap<>();
+
+		private int size()
+		{
+			return this.count;
+		}
+
+		private String get(int index)
+		{
+			if (index < 0 || index >= this.count) {
+				throw new IndexOutOfBoundsException("Index " + index + " out of range for size " + this.count);
+			}
+
+			return this.values[index];
+		}
+
+		/**
+		 * Returns the index of the value, adding it if it's new.
+		 *
+		 */
+		private int indexOf(String value)
+		{
+			Integer index = this.indices.get(value);
+
+			return (index != null ? index : add(value));
+		}
+
+		/**
+		 * Appends the value, even if it's already present (e.g. when
+		 * decoding, where the indices are given).
+		 *
+		 */
+		private int add(String value)
+		{
+			if (this.count == this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.count * 2);
+			}
+
+			this.values[this.count] = value;
+			this.indices.putIfAbsent(value, this.count);
+
+			return this.count++;
+		}
+
+		private void clear()
+		{
+			Arrays.fill(this.values, 0, this.count, null);
+			this.indices.clear();
+			this.count = 0;
+		}
+	}
+
+}
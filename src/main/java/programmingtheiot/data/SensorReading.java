@@ -0,0 +1,168 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.data;
+
+import java.time.Instant;
+
+import programmingtheiot.common.ConfigConst;
+
+/**
+ * Immutable copy of a single sensor reading. Unlike {@link SensorData},
+ * instances can be shared between threads without any synchronization.
+ *
+ */
+public final class SensorReading
+{
+	// private var's
+
+	private final String locationID;
+	private final String name;
+	private final int    typeID;
+	private final int    statusCode;
+	private final float  value;
+	private final long   timeStampMillis;
+	private final String sourceTimeStamp;
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param locationID The location ID of the device that sent the reading.
+	 * @param name The sensor name.
+	 * @param typeID The sensor type ID.
+	 * @param statusCode The sensor status code.
+	 * @param value The sensor value.
+	 * @param timeStampMillis The time the reading was received, in milliseconds since the Epoch.
+	 */
+	public SensorReading(
+		String locationID, String name, int typeID, int statusCode, float value, long timeStampMillis)
+	{
+		this(locationID, name, typeID, statusCode, value, timeStampMillis, null);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param locationID The location ID of the device that sent the reading.
+	 * @param name The sensor name.
+	 * @param typeID The sensor type ID.
+	 * @param statusCode The sensor status code.
+	 * @param value The sensor value.
+	 * @param timeStampMillis The time the reading was received, in milliseconds since the Epoch.
+	 * @param sourceTimeStamp The time stamp set by the sender, or null if unknown.
+	 */
+	public SensorReading(
+		String locationID, String name, int typeID, int statusCode, float value, long timeStampMillis,
+		String sourceTimeStamp)
+	{
+		super();
+
+		this.locationID = locationID;
+		this.name = name;
+		this.typeID = typeID;
+		this.statusCode = statusCode;
+		this.value = value;
+		this.timeStampMillis = timeStampMillis;
+		this.sourceTimeStamp = sourceTimeStamp;
+	}
+
+	/**
+	 * Creates a reading from the given sensor data, timestamped with the
+	 * current time (the same as {@link BaseIotData#updateData(BaseIotData)}),
+	 * keeping the data's own time stamp as the source time stamp.
+	 *
+	 * @param data The sensor data to copy.
+	 * @return SensorReading
+	 */
+	public static SensorReading fromSensorData(SensorData data)
+	{
+		return new SensorReading(
+			data.getLocationID(), data.getName(), data.getTypeID(), data.getStatusCode(),
+			data.getValue(), System.currentTimeMillis(), data.getTimeStamp());
+	}
+
+
+	// public methods
+
+	public String getLocationID()
+	{
+		return this.locationID;
+	}
+
+	public String getName()
+	{
+		return this.name;
+	}
+
+	public int getTypeID()
+	{
+		return this.typeID;
+	}
+
+	public int getStatusCode()
+	{
+		return this.statusCode;
+	}
+
+	public float getValue()
+	{
+		return this.value;
+	}
+
+	public long getTimeStampMillis()
+	{
+		return this.timeStampMillis;
+	}
+
+	/**
+	 * Returns the time stamp set by the sender, as it was decoded (see
+	 * {@link BaseIotData#getTimeStamp()}), e.g. to recognize a redelivery
+	 * of the same reading.
+	 *
+	 * @return String The time stamp, or null if unknown.
+	 */
+	public String getSourceTimeStamp()
+	{
+		return this.sourceTimeStamp;
+	}
+
+	/**
+	 * Returns the timestamp in ISO 8601 format, e.g. 2020-12-27T10:13:30Z
+	 *
+	 * @return String
+	 */
+	public String getTimeStamp()
+	{
+		return Instant.ofEpochMilli(this.timeStampMillis).toString();
+	}
+
+	/**
+	 * Returns a string representation of this instance.
+	 *
+	 * @return String The string representing this instance, returned in CSV 'key=value' format.
+	 */
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+
+		sb.append(ConfigConst.NAME_PROP).append('=').append(this.name).append(',');
+		sb.append(ConfigConst.TYPE_ID_PROP).append('=').append(this.typeID).append(',');
+		sb.append(ConfigConst.TIMESTAMP_PROP).append('=').append(getTimeStamp()).append(',');
+		sb.append(ConfigConst.STATUS_CODE_PROP).append('=').append(this.statusCode).append(',');
+		sb.append(ConfigConst.LOCATION_ID_PROP).append('=').append(this.locationID).append(',');
+		sb.append(ConfigConst.VALUE_PROP).append('=').append(this.value);
+
+		return sb.toString();
+	}
+
+}
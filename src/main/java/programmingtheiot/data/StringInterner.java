@@ -0,0 +1,137 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Bounded cache of the Strings decoded from UTF-8 bytes, so values that
+ * repeat from message to message (such as names and location IDs) are
+ * only decoded once, and are shared rather than allocated per message.
+ * <p>
+ * The cache is direct-mapped: each byte sequence hashes to a single
+ * slot, and a new value simply replaces whatever was in its slot. It
+ * never grows, so unbounded or hostile input can't exhaust memory; the
+ * worst case is a miss, which decodes the String as usual. Values longer
+ * than {@link #MAX_LENGTH} bytes are never cached.
+ * <p>
+ * Instances are thread-safe and lock-free. Entries are immutable, so a
+ * racing update can only cause a miss, never a wrong value.
+ *
+ */
+public final class StringInterner
+{
+	// static
+
+	public static final int DEFAULT_CAPACITY = 1024;
+	public static final int MAX_LENGTH = 64;
+
+
+	// private var's
+
+	private final Entry[] entries;
+	private final int mask;
+
+	// constructors
+
+	/**
+	 * Default.
+	 *
+	 */
+	public StringInterner()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity The number of slots, rounded up to a power of two.
+	 */
+	public StringInterner(int capacity)
+	{
+		super();
+
+		int size = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+
+		this.entries = new Entry[size];
+		this.mask = size - 1;
+	}
+
+
+	// public methods
+
+	/**
+	 * Returns the String for the UTF-8 bytes, from the cache if it's there.
+	 *
+	 * @param buf The buffer holding the bytes.
+	 * @param offset The offset of the bytes within buf.
+	 * @param length The number of bytes.
+	 * @return String
+	 */
+	public String intern(byte[] buf, int offset, int length)
+	{
+		if (length > MAX_LENGTH) {
+			return new String(buf, offset, length, StandardCharsets.UTF_8);
+		}
+
+		int hash = hash(buf, offset, length);
+		int index = hash & this.mask;
+		Entry entry = this.entries[index];
+
+		if (entry != null && entry.hash == hash &&
+			Arrays.equals(entry.bytes, 0, entry.bytes.length, buf, offset, offset + length)) {
+			return entry.value;
+		}
+
+		String value = new String(buf, offset, length, StandardCharsets.UTF_8);
+
+		this.entries[index] = new Entry(hash, Arrays.copyOfRange(buf, offset, offset + length), value);
+
+		return value;
+	}
+
+
+	// private methods
+
+	private static int hash(byte[] buf, int offset, int length)
+	{
+		int hash = length;
+
+		for (int i = offset; i < offset + length; i++) {
+			hash = 31 * hash + buf[i];
+		}
+
+		// spread the high bits, as the slot is picked from the low bits
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * An immutable cache entry: the UTF-8 bytes and the String they decode to.
+	 *
+	 */
+	private static final class Entry
+	{
+		private final int hash;
+		private final byte[] bytes;
+		private final String value;
+
+		private Entry(int hash, byte[] bytes, String value)
+		{
+			this.hash = hash;
+			this.bytes = bytes;
+			this.value = value;
+		}
+	}
+
+}
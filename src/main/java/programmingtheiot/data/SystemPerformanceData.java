@@ -21,6 +21,15 @@ public class SystemPerformanceData extends BaseIotData
 {
 	// static
 	
+	private static final byte[] JSON_CPU_UTILIZATION  = JsonByteWriter.encodeName("cpuUtilization");
+	private static final byte[] JSON_DISK_UTILIZATION = JsonByteWriter.encodeName("diskUtilization");
+	private static final byte[] JSON_MEM_UTILIZATION  = JsonByteWriter.encodeName("memUtilization");
+	
+	// CBOR map keys (see BaseIotData)
+	private static final int CBOR_CPU_UTILIZATION  = 14;
+	private static final int CBOR_DISK_UTILIZATION = 15;
+	private static final int CBOR_MEM_UTILIZATION  = 16;
+	
 	
 	// private var's
 
@@ -37,6 +46,19 @@ public class SystemPerformanceData extends BaseIotData
 		super.setName(ConfigConst.SYS_PERF_DATA);
 	}
 	
+	/**
+	 * Constructor for decoders, which skips the config file defaults
+	 * (see {@link BaseIotData#BaseIotData(boolean)}).
+	 * 
+	 * @param useConfigDefaults If true, the location ID is set from the config file.
+	 */
+	SystemPerformanceData(boolean useConfigDefaults)
+	{
+		super(useConfigDefaults);
+
+		super.setName(ConfigConst.SYS_PERF_DATA);
+	}
+	
 	
 	// public methods
 	
@@ -91,6 +113,78 @@ public class SystemPerformanceData extends BaseIotData
 	
 	// protected methods
 	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleWriteJson(programmingtheiot.data.JsonByteWriter)
+	 */
+	protected void handleWriteJson(JsonByteWriter writer)
+	{
+		writer.name(JSON_CPU_UTILIZATION).value(this.cpuUtilization);
+		writer.name(JSON_DISK_UTILIZATION).value(this.diskUtilization);
+		writer.name(JSON_MEM_UTILIZATION).value(this.memUtilization);
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleReadJson(programmingtheiot.data.JsonByteReader)
+	 */
+	protected boolean handleReadJson(JsonByteReader reader)
+	{
+		if (reader.isName(JSON_CPU_UTILIZATION)) {
+			if (! reader.nextNull()) { this.cpuUtilization = reader.nextFloat(); }
+		} else if (reader.isName(JSON_DISK_UTILIZATION)) {
+			if (! reader.nextNull()) { this.diskUtilization = reader.nextFloat(); }
+		} else if (reader.isName(JSON_MEM_UTILIZATION)) {
+			if (! reader.nextNull()) { this.memUtilization = reader.nextFloat(); }
+		} else {
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleWriteCbor(programmingtheiot.data.CborByteWriter)
+	 */
+	protected void handleWriteCbor(CborByteWriter writer)
+	{
+		writer.key(CBOR_CPU_UTILIZATION).value(this.cpuUtilization);
+		writer.key(CBOR_DISK_UTILIZATION).value(this.diskUtilization);
+		writer.key(CBOR_MEM_UTILIZATION).value(this.memUtilization);
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleReadCbor(int, programmingtheiot.data.CborByteReader)
+	 */
+	protected boolean handleReadCbor(int key, CborByteReader reader)
+	{
+		switch (key) {
+			case CBOR_CPU_UTILIZATION:
+				if (! reader.nextNull()) { this.cpuUtilization = reader.nextFloat(); }
+				break;
+			case CBOR_DISK_UTILIZATION:
+				if (! reader.nextNull()) { this.diskUtilization = reader.nextFloat(); }
+				break;
+			case CBOR_MEM_UTILIZATION:
+				if (! reader.nextNull()) { this.memUtilization = reader.nextFloat(); }
+				break;
+			default:
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleResetData()
+	 */
+	protected void handleResetData()
+	{
+		super.setName(ConfigConst.SYS_PERF_DATA);
+		
+		this.cpuUtilization = ConfigConst.DEFAULT_VAL;
+		this.diskUtilization = ConfigConst.DEFAULT_VAL;
+		this.memUtilization = ConfigConst.DEFAULT_VAL;
+	}
+	
 	/* (non-Javadoc)
 	 * @see programmingtheiot.data.BaseIotData#handleUpdateData(programmingtheiot.data.BaseIotData)
 	 */
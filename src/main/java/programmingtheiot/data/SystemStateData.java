@@ -11,7 +11,13 @@
 
 package programmingtheiot.data;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import programmingtheiot.common.ConfigConst;
 
@@ -21,54 +27,192 @@ import programmingtheiot.common.ConfigConst;
  * data items:
  * <p>SystemPerformanceData
  * <p>SensorData
+ * <p>
+ * The lists are an aggregate of the latest reading per item name:
+ * adding a reading replaces the previous one with the same name. Each
+ * item also tracks whether it changed (value, status, type, state or
+ * location ID; a new time stamp alone isn't a change) since the last
+ * call to {@link #createDelta()}, so repeated state pushes can send
+ * only the changed items, and the receiver merges them into its own
+ * instance with {@link #updateData(BaseIotData)}.
+ * <p>
+ * Items are copied when added, so callers may reuse (or release to a
+ * pool) the instances they pass in.
  * 
  */
 public class SystemStateData extends BaseIotData
 {
 	// static
 	
+	private static final byte[] JSON_COMMAND               = JsonByteWriter.encodeName(ConfigConst.COMMAND_PROP);
+	private static final byte[] JSON_SENSOR_DATA_LIST      = JsonByteWriter.encodeName(ConfigConst.SENSOR_DATA_LIST_PROP);
+	private static final byte[] JSON_SYSTEM_PERF_DATA_LIST = JsonByteWriter.encodeName(ConfigConst.SYSTEM_PERF_DATA_LIST_PROP);
+	
+	// CBOR map keys (see BaseIotData)
+	private static final int CBOR_COMMAND               = 12;
+	private static final int CBOR_SENSOR_DATA_LIST      = 17;
+	private static final int CBOR_SYSTEM_PERF_DATA_LIST = 18;
+	
 	
 	// private var's
 	
-    
+	private int command = ConfigConst.DEFAULT_COMMAND;
+	
+	// latest item per name, in order of first use
+	private final Map<String, SensorData> sensorDataMap = new LinkedHashMap<>();
+	private final Map<String, SystemPerformanceData> sysPerfDataMap = new LinkedHashMap<>();
+	
+	// names of the items changed since the last delta
+	private final Set<String> changedSensorData = new LinkedHashSet<>();
+	private final Set<String> changedSysPerfData = new LinkedHashSet<>();
     
 	// constructors
 	
 	public SystemStateData()
 	{
 		super();
+		
+		super.setName(ConfigConst.SYS_STATE_DATA);
+	}
+	
+	/**
+	 * Constructor for decoders, which skips the config file defaults
+	 * (see {@link BaseIotData#BaseIotData(boolean)}).
+	 * 
+	 * @param useConfigDefaults If true, the location ID is set from the config file.
+	 */
+	SystemStateData(boolean useConfigDefaults)
+	{
+		super(useConfigDefaults);
+		
+		super.setName(ConfigConst.SYS_STATE_DATA);
 	}
 	
 	
 	// public methods
 	
+	/**
+	 * Stores a copy of the reading as the latest for its name, and marks
+	 * it as changed if it differs from the previous one.
+	 * 
+	 * @param data The reading.
+	 * @return boolean True if the reading was stored; false if it's null.
+	 */
 	public boolean addSensorData(SensorData data)
 	{
-		return false;
+		if (data == null) {
+			return false;
+		}
+		
+		SensorData prevData = this.sensorDataMap.put(data.getName(), copySensorData(data));
+		
+		if (prevData == null || ! isSameReading(prevData, data) ||
+			! Objects.equals(prevData.getStateData(), data.getStateData()) ||
+			Float.floatToIntBits(prevData.getValue()) != Float.floatToIntBits(data.getValue())) {
+			this.changedSensorData.add(data.getName());
+		}
+		
+		return true;
 	}
 	
+	/**
+	 * Stores a copy of the reading as the latest for its name, and marks
+	 * it as changed if it differs from the previous one.
+	 * 
+	 * @param data The reading.
+	 * @return boolean True if the reading was stored; false if it's null.
+	 */
 	public boolean addSystemPerformanceData(SystemPerformanceData data)
 	{
-		return false;
+		if (data == null) {
+			return false;
+		}
+		
+		SystemPerformanceData prevData = this.sysPerfDataMap.put(data.getName(), copySystemPerformanceData(data));
+		
+		if (prevData == null || ! isSameReading(prevData, data) ||
+			Float.floatToIntBits(prevData.getCpuUtilization()) != Float.floatToIntBits(data.getCpuUtilization()) ||
+			Float.floatToIntBits(prevData.getDiskUtilization()) != Float.floatToIntBits(data.getDiskUtilization()) ||
+			Float.floatToIntBits(prevData.getMemoryUtilization()) != Float.floatToIntBits(data.getMemoryUtilization())) {
+			this.changedSysPerfData.add(data.getName());
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Returns true if an item has changed since the last delta.
+	 * 
+	 * @return boolean
+	 */
+	public boolean hasChanges()
+	{
+		return (! this.changedSensorData.isEmpty() || ! this.changedSysPerfData.isEmpty());
+	}
+	
+	/**
+	 * Creates the next delta to send: a new instance with the same
+	 * properties and command as this one, but with only the items that
+	 * have changed since the previous delta. The items are then marked
+	 * as unchanged, so each change is sent once.
+	 * 
+	 * @return SystemStateData The delta, which has empty lists if nothing changed.
+	 */
+	public SystemStateData createDelta()
+	{
+		SystemStateData delta = new SystemStateData(false);
+		
+		copyProperties(delta);
+		
+		for (String name : this.changedSensorData) {
+			delta.sensorDataMap.put(name, this.sensorDataMap.get(name));
+		}
+		
+		for (String name : this.changedSysPerfData) {
+			delta.sysPerfDataMap.put(name, this.sysPerfDataMap.get(name));
+		}
+		
+		this.changedSensorData.clear();
+		this.changedSysPerfData.clear();
+		
+		return delta;
+	}
+	
+	/**
+	 * Marks every item as changed, so the next delta is a full snapshot,
+	 * e.g. after reconnecting to a receiver that may have lost its state.
+	 * 
+	 */
+	public void markAllChanged()
+	{
+		this.changedSensorData.addAll(this.sensorDataMap.keySet());
+		this.changedSysPerfData.addAll(this.sysPerfDataMap.keySet());
 	}
 	
 	public int getCommand()
 	{
-		return 0;
+		return this.command;
 	}
 	
+	/**
+	 * Returns the latest reading per name, in order of first use. The
+	 * returned instances are the stored copies, and must not be modified.
+	 * 
+	 * @return List
+	 */
 	public List<SensorData> getSensorDataList()
 	{
-		return null;
+		return new ArrayList<>(this.sensorDataMap.values());
 	}
 	
 	public List<SystemPerformanceData> getSystemPerformanceDataList()
 	{
-		return null;
+		return new ArrayList<>(this.sysPerfDataMap.values());
 	}
 	
 	public void setCommand(int actionCmd)
 	{
+		this.command = actionCmd;
 	}
 	
 	/**
@@ -92,11 +236,190 @@ public class SystemStateData extends BaseIotData
 	
 	// protected methods
 	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleWriteJson(programmingtheiot.data.JsonByteWriter)
+	 */
+	protected void handleWriteJson(JsonByteWriter writer)
+	{
+		writer.name(JSON_COMMAND).value(this.command);
+		
+		writer.name(JSON_SENSOR_DATA_LIST).beginArray();
+		for (SensorData data : this.sensorDataMap.values()) { data.writeJson(writer); }
+		writer.endArray();
+		
+		writer.name(JSON_SYSTEM_PERF_DATA_LIST).beginArray();
+		for (SystemPerformanceData data : this.sysPerfDataMap.values()) { data.writeJson(writer); }
+		writer.endArray();
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleReadJson(programmingtheiot.data.JsonByteReader)
+	 */
+	protected boolean handleReadJson(JsonByteReader reader)
+	{
+		if (reader.isName(JSON_COMMAND)) {
+			if (! reader.nextNull()) { this.command = reader.nextInt(); }
+		} else if (reader.isName(JSON_SENSOR_DATA_LIST)) {
+			if (! reader.nextNull()) {
+				reader.beginArray();
+				
+				while (reader.hasNext()) {
+					if (! reader.nextNull()) {
+						SensorData data = new SensorData(false);
+						data.readJson(reader);
+						this.sensorDataMap.put(data.getName(), data);
+					}
+				}
+				
+				reader.endArray();
+			}
+		} else if (reader.isName(JSON_SYSTEM_PERF_DATA_LIST)) {
+			if (! reader.nextNull()) {
+				reader.beginArray();
+				
+				while (reader.hasNext()) {
+					if (! reader.nextNull()) {
+						SystemPerformanceData data = new SystemPerformanceData(false);
+						data.readJson(reader);
+						this.sysPerfDataMap.put(data.getName(), data);
+					}
+				}
+				
+				reader.endArray();
+			}
+		} else {
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleWriteCbor(programmingtheiot.data.CborByteWriter)
+	 */
+	protected void handleWriteCbor(CborByteWriter writer)
+	{
+		if (this.command != ConfigConst.DEFAULT_COMMAND) { writer.key(CBOR_COMMAND).value(this.command); }
+		
+		if (! this.sensorDataMap.isEmpty()) {
+			writer.key(CBOR_SENSOR_DATA_LIST).beginArray(this.sensorDataMap.size());
+			for (SensorData data : this.sensorDataMap.values()) { data.writeCbor(writer); }
+		}
+		
+		if (! this.sysPerfDataMap.isEmpty()) {
+			writer.key(CBOR_SYSTEM_PERF_DATA_LIST).beginArray(this.sysPerfDataMap.size());
+			for (SystemPerformanceData data : this.sysPerfDataMap.values()) { data.writeCbor(writer); }
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleReadCbor(int, programmingtheiot.data.CborByteReader)
+	 */
+	protected boolean handleReadCbor(int key, CborByteReader reader)
+	{
+		int count = 0;
+		
+		switch (key) {
+			case CBOR_COMMAND:
+				if (! reader.nextNull()) { this.command = reader.nextInt(); }
+				break;
+			case CBOR_SENSOR_DATA_LIST:
+				count = reader.beginArray();
+				
+				for (int i = 0; i < count; i++) {
+					SensorData data = new SensorData(false);
+					data.readCbor(reader);
+					this.sensorDataMap.put(data.getName(), data);
+				}
+				break;
+			case CBOR_SYSTEM_PERF_DATA_LIST:
+				count = reader.beginArray();
+				
+				for (int i = 0; i < count; i++) {
+					SystemPerformanceData data = new SystemPerformanceData(false);
+					data.readCbor(reader);
+					this.sysPerfDataMap.put(data.getName(), data);
+				}
+				break;
+			default:
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/* (non-Javadoc)
+	 * @see programmingtheiot.data.BaseIotData#handleResetData()
+	 */
+	protected void handleResetData()
+	{
+		super.setName(ConfigConst.SYS_STATE_DATA);
+		
+		this.command = ConfigConst.DEFAULT_COMMAND;
+		
+		this.sensorDataMap.clear();
+		this.sysPerfDataMap.clear();
+		this.changedSensorData.clear();
+		this.changedSysPerfData.clear();
+	}
+	
 	/* (non-Javadoc)
 	 * @see programmingtheiot.data.BaseIotData#handleUpdateData(programmingtheiot.data.BaseIotData)
 	 */
 	protected void handleUpdateData(BaseIotData data)
 	{
+		if (data instanceof SystemStateData) {
+			SystemStateData systemStateData = (SystemStateData)data;
+			this.setCommand(systemStateData.getCommand());
+			
+			// merged, so a delta updates only the items it holds
+			systemStateData.sensorDataMap.values().forEach(this::addSensorData);
+			systemStateData.sysPerfDataMap.values().forEach(this::addSystemPerformanceData);
+		}
+	}
+	
+	
+	// private methods
+	
+	private void copyProperties(SystemStateData target)
+	{
+		target.setName(getName());
+		target.setTypeID(getTypeID());
+		target.setStatusCode(getStatusCode());
+		target.setLocationID(getLocationID());
+		target.setLatitude(getLatitude());
+		target.setLongitude(getLongitude());
+		target.setElevation(getElevation());
+		target.setTimeStampMillis(getTimeStampMillis());
+		target.command = this.command;
+	}
+	
+	private SensorData copySensorData(SensorData data)
+	{
+		SensorData copy = new SensorData(false);
+		
+		copy.updateData(data);
+		copy.setStateData(data.getStateData());
+		copy.setTimeStampMillis(data.getTimeStampMillis());
+		
+		return copy;
+	}
+	
+	private SystemPerformanceData copySystemPerformanceData(SystemPerformanceData data)
+	{
+		SystemPerformanceData copy = new SystemPerformanceData(false);
+		
+		copy.updateData(data);
+		copy.setTimeStampMillis(data.getTimeStampMillis());
+		
+		return copy;
+	}
+	
+	private boolean isSameReading(BaseIotData prevData, BaseIotData data)
+	{
+		return (prevData.getStatusCode() == data.getStatusCode() &&
+			prevData.getTypeID() == data.getTypeID() &&
+			Objects.equals(prevData.getLocationID(), data.getLocationID()));
 	}
 	
 }
@@ -0,0 +1,381 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.BaseIotData;
+import programmingtheiot.data.PayloadFieldScanner;
+
+/**
+ * Staged, asynchronous ingest pipeline for inbound CDA messages.
+ * <p>
+ * Messages flow through four stages - decode, persist, analyze and
+ * uplink - each with its own bounded queue and worker pool (configured
+ * in the {@link ConfigConst#GATEWAY_DEVICE} section). Each stage worker
+ * hands its handler a micro-batch of whatever messages are already
+ * queued (up to {@link ConfigConst#PIPELINE_MAX_BATCH_SIZE_KEY}), and
+ * the handler returns the messages that should continue on to the next
+ * stage.
+ * <p>
+ * Since each stage only blocks its own workers, ingest throughput is
+ * limited by the capacity of the slowest stage rather than the sum of
+ * the per-stage latencies.
+ * <p>
+ * If ordered dispatch is enabled, each stage is partitioned into
+ * single-threaded lanes keyed by {@link IngestMessage#getPartitionKey()},
+ * so messages from the same device keep their order end to end while
+ * messages from different devices are processed in parallel.
+ *
+ */
+public class DataIngestionPipeline
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(DataIngestionPipeline.class.getName());
+
+	public static final String DECODE_STAGE_NAME  = "decode";
+	public static final String PERSIST_STAGE_NAME = "persist";
+	public static final String ANALYZE_STAGE_NAME = "analyze";
+	public static final String UPLINK_STAGE_NAME  = "uplink";
+
+	// one per submitting thread, as scanners are reused between payloads
+	private static final ThreadLocal<PayloadFieldScanner> _PayloadScanner =
+		ThreadLocal.withInitial(PayloadFieldScanner::new);
+
+	/**
+	 * Handler for a single pipeline stage.
+	 *
+	 */
+	@FunctionalInterface
+	public interface StageHandler
+	{
+		/**
+		 * Processes a micro-batch of messages.
+		 *
+		 * @param batch The messages, in the order they were queued.
+		 * @return List The messages that should continue on to the next stage.
+		 */
+		public List<IngestMessage> process(List<IngestMessage> batch);
+	}
+
+	// private var's
+
+	private PipelineStage<IngestMessage> decodeStage  = null;
+	private PipelineStage<IngestMessage> persistStage = null;
+	private PipelineStage<IngestMessage> analyzeStage = null;
+	private PipelineStage<IngestMessage> uplinkStage  = null;
+
+	private List<PipelineStage<IngestMessage>> stages = new ArrayList<>();
+
+	private boolean isOrdered = false;
+	private int maxBatchSize = ConfigConst.DEFAULT_PIPELINE_MAX_BATCH_SIZE;
+	private int metricsLogSecs = ConfigConst.DEFAULT_PIPELINE_METRICS_LOG_SECS;
+	private ScheduledExecutorService metricsExecutor = null;
+
+	// constructors
+
+	/**
+	 * Constructor. The stages are ordered if
+	 * {@link ConfigConst#ENABLE_ORDERED_DISPATCH_KEY} is set.
+	 *
+	 * @param decoder The decode stage handler; sets the decoded data on the message.
+	 * @param persister The persist stage handler.
+	 * @param analyzer The analyze stage handler.
+	 * @param uplinker The uplink stage handler.
+	 */
+	public DataIngestionPipeline(
+		StageHandler decoder,
+		StageHandler persister,
+		StageHandler analyzer,
+		StageHandler uplinker)
+	{
+		this(decoder, persister, analyzer, uplinker,
+			ConfigUtil.getInstance().getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_ORDERED_DISPATCH_KEY));
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param decoder The decode stage handler; sets the decoded data on the message.
+	 * @param persister The persist stage handler.
+	 * @param analyzer The analyze stage handler.
+	 * @param uplinker The uplink stage handler.
+	 * @param isOrdered True to keep each device's messages in order.
+	 */
+	public DataIngestionPipeline(
+		StageHandler decoder,
+		StageHandler persister,
+		StageHandler analyzer,
+		StageHandler uplinker,
+		boolean isOrdered)
+	{
+		super();
+
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		long submitTimeout = configUtil.getInteger(
+			ConfigConst.GATEWAY_DEVICE, ConfigConst.PIPELINE_SUBMIT_TIMEOUT_KEY, ConfigConst.DEFAULT_PIPELINE_SUBMIT_TIMEOUT);
+
+		this.isOrdered = isOrdered;
+
+		this.maxBatchSize = configUtil.getInteger(
+			ConfigConst.GATEWAY_DEVICE, ConfigConst.PIPELINE_MAX_BATCH_SIZE_KEY, ConfigConst.DEFAULT_PIPELINE_MAX_BATCH_SIZE);
+
+		this.metricsLogSecs = configUtil.getInteger(
+			ConfigConst.GATEWAY_DEVICE, ConfigConst.PIPELINE_METRICS_LOG_SECS_KEY, ConfigConst.DEFAULT_PIPELINE_METRICS_LOG_SECS);
+
+		// stages are created back to front so each can forward to the next
+		this.uplinkStage = createStage(
+			UPLINK_STAGE_NAME, ConfigConst.UPLINK_STAGE_WORKERS_KEY, ConfigConst.UPLINK_STAGE_QUEUE_SIZE_KEY,
+			submitTimeout, uplinker, null);
+
+		this.analyzeStage = createStage(
+			ANALYZE_STAGE_NAME, ConfigConst.ANALYZE_STAGE_WORKERS_KEY, ConfigConst.ANALYZE_STAGE_QUEUE_SIZE_KEY,
+			submitTimeout, analyzer, this.uplinkStage);
+
+		this.persistStage = createStage(
+			PERSIST_STAGE_NAME, ConfigConst.PERSIST_STAGE_WORKERS_KEY, ConfigConst.PERSIST_STAGE_QUEUE_SIZE_KEY,
+			submitTimeout, persister, this.analyzeStage);
+
+		this.decodeStage = createStage(
+			DECODE_STAGE_NAME, ConfigConst.DECODE_STAGE_WORKERS_KEY, ConfigConst.DECODE_STAGE_QUEUE_SIZE_KEY,
+			submitTimeout, decoder, this.persistStage);
+
+		this.stages.add(this.decodeStage);
+		this.stages.add(this.persistStage);
+		this.stages.add(this.analyzeStage);
+		this.stages.add(this.uplinkStage);
+	}
+
+
+	// public methods
+
+	/**
+	 * Queues a raw (undecoded) payload at the decode stage.
+	 *
+	 * @param resource The resource the payload was received on.
+	 * @param payload The raw payload.
+	 * @param format The payload format.
+	 * @return boolean True if queued; false otherwise.
+	 */
+	public boolean submitRawMessage(ResourceNameEnum resource, byte[] payload, PayloadFormatEnum format)
+	{
+		return submitRawMessage(new IngestMessage(resource, payload, format));
+	}
+
+	/**
+	 * Queues a raw message, created by the caller, at the decode stage.
+	 * This allows the caller to scan the payload first, and set the
+	 * message's partition key (see {@link IngestMessage#getPartitionKey()}).
+	 * <p>
+	 * If the pipeline is ordered and the caller hasn't set a scanned
+	 * location ID, the payload is scanned for it here, so each device's
+	 * messages share a decode lane, and different devices' messages are
+	 * decoded in parallel, whether or not the caller scans payloads.
+	 *
+	 * @param msg The message, which must have a raw payload.
+	 * @return boolean True if queued; false otherwise.
+	 */
+	public boolean submitRawMessage(IngestMessage msg)
+	{
+		if (this.isOrdered && msg.getData() == null && msg.getScannedLocationID() == null) {
+			PayloadFieldScanner scanner = _PayloadScanner.get();
+
+			if (scanner.scan(msg.getPayload(), msg.getPayloadFormat())) {
+				msg.setScannedLocationID(scanner.getLocationID());
+			}
+		}
+
+		return this.decodeStage.submit(msg.getPartitionKey(), msg);
+	}
+
+	/**
+	 * Queues already decoded data at the persist stage, bypassing decode.
+	 *
+	 * @param resource The resource the data was received on.
+	 * @param data The decoded data.
+	 * @return boolean True if queued; false otherwise.
+	 */
+	public boolean submitDecodedMessage(ResourceNameEnum resource, BaseIotData data)
+	{
+		IngestMessage msg = new IngestMessage(resource, data);
+
+		return this.persistStage.submit(msg.getPartitionKey(), msg);
+	}
+
+	/**
+	 * Queues a batch of already decoded data at the persist stage, bypassing decode.
+	 *
+	 * @param resource The resource the data was received on.
+	 * @param dataList The decoded data, in the order received.
+	 * @return boolean True if all were queued; false otherwise.
+	 */
+	public boolean submitDecodedMessages(ResourceNameEnum resource, List<? extends BaseIotData> dataList)
+	{
+		boolean success = true;
+
+		for (BaseIotData data : dataList) {
+			success &= submitDecodedMessage(resource, data);
+		}
+
+		return success;
+	}
+
+	public boolean isOrdered()
+	{
+		return this.isOrdered;
+	}
+
+	public List<PipelineStage<IngestMessage>> getStages()
+	{
+		return this.stages;
+	}
+
+	/**
+	 * Returns a string representation of all stage metrics, one stage per line.
+	 *
+	 * @return String
+	 */
+	public String getMetricsSummary()
+	{
+		StringBuilder sb = new StringBuilder("Ingest pipeline metrics:");
+
+		for (PipelineStage<IngestMessage> stage : this.stages) {
+			sb.append("\n\t").append(stage.getMetricsSummary());
+		}
+
+		return sb.toString();
+	}
+
+	public void startPipeline()
+	{
+		_Logger.info("Starting ingest pipeline...");
+
+		// start consumers before producers
+		for (int i = this.stages.size() - 1; i >= 0; i--) {
+			this.stages.get(i).start();
+		}
+
+		if (this.metricsLogSecs > 0) {
+			this.metricsExecutor = Executors.newSingleThreadScheduledExecutor();
+			this.metricsExecutor.scheduleAtFixedRate(
+				() -> _Logger.info(getMetricsSummary()),
+				this.metricsLogSecs, this.metricsLogSecs, TimeUnit.SECONDS);
+		}
+
+		_Logger.info("Ingest pipeline started");
+	}
+
+	/**
+	 * Stops each stage in flow order, so every stage has drained into
+	 * the next one before that one is stopped.
+	 *
+	 */
+	public void stopPipeline()
+	{
+		_Logger.info("Stopping ingest pipeline...");
+
+		if (this.metricsExecutor != null) {
+			this.metricsExecutor.shutdownNow();
+			this.metricsExecutor = null;
+		}
+
+		for (PipelineStage<IngestMessage> stage : this.stages) {
+			stage.stop();
+		}
+
+		_Logger.info("Ingest pipeline stopped");
+	}
+
+
+	// private methods
+
+	private PipelineStage<IngestMessage> createStage(
+		String name, String workersKey, String queueSizeKey, long submitTimeout,
+		StageHandler handler, PipelineStage<IngestMessage> nextStage)
+	{
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		int workers = configUtil.getInteger(
+			ConfigConst.GATEWAY_DEVICE, workersKey, ConfigConst.DEFAULT_STAGE_WORKERS);
+		int queueSize = configUtil.getInteger(
+			ConfigConst.GATEWAY_DEVICE, queueSizeKey, ConfigConst.DEFAULT_STAGE_QUEUE_SIZE);
+
+		return new PipelineStage<>(
+			name, workers, queueSize, submitTimeout, this.isOrdered, this.maxBatchSize, (batch) -> {
+				List<IngestMessage> results = null;
+
+				try {
+					results = handler.process(batch);
+				} catch (RuntimeException e) {
+					// the stage counts the batch as failed; none of it goes on
+					releaseData(batch, null);
+					throw e;
+				}
+
+				// after the last stage, or if the handler didn't pass them on,
+				// messages are done with
+				if (nextStage == null) {
+					releaseData(batch, null);
+				} else if (results != batch) {
+					releaseData(batch, results);
+				}
+
+				if (results != null && nextStage != null) {
+					for (IngestMessage msg : results) {
+						if (! nextStage.submit(msg.getPartitionKey(), msg)) {
+							// dropped, so won't reach the last stage
+							msg.releaseData();
+						}
+					}
+				}
+			});
+	}
+
+	/**
+	 * Returns the pooled data of each message in the batch that isn't
+	 * in the kept list to its pool. Releasing is idempotent, so data a
+	 * handler has already released is skipped.
+	 *
+	 * @param batch The batch.
+	 * @param kept The messages to keep, or null to release them all.
+	 */
+	private void releaseData(List<IngestMessage> batch, List<IngestMessage> kept)
+	{
+		Set<IngestMessage> keptSet = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		if (kept != null) {
+			keptSet.addAll(kept);
+		}
+
+		for (IngestMessage msg : batch) {
+			if (! keptSet.contains(msg)) {
+				msg.releaseData();
+			}
+		}
+	}
+
+}
@@ -17,44 +17,65 @@ import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
 
 import programmingtheiot.common.ConfigConst;
 import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.EventLogger;
 import programmingtheiot.common.IActuatorDataListener;
 import programmingtheiot.common.IDataMessageListener;
+import programmingtheiot.common.PayloadFormatEnum;
 import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.common.ThreadUtil;
 
 import programmingtheiot.data.ActuatorData;
 import programmingtheiot.data.AnthropicContentBlock;
-import programmingtheiot.data.AnthropicContentBlockTypeAdapter;
+import programmingtheiot.data.AnthropicConversation;
 import programmingtheiot.data.AnthropicMessage;
 import programmingtheiot.data.AnthropicRole;
 import programmingtheiot.data.BaseIotData;
 import programmingtheiot.data.DataUtil;
-import programmingtheiot.data.LLMHttpResponse;
-import programmingtheiot.data.LLMHttpResponseDeserializer;
+import programmingtheiot.data.IotDataPool;
+import programmingtheiot.data.PayloadFieldScanner;
+import programmingtheiot.data.PuetceResponse;
+import programmingtheiot.data.PuetceResponseReader;
 import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SensorDataBatch;
+import programmingtheiot.data.SensorReading;
 import programmingtheiot.data.SystemPerformanceData;
 import programmingtheiot.data.ToolResultContentBlock;
 import programmingtheiot.data.AnthropicContentBlock.Text;
+import programmingtheiot.gda.app.IngestMessage.Stage;
 import programmingtheiot.gda.connection.CloudClientConnector;
 import programmingtheiot.gda.connection.CoapServerGateway;
 import programmingtheiot.gda.connection.ICloudClient;
 import programmingtheiot.gda.connection.IPersistenceClient;
 import programmingtheiot.gda.connection.IPubSubClient;
 import programmingtheiot.gda.connection.IRequestResponseClient;
+import programmingtheiot.gda.connection.LoopbackPubSubClient;
 import programmingtheiot.gda.connection.MqttClientConnector;
 import programmingtheiot.gda.connection.PuetceClientConnector;
 import programmingtheiot.gda.connection.RedisPersistenceAdapter;
+import programmingtheiot.gda.connection.ShardedMqttClientConnector;
 import programmingtheiot.gda.connection.SmtpClientConnector;
+import programmingtheiot.gda.system.CdaFleetSimulator;
 import programmingtheiot.gda.system.SystemPerformanceManager;
 import redis.clients.jedis.JedisPubSub;
 
@@ -82,6 +103,13 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 	private static final Logger _Logger =
 		Logger.getLogger(DeviceDataManager.class.getName());
 	
+	private static final EventLogger _EventLogger =
+		EventLogger.getLogger(DeviceDataManager.class);
+	
+	// scanners reuse their readers, so each receiving thread has its own
+	private static final ThreadLocal<PayloadFieldScanner> _PayloadScanner =
+		ThreadLocal.withInitial(PayloadFieldScanner::new);
+	
 	// private var's	
 	private boolean enableMqttClient = true;
 	private boolean enableCoapServer = false;
@@ -91,9 +119,26 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 	private boolean enablePuetceClient = false;
 
 	private boolean enableSystemPerf = false;
+	private boolean enableIngestPipeline = false;
+	private boolean enableOrderedDispatch = false;
+	private boolean enableLatencyTracing = false;
+	private boolean enablePayloadScan = false;
+	private boolean useLoopbackPubSub = false;
+	private int mqttConnectionCount = ConfigConst.DEFAULT_MQTT_CONNECTION_COUNT;
+	private boolean enableFleetSimulator = false;
 	
 	private Gson gson = null;
 	
+	private DataIngestionPipeline ingestPipeline = null;
+	private IotDataPool<SensorData> sensorDataPool = null;
+	private IotDataPool<ActuatorData> actuatorDataPool = null;
+	private PartitionedExecutor dispatchExecutor = null;
+	private ExecutorService dispatchTaskExecutor = null;
+	
+	private LatencyTracker latencyTracker = null;
+	private int latencyReportSecs = ConfigConst.DEFAULT_LATENCY_REPORT_SECS;
+	private ScheduledExecutorService latencyReportExecutor = null;
+	
 	private IActuatorDataListener actuatorDataListener = null;
 	private IPubSubClient mqttClient = null;
 	private ICloudClient cloudClient = null;
@@ -103,14 +148,14 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 	private PuetceClientConnector puetceClient = null;
 
 	private SystemPerformanceManager systemPerfMgr = null;
+	private CdaFleetSimulator fleetSimulator = null;
 	
-	private SensorData latestTemperatureSensorData = null;
-	private SensorData latestHumiditySensorData = null;
-	private SensorData latestPressureSensorData = null;
+	private LatestSensorDataRegistry sensorDataRegistry = new LatestSensorDataRegistry();
+	private final AtomicLong scannedMessageCount = new AtomicLong();
+	private final AtomicLong droppedDuplicateCount = new AtomicLong();
 	
-	private ActuatorData   	latestHumidifierActuatorData = null;
-	private SensorData 		prevLatestHumiditySensorData = null;
-	private OffsetDateTime 	latestHumiditySensorTimeStamp = null;
+	// humidity analysis state, keyed by location ID
+	private Map<String, HumidityAnalysisState> humidityAnalysisStates = new ConcurrentHashMap<>();
 
 	private boolean handleHumidityChangeOnDevice = false;
 	private boolean useVerboseToolExecutions = false;
@@ -123,12 +168,11 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 	// private state vars
 
 	private ActuatorData latestHumidifierActuatorResponse = null;
-	private String lastLocationID = "";
+	private volatile String lastLocationID = "";
 	private String lastMessageLocationID = "";
 	private String lastToolID = "";
-	private int lastKnownHumidifierCommand = ConfigConst.OFF_COMMAND;
 	private String lastKnownSpeechResult = "";
-	private List<AnthropicMessage> conversation = null;
+	private AnthropicConversation conversation = null;
 	
 	// constructors
 	
@@ -136,29 +180,7 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 	{
 		super();
 		
-		this.gson = new GsonBuilder()
-			.registerTypeAdapter(AnthropicContentBlock.class, new AnthropicContentBlockTypeAdapter())
-			.registerTypeAdapter(LLMHttpResponse.class, new LLMHttpResponseDeserializer())
-			.create();
-	
-		ConfigUtil configUtil = ConfigUtil.getInstance();
-		
-		this.enableMqttClient = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_MQTT_CLIENT_KEY);
-		this.enableCoapServer = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_COAP_SERVER_KEY);
-		this.enableCloudClient = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_CLOUD_CLIENT_KEY);		
-		this.enablePersistenceClient = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_PERSISTENCE_CLIENT_KEY);
-		this.enablePuetceClient = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_PUETCE_CLIENT_KEY);
-
-		this.enableSystemPerf = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_SYSTEM_PERF_KEY);
-
-		this.useVerboseToolExecutions = configUtil.getBoolean(ConfigConst.PUETCE_GATEWAY_SERVICE, ConfigConst.VERBOSE_TOOL_EXECUTIONS_KEY);
-
-		this.humidityMaxTimePastThreshold = configUtil.getInteger(ConfigConst.GATEWAY_DEVICE, ConfigConst.HUMID_MAX_TIME_PAST_THRESH_KEY, 300);
-		this.nominalHumiditySetting = configUtil.getFloat(ConfigConst.GATEWAY_DEVICE, ConfigConst.NOMINAL_HUMID_KEY, 40.0f);
-		this.triggerHumidifierFloor = configUtil.getFloat(ConfigConst.GATEWAY_DEVICE, ConfigConst.TRIGGER_HUMID_FLOOR_KEY, 30.0f);
-		this.triggerHumidifierCeiling = configUtil.getFloat(ConfigConst.GATEWAY_DEVICE, ConfigConst.TRIGGER_HUMID_CEIL_KEY, 50.0f);
-
-		// TODO validate the humidity/humidifier values
+		initManager();
 
 		if (this.enableSystemPerf) {
 			this.systemPerfMgr = new SystemPerformanceManager();
@@ -172,9 +194,23 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 		}
 
 		if (this.enableMqttClient) {
-			this.mqttClient = new MqttClientConnector();
-			_Logger.info("MQTT client enabled");
+			if (this.useLoopbackPubSub) {
+				this.mqttClient = new LoopbackPubSubClient();
+				_Logger.info("Loopback pub/sub client enabled (no MQTT broker)");
+			} else if (this.mqttConnectionCount > 1) {
+				this.mqttClient = new ShardedMqttClientConnector(this.mqttConnectionCount);
+				_Logger.info("Sharded MQTT client enabled");
+			} else {
+				this.mqttClient = new MqttClientConnector();
+				_Logger.info("MQTT client enabled");
+			}
+			
 			this.mqttClient.setDataMessageListener(this);
+			
+			if (this.enableFleetSimulator) {
+				this.fleetSimulator = new CdaFleetSimulator(this.mqttClient);
+				_Logger.info("CDA fleet simulator enabled");
+			}
 		}
 
 		if (this.enableCoapServer) {
@@ -194,7 +230,7 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 			_Logger.info("PUETCE LLM client enabled");
 			this.puetceClient.setDataMessageListener(this);
 			
-			this.conversation = new ArrayList<>();
+			this.conversation = new AnthropicConversation();
 		}
 
 		// init state
@@ -214,22 +250,62 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 		initConnections();
 	}
 	
+	/**
+	 * Constructor that uses the given clients instead of creating the
+	 * ones enabled in the configuration file - e.g. in-memory stubs, to
+	 * benchmark message handling without a broker, Redis or the cloud.
+	 * A null client is treated as disabled. The CoAP server, system
+	 * performance manager and PUETCE client are always disabled.
+	 * 
+	 * @param mqttClient The pub / sub client used for CDA messages.
+	 * @param cloudClient The cloud client.
+	 * @param persistenceClient The persistence client.
+	 */
+	public DeviceDataManager(
+		IPubSubClient mqttClient,
+		ICloudClient cloudClient,
+		IPersistenceClient persistenceClient)
+	{
+		super();
+
+		initManager();
+
+		this.enableCoapServer = false;
+		this.enableSystemPerf = false;
+		this.enablePuetceClient = false;
+
+		this.enableMqttClient = (mqttClient != null);
+		this.enableCloudClient = (cloudClient != null);
+		this.enablePersistenceClient = (persistenceClient != null);
+
+		this.mqttClient = mqttClient;
+		this.cloudClient = cloudClient;
+		this.persistenceClient = persistenceClient;
+
+		if (this.mqttClient != null) { this.mqttClient.setDataMessageListener(this); }
+		if (this.cloudClient != null) { this.cloudClient.setDataMessageListener(this); }
+
+		initConnections();
+	}
+	
 	// public methods
 	
 	@Override
 	public boolean handleActuatorCommandResponse(ResourceNameEnum resourceName, ActuatorData data)
 	{
 		if (data != null) {
-			_Logger.info("Handling Actuator Command Response: " + data.getName());
-			if (data.hasError()) { _Logger.warning("Error in Actuator Data"); }
-			if (this.persistenceClient != null) {
-				this.persistenceClient.storeData(resourceName.getResourceName(), 0, data);
-			}
-			return true;
+			inspectMessage(resourceName, data);
+			return dispatchMessage(resourceName, data);
 		} 
 		return false;
 	}
 
+	@Override
+	public boolean handleActuatorCommandResponses(ResourceNameEnum resourceName, List<ActuatorData> dataList)
+	{
+		return handleMessages(resourceName, dataList);
+	}
+
 	@Override
 	public boolean handleActuatorCommandRequest(ResourceNameEnum resourceName, ActuatorData data)
 	{
@@ -265,33 +341,45 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 	{
 		if (msg != null) {
 			_Logger.info("Handling Generic Message: " + resourceName.getResourceName());
-			msg = msg.replace("null", "\"\"");
-			LLMHttpResponse response = new LLMHttpResponse(null,null);
-			try {
-            	response = gson.fromJson(msg, LLMHttpResponse.class);
-			} catch (Exception e) {
-				_Logger.severe("Failed to deserialize into http response: " + e);
-				throw e;
+
+			// the actuator command is decoded as is; the PUETCE responses
+			// are decoded in a single pass, straight into their data
+			PuetceResponse response = null;
+
+			if (resourceName == ResourceNameEnum.GDA_MESSAGE_PUETCE_RESOURCE ||
+				resourceName == ResourceNameEnum.GDA_EXECUTE_TOOL_PUETCE_RESOURCE) {
+				try {
+					response = PuetceResponseReader.read(msg);
+				} catch (Exception e) {
+					_Logger.severe("Failed to deserialize into http response: " + e);
+					throw e;
+				}
+
+				if (response == null) {
+					return false;
+				}
+
+				_Logger.info("Deserialized message " + resourceName.getResourceName() + ", status: " + response.getStatus());
+
+				if (! response.isSuccess()) {
+					_Logger.warning("Unsuccessful response: " + response.getStatus() + ", " + response.getText());
+				}
 			}
-			_Logger.info("Deserialized message" + resourceName.getResourceName());
 
             switch (resourceName) {
             case GDA_MESSAGE_PUETCE_RESOURCE: 
-				AnthropicMessage message = gson.fromJson(response.data, AnthropicMessage.class);
-				handleMessagesResponse(resourceName, message);
+				if (response.getMessage() != null) {
+					handleMessagesResponse(resourceName, response.getMessage());
+				} else {
+					_Logger.warning("No message in response: " + response.getText());
+				}
                 break;
 			case GDA_EXECUTE_TOOL_PUETCE_RESOURCE:
-				JsonObject result = gson.fromJson(response.data, JsonObject.class);
-				ArrayList<ToolResultContentBlock> blocks = new ArrayList<>();
-				for (var block : result.get("value").getAsJsonArray()) {
-					try {
-						ToolResultContentBlock b = gson.fromJson(block, ToolResultContentBlock.Text.class);
-						blocks.add(b);
-					} catch (Exception e) {
-						_Logger.warning("this only supports text blocks");
-					}
+				if (response.getToolResults() != null) {
+					handleExecuteToolResponse(resourceName, response.getToolResults());
+				} else {
+					_Logger.warning("No tool results in response: " + response.getText());
 				}
-				handleExecuteToolResponse(resourceName, blocks);
 				break;
 			case CDA_ACTUATOR_CMD_RESOURCE:
 				return handleCloudActuatorCommand(resourceName, msg);
@@ -304,62 +392,69 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 		return false;
 	}
 
+	/**
+	 * If the ingest pipeline is enabled, the payload is queued for decoding
+	 * on the pipeline's decode stage and this returns as soon as it's queued.
+	 * Otherwise the payload is decoded on the calling thread, then dispatched.
+	 * Either way, the message's arrival time is taken on entry.
+	 * <p>
+	 * If payload scanning is enabled, the payload is scanned for its
+	 * routing properties first (see {@link #routeMessage(IngestMessage)}),
+	 * and duplicates are dropped without being decoded.
+	 * 
+	 */
 	@Override
-	public boolean handleSensorMessage(ResourceNameEnum resourceName, SensorData data)
+	public boolean handleRawDataMessage(ResourceNameEnum resourceName, byte[] payload, PayloadFormatEnum format)
 	{
-		if (data != null) {
-			_Logger.info("Handling Sensor Message: " + data.getName());
-			this.lastLocationID = data.getLocationID();
-
-			if (data.hasError()) { _Logger.warning("Error in Sensor Data"); }
-			
-			String jsonData = DataUtil.getInstance().sensorDataToJson(data);
-			_Logger.fine("Serialize sensor data: " + jsonData);
+		if (resourceName == null || payload == null) {
+			return false;
+		}
 
-			int qos = ConfigConst.DEFAULT_QOS;
-			if (this.persistenceClient != null) {
-				this.persistenceClient.storeData(resourceName.getResourceName(), 0, data);
-			}
+		IngestMessage msg = new IngestMessage(resourceName, payload, format);
 
-			handleIncomingMessage(resourceName, data);
+		if (this.enablePayloadScan && ! routeMessage(msg)) {
+			// dropped, which is still a successful delivery
+			return true;
+		}
 
-			if (this.cloudClient == null) {
-				return false;
-			}
+		if (this.ingestPipeline != null) {
+			return this.ingestPipeline.submitRawMessage(msg);
+		}
 
-			if (!this.cloudClient.sendEdgeDataToCloud(resourceName, data)) {
-				_Logger.severe("Failed to send data to CSP");
-				return false;
-			}
-			// handleUpstreamTransmission(resourceName, jsonData, qos);
+		return decodeMessage(msg) && dispatchIngestMessages(resourceName, Collections.singletonList(msg));
+	}
 
-			return true;
+	@Override
+	public boolean handleSensorMessage(ResourceNameEnum resourceName, SensorData data)
+	{
+		if (data != null) {
+			inspectMessage(resourceName, data);
+			return dispatchMessage(resourceName, data);
 		}
 		return false;
 	}
 
+	@Override
+	public boolean handleSensorMessages(ResourceNameEnum resourceName, List<SensorData> dataList)
+	{
+		return handleMessages(resourceName, dataList);
+	}
+
 	@Override
 	public boolean handleSystemPerformanceMessage(ResourceNameEnum resourceName, SystemPerformanceData data)
 	{
 		if (data != null) {
-			_Logger.info("Handling System Performance Message: " + data.getName());
-
-			if (data.hasError()) { 
-				_Logger.warning("Error flag in System Performance Data"); 
-			}
-
-			if (this.cloudClient == null) {
-				return false;
-			}
-
-			if (!this.cloudClient.sendEdgeDataToCloud(resourceName, data)) {
-				_Logger.severe("Failed to send data to CSP");
-				return false;
-			}
-			return true;
+			inspectMessage(resourceName, data);
+			return dispatchMessage(resourceName, data);
 		}
 		return false;
 	}
+
+	@Override
+	public boolean handleSystemPerformanceMessages(ResourceNameEnum resourceName, List<SystemPerformanceData> dataList)
+	{
+		return handleMessages(resourceName, dataList);
+	}
 	
 	public void setActuatorDataListener(String name, IActuatorDataListener listener)
 	{
@@ -372,6 +467,14 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 	{
 		_Logger.info("Starting DeviceDataManager...");
 
+		if (this.ingestPipeline != null) { this.ingestPipeline.startPipeline(); }
+		if (this.dispatchExecutor != null) { this.dispatchExecutor.start(); }
+		if (this.latencyTracker != null && this.latencyReportSecs > 0) {
+			this.latencyReportExecutor = Executors.newSingleThreadScheduledExecutor(
+				ThreadUtil.getInstance().createThreadFactory("latency-report-", false));
+			this.latencyReportExecutor.scheduleAtFixedRate(
+				this::publishLatencyReport, this.latencyReportSecs, this.latencyReportSecs, TimeUnit.SECONDS);
+		}
 		if (this.cloudClient != null) {
 			if (this.cloudClient.connectClient()) {
 				_Logger.info("Cloud client connected");
@@ -396,6 +499,8 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 				this.mqttClient.subscribeToTopic(ResourceNameEnum.CDA_ACTUATOR_RESPONSE_RESOURCE, qos);
 				this.mqttClient.subscribeToTopic(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, qos);
 				this.mqttClient.subscribeToTopic(ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE, qos);
+				
+				if (this.fleetSimulator != null) { this.fleetSimulator.startSimulator(); }
 			} else {
 				_Logger.severe("Failed to connect to MQTT broker.");
 			}
@@ -416,8 +521,12 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 	{
 		_Logger.info("Stopping DeviceDataManager...");
 
+		if (this.latencyReportExecutor != null) {
+			this.latencyReportExecutor.shutdownNow();
+			this.latencyReportExecutor = null;
+		}
 		if (this.systemPerfMgr != null) { this.systemPerfMgr.stopManager(); }
-		if (this.persistenceClient != null) { this.persistenceClient.disconnectClient(); }
+		if (this.fleetSimulator != null) { this.fleetSimulator.stopSimulator(); }
 		if (this.mqttClient != null) {
 			this.mqttClient.unsubscribeFromTopic(ResourceNameEnum.GDA_MGMT_STATUS_MSG_RESOURCE);
 			this.mqttClient.unsubscribeFromTopic(ResourceNameEnum.CDA_ACTUATOR_RESPONSE_RESOURCE);
@@ -437,6 +546,26 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 				_Logger.severe("Failed to stop CoAP server. Check log file for details.");
 			}
 		}
+		
+		// inbound connections are closed, so drain whatever is still
+		// queued before closing the outbound ones
+		if (this.ingestPipeline != null) { this.ingestPipeline.stopPipeline(); }
+		if (this.sensorDataPool != null) { _Logger.info("Decode pool: " + this.sensorDataPool.getMetricsSummary()); }
+		if (this.enablePayloadScan) {
+			_Logger.info("Payload scan: scanned=" + this.scannedMessageCount.get() + ",droppedDuplicates=" + this.droppedDuplicateCount.get());
+		}
+		if (this.actuatorDataPool != null) { _Logger.info("Decode pool: " + this.actuatorDataPool.getMetricsSummary()); }
+		if (this.dispatchExecutor != null) { this.dispatchExecutor.stop(); }
+		if (this.dispatchTaskExecutor != null) {
+			this.dispatchTaskExecutor.shutdown();
+
+			try {
+				this.dispatchTaskExecutor.awaitTermination(5L, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (this.persistenceClient != null) { this.persistenceClient.disconnectClient(); }
 		if (this.cloudClient != null) {
 			if (this.cloudClient.disconnectClient()) {
 				_Logger.info("Cloud client disconnected");
@@ -460,32 +589,542 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 	{
 	}
 
+	/**
+	 * Loads the configuration and creates the message dispatch components
+	 * (ingest pipeline, dispatch executor and latency tracker) shared by
+	 * all constructors.
+	 * 
+	 */
+	private void initManager()
+	{
+		this.gson = new Gson();
+	
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+		
+		this.enableMqttClient = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_MQTT_CLIENT_KEY);
+		this.enableCoapServer = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_COAP_SERVER_KEY);
+		this.enableCloudClient = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_CLOUD_CLIENT_KEY);		
+		this.enablePersistenceClient = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_PERSISTENCE_CLIENT_KEY);
+		this.enablePuetceClient = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_PUETCE_CLIENT_KEY);
+
+		this.enableSystemPerf = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_SYSTEM_PERF_KEY);
+		this.enableIngestPipeline = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_INGEST_PIPELINE_KEY);
+		this.enableOrderedDispatch = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_ORDERED_DISPATCH_KEY);
+		this.enableLatencyTracing = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_LATENCY_TRACING_KEY);
+		this.enablePayloadScan = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_PAYLOAD_SCAN_KEY);
+		this.latencyReportSecs = configUtil.getInteger(ConfigConst.GATEWAY_DEVICE, ConfigConst.LATENCY_REPORT_SECS_KEY, ConfigConst.DEFAULT_LATENCY_REPORT_SECS);
+		this.useLoopbackPubSub = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.USE_LOOPBACK_PUB_SUB_KEY);
+		this.mqttConnectionCount = configUtil.getInteger(
+			ConfigConst.MQTT_GATEWAY_SERVICE, ConfigConst.MQTT_CONNECTION_COUNT_KEY, ConfigConst.DEFAULT_MQTT_CONNECTION_COUNT);
+		this.enableFleetSimulator = configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_FLEET_SIMULATOR_KEY);
+
+		this.useVerboseToolExecutions = configUtil.getBoolean(ConfigConst.PUETCE_GATEWAY_SERVICE, ConfigConst.VERBOSE_TOOL_EXECUTIONS_KEY);
+
+		this.humidityMaxTimePastThreshold = configUtil.getInteger(ConfigConst.GATEWAY_DEVICE, ConfigConst.HUMID_MAX_TIME_PAST_THRESH_KEY, 300);
+		this.nominalHumiditySetting = configUtil.getFloat(ConfigConst.GATEWAY_DEVICE, ConfigConst.NOMINAL_HUMID_KEY, 40.0f);
+		this.triggerHumidifierFloor = configUtil.getFloat(ConfigConst.GATEWAY_DEVICE, ConfigConst.TRIGGER_HUMID_FLOOR_KEY, 30.0f);
+		this.triggerHumidifierCeiling = configUtil.getFloat(ConfigConst.GATEWAY_DEVICE, ConfigConst.TRIGGER_HUMID_CEIL_KEY, 50.0f);
+
+		// TODO validate the humidity/humidifier values
+
+		if (this.enableIngestPipeline) {
+			this.ingestPipeline = new DataIngestionPipeline(
+				this::decodeMessages, this::persistMessages, this::analyzeMessages, this::uplinkAndReleaseMessages);
+			_Logger.info("Ingest pipeline enabled");
+
+			if (configUtil.getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_POOLED_DECODE_KEY)) {
+				int poolSize = configUtil.getInteger(
+					ConfigConst.GATEWAY_DEVICE, ConfigConst.DECODE_POOL_SIZE_KEY, ConfigConst.DEFAULT_DECODE_POOL_SIZE);
+				boolean detectLeaks = configUtil.getBoolean(
+					ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_POOL_LEAK_DETECTION_KEY);
+
+				this.sensorDataPool = IotDataPool.createSensorDataPool(poolSize, detectLeaks);
+				this.actuatorDataPool = IotDataPool.createActuatorDataPool(poolSize, detectLeaks);
+				_Logger.info("Pooled decode enabled. Leak detection: " + detectLeaks);
+			}
+		} else if (this.enableOrderedDispatch) {
+			// the pipeline stages are already partitioned when it's enabled,
+			// so this is only needed for the non-pipelined path
+			this.dispatchExecutor = new PartitionedExecutor(
+				"dispatch",
+				configUtil.getInteger(ConfigConst.GATEWAY_DEVICE, ConfigConst.DISPATCH_LANES_KEY, ConfigConst.DEFAULT_DISPATCH_LANES),
+				configUtil.getInteger(ConfigConst.GATEWAY_DEVICE, ConfigConst.DISPATCH_QUEUE_SIZE_KEY, ConfigConst.DEFAULT_DISPATCH_QUEUE_SIZE),
+				configUtil.getInteger(ConfigConst.GATEWAY_DEVICE, ConfigConst.PIPELINE_SUBMIT_TIMEOUT_KEY, ConfigConst.DEFAULT_PIPELINE_SUBMIT_TIMEOUT));
+			_Logger.info("Ordered dispatch enabled");
+		} else if (ThreadUtil.getInstance().useVirtualThreads()) {
+			// no ordering required, so each message gets its own virtual thread
+			this.dispatchTaskExecutor = ThreadUtil.getInstance().createTaskExecutor("dispatch-task-");
+			_Logger.info("Virtual thread per message dispatch enabled");
+		}
+
+		if (this.enableLatencyTracing) {
+			this.latencyTracker = new LatencyTracker();
+			_Logger.info("Latency tracing enabled");
+		}
+	}
+
+	/**
+	 * Scans the raw payload for its routing properties, without decoding
+	 * it. The scanned location ID becomes the message's partition key, so
+	 * messages are spread across the decode lanes by device (rather than
+	 * all sharing their resource's lane), and stay in order per device.
+	 * <p>
+	 * A sensor message with the same name and time stamp (as set by the
+	 * sender, e.g. the CDA's ISO 8601 string, so not necessarily millis)
+	 * as the latest reading already handled for its location and type is a redelivery
+	 * (e.g. a QoS 1 duplicate), so it's dropped. A payload that can't be
+	 * scanned is passed on as is, so the decode reports the error.
+	 * 
+	 * @param msg The raw message.
+	 * @return boolean True if the message should be decoded; false if it's dropped.
+	 */
+	private boolean routeMessage(IngestMessage msg)
+	{
+		PayloadFieldScanner scanner = _PayloadScanner.get();
+
+		if (! scanner.scan(msg.getPayload(), msg.getPayloadFormat())) {
+			return true;
+		}
+
+		this.scannedMessageCount.incrementAndGet();
+
+		String locationID = scanner.getLocationID();
+
+		msg.setScannedLocationID(locationID);
+
+		if (msg.getResource() == ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE &&
+			locationID != null && scanner.hasTypeID() && scanner.hasTimeStamp()) {
+			SensorReading latest = this.sensorDataRegistry.getLatest(locationID, scanner.getTypeID());
+
+			if (latest != null &&
+				Objects.equals(latest.getSourceTimeStamp(), scanner.getTimeStamp()) &&
+				Objects.equals(latest.getName(), scanner.getName())) {
+				this.droppedDuplicateCount.incrementAndGet();
+
+				_Logger.fine("Dropped duplicate sensor message: " + locationID + ", " + scanner.getName());
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Inspects each item in the batch, then dispatches the batch as a whole.
+	 * Null items are skipped.
+	 * 
+	 * @param resource The resource the data was received on.
+	 * @param dataList The decoded data, in the order received.
+	 * @return boolean True on success; false otherwise.
+	 */
+	private boolean handleMessages(ResourceNameEnum resource, List<? extends BaseIotData> dataList)
+	{
+		if (dataList == null || dataList.isEmpty()) {
+			return false;
+		}
+
+		List<BaseIotData> batch = new ArrayList<>(dataList.size());
+
+		for (BaseIotData data : dataList) {
+			if (data != null) {
+				inspectMessage(resource, data);
+				batch.add(data);
+			}
+		}
+
+		return ! batch.isEmpty() && dispatchMessages(resource, batch) && batch.size() == dataList.size();
+	}
+
+	/**
+	 * Logs and validates a newly received message before it's dispatched.
+	 * 
+	 * @param resource The resource the data was received on.
+	 * @param data The decoded data.
+	 */
+	private void inspectMessage(ResourceNameEnum resource, BaseIotData data)
+	{
+		if (data instanceof SensorData) {
+			_EventLogger.infoSampled(
+				"ddm.sensor.received", resource, "resource", resource, "location", data.getLocationID(), "name", data.getName());
+			this.lastLocationID = data.getLocationID();
+			if (data.hasError()) { _Logger.warning("Error in Sensor Data"); }
+		} else if (data instanceof SystemPerformanceData) {
+			_EventLogger.infoSampled(
+				"ddm.sysperf.received", resource, "resource", resource, "location", data.getLocationID(), "name", data.getName());
+			if (data.hasError()) { _Logger.warning("Error flag in System Performance Data"); }
+		} else if (data instanceof ActuatorData) {
+			_EventLogger.infoSampled(
+				"ddm.actuator.received", resource, "resource", resource, "location", data.getLocationID(), "name", data.getName());
+			if (data.hasError()) { _Logger.warning("Error in Actuator Data"); }
+		}
+	}
+
+	/**
+	 * Hands the decoded data to the ingest pipeline's persist stage if the
+	 * pipeline is enabled. Otherwise, the persist, analyze and uplink steps
+	 * run on the lane for the data's location ID if ordered dispatch is
+	 * enabled, on a new virtual thread in virtual thread mode, or inline
+	 * on the calling thread.
+	 * 
+	 * @param resource The resource the data was received on.
+	 * @param data The decoded data.
+	 * @return boolean True on success; false otherwise.
+	 */
+	private boolean dispatchMessage(ResourceNameEnum resource, BaseIotData data)
+	{
+		return dispatchMessages(resource, Collections.singletonList(data));
+	}
+
+	/**
+	 * Batch version of {@link #dispatchMessage(ResourceNameEnum, BaseIotData)}.
+	 * With ordered dispatch, the batch is split by location ID and each
+	 * sub-batch is processed on its own lane.
+	 * 
+	 * @param resource The resource the data was received on.
+	 * @param dataList The decoded data, in the order received.
+	 * @return boolean True on success; false otherwise.
+	 */
+	private boolean dispatchMessages(ResourceNameEnum resource, List<? extends BaseIotData> dataList)
+	{
+		if (this.ingestPipeline != null) {
+			return this.ingestPipeline.submitDecodedMessages(resource, dataList);
+		}
+
+		List<IngestMessage> batch = new ArrayList<>(dataList.size());
+
+		for (BaseIotData data : dataList) {
+			batch.add(new IngestMessage(resource, data));
+		}
+
+		return dispatchIngestMessages(resource, batch);
+	}
+
+	/**
+	 * Runs the persist, analyze and uplink steps for already decoded
+	 * messages when the ingest pipeline is disabled, as described in
+	 * {@link #dispatchMessage(ResourceNameEnum, BaseIotData)}.
+	 * 
+	 * @param resource The resource the data was received on.
+	 * @param batch The decoded messages, in the order received.
+	 * @return boolean True on success; false otherwise.
+	 */
+	private boolean dispatchIngestMessages(ResourceNameEnum resource, List<IngestMessage> batch)
+	{
+		if (this.dispatchExecutor != null) {
+			Map<Object, List<IngestMessage>> batchesByKey = new LinkedHashMap<>();
+
+			for (IngestMessage msg : batch) {
+				batchesByKey.computeIfAbsent(msg.getPartitionKey(), (key) -> new ArrayList<>()).add(msg);
+			}
+
+			boolean success = true;
+
+			for (Map.Entry<Object, List<IngestMessage>> entry : batchesByKey.entrySet()) {
+				List<IngestMessage> keyBatch = entry.getValue();
+				success &= this.dispatchExecutor.execute(entry.getKey(), () -> processMessages(keyBatch));
+			}
+
+			return success;
+		}
+
+		if (this.dispatchTaskExecutor != null) {
+			try {
+				this.dispatchTaskExecutor.execute(() -> processMessages(batch));
+				return true;
+			} catch (RejectedExecutionException e) {
+				_Logger.warning("Dispatch executor is shut down. Dropping message(s): " + resource);
+				return false;
+			}
+		}
+
+		return processMessages(batch).size() == batch.size();
+	}
+
+	/**
+	 * Runs the persist, analyze and uplink steps for the batch, in order.
+	 * 
+	 * @param batch The decoded messages.
+	 * @return List The messages that made it through every step.
+	 */
+	private List<IngestMessage> processMessages(List<IngestMessage> batch)
+	{
+		return uplinkMessages(analyzeMessages(persistMessages(batch)));
+	}
+
+	/**
+	 * Decode stage handler for {@link DataIngestionPipeline}.
+	 * 
+	 * @param batch The messages to decode.
+	 * @return List The messages that were decoded successfully.
+	 */
+	private List<IngestMessage> decodeMessages(List<IngestMessage> batch)
+	{
+		List<IngestMessage> results = new ArrayList<>(batch.size());
+
+		for (IngestMessage msg : batch) {
+			if (decodeMessage(msg)) {
+				results.add(msg);
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Decodes a single message's payload and sets the decoded data on it.
+	 * 
+	 * @param msg The message to decode.
+	 * @return boolean True if decoded and the message should continue on; false otherwise.
+	 */
+	private boolean decodeMessage(IngestMessage msg)
+	{
+		DataUtil dataUtil = DataUtil.getInstance();
+		byte[] payload = msg.getPayload();
+		PayloadFormatEnum format = msg.getPayloadFormat();
+		BaseIotData data = null;
+		IotDataPool<?> dataPool = null;
+
+		try {
+			switch (msg.getResource()) {
+				case CDA_ACTUATOR_RESPONSE_RESOURCE:
+					if (this.actuatorDataPool != null) {
+						data = dataUtil.bytesToActuatorData(payload, format, this.actuatorDataPool);
+						dataPool = this.actuatorDataPool;
+					} else {
+						data = dataUtil.bytesToActuatorData(payload, format);
+					}
+					break;
+				case CDA_SENSOR_MSG_RESOURCE:
+					if (this.sensorDataPool != null) {
+						data = dataUtil.bytesToSensorData(payload, format, this.sensorDataPool);
+						dataPool = this.sensorDataPool;
+					} else {
+						data = dataUtil.bytesToSensorData(payload, format);
+					}
+					break;
+				case CDA_SYSTEM_PERF_MSG_RESOURCE:
+					data = dataUtil.bytesToSystemPerformanceData(payload, format);
+					break;
+				default:
+					_Logger.fine("No decoder for resource: " + msg.getResource());
+					return false;
+			}
+		} catch (Exception e) {
+			_Logger.warning("Invalid message payload on resource " + msg.getResource() + ": " + e);
+			return false;
+		}
+
+		if (data == null) {
+			return false;
+		}
+
+		msg.setData(data, dataPool);
+		inspectMessage(msg.getResource(), data);
+		traceMessage(msg, Stage.DECODED);
+
+		return true;
+	}
+
+	/**
+	 * Persist stage handler for {@link DataIngestionPipeline}. Messages are
+	 * grouped by resource and type, so each group is stored with one call.
+	 * Sensor data is grouped into a {@link SensorDataBatch} per resource,
+	 * so the persistence client can store it from the batch's columns.
+	 * 
+	 * @param batch The messages to persist.
+	 * @return List The messages that should continue on.
+	 */
+	private List<IngestMessage> persistMessages(List<IngestMessage> batch)
+	{
+		if (this.persistenceClient != null) {
+			Map<ResourceNameEnum, SensorDataBatch> sensorDataByResource = new LinkedHashMap<>();
+			Map<ResourceNameEnum, List<ActuatorData>> actuatorDataByResource = new LinkedHashMap<>();
+
+			for (IngestMessage msg : batch) {
+				BaseIotData data = msg.getData();
+
+				if (data instanceof SensorData) {
+					sensorDataByResource.computeIfAbsent(msg.getResource(), (key) -> new SensorDataBatch(batch.size())).add((SensorData) data);
+				} else if (data instanceof ActuatorData) {
+					actuatorDataByResource.computeIfAbsent(msg.getResource(), (key) -> new ArrayList<>()).add((ActuatorData) data);
+				}
+			}
+
+			sensorDataByResource.forEach((resource, dataBatch) ->
+				this.persistenceClient.storeData(resource.getResourceName(), 0, dataBatch));
+
+			actuatorDataByResource.forEach((resource, dataList) ->
+				this.persistenceClient.storeData(resource.getResourceName(), 0, dataList.toArray(new ActuatorData[0])));
+		}
+
+		traceMessages(batch, Stage.PERSISTED);
+
+		return batch;
+	}
+
+	/**
+	 * Analyze stage handler for {@link DataIngestionPipeline}.
+	 * 
+	 * @param batch The messages to analyze.
+	 * @return List The messages that should continue on.
+	 */
+	private List<IngestMessage> analyzeMessages(List<IngestMessage> batch)
+	{
+		for (IngestMessage msg : batch) {
+			if (msg.getData() instanceof SensorData) {
+				handleIncomingMessage(msg.getResource(), (SensorData) msg.getData());
+			}
+		}
+
+		traceMessages(batch, Stage.ANALYZED);
+
+		return batch;
+	}
+
+	/**
+	 * Uplink stage handler for {@link DataIngestionPipeline}. Messages are
+	 * grouped by resource and type, so each group is sent with one call.
+	 * This is the last stage, so the returned messages are only used to
+	 * indicate success.
+	 * 
+	 * @param batch The messages to send to the cloud.
+	 * @return List The messages that were handled successfully.
+	 */
+	private List<IngestMessage> uplinkMessages(List<IngestMessage> batch)
+	{
+		List<IngestMessage> results = new ArrayList<>(batch.size());
+
+		Map<ResourceNameEnum, List<IngestMessage>> sensorMsgsByResource = new LinkedHashMap<>();
+		Map<ResourceNameEnum, List<IngestMessage>> sysPerfMsgsByResource = new LinkedHashMap<>();
+
+		for (IngestMessage msg : batch) {
+			BaseIotData data = msg.getData();
+
+			if (data instanceof ActuatorData) {
+				// actuator responses are only persisted
+				results.add(msg);
+			} else if (data instanceof SensorData) {
+				sensorMsgsByResource.computeIfAbsent(msg.getResource(), (key) -> new ArrayList<>()).add(msg);
+			} else if (data instanceof SystemPerformanceData) {
+				sysPerfMsgsByResource.computeIfAbsent(msg.getResource(), (key) -> new ArrayList<>()).add(msg);
+			}
+		}
+
+		if (this.cloudClient == null) {
+			traceMessages(results, Stage.UPLINKED);
+			return results;
+		}
+
+		for (Map.Entry<ResourceNameEnum, List<IngestMessage>> entry : sensorMsgsByResource.entrySet()) {
+			// columnar, so the upload doesn't need per-reading objects
+			SensorDataBatch dataBatch = new SensorDataBatch(entry.getValue().size());
+			entry.getValue().forEach((msg) -> dataBatch.add((SensorData) msg.getData()));
+
+			if (this.cloudClient.sendSensorDataToCloud(entry.getKey(), dataBatch)) {
+				results.addAll(entry.getValue());
+			} else {
+				_Logger.severe("Failed to send data to CSP");
+			}
+		}
+
+		for (Map.Entry<ResourceNameEnum, List<IngestMessage>> entry : sysPerfMsgsByResource.entrySet()) {
+			List<SystemPerformanceData> dataList = new ArrayList<>(entry.getValue().size());
+			entry.getValue().forEach((msg) -> dataList.add((SystemPerformanceData) msg.getData()));
+
+			if (this.cloudClient.sendSystemPerformanceDataToCloud(entry.getKey(), dataList)) {
+				results.addAll(entry.getValue());
+			} else {
+				_Logger.severe("Failed to send data to CSP");
+			}
+		}
+
+		traceMessages(results, Stage.UPLINKED);
+
+		return results;
+	}
+
+	/**
+	 * Last stage handler for {@link DataIngestionPipeline}: uplinks the
+	 * batch, then returns any pooled data (see {@link #decodeMessage(IngestMessage)})
+	 * to its pool, whether or not it was sent. Nothing downstream keeps a
+	 * reference to the data; e.g. the sensor data registry keeps a copy.
+	 * 
+	 * @param batch The messages to send to the cloud.
+	 * @return List The messages that were handled successfully.
+	 */
+	private List<IngestMessage> uplinkAndReleaseMessages(List<IngestMessage> batch)
+	{
+		try {
+			return uplinkMessages(batch);
+		} finally {
+			for (IngestMessage msg : batch) {
+				msg.releaseData();
+			}
+		}
+	}
+
+	/**
+	 * Records the time the message took to reach the stage, if latency
+	 * tracing is enabled.
+	 * 
+	 * @param msg The message.
+	 * @param stage The stage the message has just completed.
+	 */
+	private void traceMessage(IngestMessage msg, Stage stage)
+	{
+		if (this.latencyTracker != null) {
+			this.latencyTracker.record(msg, stage);
+		}
+	}
+
+	private void traceMessages(List<IngestMessage> batch, Stage stage)
+	{
+		if (this.latencyTracker != null) {
+			for (IngestMessage msg : batch) {
+				this.latencyTracker.record(msg, stage);
+			}
+		}
+	}
+
+	/**
+	 * Publishes the latency percentiles for the last interval on the GDA
+	 * management status topic, or logs them if MQTT isn't enabled.
+	 * 
+	 */
+	private void publishLatencyReport()
+	{
+		try {
+			String report = this.latencyTracker.getSummaryJsonAndReset();
+
+			if (this.mqttClient != null) {
+				this.mqttClient.publishMessage(
+					ResourceNameEnum.GDA_MGMT_STATUS_MSG_RESOURCE, report, ConfigConst.DEFAULT_QOS);
+			} else {
+				_Logger.info("Latency report: " + report);
+			}
+		} catch (Exception e) {
+			// an exception would cancel the scheduled task
+			_Logger.warning("Failed to publish latency report: " + e);
+		}
+	}
+
 	private void handleIncomingMessage(ResourceNameEnum resource, SensorData data) {
 		switch (data.getTypeID()) {
 		case ConfigConst.TEMP_SENSOR_TYPE:
-			if (this.latestTemperatureSensorData==null) {
-				this.latestTemperatureSensorData = new SensorData();
-			}
-			this.latestTemperatureSensorData.updateData(data);
+		case ConfigConst.PRESSURE_SENSOR_TYPE:
+			this.sensorDataRegistry.update(data);
 			break;
 		case ConfigConst.HUMIDITY_SENSOR_TYPE:
-			if (this.latestHumiditySensorData==null) {
-				this.latestHumiditySensorData = new SensorData();
-			}
-			this.latestHumiditySensorData.updateData(data);
+			this.sensorDataRegistry.update(data);
 			handleHumiditySensorAnalysis(resource, data);
 			break;
-		case ConfigConst.PRESSURE_SENSOR_TYPE:
-			if (this.latestPressureSensorData==null) {
-				this.latestPressureSensorData = new SensorData();
-			}
-			this.latestPressureSensorData.updateData(data);
-			break;
 		case ConfigConst.SPEECH_SENSOR_TYPE:
 			handleSpeechSensorAnalysis(resource, data);
 			break;
 		default:
-			_Logger.fine("Sensor type '" + data.getName() + "' is not handled on this device");
+			this.sensorDataRegistry.update(data);
+			_Logger.fine("Sensor type '" + data.getName() + "' is not analyzed on this device");
 			break;
 		}
 	}
@@ -514,6 +1153,10 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 		// TODO were bypassing this because it is breaking something...
 		if (true) {return;}
 
+		// only ever touched from the lane for this location ID
+		HumidityAnalysisState state =
+			this.humidityAnalysisStates.computeIfAbsent(data.getLocationID(), (key) -> new HumidityAnalysisState());
+
 		boolean isLow  = data.getValue() < this.triggerHumidifierFloor;
 		boolean isHigh = data.getValue() > this.triggerHumidifierCeiling;
 
@@ -524,12 +1167,13 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 
 			_Logger.info("Humidity data from CDA exceeds nominal range.");
 			
-			if (this.prevLatestHumiditySensorData == null) {
+			if (state.prevHumiditySensorReading == null) {
 
 				// set properties then exit
 				// wait for a second sample
-				this.prevLatestHumiditySensorData = data;
-				this.latestHumiditySensorTimeStamp = getDateTimeFromData(data);
+				// a copy, as the data may be pooled
+				state.prevHumiditySensorReading = SensorReading.fromSensorData(data);
+				state.humiditySensorTimeStamp = getDateTimeFromData(data);
 				
 				_Logger.info(
 					"Starting humidity nominal exception timer. Waiting for seconds: " +
@@ -542,7 +1186,7 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 
 				OffsetDateTime curHumiditySensorTimeStamp = getDateTimeFromData(data);
 				long diffSeconds = ChronoUnit.SECONDS.between(
-					this.latestHumiditySensorTimeStamp, 
+					state.humiditySensorTimeStamp, 
 					curHumiditySensorTimeStamp
 				);
 				
@@ -567,37 +1211,37 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 						ad
 					);
 					
-					this.lastKnownHumidifierCommand = ad.getCommand();
+					state.lastKnownHumidifierCommand = ad.getCommand();
 					sendActuatorCommandtoCda(ResourceNameEnum.CDA_ACTUATOR_CMD_RESOURCE, ad);
 					
 					// set ActuatorData and reset SensorData (and timestamp)
-					this.latestHumidifierActuatorData = ad;
-					this.prevLatestHumiditySensorData = null;
-					this.latestHumiditySensorTimeStamp = null;
+					state.humidifierActuatorData = ad;
+					state.prevHumiditySensorReading = null;
+					state.humiditySensorTimeStamp = null;
 
 				}
 			}
 
-		} else if (this.lastKnownHumidifierCommand == ConfigConst.ON_COMMAND) {
+		} else if (state.lastKnownHumidifierCommand == ConfigConst.ON_COMMAND) {
 
-			if (this.latestHumidifierActuatorData != null) {
+			if (state.humidifierActuatorData != null) {
 
-				if (this.latestHumidifierActuatorData.getValue() >= this.nominalHumiditySetting) {
+				if (state.humidifierActuatorData.getValue() >= this.nominalHumiditySetting) {
 
-					this.latestHumidifierActuatorData.setCommand(ConfigConst.OFF_COMMAND);
+					state.humidifierActuatorData.setCommand(ConfigConst.OFF_COMMAND);
 					
 					_Logger.info(
 						"Humidity nominal value reached. Sending OFF actuation event to CDA: " +
-						this.latestHumidifierActuatorData);
+						state.humidifierActuatorData);
 					
 					sendActuatorCommandtoCda(
-						ResourceNameEnum.CDA_ACTUATOR_CMD_RESOURCE, this.latestHumidifierActuatorData);
+						ResourceNameEnum.CDA_ACTUATOR_CMD_RESOURCE, state.humidifierActuatorData);
 					
 					// reset ActuatorData and SensorData (and timestamp)
-					this.lastKnownHumidifierCommand = this.latestHumidifierActuatorData.getCommand();
-					this.latestHumidifierActuatorData = null;
-					this.prevLatestHumiditySensorData = null;
-					this.latestHumiditySensorTimeStamp = null;
+					state.lastKnownHumidifierCommand = state.humidifierActuatorData.getCommand();
+					state.humidifierActuatorData = null;
+					state.prevHumiditySensorReading = null;
+					state.humiditySensorTimeStamp = null;
 
 				} else {
 
@@ -608,7 +1252,7 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 			} else {
 
 				// shouldn't happen, unless some other logic
-				// nullifies the class-scoped ActuatorData instance
+				// nullifies the per-location ActuatorData instance
 				_Logger.warning("ERROR: ActuatorData for humidifier is null (shouldn't be). Can't send command.");
 
 			}
@@ -629,10 +1273,11 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 		// NOTE: This is how an ActuatorData command will get passed to the CDA
 		// when using MQTT to communicate between the GDA and CDA
 		if (this.enableMqttClient && this.mqttClient != null) {
-			String jsonData = DataUtil.getInstance().actuatorDataToJson(data);
+			PayloadFormatEnum format = DataUtil.getInstance().getPayloadFormat(resource);
+			byte[] payload = DataUtil.getInstance().iotDataToBytes(data, format);
 			_Logger.info("sending to cda (inside fcn now)");
 			
-			if (this.mqttClient.publishMessage(resource, jsonData, ConfigConst.DEFAULT_QOS)) {
+			if (this.mqttClient.publishMessage(resource, payload, format, ConfigConst.DEFAULT_QOS)) {
 				_Logger.info(
 					"Published ActuatorData command from GDA to CDA: " + data.getCommand());
 			} else {
@@ -662,7 +1307,7 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 
 	private boolean handleCloudActuatorCommand(ResourceNameEnum resource, String msg) {
 		ActuatorData data = DataUtil.getInstance().jsonToActuatorData(msg);
-		String json = DataUtil.getInstance().actuatorDataToJson(data);
+		byte[] json = DataUtil.getInstance().actuatorDataToJsonBytes(data);
 
 		int qos = ConfigUtil.getInstance().getInteger(
 			ConfigConst.MQTT_GATEWAY_SERVICE, 
@@ -688,7 +1333,7 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 		// validation (this should always be an ASSISTANT message)
 
 		if (message.role != AnthropicRole.ASSISTANT) {
-			_Logger.severe("Invalid response role: expected 'assitant', found '" + message.role.toString() + "'");
+			_Logger.severe("Invalid response role: expected 'assitant', found '" + message.role + "'");
 			return;
 		}
 		this.conversation.add(message); // TODO hide tool use and tool results
@@ -832,13 +1477,21 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 		}
 	}
 
+	public LatestSensorDataRegistry getSensorDataRegistry()
+	{
+		return this.sensorDataRegistry;
+	}
+
 	// TODO change to private
 	public String generateEnvironmentPrompt() {
+		return generateEnvironmentPrompt(this.lastMessageLocationID);
+	}
+
+	public String generateEnvironmentPrompt(String locationID) {
 		Instant now = Instant.now();
 
-		Duration tempOffset = Duration.between(now, Instant.parse(this.latestTemperatureSensorData.getTimeStamp()));
-		Duration humiOffset = Duration.between(now, Instant.parse(this.latestHumiditySensorData.getTimeStamp()));
-		Duration presOffset = Duration.between(now, Instant.parse(this.latestPressureSensorData.getTimeStamp()));
+		// a single snapshot, so all readings are from the same point in time
+		LatestSensorDataRegistry.Snapshot snapshot = this.sensorDataRegistry.getSnapshot(locationID);
 
 		String prompt = 
 			"{{ENVIRONMENTAL INFORMATION}}\n" + //
@@ -848,12 +1501,12 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 			"located on the board next to the CPU.)\n\nHere are the latest " + // 
 			"readings with their timestamps:" + //
 			
-			"\n\tTEMPERATURE (DEGREES CELSIUS) = " + this.latestTemperatureSensorData.getValue() + //
-			" (taken " + tempOffset.toMinutes() + " minutes ago)" + //
-			"\n\tRELATIVE HUMIDITY (PERCENT) = " + this.latestHumiditySensorData.getValue() + //
-			" (taken " + humiOffset.toMinutes() + " minutes ago)" + //
-			"\n\tPRESSURE (MILLIBARS) = " + this.latestPressureSensorData.getValue() + //
-			" (taken " + presOffset.toMinutes() + " minutes ago)" + //
+			"\n\tTEMPERATURE (DEGREES CELSIUS) = " + //
+			formatReading(snapshot.getReading(ConfigConst.TEMP_SENSOR_TYPE), now) + //
+			"\n\tRELATIVE HUMIDITY (PERCENT) = " + //
+			formatReading(snapshot.getReading(ConfigConst.HUMIDITY_SENSOR_TYPE), now) + //
+			"\n\tPRESSURE (MILLIBARS) = " + //
+			formatReading(snapshot.getReading(ConfigConst.PRESSURE_SENSOR_TYPE), now) + //
 			
 			"\n\nNOTE: The sensor data may be outdated; make sure to compare the " + //
 			"readings' timestamps to the provided time (below) before reporting/taking " + //
@@ -866,8 +1519,31 @@ public class DeviceDataManager extends JedisPubSub implements IDataMessageListen
 			"\n\nYou may use these readings to answer the user's queries if " + //
 			"the information is relevant.";
 
-		_Logger.info(prompt);
+		_EventLogger.info("ddm.prompt.generated", "location", locationID, "chars", prompt.length());
+		_EventLogger.fine("ddm.prompt", "prompt", prompt);
 		
 		return prompt;
 	}
+
+	private String formatReading(SensorReading reading, Instant now) {
+		if (reading == null) {
+			return "UNAVAILABLE (no reading received yet)";
+		}
+
+		Duration offset = Duration.between(Instant.ofEpochMilli(reading.getTimeStampMillis()), now);
+
+		return reading.getValue() + " (taken " + offset.toMinutes() + " minutes ago)";
+	}
+
+	/**
+	 * Humidity analysis state for a single CDA (location ID).
+	 * 
+	 */
+	private static class HumidityAnalysisState
+	{
+		private ActuatorData   humidifierActuatorData = null;
+		private SensorReading  prevHumiditySensorReading = null;
+		private OffsetDateTime humiditySensorTimeStamp = null;
+		private int            lastKnownHumidifierCommand = ConfigConst.OFF_COMMAND;
+	}
 }
@@ -73,16 +73,18 @@ public class GatewayDeviceApp
 			handler.setLevel(level);
 		}
 
-		boolean runForever =
-			ConfigUtil.getInstance().getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_RUN_FOREVER_KEY);
-		_Logger.info("Run forever: " + runForever);
-
 		Map<String, String> argMap = parseArgs(args);
 
+		// the config file must be set before ConfigUtil is first used,
+		// as it's only loaded once
 		if (argMap.containsKey(ConfigConst.CONFIG_FILE_KEY)) {
 			System.setProperty(ConfigConst.CONFIG_FILE_KEY, argMap.get(ConfigConst.CONFIG_FILE_KEY));
 		}
 
+		boolean runForever =
+			ConfigUtil.getInstance().getBoolean(ConfigConst.GATEWAY_DEVICE, ConfigConst.ENABLE_RUN_FOREVER_KEY);
+		_Logger.info("Run forever: " + runForever);
+
 		GatewayDeviceApp gwApp = new GatewayDeviceApp();
 		
 		gwApp.startApp();
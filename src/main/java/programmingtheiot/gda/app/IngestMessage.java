@@ -0,0 +1,254 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.app;
+
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.BaseIotData;
+import programmingtheiot.data.IotDataPool;
+
+/**
+ * Envelope passed between the stages of {@link DataIngestionPipeline}.
+ * It carries the source resource, the raw payload and its format (if the
+ * message entered the pipeline undecoded), the decoded IoT data and the time
+ * (from {@link System#nanoTime()}) at which the message reached each
+ * {@link Stage}, for latency tracing.
+ *
+ */
+public class IngestMessage
+{
+	// static
+
+	/**
+	 * The points along the ingest path at which a message is time stamped.
+	 *
+	 */
+	public enum Stage
+	{
+		ARRIVED("arrival"),
+		DECODED("decode"),
+		PERSISTED("persist"),
+		ANALYZED("analyze"),
+		UPLINKED("uplink");
+
+		private final String label;
+
+		private Stage(String label)
+		{
+			this.label = label;
+		}
+
+		public String getLabel()
+		{
+			return this.label;
+		}
+	}
+
+	private static final Stage[] _Stages = Stage.values();
+
+	// private var's
+
+	private ResourceNameEnum resource = null;
+	private byte[] payload = null;
+	private PayloadFormatEnum format = PayloadFormatEnum.JSON;
+	private BaseIotData data = null;
+	private IotDataPool<?> dataPool = null;
+	private String scannedLocationID = null;
+
+	private final long[] stageNanos = new long[_Stages.length];
+	private Stage lastStage = Stage.ARRIVED;
+
+	// constructors
+
+	/**
+	 * Constructor for a message that still needs to be decoded. The
+	 * message is stamped as {@link Stage#ARRIVED} on creation.
+	 *
+	 * @param resource The resource the payload was received on.
+	 * @param payload The raw JSON payload.
+	 */
+	public IngestMessage(ResourceNameEnum resource, byte[] payload)
+	{
+		this(resource, payload, PayloadFormatEnum.JSON);
+	}
+
+	/**
+	 * Constructor for a message that still needs to be decoded. The
+	 * message is stamped as {@link Stage#ARRIVED} on creation.
+	 *
+	 * @param resource The resource the payload was received on.
+	 * @param payload The raw payload.
+	 * @param format The payload format (JSON if null).
+	 */
+	public IngestMessage(ResourceNameEnum resource, byte[] payload, PayloadFormatEnum format)
+	{
+		super();
+
+		this.resource = resource;
+		this.payload = payload;
+		this.format = (format != null ? format : PayloadFormatEnum.JSON);
+		this.stageNanos[Stage.ARRIVED.ordinal()] = System.nanoTime();
+	}
+
+	/**
+	 * Constructor for a message that has already been decoded. The
+	 * message is stamped as {@link Stage#ARRIVED} on creation.
+	 *
+	 * @param resource The resource the data was received on.
+	 * @param data The decoded data.
+	 */
+	public IngestMessage(ResourceNameEnum resource, BaseIotData data)
+	{
+		super();
+
+		this.resource = resource;
+		this.data = data;
+		this.stageNanos[Stage.ARRIVED.ordinal()] = System.nanoTime();
+	}
+
+
+	// public methods
+
+	public ResourceNameEnum getResource()
+	{
+		return this.resource;
+	}
+
+	public byte[] getPayload()
+	{
+		return this.payload;
+	}
+
+	public PayloadFormatEnum getPayloadFormat()
+	{
+		return this.format;
+	}
+
+	public BaseIotData getData()
+	{
+		return this.data;
+	}
+
+	/**
+	 * Returns the key used to assign this message to an ordered lane.
+	 * Once decoded, this is the location ID of the sending device, so
+	 * messages from one device are handled in order. Before decoding,
+	 * the location ID scanned from the payload is used, if there is one
+	 * (see {@link #setScannedLocationID(String)}), which an ordered
+	 * {@link DataIngestionPipeline} scans for if it isn't set. Only a
+	 * payload without one (or that can't be scanned, so won't decode
+	 * either) is keyed by its resource instead.
+	 *
+	 * @return Object The partition key.
+	 */
+	public Object getPartitionKey()
+	{
+		if (this.data != null && this.data.getLocationID() != null) {
+			return this.data.getLocationID();
+		}
+
+		if (this.scannedLocationID != null) {
+			return this.scannedLocationID;
+		}
+
+		return this.resource;
+	}
+
+	public String getScannedLocationID()
+	{
+		return this.scannedLocationID;
+	}
+
+	/**
+	 * Returns the time the message reached the stage.
+	 *
+	 * @param stage The stage.
+	 * @return long The {@link System#nanoTime()} value, or 0 if the
+	 * message hasn't reached the stage.
+	 */
+	public long getStageNanos(Stage stage)
+	{
+		return this.stageNanos[stage.ordinal()];
+	}
+
+	/**
+	 * Stamps the message with the time it reached the stage.
+	 *
+	 * @param stage The stage.
+	 * @param nanos The current {@link System#nanoTime()} value.
+	 * @return long The time since the message reached the previously
+	 * stamped stage, in nanoseconds.
+	 */
+	public long markStage(Stage stage, long nanos)
+	{
+		long elapsedNanos = nanos - this.stageNanos[this.lastStage.ordinal()];
+
+		this.stageNanos[stage.ordinal()] = nanos;
+		this.lastStage = stage;
+
+		return elapsedNanos;
+	}
+
+	/**
+	 * Sets the location ID scanned from the raw payload, before it's
+	 * decoded (see {@link programmingtheiot.data.PayloadFieldScanner}),
+	 * so the message is assigned to its device's lane from the start.
+	 *
+	 * @param locationID The scanned location ID, or null if there isn't one.
+	 */
+	public void setScannedLocationID(String locationID)
+	{
+		this.scannedLocationID = locationID;
+	}
+
+	/**
+	 * Sets the decoded data and releases the raw payload, which is no
+	 * longer needed by any of the downstream stages.
+	 *
+	 * @param data The decoded data.
+	 */
+	public void setData(BaseIotData data)
+	{
+		setData(data, null);
+	}
+
+	/**
+	 * Sets the decoded data, acquired from the given pool, and releases
+	 * the raw payload. The data is returned to the pool by
+	 * {@link #releaseData()}.
+	 *
+	 * @param data The decoded data.
+	 * @param dataPool The pool the data was acquired from, or null if it isn't pooled.
+	 */
+	public void setData(BaseIotData data, IotDataPool<?> dataPool)
+	{
+		this.data = data;
+		this.dataPool = dataPool;
+		this.payload = null;
+	}
+
+	/**
+	 * Returns pooled data to its pool, once the message has been handled.
+	 * The data is cleared, so it can't be used after it's released. If
+	 * the data isn't pooled, this does nothing.
+	 *
+	 */
+	public void releaseData()
+	{
+		if (this.dataPool != null) {
+			this.dataPool.release(this.data);
+			this.dataPool = null;
+			this.data = null;
+		}
+	}
+
+}
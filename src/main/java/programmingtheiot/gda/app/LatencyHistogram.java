@@ -0,0 +1,209 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.app;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed memory, lock-free latency histogram with microsecond values.
+ * <p>
+ * Values below 8 us get a bucket each. Above that, each power of two is
+ * split into 8 linear sub-buckets, so a reported percentile is at most
+ * 12.5% above the real value. Values are capped at 2^33 us (about 2.4
+ * hours), which gives 248 buckets regardless of how many values are
+ * recorded.
+ *
+ */
+public class LatencyHistogram
+{
+	// static
+
+	private static final int SUB_BUCKET_BITS  = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT     = 32;
+
+	public static final long MAX_VALUE_MICROS = (1L << (MAX_EXPONENT + 1)) - 1;
+	public static final int  BUCKET_COUNT     = SUB_BUCKET_COUNT * (MAX_EXPONENT - SUB_BUCKET_BITS + 2);
+
+	// private var's
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder totalMicros = new LongAdder();
+	private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0L);
+
+	// constructors
+
+	public LatencyHistogram()
+	{
+		super();
+	}
+
+
+	// public methods
+
+	/**
+	 * Records a latency value.
+	 *
+	 * @param valueMicros The latency, in microseconds. Negative values
+	 * are recorded as 0.
+	 */
+	public void record(long valueMicros)
+	{
+		long value = Math.min(Math.max(valueMicros, 0L), MAX_VALUE_MICROS);
+
+		this.buckets.incrementAndGet(getBucketIndex(value));
+		this.totalMicros.add(value);
+		this.maxMicros.accumulate(value);
+	}
+
+	/**
+	 * Returns a summary of everything recorded since the last call, then
+	 * starts a new interval. Values recorded while this runs may land in
+	 * either interval.
+	 *
+	 * @return Summary
+	 */
+	public Summary getSummaryAndReset()
+	{
+		long[] counts = new long[BUCKET_COUNT];
+		long count = 0L;
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = this.buckets.getAndSet(i, 0L);
+			count += counts[i];
+		}
+
+		long total = this.totalMicros.sumThenReset();
+		long max = this.maxMicros.getThenReset();
+
+		return new Summary(
+			count,
+			(count > 0 ? total / count : 0L),
+			getPercentile(counts, count, max, 50.0),
+			getPercentile(counts, count, max, 90.0),
+			getPercentile(counts, count, max, 99.0),
+			max);
+	}
+
+
+	// private methods
+
+	private static int getBucketIndex(long value)
+	{
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+
+		return SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	private static long getBucketUpperBound(int index)
+	{
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+
+		int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+		int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+
+		return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+	}
+
+	private static long getPercentile(long[] counts, long count, long max, double percentile)
+	{
+		if (count == 0L) {
+			return 0L;
+		}
+
+		long target = Math.max(1L, (long) Math.ceil(count * percentile / 100.0));
+		long cumulative = 0L;
+
+		for (int i = 0; i < counts.length; i++) {
+			cumulative += counts[i];
+
+			if (cumulative >= target) {
+				return Math.min(getBucketUpperBound(i), max);
+			}
+		}
+
+		return max;
+	}
+
+
+	/**
+	 * Percentile summary for one interval, in microseconds.
+	 *
+	 */
+	public static final class Summary
+	{
+		private final long count;
+		private final long meanMicros;
+		private final long p50Micros;
+		private final long p90Micros;
+		private final long p99Micros;
+		private final long maxMicros;
+
+		private Summary(long count, long meanMicros, long p50Micros, long p90Micros, long p99Micros, long maxMicros)
+		{
+			this.count = count;
+			this.meanMicros = meanMicros;
+			this.p50Micros = p50Micros;
+			this.p90Micros = p90Micros;
+			this.p99Micros = p99Micros;
+			this.maxMicros = maxMicros;
+		}
+
+		public long getCount()
+		{
+			return this.count;
+		}
+
+		public long getMeanMicros()
+		{
+			return this.meanMicros;
+		}
+
+		public long getP50Micros()
+		{
+			return this.p50Micros;
+		}
+
+		public long getP90Micros()
+		{
+			return this.p90Micros;
+		}
+
+		public long getP99Micros()
+		{
+			return this.p99Micros;
+		}
+
+		public long getMaxMicros()
+		{
+			return this.maxMicros;
+		}
+
+		@Override
+		public String toString()
+		{
+			return
+				"count=" + this.count + ",mean=" + this.meanMicros + ",p50=" + this.p50Micros +
+				",p90=" + this.p90Micros + ",p99=" + this.p99Micros + ",max=" + this.maxMicros;
+		}
+	}
+
+}
@@ -0,0 +1,159 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.app;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.google.gson.JsonObject;
+
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.gda.app.IngestMessage.Stage;
+
+/**
+ * Per-stage, per-resource latency histograms for the ingest path.
+ * <p>
+ * Each time a message is stamped with a {@link Stage}, the time since
+ * its previous stage is recorded in that stage's histogram for the
+ * message's resource. When a message is uplinked, the time since it
+ * arrived is also recorded as the 'total' latency. Since stage times
+ * include the time spent queued for the stage, the stage latencies of a
+ * message add up to its total latency.
+ * <p>
+ * Histograms are created up front for every resource and stage, so
+ * memory use is fixed and recording never allocates or locks.
+ *
+ */
+public class LatencyTracker
+{
+	// static
+
+	public static final String TOTAL_LABEL = "total";
+
+	private static final Stage[] _Stages = Stage.values();
+
+	// private var's
+
+	private final Map<ResourceNameEnum, LatencyHistogram[]> histograms = new EnumMap<>(ResourceNameEnum.class);
+	private final int totalIndex = _Stages.length;
+
+	private long intervalStartMillis = System.currentTimeMillis();
+
+	// constructors
+
+	public LatencyTracker()
+	{
+		super();
+
+		// index 0 (ARRIVED) is unused; the extra slot holds the total
+		for (ResourceNameEnum resource : ResourceNameEnum.values()) {
+			LatencyHistogram[] resourceHistograms = new LatencyHistogram[_Stages.length + 1];
+
+			for (int i = 1; i < resourceHistograms.length; i++) {
+				resourceHistograms[i] = new LatencyHistogram();
+			}
+
+			this.histograms.put(resource, resourceHistograms);
+		}
+	}
+
+
+	// public methods
+
+	/**
+	 * Stamps the message with the stage and records the time since its
+	 * previous stage.
+	 *
+	 * @param msg The message.
+	 * @param stage The stage the message has just completed.
+	 */
+	public void record(IngestMessage msg, Stage stage)
+	{
+		if (stage == Stage.ARRIVED || msg.getResource() == null) {
+			return;
+		}
+
+		LatencyHistogram[] resourceHistograms = this.histograms.get(msg.getResource());
+
+		long nanos = System.nanoTime();
+
+		resourceHistograms[stage.ordinal()].record(msg.markStage(stage, nanos) / 1000L);
+
+		if (stage == Stage.UPLINKED) {
+			resourceHistograms[this.totalIndex].record((nanos - msg.getStageNanos(Stage.ARRIVED)) / 1000L);
+		}
+	}
+
+	/**
+	 * Returns a JSON summary of the latency percentiles (in microseconds)
+	 * recorded since the last call, then starts a new interval. Only
+	 * resources and stages with at least one recorded value are included.
+	 * <p>
+	 * Format:
+	 * {"type":"latency","intervalStart":...,"intervalEnd":...,"resources":
+	 * {"&lt;resource&gt;":{"&lt;stage&gt;":{"count":...,"mean":...,
+	 * "p50":...,"p90":...,"p99":...,"max":...}}}}
+	 *
+	 * @return String
+	 */
+	public synchronized String getSummaryJsonAndReset()
+	{
+		long intervalEndMillis = System.currentTimeMillis();
+
+		JsonObject resourcesJson = new JsonObject();
+
+		for (Map.Entry<ResourceNameEnum, LatencyHistogram[]> entry : this.histograms.entrySet()) {
+			LatencyHistogram[] resourceHistograms = entry.getValue();
+			JsonObject stagesJson = new JsonObject();
+
+			for (int i = 1; i < resourceHistograms.length; i++) {
+				LatencyHistogram.Summary summary = resourceHistograms[i].getSummaryAndReset();
+
+				if (summary.getCount() > 0) {
+					String label = (i == this.totalIndex ? TOTAL_LABEL : _Stages[i].getLabel());
+					stagesJson.add(label, toJson(summary));
+				}
+			}
+
+			if (stagesJson.size() > 0) {
+				resourcesJson.add(entry.getKey().getResourceName(), stagesJson);
+			}
+		}
+
+		JsonObject json = new JsonObject();
+		json.addProperty("type", "latency");
+		json.addProperty("intervalStart", this.intervalStartMillis);
+		json.addProperty("intervalEnd", intervalEndMillis);
+		json.add("resources", resourcesJson);
+
+		this.intervalStartMillis = intervalEndMillis;
+
+		return json.toString();
+	}
+
+
+	// private methods
+
+	private JsonObject toJson(LatencyHistogram.Summary summary)
+	{
+		JsonObject json = new JsonObject();
+		json.addProperty("count", summary.getCount());
+		json.addProperty("mean", summary.getMeanMicros());
+		json.addProperty("p50", summary.getP50Micros());
+		json.addProperty("p90", summary.getP90Micros());
+		json.addProperty("p99", summary.getP99Micros());
+		json.addProperty("max", summary.getMaxMicros());
+
+		return json;
+	}
+
+}
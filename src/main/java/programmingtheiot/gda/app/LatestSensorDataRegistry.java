@@ -0,0 +1,205 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.app;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SensorReading;
+
+/**
+ * Lock-free registry of the latest sensor reading per (location ID, type ID).
+ * <p>
+ * Each location maps to an {@link AtomicReference} holding an immutable
+ * {@link Snapshot} of all of that location's latest readings. Updates
+ * build a copy of the snapshot with the new reading and publish it with
+ * a compare-and-set, retrying if another thread won the race. Readers
+ * never block and always see a consistent set of readings for a
+ * location, tagged with a version that increases on every update.
+ *
+ */
+public class LatestSensorDataRegistry
+{
+	// private var's
+
+	private final Map<String, AtomicReference<Snapshot>> locations = new ConcurrentHashMap<>();
+
+	// constructors
+
+	public LatestSensorDataRegistry()
+	{
+		super();
+	}
+
+
+	// public methods
+
+	/**
+	 * Publishes the given sensor data as the latest reading for its
+	 * location ID and type ID.
+	 *
+	 * @param data The sensor data.
+	 * @return Snapshot The location's snapshot including the new reading,
+	 * or null if data is null.
+	 */
+	public Snapshot update(SensorData data)
+	{
+		if (data == null) {
+			return null;
+		}
+
+		return update(SensorReading.fromSensorData(data));
+	}
+
+	/**
+	 * Publishes the given reading as the latest for its location ID and type ID.
+	 *
+	 * @param reading The sensor reading.
+	 * @return Snapshot The location's snapshot including the new reading,
+	 * or null if reading is null.
+	 */
+	public Snapshot update(SensorReading reading)
+	{
+		if (reading == null) {
+			return null;
+		}
+
+		String locationID = (reading.getLocationID() != null ? reading.getLocationID() : ConfigConst.NOT_SET);
+
+		AtomicReference<Snapshot> ref =
+			this.locations.computeIfAbsent(locationID, (key) -> new AtomicReference<>(new Snapshot(key)));
+
+		while (true) {
+			Snapshot curSnapshot = ref.get();
+			Snapshot newSnapshot = curSnapshot.withReading(reading);
+
+			if (ref.compareAndSet(curSnapshot, newSnapshot)) {
+				return newSnapshot;
+			}
+		}
+	}
+
+	/**
+	 * Returns the current snapshot for the location ID.
+	 *
+	 * @param locationID The location ID.
+	 * @return Snapshot The snapshot, or an empty snapshot if nothing
+	 * has been received from the location yet.
+	 */
+	public Snapshot getSnapshot(String locationID)
+	{
+		AtomicReference<Snapshot> ref = (locationID != null ? this.locations.get(locationID) : null);
+
+		return (ref != null ? ref.get() : new Snapshot(locationID));
+	}
+
+	/**
+	 * Returns the latest reading for the location ID and type ID.
+	 *
+	 * @param locationID The location ID.
+	 * @param typeID The sensor type ID.
+	 * @return SensorReading The reading, or null if there isn't one.
+	 */
+	public SensorReading getLatest(String locationID, int typeID)
+	{
+		return getSnapshot(locationID).getReading(typeID);
+	}
+
+	public Set<String> getLocationIDs()
+	{
+		return Collections.unmodifiableSet(this.locations.keySet());
+	}
+
+	public int getLocationCount()
+	{
+		return this.locations.size();
+	}
+
+	public void clear()
+	{
+		this.locations.clear();
+	}
+
+
+	/**
+	 * Immutable, versioned set of the latest readings for a single location.
+	 *
+	 */
+	public static final class Snapshot
+	{
+		// private var's
+
+		private final String locationID;
+		private final long version;
+		private final Map<Integer, SensorReading> readings;
+
+		// constructors
+
+		private Snapshot(String locationID)
+		{
+			this(locationID, 0L, Collections.emptyMap());
+		}
+
+		private Snapshot(String locationID, long version, Map<Integer, SensorReading> readings)
+		{
+			this.locationID = locationID;
+			this.version = version;
+			this.readings = readings;
+		}
+
+
+		// public methods
+
+		public String getLocationID()
+		{
+			return this.locationID;
+		}
+
+		public long getVersion()
+		{
+			return this.version;
+		}
+
+		public boolean isEmpty()
+		{
+			return this.readings.isEmpty();
+		}
+
+		public SensorReading getReading(int typeID)
+		{
+			return this.readings.get(typeID);
+		}
+
+		public Map<Integer, SensorReading> getReadings()
+		{
+			return this.readings;
+		}
+
+
+		// private methods
+
+		private Snapshot withReading(SensorReading reading)
+		{
+			Map<Integer, SensorReading> newReadings = new HashMap<>(this.readings);
+			newReadings.put(reading.getTypeID(), reading);
+
+			return new Snapshot(this.locationID, this.version + 1, Collections.unmodifiableMap(newReadings));
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.app;
+
+/**
+ * Executor that hashes a partition key (typically a CDA's location ID)
+ * onto one of N single-threaded lanes. Tasks sharing a key run one at a
+ * time in submission order; tasks with different keys run in parallel.
+ * <p>
+ * This is an ordered {@link PipelineStage} whose items are the tasks
+ * themselves, so it shares the same backpressure and metrics behavior.
+ *
+ */
+public class PartitionedExecutor extends PipelineStage<Runnable>
+{
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name The executor name, used for thread names and metrics.
+	 * @param laneCount The number of lanes; if <= 0, one lane is created
+	 * per available processor.
+	 * @param queueCapacity The total bounded queue capacity, split evenly
+	 * across the lanes.
+	 * @param submitTimeoutMillis The max time to block a submitter when
+	 * a lane is full; <= 0 blocks until space is available.
+	 */
+	public PartitionedExecutor(String name, int laneCount, int queueCapacity, long submitTimeoutMillis)
+	{
+		super(
+			name,
+			(laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors()),
+			queueCapacity, submitTimeoutMillis, true, Runnable::run);
+	}
+
+
+	// public methods
+
+	public int getLaneCount()
+	{
+		return getWorkerCount();
+	}
+
+	/**
+	 * Queues the task on the lane for the given key.
+	 *
+	 * @param key The partition key.
+	 * @param task The task to run.
+	 * @return boolean True if queued; false otherwise.
+	 */
+	public boolean execute(Object key, Runnable task)
+	{
+		return submit(key, task);
+	}
+
+}
@@ -0,0 +1,427 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ThreadUtil;
+
+/**
+ * A single stage within the ingest pipeline. Each stage owns a bounded
+ * queue and a fixed pool of worker threads that drain it, passing each
+ * item to the stage handler.
+ * <p>
+ * In ordered mode, the stage is split into one lane per worker, each
+ * with its own queue and a single thread. Items are assigned to a lane
+ * by hashing the partition key passed to {@link #submit(Object, Object)},
+ * so items sharing a key are processed one at a time in submission
+ * order, while items with different keys are processed in parallel.
+ * <p>
+ * Backpressure is applied at submission time: when the queue is full,
+ * {@link #submit(Object)} blocks the caller for up to the configured
+ * submit timeout (or indefinitely if the timeout is <= 0). Items that
+ * can't be queued within the timeout are dropped and counted.
+ * <p>
+ * A stage may also be created with a batch handler. Each worker then
+ * takes the next item plus whatever else is already queued on its lane
+ * (up to the max batch size) and hands them to the handler as a single
+ * micro-batch, so per-call overhead is paid once per batch.
+ * <p>
+ * Workers are created via {@link ThreadUtil}, so they run on virtual
+ * threads when virtual thread mode is enabled.
+ *
+ * @param <T> The item type processed by this stage.
+ */
+public class PipelineStage<T>
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(PipelineStage.class.getName());
+
+	private static final long POLL_INTERVAL_MILLIS = 100L;
+	private static final long STOP_TIMEOUT_MILLIS  = 5000L;
+
+	// private var's
+
+	private final String name;
+	private final int workerCount;
+	private final int queueCapacity;
+	private final long submitTimeoutMillis;
+	private final boolean isOrdered;
+	private final int maxBatchSize;
+	private final BlockingQueue<T>[] queues;
+	private final Consumer<List<T>> batchHandler;
+	private final List<Thread> workers;
+	private final AtomicInteger nextLane = new AtomicInteger();
+
+	private final AtomicLong submittedCount = new AtomicLong();
+	private final AtomicLong processedCount = new AtomicLong();
+	private final AtomicLong batchCount     = new AtomicLong();
+	private final AtomicLong droppedCount   = new AtomicLong();
+	private final AtomicLong failedCount    = new AtomicLong();
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+	private volatile boolean isRunning = false;
+
+	// constructors
+
+	/**
+	 * Constructor. Creates an unordered stage, with all workers draining
+	 * a single shared queue.
+	 *
+	 * @param name The stage name, used for thread names and metrics.
+	 * @param workerCount The number of worker threads (minimum 1).
+	 * @param queueCapacity The bounded queue capacity (minimum 1).
+	 * @param submitTimeoutMillis The max time to block a submitter when
+	 * the queue is full; <= 0 blocks until space is available.
+	 * @param handler The handler invoked for each item.
+	 */
+	public PipelineStage(
+		String name, int workerCount, int queueCapacity, long submitTimeoutMillis, Consumer<T> handler)
+	{
+		this(name, workerCount, queueCapacity, submitTimeoutMillis, false, handler);
+	}
+
+	/**
+	 * Constructor. Creates a stage that processes one item at a time.
+	 *
+	 * @param name The stage name, used for thread names and metrics.
+	 * @param workerCount The number of worker threads (minimum 1).
+	 * @param queueCapacity The bounded queue capacity (minimum 1).
+	 * @param submitTimeoutMillis The max time to block a submitter when
+	 * the queue is full; <= 0 blocks until space is available.
+	 * @param isOrdered True to partition the stage into single-threaded lanes.
+	 * @param handler The handler invoked for each item.
+	 */
+	public PipelineStage(
+		String name, int workerCount, int queueCapacity, long submitTimeoutMillis,
+		boolean isOrdered, Consumer<T> handler)
+	{
+		this(name, workerCount, queueCapacity, submitTimeoutMillis, isOrdered, 1, (batch) -> {
+			for (T item : batch) {
+				handler.accept(item);
+			}
+		});
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name The stage name, used for thread names and metrics.
+	 * @param workerCount The number of worker threads (minimum 1). In
+	 * ordered mode, this is also the number of lanes.
+	 * @param queueCapacity The bounded queue capacity (minimum 1). In
+	 * ordered mode, this is split evenly across the lanes.
+	 * @param submitTimeoutMillis The max time to block a submitter when
+	 * the queue is full; <= 0 blocks until space is available.
+	 * @param isOrdered True to partition the stage into single-threaded lanes.
+	 * @param maxBatchSize The max number of items passed to the handler at once (minimum 1).
+	 * @param batchHandler The handler invoked for each micro-batch of items.
+	 */
+	@SuppressWarnings("unchecked")
+	public PipelineStage(
+		String name, int workerCount, int queueCapacity, long submitTimeoutMillis,
+		boolean isOrdered, int maxBatchSize, Consumer<List<T>> batchHandler)
+	{
+		super();
+
+		this.name = name;
+		this.workerCount = Math.max(1, workerCount);
+		this.queueCapacity = Math.max(1, queueCapacity);
+		this.submitTimeoutMillis = submitTimeoutMillis;
+		this.isOrdered = isOrdered;
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.batchHandler = batchHandler;
+		this.workers = new ArrayList<>(this.workerCount);
+
+		int laneCount = (isOrdered ? this.workerCount : 1);
+		int laneCapacity = Math.max(1, (this.queueCapacity + laneCount - 1) / laneCount);
+
+		this.queues = new BlockingQueue[laneCount];
+
+		for (int i = 0; i < laneCount; i++) {
+			this.queues[i] = new ArrayBlockingQueue<>(laneCapacity);
+		}
+	}
+
+
+	// public methods
+
+	public String getName()
+	{
+		return this.name;
+	}
+
+	public int getWorkerCount()
+	{
+		return this.workerCount;
+	}
+
+	public int getQueueCapacity()
+	{
+		return this.queueCapacity;
+	}
+
+	public int getQueueDepth()
+	{
+		int depth = 0;
+
+		for (BlockingQueue<T> queue : this.queues) {
+			depth += queue.size();
+		}
+
+		return depth;
+	}
+
+	public boolean isOrdered()
+	{
+		return this.isOrdered;
+	}
+
+	public int getMaxBatchSize()
+	{
+		return this.maxBatchSize;
+	}
+
+	/**
+	 * Returns the lane index the given partition key maps to. Unordered
+	 * stages only have a single lane, so this will always be 0.
+	 *
+	 * @param key The partition key.
+	 * @return int The lane index.
+	 */
+	public int getLaneIndex(Object key)
+	{
+		if (this.queues.length == 1) {
+			return 0;
+		}
+
+		if (key == null) {
+			return Math.floorMod(this.nextLane.getAndIncrement(), this.queues.length);
+		}
+
+		int hash = key.hashCode();
+
+		return Math.floorMod(hash ^ (hash >>> 16), this.queues.length);
+	}
+
+	public int getMaxQueueDepth()
+	{
+		return this.maxQueueDepth.get();
+	}
+
+	public long getSubmittedCount()
+	{
+		return this.submittedCount.get();
+	}
+
+	public long getProcessedCount()
+	{
+		return this.processedCount.get();
+	}
+
+	public long getBatchCount()
+	{
+		return this.batchCount.get();
+	}
+
+	public long getDroppedCount()
+	{
+		return this.droppedCount.get();
+	}
+
+	public long getFailedCount()
+	{
+		return this.failedCount.get();
+	}
+
+	public boolean isRunning()
+	{
+		return this.isRunning;
+	}
+
+	/**
+	 * Queues the item for processing without a partition key. In ordered
+	 * mode, unkeyed items are spread across the lanes round-robin.
+	 *
+	 * @param item The item to queue.
+	 * @return boolean True if queued; false otherwise.
+	 */
+	public boolean submit(T item)
+	{
+		return submit(null, item);
+	}
+
+	/**
+	 * Queues the item for processing, blocking if the queue is full.
+	 *
+	 * @param key The partition key (only used in ordered mode).
+	 * @param item The item to queue.
+	 * @return boolean True if queued; false if the stage isn't running,
+	 * the item is null, or the submit timeout expired.
+	 */
+	public boolean submit(Object key, T item)
+	{
+		if (item == null || ! this.isRunning) {
+			return false;
+		}
+
+		BlockingQueue<T> queue = this.queues[getLaneIndex(key)];
+
+		try {
+			boolean success = true;
+
+			if (this.submitTimeoutMillis > 0) {
+				success = queue.offer(item, this.submitTimeoutMillis, TimeUnit.MILLISECONDS);
+			} else {
+				queue.put(item);
+			}
+
+			if (success) {
+				this.submittedCount.incrementAndGet();
+				this.maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+			} else {
+				this.droppedCount.incrementAndGet();
+				_Logger.warning("Stage queue full. Dropping item: " + this.name);
+			}
+
+			return success;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.droppedCount.incrementAndGet();
+
+			return false;
+		}
+	}
+
+	public synchronized void start()
+	{
+		if (this.isRunning) {
+			_Logger.warning("Stage already started: " + this.name);
+			return;
+		}
+
+		this.isRunning = true;
+
+		ThreadFactory threadFactory = ThreadUtil.getInstance().createThreadFactory(this.name + "-stage-worker-");
+
+		for (int i = 0; i < this.workerCount; i++) {
+			BlockingQueue<T> queue = this.queues[i % this.queues.length];
+
+			Thread worker = threadFactory.newThread(() -> runWorker(queue));
+			worker.start();
+
+			this.workers.add(worker);
+		}
+
+		_Logger.info(
+			"Started " + (this.isOrdered ? "ordered" : "unordered") + " stage '" + this.name +
+			"' with " + this.workerCount + " worker(s)");
+	}
+
+	/**
+	 * Stops accepting new items, lets the workers drain whatever is
+	 * already queued, then waits (bounded) for the workers to exit.
+	 *
+	 */
+	public synchronized void stop()
+	{
+		this.isRunning = false;
+
+		for (Thread worker : this.workers) {
+			try {
+				worker.join(STOP_TIMEOUT_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		this.workers.clear();
+
+		_Logger.info("Stopped stage '" + this.name + "'. " + getMetricsSummary());
+	}
+
+	/**
+	 * Returns a string representation of the stage metrics.
+	 *
+	 * @return String The metrics in CSV 'key=value' format.
+	 */
+	public String getMetricsSummary()
+	{
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("stage=").append(this.name).append(',');
+		sb.append("workers=").append(this.workerCount).append(',');
+		sb.append("ordered=").append(this.isOrdered).append(',');
+		sb.append("queueDepth=").append(getQueueDepth()).append('/').append(this.queueCapacity).append(',');
+		sb.append("maxQueueDepth=").append(getMaxQueueDepth()).append(',');
+		sb.append("submitted=").append(getSubmittedCount()).append(',');
+		sb.append("processed=").append(getProcessedCount()).append(',');
+		sb.append("batches=").append(getBatchCount()).append(',');
+		sb.append("dropped=").append(getDroppedCount()).append(',');
+		sb.append("failed=").append(getFailedCount());
+
+		return sb.toString();
+	}
+
+
+	// private methods
+
+	private void runWorker(BlockingQueue<T> queue)
+	{
+		List<T> batch = new ArrayList<>(this.maxBatchSize);
+
+		while (this.isRunning || ! queue.isEmpty()) {
+			T item = null;
+
+			try {
+				item = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+
+			if (item != null) {
+				batch.add(item);
+
+				// never waits - just picks up whatever is already queued
+				if (this.maxBatchSize > 1) {
+					queue.drainTo(batch, this.maxBatchSize - 1);
+				}
+
+				try {
+					this.batchHandler.accept(batch.size() == 1 ? Collections.singletonList(item) : new ArrayList<>(batch));
+					this.processedCount.addAndGet(batch.size());
+				} catch (Exception e) {
+					this.failedCount.addAndGet(batch.size());
+					_Logger.log(Level.WARNING, "Stage '" + this.name + "' failed to process batch.", e);
+				}
+
+				this.batchCount.incrementAndGet();
+				batch.clear();
+			}
+		}
+	}
+
+}
@@ -11,16 +11,21 @@
 
 package programmingtheiot.gda.connection;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import programmingtheiot.common.ConfigConst;
 import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.EventLogger;
 import programmingtheiot.common.IDataMessageListener;
 import programmingtheiot.common.ResourceNameEnum;
 import programmingtheiot.data.ActuatorData;
 import programmingtheiot.data.DataUtil;
+import programmingtheiot.data.JsonByteWriter;
 import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SensorDataBatch;
 import programmingtheiot.data.SystemPerformanceData;
 
 /**
@@ -35,11 +40,18 @@ public class CloudClientConnector implements ICloudClient, IConnectionListener
 	private static final Logger _Logger =
 		Logger.getLogger(CloudClientConnector.class.getName());
 	
+	private static final EventLogger _EventLogger =
+		EventLogger.getLogger(CloudClientConnector.class);
+	
+	private static final byte[] DOT_VALUE     = JsonByteWriter.encodeName("value");
+	private static final byte[] DOT_TIMESTAMP = JsonByteWriter.encodeName("timestamp");
+	
 	// private var's
 	private String prefix = "";
 	private MqttClientConnector mqtt = null;
 	private IDataMessageListener listener = null;
 	private int qos = 1;
+	private DeadbandFilter deadbandFilter = null;
 	
 	// constructors
 	
@@ -56,6 +68,10 @@ public class CloudClientConnector implements ICloudClient, IConnectionListener
 		);
 		
 		if (!this.prefix.endsWith("/")) { this.prefix += "/"; }
+		
+		if (ConfigUtil.getInstance().getBoolean(ConfigConst.CLOUD_GATEWAY_SERVICE, ConfigConst.ENABLE_DEADBAND_FILTER_KEY)) {
+			this.deadbandFilter = new DeadbandFilter(ConfigConst.CLOUD_GATEWAY_SERVICE);
+		}
 	}
 	
 	// public methods
@@ -79,6 +95,10 @@ public class CloudClientConnector implements ICloudClient, IConnectionListener
 	{
 		if (this.mqtt == null) { return false; }
 
+		if (this.deadbandFilter != null) {
+			_Logger.info("Deadband filter metrics: " + this.deadbandFilter.getMetricsSummary());
+		}
+
 		return mqtt.disconnectClient();
 	}
 
@@ -92,12 +112,27 @@ public class CloudClientConnector implements ICloudClient, IConnectionListener
 		return false;
 	}
 
+	/**
+	 * Publishes the reading, unless the deadband filter (if enabled)
+	 * suppresses it, in which case nothing is serialized or sent, and
+	 * true is returned.
+	 * 
+	 */
 	@Override
 	public boolean sendEdgeDataToCloud(ResourceNameEnum resource, SensorData data)
 	{
 		if (resource!=null && data!=null) {
-			String payload = DataUtil.getInstance().sensorDataToTVJson(data);
-			return publishMessageToCloud(resource, data.getName(), payload);
+			if (this.deadbandFilter != null && ! this.deadbandFilter.isReportable(data)) {
+				return true;
+			}
+
+			boolean success = publishSensorData(resource, data);
+
+			if (! success && this.deadbandFilter != null) {
+				this.deadbandFilter.forget(data.getLocationID(), data.getName());
+			}
+
+			return success;
 		}
 		return false;
 	}
@@ -108,10 +143,7 @@ public class CloudClientConnector implements ICloudClient, IConnectionListener
 		if (resource!=null && data!=null) {
 			// handle by converting sys perf data to sensor datas
 
-			SensorData cpuData = new SensorData();
-			cpuData.updateData(data);
-			cpuData.setName(ConfigConst.CPU_UTIL_NAME);
-			cpuData.setValue(data.getCpuUtilization());
+			SensorData cpuData = toSensorData(data, ConfigConst.CPU_UTIL_NAME, data.getCpuUtilization());
 			
 			boolean cpuDataSuccess = sendEdgeDataToCloud(resource, cpuData);
 			
@@ -119,10 +151,7 @@ public class CloudClientConnector implements ICloudClient, IConnectionListener
 				_Logger.warning("Failed to send CPU utilization data to cloud service.");
 			}
 			
-			SensorData memData = new SensorData();
-			memData.updateData(data);
-			memData.setName(ConfigConst.MEM_UTIL_NAME);
-			memData.setValue(data.getMemoryUtilization());
+			SensorData memData = toSensorData(data, ConfigConst.MEM_UTIL_NAME, data.getMemoryUtilization());
 			
 			boolean memDataSuccess = sendEdgeDataToCloud(resource, memData);
 			
@@ -135,15 +164,89 @@ public class CloudClientConnector implements ICloudClient, IConnectionListener
 		return false;
 	}
 
+	/**
+	 * Sends the list as a batch (see {@link #sendSensorDataToCloud(ResourceNameEnum, SensorDataBatch)}).
+	 * 
+	 */
+	@Override
+	public boolean sendSensorDataToCloud(ResourceNameEnum resource, List<SensorData> dataList)
+	{
+		if (resource == null || dataList == null || dataList.isEmpty()) {
+			return false;
+		}
+
+		SensorDataBatch batch = new SensorDataBatch(dataList.size());
+		batch.addAll(dataList);
+
+		return sendSensorDataToCloud(resource, batch);
+	}
+
+	/**
+	 * Sends the batch as a single device-level publish. The payload maps
+	 * each variable label to its dot (or list of dots, if the batch has
+	 * more than one for the same variable), e.g.
+	 * <p>
+	 * {"sensormsg-tempsensor":{"value":21.0,"timestamp":1700000000000}, ...}
+	 * <p>
+	 * The payload is written straight from the batch columns, grouping
+	 * readings by name dictionary index, so no per-reading objects are
+	 * created. Readings suppressed by the deadband filter (if enabled)
+	 * are left out, and if they all are, nothing is sent, and true is
+	 * returned.
+	 * 
+	 */
+	@Override
+	public boolean sendSensorDataToCloud(ResourceNameEnum resource, SensorDataBatch batch)
+	{
+		if (resource == null || batch == null || batch.isEmpty()) {
+			return false;
+		}
+
+		if (this.deadbandFilter != null) {
+			batch = filterSensorData(batch);
+
+			if (batch.isEmpty()) {
+				return true;
+			}
+		}
+
+		boolean success = publishSensorData(resource, batch);
+
+		if (! success && this.deadbandFilter != null) {
+			for (int i = 0; i < batch.size(); i++) {
+				this.deadbandFilter.forget(batch.getLocationID(i), batch.getName(i));
+			}
+		}
+
+		return success;
+	}
+
+	@Override
+	public boolean sendSystemPerformanceDataToCloud(ResourceNameEnum resource, List<SystemPerformanceData> dataList)
+	{
+		if (resource == null || dataList == null || dataList.isEmpty()) {
+			return false;
+		}
+
+		List<SensorData> sensorDataList = new ArrayList<>(dataList.size() * 2);
+
+		for (SystemPerformanceData data : dataList) {
+			if (data != null) {
+				sensorDataList.add(toSensorData(data, ConfigConst.CPU_UTIL_NAME, data.getCpuUtilization()));
+				sensorDataList.add(toSensorData(data, ConfigConst.MEM_UTIL_NAME, data.getMemoryUtilization()));
+			}
+		}
+
+		return sendSensorDataToCloud(resource, sensorDataList);
+	}
+
 	@Override
 	public boolean subscribeToCloudEvents(ResourceNameEnum resource)
 	{
 		String topic = createTopicName(resource);
 		if (this.mqtt != null && this.mqtt.isConnected()) {
-			// TODO this is a generic handler
-
-			this.mqtt.subscribeToTopic(topic, qos, null);
-			return true;
+			// events are handed to the data message listener as the resource
+			return this.mqtt.subscribeToTopic(topic, resource, qos);
 		} else {
 			_Logger.warning("MQTT not connected. Ignoring sub topic: " + topic);
 			return false;
@@ -200,6 +303,16 @@ public class CloudClientConnector implements ICloudClient, IConnectionListener
 		return (createTopicName(resource) + "-" + itemName).toLowerCase();
 	}
 
+	/**
+	 * Returns the variable label for the item, which is the last segment of
+	 * {@link #createTopicName(ResourceNameEnum, String)}.
+	 * 
+	 */
+	private String createVariableName(ResourceNameEnum resource, String itemName)
+	{
+		return (resource.getResourceType() + "-" + itemName).toLowerCase();
+	}
+
 	private String createTopicName(String deviceName, String typeName)
 	{
 		StringBuilder builder = new StringBuilder();
@@ -217,6 +330,103 @@ public class CloudClientConnector implements ICloudClient, IConnectionListener
 		return builder.toString().toLowerCase();
 	}
 
+	private boolean publishSensorData(ResourceNameEnum resource, SensorData data)
+	{
+		String payload = DataUtil.getInstance().sensorDataToTVJson(data);
+
+		return publishMessageToCloud(resource, data.getName(), payload);
+	}
+
+	private boolean publishSensorData(ResourceNameEnum resource, SensorDataBatch batch)
+	{
+		if (batch.size() == 1) {
+			return publishSensorData(resource, batch.toSensorData(0));
+		}
+
+		// counting sort of the reading indices by name index, keeping batch order within each name
+		int nameCount = batch.getNameCount();
+		int[] starts = new int[nameCount + 1];
+		int[] order = new int[batch.size()];
+
+		for (int i = 0; i < batch.size(); i++) {
+			starts[batch.getNameIndex(i) + 1]++;
+		}
+
+		for (int n = 0; n < nameCount; n++) {
+			starts[n + 1] += starts[n];
+		}
+
+		int[] next = starts.clone();
+
+		for (int i = 0; i < batch.size(); i++) {
+			order[next[batch.getNameIndex(i)]++] = i;
+		}
+
+		JsonByteWriter writer = new JsonByteWriter();
+		writer.beginObject();
+
+		for (int n = 0; n < nameCount; n++) {
+			int count = starts[n + 1] - starts[n];
+
+			if (count == 0) {
+				continue;
+			}
+
+			writer.name(JsonByteWriter.encodeName(createVariableName(resource, batch.getNameByIndex(n))));
+
+			if (count > 1) {
+				writer.beginArray();
+			}
+
+			for (int j = starts[n]; j < starts[n + 1]; j++) {
+				writer.beginObject();
+				writer.name(DOT_VALUE).value(batch.getValue(order[j]));
+				writer.name(DOT_TIMESTAMP).value(batch.getTimeStampMillis(order[j]));
+				writer.endObject();
+			}
+
+			if (count > 1) {
+				writer.endArray();
+			}
+		}
+
+		writer.endObject();
+
+		return publishMessageToCloud(createTopicName(resource.getDeviceName(), null), writer.toByteArray());
+	}
+
+	/**
+	 * Returns a batch holding only the readings the deadband filter reports.
+	 * 
+	 */
+	private SensorDataBatch filterSensorData(SensorDataBatch batch)
+	{
+		SensorDataBatch filteredBatch = new SensorDataBatch(batch.size());
+
+		for (int i = 0; i < batch.size(); i++) {
+			String locationID = batch.getLocationID(i);
+			String name = batch.getName(i);
+
+			if (this.deadbandFilter.isReportable(
+				locationID, name, batch.getTypeID(i), batch.getStatusCode(i), batch.getValue(i), batch.getTimeStampMillis(i))) {
+				filteredBatch.add(
+					name, locationID, batch.getTypeID(i), batch.getStatusCode(i), batch.getValue(i), batch.getTimeStampMillis(i));
+			}
+		}
+
+		return filteredBatch;
+	}
+
+	private SensorData toSensorData(SystemPerformanceData data, String name, float value)
+	{
+		SensorData sensorData = new SensorData();
+		sensorData.updateData(data);
+		sensorData.setName(name);
+		sensorData.setValue(value);
+
+		return sensorData;
+	}
+
 	private boolean publishMessageToCloud(ResourceNameEnum resource, String itemName, String payload)
 	{
 		String topic = createTopicName(resource, itemName);
@@ -225,6 +435,11 @@ public class CloudClientConnector implements ICloudClient, IConnectionListener
 	}
 
 	private boolean publishMessageToCloud(String topic, String payload)
+	{
+		return publishMessageToCloud(topic, payload.getBytes());
+	}
+
+	private boolean publishMessageToCloud(String topic, byte[] payload)
 	{
 		try {
 			if (!this.mqtt.isConnected()) {
@@ -232,11 +447,11 @@ public class CloudClientConnector implements ICloudClient, IConnectionListener
 				return false;
 			}
 
-			_Logger.info("Publishing payload to CSP topic: " + topic);
+			_EventLogger.infoSampled("cloud.publish", topic, "topic", topic, "bytes", payload.length);
 
 			// TODO this is where throttling will go (if necessary)
 
-			return this.mqtt.publishMessage(topic, payload.getBytes(), this.qos);
+			return this.mqtt.publishMessage(topic, payload, this.qos);
 		} catch (Exception e) {
 			_Logger.warning("Failed to publish to CSP topic: " + topic);
 			return false;
@@ -0,0 +1,138 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.connection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps keys (e.g. MQTT topics) to nodes (e.g. broker connections) by
+ * consistent hashing. Each node is placed at several points on a ring
+ * of 32-bit hashes (its virtual nodes), and a key belongs to the node
+ * at the first point at or after the key's hash. The same key always
+ * maps to the same node, keys spread evenly across the nodes, and
+ * adding or removing a node only moves the keys of the points it
+ * takes or gives up.
+ * <p>
+ * The ring is immutable, so it's thread-safe.
+ *
+ * @param <T> The node type.
+ */
+public class ConsistentHashRing<T>
+{
+	// static
+
+	public static final int DEFAULT_VIRTUAL_NODES = 64;
+
+
+	// private var's
+
+	// sorted, with the node at each point
+	private final int[] points;
+	private final List<T> pointNodes;
+
+	// constructors
+
+	/**
+	 * Constructor. The nodes' names, i.e. their toString(), place them
+	 * on the ring, so they should be distinct and stable.
+	 *
+	 * @param nodes The nodes.
+	 * @param virtualNodes The points per node (at least 1).
+	 */
+	public ConsistentHashRing(List<T> nodes, int virtualNodes)
+	{
+		super();
+
+		if (nodes == null || nodes.isEmpty()) {
+			throw new IllegalArgumentException("No nodes");
+		}
+
+		virtualNodes = Math.max(virtualNodes, 1);
+
+		long[] sortedPoints = new long[nodes.size() * virtualNodes];
+		int n = 0;
+
+		// each point is its hash (high bits) and node index (low bits),
+		// so sorting orders them by hash, with ties broken by node
+		for (int i = 0; i < nodes.size(); i++) {
+			String name = String.valueOf(nodes.get(i));
+
+			for (int v = 0; v < virtualNodes; v++) {
+				sortedPoints[n++] = ((long) hash(name + "#" + v) << 32) | i;
+			}
+		}
+
+		Arrays.sort(sortedPoints);
+
+		this.points = new int[sortedPoints.length];
+		this.pointNodes = new ArrayList<>(sortedPoints.length);
+
+		for (int p = 0; p < sortedPoints.length; p++) {
+			this.points[p] = (int) (sortedPoints[p] >> 32);
+			this.pointNodes.add(nodes.get((int) sortedPoints[p]));
+		}
+	}
+
+
+	// public methods
+
+	/**
+	 * Returns the key's node.
+	 *
+	 * @param key The key.
+	 * @return T The node.
+	 */
+	public T getNode(CharSequence key)
+	{
+		int i = Arrays.binarySearch(this.points, hash(key));
+
+		if (i < 0) {
+			i = -i - 1;
+		} else {
+			// the first of equal points
+			while (i > 0 && this.points[i - 1] == this.points[i]) {
+				i--;
+			}
+		}
+
+		return this.pointNodes.get(i < this.points.length ? i : 0);
+	}
+
+	/**
+	 * Returns a 32-bit FNV-1a hash of the chars, with a final mix so
+	 * similar keys (e.g. topics with a common prefix) spread evenly.
+	 *
+	 * @param key The key.
+	 * @return int
+	 */
+	public static int hash(CharSequence key)
+	{
+		int h = 0x811C9DC5;
+
+		for (int i = 0; i < key.length(); i++) {
+			h ^= key.charAt(i);
+			h *= 0x01000193;
+		}
+
+		// MurmurHash3's fmix32
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+
+		return h;
+	}
+
+}
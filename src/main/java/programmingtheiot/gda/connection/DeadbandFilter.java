@@ -0,0 +1,382 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.connection;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.data.SensorData;
+
+/**
+ * Report-by-exception filter for uplinked readings. A reading is
+ * reported only if it differs from the last reading reported for the
+ * same location ID and name by more than the deadband, if its status
+ * code changed, or if nothing has been reported for the max silence
+ * interval (a heartbeat, so the receiver can tell a steady value from a
+ * silent device). Everything else is suppressed.
+ * <p>
+ * The deadband is the larger of an absolute value and a percentage of
+ * the last reported value. Both, and the max silence interval, have
+ * defaults, and can be overridden per sensor type ID by appending the
+ * type ID to the key (e.g. deadband1013). A deadband of 0 reports every
+ * change; a max silence of 0 disables the heartbeat.
+ * <p>
+ * The last reported state is kept in an open-addressing table of
+ * parallel arrays, rather than a map of objects, so tracking thousands
+ * of sensors costs a few primitive slots each, and a lookup allocates
+ * nothing. Instances are thread-safe.
+ *
+ */
+public class DeadbandFilter
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(DeadbandFilter.class.getName());
+
+	private static final int INITIAL_CAPACITY = 64;
+
+
+	// private var's
+
+	private final String configSectionName;
+	private final Settings defaultSettings;
+
+	// per type ID, loaded from the config on first use
+	private final Map<Integer, Settings> settingsByType = new ConcurrentHashMap<>();
+
+	// the last reported state, one slot per (location ID, name); guarded by this
+	private String[] locationIDs = new String[INITIAL_CAPACITY];
+	private String[] names       = new String[INITIAL_CAPACITY];
+	private int[]    hashes      = new int[INITIAL_CAPACITY];
+	private int[]    statusCodes = new int[INITIAL_CAPACITY];
+	private float[]  values      = new float[INITIAL_CAPACITY];
+	private long[]   timeStamps  = new long[INITIAL_CAPACITY];
+	private int      count       = 0;
+
+	private final AtomicLong reportedCount   = new AtomicLong();
+	private final AtomicLong suppressedCount = new AtomicLong();
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param configSectionName The config section holding the filter settings.
+	 */
+	public DeadbandFilter(String configSectionName)
+	{
+		super();
+
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		this.configSectionName = configSectionName;
+		this.defaultSettings = new Settings(
+			configUtil.getFloat(configSectionName, ConfigConst.DEADBAND_KEY, ConfigConst.DEFAULT_DEADBAND),
+			configUtil.getFloat(configSectionName, ConfigConst.DEADBAND_PERCENT_KEY, ConfigConst.DEFAULT_DEADBAND_PERCENT),
+			configUtil.getInteger(configSectionName, ConfigConst.MAX_SILENCE_SECS_KEY, ConfigConst.DEFAULT_MAX_SILENCE_SECS));
+
+		_Logger.info("Deadband filter defaults: " + this.defaultSettings);
+	}
+
+	/**
+	 * Constructor, with the default settings given rather than read from
+	 * the config file (per type overrides can be added with
+	 * {@link #setTypeSettings(int, float, float, int)}).
+	 *
+	 * @param deadband The absolute deadband.
+	 * @param deadbandPercent The deadband as a percentage of the last reported value.
+	 * @param maxSilenceSecs The max interval between reports, or 0 for none.
+	 */
+	public DeadbandFilter(float deadband, float deadbandPercent, int maxSilenceSecs)
+	{
+		super();
+
+		this.configSectionName = null;
+		this.defaultSettings = new Settings(deadband, deadbandPercent, maxSilenceSecs);
+	}
+
+
+	// public methods
+
+	/**
+	 * Sets the settings for a sensor type ID, replacing any from the config file.
+	 *
+	 * @param typeID The sensor type ID.
+	 * @param deadband The absolute deadband.
+	 * @param deadbandPercent The deadband as a percentage of the last reported value.
+	 * @param maxSilenceSecs The max interval between reports, or 0 for none.
+	 */
+	public void setTypeSettings(int typeID, float deadband, float deadbandPercent, int maxSilenceSecs)
+	{
+		this.settingsByType.put(typeID, new Settings(deadband, deadbandPercent, maxSilenceSecs));
+	}
+
+	/**
+	 * Returns true if the reading should be reported, in which case it's
+	 * recorded as the last reported reading for its location ID and name.
+	 *
+	 * @param data The reading.
+	 * @return boolean True to report the reading; false to suppress it.
+	 */
+	public boolean isReportable(SensorData data)
+	{
+		return isReportable(
+			data.getLocationID(), data.getName(), data.getTypeID(), data.getStatusCode(),
+			data.getValue(), data.getTimeStampMillis());
+	}
+
+	/**
+	 * Returns true if the reading should be reported, in which case it's
+	 * recorded as the last reported reading for its location ID and name.
+	 *
+	 * @param locationID The location ID of the device that sent the reading.
+	 * @param name The sensor name.
+	 * @param typeID The sensor type ID, which selects the settings.
+	 * @param statusCode The sensor status code.
+	 * @param value The sensor value.
+	 * @param timeStampMillis The time of the reading, in milliseconds since the Epoch.
+	 * @return boolean True to report the reading; false to suppress it.
+	 */
+	public boolean isReportable(
+		String locationID, String name, int typeID, int statusCode, float value, long timeStampMillis)
+	{
+		Settings settings = getSettings(typeID);
+
+		// null is tracked as empty, so an empty slot is one with a null name
+		locationID = (locationID != null ? locationID : "");
+		name = (name != null ? name : "");
+
+		int hash = hash(locationID, name);
+
+		synchronized (this) {
+			int slot = findSlot(locationID, name, hash);
+
+			if (this.names[slot] != null) {
+				if (this.statusCodes[slot] == statusCode &&
+					! settings.isOutsideDeadband(this.values[slot], value) &&
+					! settings.isSilenceExceeded(this.timeStamps[slot], timeStampMillis)) {
+					this.suppressedCount.incrementAndGet();
+					return false;
+				}
+			} else {
+				if (this.count + 1 > this.hashes.length * 3 / 4) {
+					grow();
+					slot = findSlot(locationID, name, hash);
+				}
+
+				this.locationIDs[slot] = locationID;
+				this.names[slot] = name;
+				this.hashes[slot] = hash;
+				this.count++;
+			}
+
+			this.statusCodes[slot] = statusCode;
+			this.values[slot] = value;
+			this.timeStamps[slot] = timeStampMillis;
+		}
+
+		this.reportedCount.incrementAndGet();
+
+		return true;
+	}
+
+	/**
+	 * Forgets the last reported reading for the location ID and name, so
+	 * the next reading is reported regardless, e.g. because reporting the
+	 * last one failed.
+	 *
+	 * @param locationID The location ID.
+	 * @param name The sensor name.
+	 */
+	public void forget(String locationID, String name)
+	{
+		locationID = (locationID != null ? locationID : "");
+		name = (name != null ? name : "");
+
+		int hash = hash(locationID, name);
+
+		synchronized (this) {
+			int slot = findSlot(locationID, name, hash);
+
+			if (this.names[slot] != null) {
+				// an expired time stamp forces the next report
+				this.timeStamps[slot] = Long.MIN_VALUE;
+			}
+		}
+	}
+
+	public long getReportedCount()
+	{
+		return this.reportedCount.get();
+	}
+
+	public long getSuppressedCount()
+	{
+		return this.suppressedCount.get();
+	}
+
+	public synchronized int getTrackedCount()
+	{
+		return this.count;
+	}
+
+	/**
+	 * Returns a string representation of the filter metrics.
+	 *
+	 * @return String The metrics in CSV 'key=value' format.
+	 */
+	public String getMetricsSummary()
+	{
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("tracked=").append(getTrackedCount()).append(',');
+		sb.append("reported=").append(getReportedCount()).append(',');
+		sb.append("suppressed=").append(getSuppressedCount());
+
+		return sb.toString();
+	}
+
+
+	// private methods
+
+	private Settings getSettings(int typeID)
+	{
+		Settings settings = this.settingsByType.get(typeID);
+
+		if (settings == null) {
+			settings = this.settingsByType.computeIfAbsent(typeID, this::loadSettings);
+		}
+
+		return settings;
+	}
+
+	private Settings loadSettings(int typeID)
+	{
+		if (this.configSectionName == null) {
+			return this.defaultSettings;
+		}
+
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		return new Settings(
+			configUtil.getFloat(this.configSectionName, ConfigConst.DEADBAND_KEY + typeID, this.defaultSettings.deadband),
+			configUtil.getFloat(this.configSectionName, ConfigConst.DEADBAND_PERCENT_KEY + typeID, this.defaultSettings.deadbandPercent),
+			configUtil.getInteger(this.configSectionName, ConfigConst.MAX_SILENCE_SECS_KEY + typeID, (int) (this.defaultSettings.maxSilenceMillis / 1000L)));
+	}
+
+	private static int hash(String locationID, String name)
+	{
+		int hash = 31 * locationID.hashCode() + name.hashCode();
+
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the slot holding the key, or the empty slot where it belongs.
+	 *
+	 */
+	private int findSlot(String locationID, String name, int hash)
+	{
+		int mask = this.hashes.length - 1;
+		int slot = hash & mask;
+
+		while (this.names[slot] != null) {
+			if (this.hashes[slot] == hash && this.names[slot].equals(name) && this.locationIDs[slot].equals(locationID)) {
+				break;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+
+	private void grow()
+	{
+		String[] oldLocationIDs = this.locationIDs;
+		String[] oldNames       = this.names;
+		int[]    oldHashes      = this.hashes;
+		int[]    oldStatusCodes = this.statusCodes;
+		float[]  oldValues      = this.values;
+		long[]   oldTimeStamps  = this.timeStamps;
+
+		int capacity = oldHashes.length * 2;
+
+		this.locationIDs = new String[capacity];
+		this.names       = new String[capacity];
+		this.hashes      = new int[capacity];
+		this.statusCodes = new int[capacity];
+		this.values      = new float[capacity];
+		this.timeStamps  = new long[capacity];
+
+		for (int i = 0; i < oldHashes.length; i++) {
+			if (oldNames[i] != null) {
+				int slot = findSlot(oldLocationIDs[i], oldNames[i], oldHashes[i]);
+
+				this.locationIDs[slot] = oldLocationIDs[i];
+				this.names[slot]       = oldNames[i];
+				this.hashes[slot]      = oldHashes[i];
+				this.statusCodes[slot] = oldStatusCodes[i];
+				this.values[slot]      = oldValues[i];
+				this.timeStamps[slot]  = oldTimeStamps[i];
+			}
+		}
+	}
+
+	/**
+	 * The filter settings for a sensor type.
+	 *
+	 */
+	private static final class Settings
+	{
+		private final float deadband;
+		private final float deadbandPercent;
+		private final long  maxSilenceMillis;
+
+		private Settings(float deadband, float deadbandPercent, int maxSilenceSecs)
+		{
+			this.deadband = Math.max(0.0f, deadband);
+			this.deadbandPercent = Math.max(0.0f, deadbandPercent);
+			this.maxSilenceMillis = Math.max(0, maxSilenceSecs) * 1000L;
+		}
+
+		private boolean isOutsideDeadband(float lastValue, float value)
+		{
+			if (Float.isNaN(lastValue) || Float.isNaN(value)) {
+				return (Float.floatToIntBits(lastValue) != Float.floatToIntBits(value));
+			}
+
+			float threshold = Math.max(this.deadband, Math.abs(lastValue) * this.deadbandPercent / 100.0f);
+
+			return (threshold > 0.0f ? Math.abs(value - lastValue) > threshold : value != lastValue);
+		}
+
+		private boolean isSilenceExceeded(long lastTimeStampMillis, long timeStampMillis)
+		{
+			return (lastTimeStampMillis == Long.MIN_VALUE ||
+				(this.maxSilenceMillis > 0L && timeStampMillis - lastTimeStampMillis >= this.maxSilenceMillis));
+		}
+
+		@Override
+		public String toString()
+		{
+			return "deadband=" + this.deadband + ",deadbandPercent=" + this.deadbandPercent +
+				",maxSilenceSecs=" + (this.maxSilenceMillis / 1000L);
+		}
+	}
+
+}
@@ -9,8 +9,11 @@
 package programmingtheiot.gda.connection;
 
 import programmingtheiot.common.IDataMessageListener;
+import java.util.List;
+
 import programmingtheiot.common.ResourceNameEnum;
 import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SensorDataBatch;
 import programmingtheiot.data.SystemPerformanceData;
 
 /**
@@ -57,6 +60,72 @@ public interface ICloudClient
 	 */
 	public boolean sendEdgeDataToCloud(ResourceNameEnum resource, SystemPerformanceData data);
 
+	/**
+	 * Attempts to send the given batch of data instances to the remote cloud
+	 * service. The default implementation sends each item individually;
+	 * implementations should override this if the remote service can
+	 * accept the batch in fewer requests.
+	 * 
+	 * @param resource The resource enum to use for this send request.
+	 * @param dataList The data instances to publish to the remote cloud service.
+	 * @return bool True if every item was sent, False otherwise.
+	 */
+	public default boolean sendSensorDataToCloud(ResourceNameEnum resource, List<SensorData> dataList)
+	{
+		if (dataList == null) {
+			return false;
+		}
+
+		boolean success = true;
+
+		for (SensorData data : dataList) {
+			success &= sendEdgeDataToCloud(resource, data);
+		}
+
+		return success;
+	}
+
+	/**
+	 * Attempts to send the given columnar batch of readings to the remote
+	 * cloud service. The default implementation converts the batch to a
+	 * list and calls {@link #sendSensorDataToCloud(ResourceNameEnum, List)};
+	 * implementations should override this to publish straight from the
+	 * batch columns.
+	 * 
+	 * @param resource The resource enum to use for this send request.
+	 * @param batch The readings to publish to the remote cloud service.
+	 * @return bool True if every item was sent, False otherwise.
+	 */
+	public default boolean sendSensorDataToCloud(ResourceNameEnum resource, SensorDataBatch batch)
+	{
+		return (batch != null && sendSensorDataToCloud(resource, batch.toSensorDataList()));
+	}
+
+	/**
+	 * Attempts to send the given batch of data instances to the remote cloud
+	 * service. The default implementation sends each item individually;
+	 * implementations should override this if the remote service can
+	 * accept the batch in fewer requests.
+	 * 
+	 * @param resource The resource enum to use for this send request.
+	 * @param dataList The data instances to publish to the remote cloud service.
+	 * @return bool True if every item was sent, False otherwise.
+	 */
+	public default boolean sendSystemPerformanceDataToCloud(ResourceNameEnum resource, List<SystemPerformanceData> dataList)
+	{
+		if (dataList == null) {
+			return false;
+		}
+
+		boolean success = true;
+
+		for (SystemPerformanceData data : dataList) {
+			success &= sendEdgeDataToCloud(resource, data);
+		}
+
+		return success;
+	}
+
 	/**
 	 * Attempts to subscribe to events destined for edge consumption that are
 	 * sent by the remote cloud service.
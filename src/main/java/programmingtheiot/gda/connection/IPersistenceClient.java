@@ -12,6 +12,7 @@ import java.util.Date;
 
 import programmingtheiot.data.ActuatorData;
 import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SensorDataBatch;
 import programmingtheiot.data.SystemPerformanceData;
 
 /**
@@ -99,4 +100,20 @@ public interface IPersistenceClient
 	 */
 	public boolean storeData(String topic, int qos, SystemPerformanceData ... data);
 	
+	/**
+	 * Attempts to write the columnar batch of readings to the persistence
+	 * server. The default implementation converts the batch and calls
+	 * {@link #storeData(String, int, SensorData...)}; implementations that
+	 * can store the columns directly should override this.
+	 * 
+	 * @param topic The target topic name.
+	 * @param qos The intended target QoS.
+	 * @param batch The readings to store.
+	 * @return boolean True on success; false otherwise.
+	 */
+	public default boolean storeData(String topic, int qos, SensorDataBatch batch)
+	{
+		return (batch != null && storeData(topic, qos, batch.toSensorDataArray()));
+	}
+	
 }
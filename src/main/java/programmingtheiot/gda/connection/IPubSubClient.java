@@ -8,7 +8,10 @@
 
 package programmingtheiot.gda.connection;
 
+import java.nio.charset.StandardCharsets;
+
 import programmingtheiot.common.IDataMessageListener;
+import programmingtheiot.common.PayloadFormatEnum;
 import programmingtheiot.common.ResourceNameEnum;
 
 /**
@@ -46,6 +49,49 @@ public interface IPubSubClient
 	 */
 	public boolean publishMessage(ResourceNameEnum topicName, String msg, int qos);
 
+	/**
+	 * Attempts to publish an already encoded payload to the given topic with
+	 * the given qos. The default implementation decodes the payload as UTF-8
+	 * and calls {@link #publishMessage(ResourceNameEnum, String, int)};
+	 * sub-classes that publish bytes natively should override this to
+	 * avoid the copy.
+	 * 
+	 * @param topicName The topic Enum containing the topic value to publish the message to.
+	 * @param payload The encoded message to publish.
+	 * @param qos The QoS level. This is expected to be 0 - 2.
+	 * @return bool True on success, False otherwise.
+	 */
+	public default boolean publishMessage(ResourceNameEnum topicName, byte[] payload, int qos)
+	{
+		if (payload == null) {
+			return false;
+		}
+		
+		return publishMessage(topicName, new String(payload, StandardCharsets.UTF_8), qos);
+	}
+
+	/**
+	 * Attempts to publish an already encoded payload, in the given format,
+	 * to the given topic with the given qos, signalling the format in the
+	 * way the protocol allows (e.g. an MQTT topic suffix). The default
+	 * implementation only supports JSON, and returns False for any other
+	 * format.
+	 * 
+	 * @param topicName The topic Enum containing the topic value to publish the message to.
+	 * @param payload The encoded message to publish.
+	 * @param format The payload format.
+	 * @param qos The QoS level. This is expected to be 0 - 2.
+	 * @return bool True on success, False otherwise.
+	 */
+	public default boolean publishMessage(ResourceNameEnum topicName, byte[] payload, PayloadFormatEnum format, int qos)
+	{
+		if (format != null && format != PayloadFormatEnum.JSON) {
+			return false;
+		}
+		
+		return publishMessage(topicName, payload, qos);
+	}
+
 	/**
 	 * Attempts to subscribe to a topic with the given qos hosted by the
 	 * pub/sub broker / server. If not already connected, the sub-class
@@ -41,8 +41,7 @@ public class LedEnablementMessageListener implements IMqttMessageListener
 	public void messageArrived(String topic, MqttMessage message) throws Exception
 	{
         try {
-            String json = new String(message.getPayload());
-            ActuatorData data = DataUtil.getInstance().jsonToActuatorData(json);
+            ActuatorData data = DataUtil.getInstance().jsonToActuatorData(message.getPayload());
 
             data.setLocationID(ConfigConst.CONSTRAINED_DEVICE);
             data.setTypeID(this.typeID);
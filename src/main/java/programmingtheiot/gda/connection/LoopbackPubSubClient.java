@@ -0,0 +1,428 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.connection;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.IDataMessageListener;
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.common.ThreadUtil;
+
+/**
+ * In-process IPubSubClient that loops each publish back to this client's
+ * own subscriptions, as if it had gone through a broker and back. This
+ * allows the GDA to run with no MQTT broker - e.g. against the
+ * {@link programmingtheiot.gda.system.CdaFleetSimulator} for capacity
+ * planning.
+ * <p>
+ * Like the MQTT client, published messages are delivered to the data
+ * message listener on separate delivery thread(s), via a bounded queue.
+ * If the queue is full, the publish fails and the message is counted as
+ * dropped; messages the listener doesn't accept are counted as rejected.
+ * Messages on topics without a subscription are discarded, as a broker
+ * would.
+ *
+ */
+public class LoopbackPubSubClient implements IPubSubClient
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(LoopbackPubSubClient.class.getName());
+
+	/**
+	 * A published message waiting to be delivered.
+	 *
+	 */
+	private static class Delivery
+	{
+		private final ResourceNameEnum resource;
+		private final byte[] payload;
+		private final PayloadFormatEnum format;
+
+		private Delivery(ResourceNameEnum resource, byte[] payload, PayloadFormatEnum format)
+		{
+			this.resource = resource;
+			this.payload = payload;
+			this.format = format;
+		}
+	}
+
+	// private var's
+
+	private final BlockingQueue<Delivery> deliveryQueue;
+	private final int deliveryThreadCount;
+	private final Set<ResourceNameEnum> subscriptions = ConcurrentHashMap.newKeySet();
+
+	private final LongAdder publishCount = new LongAdder();
+	private final LongAdder deliveredCount = new LongAdder();
+	private final LongAdder droppedCount = new LongAdder();
+	private final LongAdder rejectedCount = new LongAdder();
+	private final LongAdder unroutedCount = new LongAdder();
+
+	private List<Thread> deliveryThreads = new ArrayList<>();
+	private volatile boolean isConnected = false;
+
+	private volatile IDataMessageListener dataMsgListener = null;
+	private volatile IConnectionListener connectionListener = null;
+
+	// constructors
+
+	/**
+	 * Default. Reads the queue size and delivery thread count from the
+	 * configuration file.
+	 *
+	 */
+	public LoopbackPubSubClient()
+	{
+		this(
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.LOOPBACK_QUEUE_SIZE_KEY, ConfigConst.DEFAULT_LOOPBACK_QUEUE_SIZE),
+			ConfigUtil.getInstance().getInteger(
+				ConfigConst.GATEWAY_DEVICE, ConfigConst.LOOPBACK_DELIVERY_THREADS_KEY, ConfigConst.DEFAULT_LOOPBACK_DELIVERY_THREADS));
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param queueSize The maximum number of messages waiting to be delivered.
+	 * @param deliveryThreadCount The number of delivery threads. With more
+	 * than one, messages may be delivered out of order.
+	 */
+	public LoopbackPubSubClient(int queueSize, int deliveryThreadCount)
+	{
+		super();
+
+		this.deliveryQueue = new ArrayBlockingQueue<>(queueSize > 0 ? queueSize : ConfigConst.DEFAULT_LOOPBACK_QUEUE_SIZE);
+		this.deliveryThreadCount = deliveryThreadCount > 0 ? deliveryThreadCount : ConfigConst.DEFAULT_LOOPBACK_DELIVERY_THREADS;
+
+		_Logger.info(
+			"Loopback client initialized. Queue size: " + this.deliveryQueue.remainingCapacity() +
+			", delivery threads: " + this.deliveryThreadCount);
+	}
+
+
+	// public methods
+
+	@Override
+	public synchronized boolean connectClient()
+	{
+		if (this.isConnected) {
+			_Logger.warning("Loopback client already connected");
+			return false;
+		}
+
+		ThreadFactory threadFactory =
+			ThreadUtil.getInstance().createThreadFactory("loopback-delivery-", false);
+
+		this.isConnected = true;
+
+		for (int i = 0; i < this.deliveryThreadCount; i++) {
+			Thread thread = threadFactory.newThread(this::runDelivery);
+			this.deliveryThreads.add(thread);
+			thread.start();
+		}
+
+		_Logger.info("Loopback client connected");
+
+		if (this.connectionListener != null) {
+			this.connectionListener.onConnect();
+		}
+
+		return true;
+	}
+
+	@Override
+	public synchronized boolean disconnectClient()
+	{
+		if (! this.isConnected) {
+			_Logger.warning("Loopback client not connected");
+			return false;
+		}
+
+		// stop accepting publishes, then let the delivery threads
+		// drain whatever is already queued
+		this.isConnected = false;
+
+		for (Thread thread : this.deliveryThreads) {
+			try {
+				thread.join(TimeUnit.SECONDS.toMillis(5L));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		this.deliveryThreads.clear();
+
+		int undeliveredCount = this.deliveryQueue.size();
+
+		if (undeliveredCount > 0) {
+			this.deliveryQueue.clear();
+			this.droppedCount.add(undeliveredCount);
+			_Logger.warning("Loopback client disconnected. Dropped undelivered messages: " + undeliveredCount);
+		} else {
+			_Logger.info("Loopback client disconnected");
+		}
+
+		if (this.connectionListener != null) {
+			this.connectionListener.onDisconnect();
+		}
+
+		return true;
+	}
+
+	public boolean isConnected()
+	{
+		return this.isConnected;
+	}
+
+	/**
+	 * Returns the number of messages published, whether or not they
+	 * were delivered.
+	 *
+	 * @return long
+	 */
+	public long getPublishCount()
+	{
+		return this.publishCount.sum();
+	}
+
+	/**
+	 * Returns the number of messages the data message listener accepted.
+	 *
+	 * @return long
+	 */
+	public long getDeliveredCount()
+	{
+		return this.deliveredCount.sum();
+	}
+
+	/**
+	 * Returns the number of messages dropped because the delivery queue
+	 * was full, or the client was disconnected before they were delivered.
+	 *
+	 * @return long
+	 */
+	public long getDroppedCount()
+	{
+		return this.droppedCount.sum();
+	}
+
+	/**
+	 * Returns the number of messages the data message listener didn't
+	 * accept (or failed to handle).
+	 *
+	 * @return long
+	 */
+	public long getRejectedCount()
+	{
+		return this.rejectedCount.sum();
+	}
+
+	/**
+	 * Returns the number of messages published to topics with no
+	 * subscription, which are discarded.
+	 *
+	 * @return long
+	 */
+	public long getUnroutedCount()
+	{
+		return this.unroutedCount.sum();
+	}
+
+	/**
+	 * Returns the number of messages waiting to be delivered.
+	 *
+	 * @return int
+	 */
+	public int getQueuedCount()
+	{
+		return this.deliveryQueue.size();
+	}
+
+	@Override
+	public boolean publishMessage(ResourceNameEnum topicName, String msg, int qos)
+	{
+		if (msg == null) {
+			return false;
+		}
+
+		return publishMessage(topicName, msg.getBytes(StandardCharsets.UTF_8), qos);
+	}
+
+	@Override
+	public boolean publishMessage(ResourceNameEnum topicName, byte[] payload, int qos)
+	{
+		return publishMessage(topicName, payload, PayloadFormatEnum.JSON, qos);
+	}
+
+	/**
+	 * Publishes the given payload as-is; the format is passed on to the
+	 * subscriber with it. The QoS is ignored, as delivery is in-process.
+	 *
+	 * @param topicName The topic to publish to.
+	 * @param payload The message payload.
+	 * @param format The payload format (JSON if null).
+	 * @param qos The QoS level (ignored).
+	 * @return boolean True if the message was queued for delivery, or
+	 * discarded because nothing is subscribed; false if it was dropped.
+	 */
+	@Override
+	public boolean publishMessage(ResourceNameEnum topicName, byte[] payload, PayloadFormatEnum format, int qos)
+	{
+		if (topicName == null || payload == null || payload.length == 0) {
+			return false;
+		}
+
+		this.publishCount.increment();
+
+		if (! this.isConnected) {
+			this.droppedCount.increment();
+			return false;
+		}
+
+		if (! this.subscriptions.contains(topicName)) {
+			this.unroutedCount.increment();
+			return true;
+		}
+
+		if (! this.deliveryQueue.offer(new Delivery(topicName, payload, (format != null ? format : PayloadFormatEnum.JSON)))) {
+			this.droppedCount.increment();
+			return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean subscribeToTopic(ResourceNameEnum topicName, int qos)
+	{
+		if (topicName == null) {
+			_Logger.warning("Resource is null. Unable to subscribe.");
+			return false;
+		}
+
+		this.subscriptions.add(topicName);
+		_Logger.info("Successfully subscribed to topic: " + topicName.getResourceName());
+
+		return true;
+	}
+
+	@Override
+	public boolean unsubscribeFromTopic(ResourceNameEnum topicName)
+	{
+		if (topicName == null) {
+			_Logger.warning("Resource is null. Unable to unsubscribe.");
+			return false;
+		}
+
+		if (this.subscriptions.remove(topicName)) {
+			_Logger.info("Successfully unsubscribed from topic: " + topicName.getResourceName());
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public boolean setDataMessageListener(IDataMessageListener listener)
+	{
+		if (listener != null) {
+			this.dataMsgListener = listener;
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public boolean setConnectionListener(IConnectionListener listener)
+	{
+		if (listener != null) {
+			this.connectionListener = listener;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns a one line summary of the delivery counters.
+	 *
+	 * @return String
+	 */
+	public String getMetricsSummary()
+	{
+		return String.format(
+			"Loopback: published=%d, delivered=%d, dropped=%d, rejected=%d, unrouted=%d, queued=%d",
+			getPublishCount(), getDeliveredCount(), getDroppedCount(),
+			getRejectedCount(), getUnroutedCount(), getQueuedCount());
+	}
+
+
+	// private methods
+
+	private void runDelivery()
+	{
+		while (this.isConnected || ! this.deliveryQueue.isEmpty()) {
+			Delivery delivery = null;
+
+			try {
+				delivery = this.deliveryQueue.poll(100L, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			if (delivery != null) {
+				deliver(delivery);
+			}
+		}
+	}
+
+	private void deliver(Delivery delivery)
+	{
+		IDataMessageListener listener = this.dataMsgListener;
+
+		if (listener == null) {
+			this.rejectedCount.increment();
+			return;
+		}
+
+		try {
+			if (listener.handleRawDataMessage(delivery.resource, delivery.payload, delivery.format)) {
+				this.deliveredCount.increment();
+			} else {
+				this.rejectedCount.increment();
+			}
+		} catch (Exception e) {
+			this.rejectedCount.increment();
+			_Logger.log(Level.FINE, "Failed to deliver message on topic: " + delivery.resource.getResourceName(), e);
+		}
+	}
+
+}
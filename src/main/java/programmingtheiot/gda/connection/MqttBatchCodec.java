@@ -0,0 +1,208 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.connection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Frames several payloads as one MQTT message (see
+ * {@link MqttPublishBatcher}), and unframes them on receipt.
+ * <p>
+ * A frame is the 4 byte magic header 0x00 'P' 'B' 0x01 (the last byte
+ * being the frame version), the payload count, then each payload's
+ * length followed by its bytes. The count and lengths are unsigned
+ * LEB128 varints. No JSON or CBOR data payload can start with a 0x00
+ * byte, so a receiver can tell a frame from a single payload by its
+ * first bytes (see {@link #isBatch(byte[])}).
+ * <p>
+ * This class has no state, so it's thread-safe.
+ *
+ */
+public final class MqttBatchCodec
+{
+	// static
+
+	public static final byte[] MAGIC_HEADER = { 0x00, 'P', 'B', 0x01 };
+
+	// a varint of an int takes at most 5 bytes
+	private static final int MAX_VARINT_BYTES = 5;
+
+
+	// constructors
+
+	private MqttBatchCodec()
+	{
+		super();
+	}
+
+
+	// public methods
+
+	/**
+	 * Returns true if the payload starts with the frame magic header.
+	 *
+	 * @param payload The received payload.
+	 * @return boolean
+	 */
+	public static boolean isBatch(byte[] payload)
+	{
+		if (payload == null || payload.length < MAGIC_HEADER.length) {
+			return false;
+		}
+
+		for (int i = 0; i < MAGIC_HEADER.length; i++) {
+			if (payload[i] != MAGIC_HEADER[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the encoded size of a frame's entry for a payload of the
+	 * given length, i.e. the length varint plus the payload itself.
+	 *
+	 * @param payloadLength The payload length, in bytes.
+	 * @return int
+	 */
+	public static int getEntrySize(int payloadLength)
+	{
+		return varintSize(payloadLength) + payloadLength;
+	}
+
+	/**
+	 * Encodes the payloads as a frame.
+	 *
+	 * @param payloads The payloads, in order.
+	 * @return byte[] The frame.
+	 */
+	public static byte[] encode(List<byte[]> payloads)
+	{
+		int size = MAGIC_HEADER.length + varintSize(payloads.size());
+
+		for (byte[] payload : payloads) {
+			size += getEntrySize(payload.length);
+		}
+
+		byte[] frame = new byte[size];
+
+		System.arraycopy(MAGIC_HEADER, 0, frame, 0, MAGIC_HEADER.length);
+
+		int pos = writeVarint(frame, MAGIC_HEADER.length, payloads.size());
+
+		for (byte[] payload : payloads) {
+			pos = writeVarint(frame, pos, payload.length);
+			System.arraycopy(payload, 0, frame, pos, payload.length);
+			pos += payload.length;
+		}
+
+		return frame;
+	}
+
+	/**
+	 * Decodes a frame into its payloads.
+	 *
+	 * @param frame The frame.
+	 * @return List<byte[]> The payloads, in the order they were batched.
+	 * @throws IllegalArgumentException If the frame is malformed or truncated.
+	 */
+	public static List<byte[]> decode(byte[] frame)
+	{
+		if (! isBatch(frame)) {
+			throw new IllegalArgumentException("Missing batch frame header");
+		}
+
+		int[] pos = { MAGIC_HEADER.length };
+		int count = readVarint(frame, pos);
+
+		// each entry takes at least one byte, which bounds the allocation
+		if (count > frame.length - pos[0]) {
+			throw new IllegalArgumentException("Invalid batch count: " + count);
+		}
+
+		List<byte[]> payloads = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			int length = readVarint(frame, pos);
+
+			if (length > frame.length - pos[0]) {
+				throw new IllegalArgumentException("Truncated batch frame at payload " + i);
+			}
+
+			byte[] payload = new byte[length];
+			System.arraycopy(frame, pos[0], payload, 0, length);
+			pos[0] += length;
+
+			payloads.add(payload);
+		}
+
+		if (pos[0] != frame.length) {
+			throw new IllegalArgumentException("Unexpected data after batch frame");
+		}
+
+		return payloads;
+	}
+
+
+	// private methods
+
+	private static int varintSize(int value)
+	{
+		int size = 1;
+
+		while ((value >>>= 7) != 0) {
+			size++;
+		}
+
+		return size;
+	}
+
+	private static int writeVarint(byte[] buf, int pos, int value)
+	{
+		while ((value & ~0x7F) != 0) {
+			buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		buf[pos++] = (byte) value;
+
+		return pos;
+	}
+
+	private static int readVarint(byte[] buf, int[] pos)
+	{
+		int value = 0;
+
+		for (int i = 0; i < MAX_VARINT_BYTES; i++) {
+			if (pos[0] >= buf.length) {
+				throw new IllegalArgumentException("Truncated batch frame");
+			}
+
+			int b = buf[pos[0]++];
+
+			value |= (b & 0x7F) << (7 * i);
+
+			if ((b & 0x80) == 0) {
+				if (value < 0) {
+					throw new IllegalArgumentException("Invalid batch varint");
+				}
+
+				return value;
+			}
+		}
+
+		throw new IllegalArgumentException("Invalid batch varint");
+	}
+
+}
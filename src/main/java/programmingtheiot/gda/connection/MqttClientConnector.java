@@ -14,15 +14,23 @@ package programmingtheiot.gda.connection;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.ObjectInputFilter.Config;
+import java.nio.file.Paths;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.net.ssl.SSLSocketFactory;
 
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
 import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
 import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
 import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
 import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
 import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
@@ -34,7 +42,9 @@ import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 
 import programmingtheiot.common.ConfigConst;
 import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.EventLogger;
 import programmingtheiot.common.IDataMessageListener;
+import programmingtheiot.common.PayloadFormatEnum;
 import programmingtheiot.common.ResourceNameEnum;
 import programmingtheiot.common.SimpleCertManagementUtil;
 import programmingtheiot.data.ActuatorData;
@@ -54,13 +64,16 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 	private static final Logger _Logger =
 		Logger.getLogger(MqttClientConnector.class.getName());
 	
+	private static final EventLogger _EventLogger =
+		EventLogger.getLogger(MqttClientConnector.class);
+	
 	// params
 
 	// private MqttClient mqttClient = null;
 	private MqttAsyncClient mqttClient = null;
 
 	private MqttConnectOptions connOptions = null;
-	private MemoryPersistence persistence = null;
+	private MqttClientPersistence persistence = null;
 	private IDataMessageListener dataMsgListener = null;
 	private IConnectionListener connectionListener = null;
 
@@ -78,6 +91,32 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 	private boolean useCleanSession = false;
 	private boolean enableAutoReconnect = true;
 	private boolean useCloudGatewayConfig = false;
+
+	// null unless batching is enabled; topics are kept without a format suffix
+	private MqttPublishBatcher publishBatcher = null;
+	private Set<String> batchTopics = ConcurrentHashMap.newKeySet();
+
+	// with the async client, publishes are pipelined through the window;
+	// otherwise each publish is sent as-is, and only waits for its
+	// delivery if waitForDelivery is set
+	private MqttPublishWindow publishWindow = null;
+	private int maxInflight = ConfigConst.DEFAULT_MAX_INFLIGHT;
+	private int outboundQueueSize = ConfigConst.DEFAULT_OUTBOUND_QUEUE_SIZE;
+	private MqttPublishWindow.OverflowPolicy outboundQueuePolicy = MqttPublishWindow.OverflowPolicy.BLOCK;
+	private int publishTimeoutMillis = ConfigConst.DEFAULT_PUBLISH_TIMEOUT_MILLIS;
+	private boolean waitForDelivery = false;
+
+	// Paho's callback thread, once a callback has run on it; a publish
+	// made from it can't wait for its delivery, which that thread reports
+	private volatile Thread callbackThread = null;
+
+	// every subscription's handler, by topic filter; see messageArrived()
+	private final MqttTopicRouter<IMqttMessageListener> topicRouter = new MqttTopicRouter<>();
+	private boolean enablePerDeviceTopics = false;
+
+	// set when this is one of several connections (see ShardedMqttClientConnector),
+	// so the default subscriptions are only made by the topic's connection
+	private Predicate<String> topicOwner = null;
 	
 	// constructors
 	
@@ -141,6 +180,18 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 	{
 		try {
 			if (this.mqttClient != null && this.mqttClient.isConnected()) {
+				// send what's still batched or queued while the connection is up
+				if (this.publishBatcher != null) {
+					this.publishBatcher.flushAll();
+					_Logger.info("Publish batcher: " + this.publishBatcher.getMetricsSummary());
+				}
+				if (this.publishWindow != null) {
+					if (! this.publishWindow.awaitDrained(this.publishTimeoutMillis)) {
+						_Logger.warning("Publishes still in flight at disconnect");
+					}
+					_Logger.info("Publish window: " + this.publishWindow.getMetricsSummary());
+				}
+
 				_Logger.info("MQTT client disconnecting to broker: " + this.brokerAddr);
 				this.mqttClient.disconnect();
 				return true;
@@ -154,6 +205,35 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 		return false;
 	}
 
+	/**
+	 * Sets the client ID, which must be unique per broker connection.
+	 * This is set from the config, and should only be changed before
+	 * connecting.
+	 * 
+	 * @param clientID The client ID.
+	 */
+	void setClientID(String clientID)
+	{
+		this.clientID = clientID;
+	}
+
+	String getClientID()
+	{
+		return this.clientID;
+	}
+
+	/**
+	 * Limits the default CDA subscriptions made on connect to the topics
+	 * the predicate accepts; see {@link ShardedMqttClientConnector}.
+	 * 
+	 * @param topicOwner Accepts the topics owned by this connection; null
+	 * for all topics.
+	 */
+	void setTopicOwner(Predicate<String> topicOwner)
+	{
+		this.topicOwner = topicOwner;
+	}
+
 	public boolean isConnected()
 	{
 		return this.mqttClient!=null && this.mqttClient.isConnected();
@@ -165,6 +245,111 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 		return publishMessage(topic.getResourceName(), msg.getBytes(), qos);
 	}
 
+	@Override
+	public boolean publishMessage(ResourceNameEnum topic, byte[] payload, int qos)
+	{
+		return publishMessage(topic.getResourceName(), payload, qos);
+	}
+
+	/**
+	 * Publishes the payload to the resource topic, with the format's
+	 * topic suffix appended (e.g. "/cbor"); JSON has no suffix.
+	 * 
+	 */
+	@Override
+	public boolean publishMessage(ResourceNameEnum topic, byte[] payload, PayloadFormatEnum format, int qos)
+	{
+		if (format == null) {
+			format = PayloadFormatEnum.JSON;
+		}
+
+		return publishMessage(format.getTopic(topic), payload, qos);
+	}
+
+	/**
+	 * Publishes the payload to the resource topic, with the format's
+	 * topic suffix appended, returning a future that completes once the
+	 * message is delivered (for QoS 0, once it's sent).
+	 * <p>
+	 * With the async client, the publish is pipelined through the
+	 * in-flight window (see {@link MqttPublishWindow}), and this returns
+	 * without waiting. Otherwise the publish is synchronous, and the
+	 * future is already complete. A payload for a batched topic
+	 * completes as soon as it's batched.
+	 * 
+	 * @param topic The resource topic.
+	 * @param payload The payload.
+	 * @param format The payload format (JSON if null).
+	 * @param qos The QoS.
+	 * @return CompletableFuture<Boolean> Completes with true once the
+	 * message is delivered; false if it failed, or was dropped or rejected.
+	 */
+	public CompletableFuture<Boolean> publishMessageAsync(
+		ResourceNameEnum topic, byte[] payload, PayloadFormatEnum format, int qos)
+	{
+		if (format == null) {
+			format = PayloadFormatEnum.JSON;
+		}
+
+		return publishMessageAsync(format.getTopic(topic), payload, qos);
+	}
+
+	/**
+	 * Selects pipelined (async) or synchronous publishing; see
+	 * {@link #publishMessageAsync(ResourceNameEnum, byte[], PayloadFormatEnum, int)}.
+	 * This is set from the config, and should only be changed before
+	 * connecting.
+	 * 
+	 * @param useAsyncClient True to pipeline publishes; false to send each as-is.
+	 */
+	public void setUseAsyncClient(boolean useAsyncClient)
+	{
+		this.useAsyncClient = useAsyncClient;
+
+		if (useAsyncClient) {
+			this.publishWindow = new MqttPublishWindow(
+				this::sendPipelinedMessage,
+				this.maxInflight, this.outboundQueueSize, this.outboundQueuePolicy, this.publishTimeoutMillis);
+		} else {
+			this.publishWindow = null;
+		}
+
+		_Logger.info("MQTT publish mode: " + (useAsyncClient ?
+			"pipelined (maxInflight=" + this.maxInflight + ", outboundQueueSize=" + this.outboundQueueSize +
+			", policy=" + this.outboundQueuePolicy.getName() + ")" : "synchronous"));
+	}
+
+	public boolean isUseAsyncClient()
+	{
+		return this.useAsyncClient;
+	}
+
+	/**
+	 * Enables or disables publish batching for the resource topic, in all
+	 * payload formats (see {@link MqttPublishBatcher}). Batching must be
+	 * enabled in the config for this to have any effect.
+	 * 
+	 * @param topic The resource topic.
+	 * @param enable True to batch the topic's payloads; false to publish
+	 * each one as its own message.
+	 * @return boolean True if batching is enabled in the config; false otherwise.
+	 */
+	public boolean setPublishBatching(ResourceNameEnum topic, boolean enable)
+	{
+		if (this.publishBatcher == null) {
+			_Logger.warning("Publish batching isn't enabled. Ignoring topic: " + topic);
+			return false;
+		}
+
+		if (enable) {
+			this.batchTopics.add(topic.getResourceName());
+		} else {
+			this.batchTopics.remove(topic.getResourceName());
+		}
+
+		return true;
+	}
+
 	@Override
 	public boolean subscribeToTopic(ResourceNameEnum topic, int qos)
 	{
@@ -210,9 +395,19 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 		int qos = 1;
 		
 		if (!this.useCloudGatewayConfig) {
-			this.subscribeToTopic(ResourceNameEnum.CDA_ACTUATOR_RESPONSE_RESOURCE, qos);
-			this.subscribeToTopic(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, qos);
-			this.subscribeToTopic(ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE, qos);
+			// CDA messages are accepted in any format, on a topic per format
+			for (PayloadFormatEnum format : PayloadFormatEnum.values()) {
+				subscribeToOwnedTopic(format.getTopic(ResourceNameEnum.CDA_ACTUATOR_RESPONSE_RESOURCE), qos);
+				subscribeToOwnedTopic(format.getTopic(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE), qos);
+				subscribeToOwnedTopic(format.getTopic(ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE), qos);
+
+				// and on a topic per device, e.g. PIOT/ConstrainedDevice/SensorMsg/<device ID>/cbor
+				if (this.enablePerDeviceTopics) {
+					subscribeToOwnedTopic(getPerDeviceTopicFilter(ResourceNameEnum.CDA_ACTUATOR_RESPONSE_RESOURCE, format), qos);
+					subscribeToOwnedTopic(getPerDeviceTopicFilter(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, format), qos);
+					subscribeToOwnedTopic(getPerDeviceTopicFilter(ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE, format), qos);
+				}
+			}
 		}
 
 		if (this.connectionListener != null) {
@@ -230,48 +425,35 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 	public void deliveryComplete(IMqttDeliveryToken token)
 	{
 		// _Logger.info("Delivered MQTT message with ID: " + token.getMessageId());
+
+		this.callbackThread = Thread.currentThread();
+
+		// completes a pipelined publish (see sendPipelinedMessage())
+		completeDelivery(token.getUserContext(), true);
 	}
 	
+	/**
+	 * Dispatches the message to the handler routed from the most specific
+	 * subscribed topic filter matching the topic (see {@link MqttTopicRouter}).
+	 * Subscriptions are made without a Paho listener, since Paho matches
+	 * each message against every listener's filter in turn.
+	 * 
+	 */
 	@Override
 	public void messageArrived(String topic, MqttMessage msg) throws Exception
 	{
-		_Logger.info("MQTT message arrived on topic: '" + topic + "'");
+		_EventLogger.infoSampled("mqtt.message.arrived", topic, "topic", topic, "bytes", msg.getPayload().length);
 
-		ResourceNameEnum resource = getResourceFromTopic(topic);
+		this.callbackThread = Thread.currentThread();
 
-		try {
-			switch (resource) {
-				case CDA_ACTUATOR_RESPONSE_RESOURCE:
-					ActuatorData ad = DataUtil.getInstance()
-						.jsonToActuatorData(new String(msg.getPayload()));
-					this.dataMsgListener.handleActuatorCommandResponse(
-						ResourceNameEnum.CDA_ACTUATOR_RESPONSE_RESOURCE, ad
-					);
-					return;
-
-				case CDA_SENSOR_MSG_RESOURCE:
-					SensorData sd = DataUtil.getInstance()
-						.jsonToSensorData(new String(msg.getPayload()));
-					this.dataMsgListener.handleSensorMessage(
-						ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, sd
-					);
-					return;
-			
-				case CDA_SYSTEM_PERF_MSG_RESOURCE:
-					SystemPerformanceData spd = DataUtil.getInstance()
-						.jsonToSystemPerformanceData(new String(msg.getPayload()));
-					this.dataMsgListener.handleSystemPerformanceMessage(
-						ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE, spd
-					);
-					return;
-			
-				default:
-					break;
-			}
-		} catch (Exception e) {
-			_Logger.severe("Invalid message payload");
-			throw new Exception("Invalid message payload");
+		IMqttMessageListener handler = this.topicRouter.route(topic);
+
+		if (handler == null) {
+			_EventLogger.logSampled(Level.WARNING, "mqtt.message.unrouted", topic, "topic", topic);
+			return;
 		}
+
+		handler.messageArrived(topic, msg);
 	}
 
 	// protected methods
@@ -284,15 +466,32 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 	 * @return
 	 */
 	protected boolean publishMessage(String topic, byte[] msg, int qos)
+	{
+		// when pipelined, the publish succeeds unless it's already failed
+		// (e.g. rejected by the full outbound queue)
+		return isAccepted(publishMessageAsync(topic, msg, qos));
+	}
+
+	/**
+	 * Publishes the payload to the topic; see
+	 * {@link #publishMessageAsync(ResourceNameEnum, byte[], PayloadFormatEnum, int)}.
+	 * 
+	 * @param topic The topic.
+	 * @param msg The payload.
+	 * @param qos The QoS (the configured default if invalid).
+	 * @return CompletableFuture<Boolean> Completes with true once the
+	 * message is delivered; false otherwise.
+	 */
+	protected CompletableFuture<Boolean> publishMessageAsync(String topic, byte[] msg, int qos)
 	{
 		// validations
 		if (topic == null) {
 			// _Logger.warning("Resource is null. Unable to publish message: " + this.brokerAddr);
-			return false;
+			return CompletableFuture.completedFuture(false);
 		}
 		if (msg == null || msg.length == 0) {
 			// _Logger.warning("Message is null or empty. Unable to publish message: " + this.brokerAddr);
-			return false;
+			return CompletableFuture.completedFuture(false);
 		}
 		if (qos<0 || qos>2) {
 			qos = ConfigUtil.getInstance().getInteger(
@@ -302,17 +501,34 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 			);
 		}
 
-		// publish
-		try {
-			MqttMessage mqttMsg = new MqttMessage(msg);
-			mqttMsg.setQos(qos);
-			this.mqttClient.publish(topic, mqttMsg);
-			return true;
-		} catch  (Exception e) {
-			// _Logger.severe("Failed to publish message to topic '" + topic + "': " + e);
+		// batched topics are published by the batcher, once the batch is
+		// full or its window has passed
+		if (this.publishBatcher != null &&
+			this.batchTopics.contains(PayloadFormatEnum.getEnumFromTopic(topic).stripTopicSuffix(topic))) {
+			return CompletableFuture.completedFuture(this.publishBatcher.add(topic, msg, qos));
 		}
 
-		return false;
+		return sendMqttMessage(topic, msg, qos);
+	}
+
+	/**
+	 * Subscribes to a topic that doesn't follow the resource naming (e.g.
+	 * a cloud service's), handing its messages to the data message
+	 * listener as the given resource, in the topic's payload format.
+	 * 
+	 * @param topic The topic or topic filter.
+	 * @param resource The resource to hand the messages on as.
+	 * @param qos The QoS.
+	 * @return boolean True if subscribed; false otherwise.
+	 */
+	protected boolean subscribeToTopic(String topic, ResourceNameEnum resource, int qos)
+	{
+		if (topic == null || resource == null) {
+			_Logger.warning("Topic or resource is null. Unable to subscribe: " + this.brokerAddr);
+			return false;
+		}
+
+		return subscribeToTopic(topic, qos, new ResourceMessageListener(resource, PayloadFormatEnum.getEnumFromTopic(topic)));
 	}
 
 	/**
@@ -336,15 +552,36 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 			);
 		}
 
+		// without a listener, messages go to the data message listener as
+		// the topic's resource
+		if (listener == null) {
+			ResourceNameEnum resource = getResourceFromTopicFilter(topic);
+
+			if (resource == null) {
+				_Logger.warning("No resource or listener for topic. Unable to subscribe: " + topic);
+				return false;
+			}
+
+			listener = new ResourceMessageListener(resource, PayloadFormatEnum.getEnumFromTopic(topic));
+		}
+
 		// subscribe
 		try {
-			if (listener != null) {
-				this.mqttClient.subscribe(topic, qos, listener);
-				_Logger.info("Successfully subscribed to topic with listener: " + topic);
-			} else {
+			IMqttMessageListener replaced = this.topicRouter.addRoute(topic, listener);
+
+			try {
 				this.mqttClient.subscribe(topic, qos);
-				_Logger.info("Successfully subscribed to topic: " + topic);
+			} catch (Exception e) {
+				if (replaced != null) {
+					this.topicRouter.addRoute(topic, replaced);
+				} else {
+					this.topicRouter.removeRoute(topic);
+				}
+
+				throw e;
 			}
+
+			_Logger.info("Successfully subscribed to topic: " + topic);
 			return true;
 		} catch (Exception e) {
 			_Logger.severe("Failed to subscribe to topic '" + topic + "': " + e);
@@ -369,6 +606,7 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 		// unsubscribe
 		try {
 			this.mqttClient.unsubscribe(topic);
+			this.topicRouter.removeRoute(topic);
 			_Logger.info("Successfully unsubscribed from topic: " + topic);
 			return true;
 		} catch (Exception e) {
@@ -380,6 +618,103 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 
 	// private methods
 	
+	/**
+	 * Publishes the payload as a single MQTT message. This is the
+	 * publisher for {@link MqttPublishBatcher}.
+	 * 
+	 * @param topic The topic.
+	 * @param msg The payload (or batch frame).
+	 * @param qos The (validated) QoS.
+	 * @return boolean True if the message was published (or, when
+	 * pipelined, accepted); false otherwise.
+	 */
+	private boolean publishMqttMessage(String topic, byte[] msg, int qos)
+	{
+		return isAccepted(sendMqttMessage(topic, msg, qos));
+	}
+
+	private CompletableFuture<Boolean> sendMqttMessage(String topic, byte[] msg, int qos)
+	{
+		MqttPublishWindow window = this.publishWindow;
+
+		if (window != null) {
+			// the callback thread frees the room it would wait for
+			return window.publish(topic, msg, qos, Thread.currentThread() != this.callbackThread);
+		}
+
+		return CompletableFuture.completedFuture(sendSynchronousMessage(topic, msg, qos));
+	}
+
+	/**
+	 * Publishes the message. If waitForDelivery is set, it also waits for
+	 * it to be delivered, up to the publish timeout - except on Paho's
+	 * callback thread (e.g. a publish made from a message handler), where
+	 * a QoS 1 or 2 delivery is only reported once that thread is free, so
+	 * waiting would always time out.
+	 */
+	private boolean sendSynchronousMessage(String topic, byte[] msg, int qos)
+	{
+		try {
+			MqttMessage mqttMsg = new MqttMessage(msg);
+			mqttMsg.setQos(qos);
+
+			IMqttDeliveryToken token = this.mqttClient.publish(topic, mqttMsg);
+
+			if (this.waitForDelivery && Thread.currentThread() != this.callbackThread) {
+				token.waitForCompletion(this.publishTimeoutMillis);
+			}
+
+			return true;
+		} catch  (Exception e) {
+			_EventLogger.logSampled(Level.WARNING, "mqtt.publish.failed", topic, "topic", topic, "error", e);
+		}
+
+		return false;
+	}
+
+	/**
+	 * The {@link MqttPublishWindow} sender: publishes the message without
+	 * waiting, and returns a future completed by {@link #deliveryComplete(IMqttDeliveryToken)},
+	 * or by the action listener if the publish fails.
+	 */
+	private CompletableFuture<Boolean> sendPipelinedMessage(String topic, byte[] msg, int qos) throws MqttException
+	{
+		CompletableFuture<Boolean> delivery = new CompletableFuture<>();
+
+		MqttMessage mqttMsg = new MqttMessage(msg);
+		mqttMsg.setQos(qos);
+
+		this.mqttClient.publish(topic, mqttMsg, delivery, new IMqttActionListener() {
+			@Override
+			public void onSuccess(IMqttToken token)
+			{
+				completeDelivery(token.getUserContext(), true);
+			}
+
+			@Override
+			public void onFailure(IMqttToken token, Throwable t)
+			{
+				_EventLogger.logSampled(Level.WARNING, "mqtt.publish.failed", topic, "topic", topic, "error", t);
+				completeDelivery(token.getUserContext(), false);
+			}
+		});
+
+		return delivery;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void completeDelivery(Object userContext, boolean success)
+	{
+		if (userContext instanceof CompletableFuture) {
+			((CompletableFuture<Boolean>) userContext).complete(success);
+		}
+	}
+
+	private boolean isAccepted(CompletableFuture<Boolean> delivery)
+	{
+		return ! delivery.isDone() || delivery.getNow(false);
+	}
+	
 	/**
 	 * Called by the constructor to set the MQTT client parameters to be used for the connection.
 	 * 
@@ -390,22 +725,36 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 	{
 		ConfigUtil cu = ConfigUtil.getInstance();
 
-		// NOTE this is using sync client
+		// NOTE the client is always async; useAsyncClient (read below) selects
+		// pipelined publishing, and without it each publish is sent as-is,
+		// waiting for delivery only if waitForDelivery is set
 
 		this.host = cu.getProperty(configSectionName, ConfigConst.HOST_KEY, ConfigConst.DEFAULT_HOST);
 		this.port = cu.getInteger(configSectionName, ConfigConst.PORT_KEY, ConfigConst.DEFAULT_MQTT_SECURE_PORT);
 		this.brokerKeepAlive = cu.getInteger(configSectionName, ConfigConst.KEEP_ALIVE_KEY, ConfigConst.DEFAULT_KEEP_ALIVE);
 		this.enableEncryption = cu.getBoolean(configSectionName, ConfigConst.ENABLE_CRYPT_KEY);
 		this.caFileName = cu.getProperty(configSectionName, ConfigConst.CERT_FILE_KEY, null);
-		// this.useAsyncClient = cu.getProperty(ConfigConst.MQTT_GATEWAY_SERVICE, ConfigConst.USE_ASYNC_CLIENT_KEY);
+		this.maxInflight = cu.getInteger(configSectionName, ConfigConst.MAX_INFLIGHT_KEY, ConfigConst.DEFAULT_MAX_INFLIGHT);
+		this.outboundQueueSize = cu.getInteger(configSectionName, ConfigConst.OUTBOUND_QUEUE_SIZE_KEY, ConfigConst.DEFAULT_OUTBOUND_QUEUE_SIZE);
+		this.publishTimeoutMillis = cu.getInteger(configSectionName, ConfigConst.PUBLISH_TIMEOUT_MILLIS_KEY, ConfigConst.DEFAULT_PUBLISH_TIMEOUT_MILLIS);
+		this.waitForDelivery = cu.getBoolean(configSectionName, ConfigConst.WAIT_FOR_DELIVERY_KEY);
+
+		MqttPublishWindow.OverflowPolicy policy = MqttPublishWindow.OverflowPolicy.getEnumFromValue(
+			cu.getProperty(configSectionName, ConfigConst.OUTBOUND_QUEUE_POLICY_KEY, null));
+
+		if (policy != null) {
+			this.outboundQueuePolicy = policy;
+		}
+
 		this.clientID = cu.getProperty(ConfigConst.GATEWAY_DEVICE, ConfigConst.DEVICE_LOCATION_ID_KEY, MqttClient.generateClientId());
 		
-		this.persistence = new MemoryPersistence();
+		this.persistence = createPersistence(configSectionName);
 		this.connOptions = new MqttConnectOptions();
 
 		this.connOptions.setKeepAliveInterval(this.brokerKeepAlive);
 		this.connOptions.setCleanSession(this.useCleanSession);
 		this.connOptions.setAutomaticReconnect(this.enableAutoReconnect);
+		this.connOptions.setMaxInflight(this.maxInflight);
 		
 		try {
 			if (this.enableEncryption) { initSecureConnectionParameters(configSectionName); }
@@ -419,9 +768,62 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 
 		this.brokerAddr  = this.protocol + "://" + this.host + ":" + this.port;
 
+		setUseAsyncClient(cu.getBoolean(configSectionName, ConfigConst.USE_ASYNC_CLIENT_KEY));
+
+		this.enablePerDeviceTopics = cu.getBoolean(configSectionName, ConfigConst.ENABLE_PER_DEVICE_TOPICS_KEY);
+
+		if (cu.getBoolean(configSectionName, ConfigConst.ENABLE_PUBLISH_BATCHING_KEY)) {
+			this.publishBatcher = new MqttPublishBatcher(
+				this::publishMqttMessage,
+				cu.getInteger(configSectionName, ConfigConst.BATCH_WINDOW_MILLIS_KEY, ConfigConst.DEFAULT_BATCH_WINDOW_MILLIS),
+				cu.getInteger(configSectionName, ConfigConst.BATCH_MAX_BYTES_KEY, ConfigConst.DEFAULT_BATCH_MAX_BYTES),
+				cu.getInteger(configSectionName, ConfigConst.BATCH_MAX_COUNT_KEY, ConfigConst.DEFAULT_BATCH_MAX_COUNT));
+
+			String topics = cu.getProperty(configSectionName, ConfigConst.BATCH_TOPICS_KEY, "");
+
+			for (String topic : topics.split(",")) {
+				if (topic.trim().length() > 0) {
+					this.batchTopics.add(topic.trim());
+				}
+			}
+
+			_Logger.info("Publish batching enabled for topics: " + this.batchTopics);
+		}
+
 		_Logger.info("Client initialized: " + this.brokerAddr);
 	}
 	
+	/**
+	 * Called by {@link #initClientParameters(String)} to create the
+	 * persistence for in-flight messages: in memory, or (with
+	 * mqttPersistence = file) in memory-mapped segment files; see
+	 * {@link MqttMappedFilePersistence}.
+	 * 
+	 * @param configSectionName The name of the configuration section to use for
+	 * the MQTT client configuration parameters.
+	 * @return MqttClientPersistence
+	 */
+	private MqttClientPersistence createPersistence(String configSectionName)
+	{
+		ConfigUtil cu = ConfigUtil.getInstance();
+
+		String type = cu.getProperty(configSectionName, ConfigConst.MQTT_PERSISTENCE_KEY, ConfigConst.MQTT_PERSISTENCE_MEMORY);
+
+		if (ConfigConst.MQTT_PERSISTENCE_FILE.equalsIgnoreCase(type.trim())) {
+			String path = cu.getProperty(
+				configSectionName, ConfigConst.MQTT_PERSISTENCE_PATH_KEY, ConfigConst.DEFAULT_MQTT_PERSISTENCE_PATH);
+
+			_Logger.info("Using MQTT file persistence: " + path);
+
+			return new MqttMappedFilePersistence(
+				Paths.get(path),
+				cu.getInteger(configSectionName, ConfigConst.MQTT_PERSISTENCE_SEGMENT_SIZE_KEY, ConfigConst.DEFAULT_MQTT_PERSISTENCE_SEGMENT_SIZE),
+				cu.getBoolean(configSectionName, ConfigConst.MQTT_PERSISTENCE_SYNC_WRITES_KEY));
+		}
+
+		return new MemoryPersistence();
+	}
+
 	/**
 	 * Called by {@link #initClientParameters(String)} to load credentials.
 	 * 
@@ -496,13 +898,82 @@ public class MqttClientConnector implements IPubSubClient, MqttCallbackExtended
 		}
 	}
 	
-	private ResourceNameEnum getResourceFromTopic(String topic)
+	/**
+	 * Returns the resource for the topic filter, without its format
+	 * suffix, and ignoring any levels after the resource name (e.g. a
+	 * device ID, or wildcard).
+	 * 
+	 * @param topicFilter The topic filter.
+	 * @return ResourceNameEnum The resource, or null if there's none.
+	 */
+	private ResourceNameEnum getResourceFromTopicFilter(String topicFilter)
+	{
+		String name = PayloadFormatEnum.getEnumFromTopic(topicFilter).stripTopicSuffix(topicFilter);
+		ResourceNameEnum resource = ResourceNameEnum.getEnumFromValue(name);
+
+		for (int i = name.lastIndexOf('/'); resource == null && i > 0; i = name.lastIndexOf('/')) {
+			name = name.substring(0, i);
+			resource = ResourceNameEnum.getEnumFromValue(name);
+		}
+
+		return resource;
+	}
+
+	private void subscribeToOwnedTopic(String topic, int qos)
+	{
+		if (this.topicOwner == null || this.topicOwner.test(topic)) {
+			subscribeToTopic(topic, qos, null);
+		}
+	}
+
+	private String getPerDeviceTopicFilter(ResourceNameEnum resource, PayloadFormatEnum format)
 	{
-		for (ResourceNameEnum resource : ResourceNameEnum.values()) {
-			if (topic.equals(resource.getResourceName())) {
-				return resource;
+		return resource.getResourceName() + "/" + MqttTopicRouter.SINGLE_LEVEL_WILDCARD + format.getTopicSuffix();
+	}
+
+
+	/**
+	 * Hands the messages on a topic to the data message listener, as its
+	 * resource and payload format, unbatching any batch frames.
+	 * 
+	 */
+	private class ResourceMessageListener implements IMqttMessageListener
+	{
+		private final ResourceNameEnum resource;
+		private final PayloadFormatEnum format;
+
+		ResourceMessageListener(ResourceNameEnum resource, PayloadFormatEnum format)
+		{
+			this.resource = resource;
+			this.format = format;
+		}
+
+		@Override
+		public void messageArrived(String topic, MqttMessage msg) throws Exception
+		{
+			IDataMessageListener listener = dataMsgListener;
+
+			if (listener == null) {
+				_Logger.warning("No data message listener set. Ignoring message on topic: " + topic);
+				return;
+			}
+
+			// decoding is left to the listener, which may defer it to
+			// another thread so this callback thread isn't held up
+			try {
+				byte[] payload = msg.getPayload();
+
+				if (MqttBatchCodec.isBatch(payload)) {
+					for (byte[] batchedPayload : MqttBatchCodec.decode(payload)) {
+						listener.handleRawDataMessage(this.resource, batchedPayload, this.format);
+					}
+				} else {
+					listener.handleRawDataMessage(this.resource, payload, this.format);
+				}
+			} catch (Exception e) {
+				_Logger.severe("Invalid message payload");
+				throw new Exception("Invalid message payload");
 			}
 		}
-		return ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE;
 	}
 }
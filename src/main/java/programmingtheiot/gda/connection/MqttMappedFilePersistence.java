@@ -0,0 +1,607 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+import org.eclipse.paho.client.mqttv3.internal.MqttPersistentData;
+
+/**
+ * Persists the MQTT client's in-flight (QoS 1 and 2) messages in
+ * memory-mapped, append-only segment files, so they survive a crash
+ * or restart, and are resent when the client reconnects (without a
+ * clean session).
+ * <p>
+ * Each put or remove appends a record to the active segment: the
+ * record type, a CRC32, the key, header and payload lengths, then their
+ * bytes. A full segment is sealed and a new one started. An in-memory
+ * index maps each key to its latest record, so a get reads the mapped
+ * segment directly. Writes only touch the page cache, which survives a
+ * process crash; with syncWrites, each write is also forced to disk,
+ * which survives a power loss but is much slower.
+ * <p>
+ * Sealed segments are deleted oldest first, once they hold no live
+ * records (the remove records they hold only cancel puts in the same
+ * or older segments, which are already gone). If the oldest segment
+ * is mostly dead, its live records are compacted, i.e. appended to the
+ * active segment, so it can be deleted. On open, the segments are
+ * replayed to rebuild the index; a torn record at the end of a segment
+ * (failing its length or CRC check) ends that segment.
+ * <p>
+ * Each client's segments are in their own directory under the base
+ * directory, named for the client ID and server URI. Instances are
+ * thread-safe.
+ *
+ */
+public class MqttMappedFilePersistence implements MqttClientPersistence
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(MqttMappedFilePersistence.class.getName());
+
+	public static final String SEGMENT_PREFIX = "segment-";
+	public static final String SEGMENT_SUFFIX = ".log";
+
+	public static final int MIN_SEGMENT_SIZE = 4096;
+
+	private static final int RECORD_PUT    = 1;
+	private static final int RECORD_REMOVE = 2;
+
+	// type, CRC, key length, header length, payload length
+	private static final int RECORD_HEADER_SIZE = 20;
+
+	// compact the oldest segment when at most this fraction is live
+	private static final float COMPACT_LIVE_RATIO = 0.5f;
+
+
+	// private var's
+
+	private final Path baseDir;
+	private final int  segmentSize;
+	private final boolean syncWrites;
+
+	private Path clientDir = null;
+
+	// guarded by this
+	private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+	private final Map<String, Entry> index = new HashMap<>();
+	private final CRC32 crc = new CRC32();
+
+	private Segment activeSegment = null;
+	private int nextSegmentId = 0;
+
+	private long putCount        = 0L;
+	private long removeCount     = 0L;
+	private long compactedCount  = 0L;
+	private long deletedSegCount = 0L;
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param baseDir The directory for each client's segment directory.
+	 * @param segmentSize The size of each segment file, in bytes (at
+	 * least {@link #MIN_SEGMENT_SIZE}); a record larger than this gets a
+	 * segment of its own size.
+	 * @param syncWrites True to force each write to disk.
+	 */
+	public MqttMappedFilePersistence(Path baseDir, int segmentSize, boolean syncWrites)
+	{
+		super();
+
+		if (baseDir == null) {
+			throw new IllegalArgumentException("Base directory is null");
+		}
+
+		this.baseDir = baseDir;
+		this.segmentSize = Math.max(segmentSize, MIN_SEGMENT_SIZE);
+		this.syncWrites = syncWrites;
+	}
+
+
+	// public methods
+
+	@Override
+	public synchronized void open(String clientId, String serverURI) throws MqttPersistenceException
+	{
+		if (this.activeSegment != null) {
+			throw new MqttPersistenceException(MqttPersistenceException.REASON_CODE_PERSISTENCE_IN_USE);
+		}
+
+		this.clientDir = this.baseDir.resolve(toDirName(clientId + "-" + serverURI));
+
+		try {
+			Files.createDirectories(this.clientDir);
+
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(this.clientDir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+				for (Path file : files) {
+					Integer id = toSegmentId(file);
+
+					if (id != null) {
+						this.segments.put(id, openSegment(id, file, 0));
+						this.nextSegmentId = Math.max(this.nextSegmentId, id + 1);
+					}
+				}
+			}
+
+			for (Segment segment : this.segments.values()) {
+				replay(segment);
+			}
+
+			if (this.segments.isEmpty()) {
+				startSegment(this.segmentSize);
+			} else {
+				this.activeSegment = this.segments.lastEntry().getValue();
+			}
+
+			compact();
+		} catch (IOException e) {
+			closeSegments();
+			throw new MqttPersistenceException(e);
+		}
+
+		_Logger.info("Opened MQTT persistence: " + this.clientDir + " (" + getMetricsSummary() + ")");
+	}
+
+	@Override
+	public synchronized void close() throws MqttPersistenceException
+	{
+		if (this.activeSegment == null) {
+			return;
+		}
+
+		_Logger.info("Closing MQTT persistence: " + this.clientDir + " (" + getMetricsSummary() + ")");
+
+		closeSegments();
+	}
+
+	@Override
+	public synchronized void put(String key, MqttPersistable persistable) throws MqttPersistenceException
+	{
+		checkIsOpen();
+
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+		int headerLength  = (persistable.getHeaderBytes() != null ? persistable.getHeaderLength() : 0);
+		int payloadLength = (persistable.getPayloadBytes() != null ? persistable.getPayloadLength() : 0);
+
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + keyBytes.length + headerLength + payloadLength);
+
+		record.putInt(RECORD_PUT).putInt(0).putInt(keyBytes.length).putInt(headerLength).putInt(payloadLength);
+		record.put(keyBytes);
+
+		if (headerLength > 0) {
+			record.put(persistable.getHeaderBytes(), persistable.getHeaderOffset(), headerLength);
+		}
+		if (payloadLength > 0) {
+			record.put(persistable.getPayloadBytes(), persistable.getPayloadOffset(), payloadLength);
+		}
+
+		Entry entry = track(append(record));
+
+		release(this.index.put(key, entry));
+		this.putCount++;
+
+		compact();
+	}
+
+	@Override
+	public synchronized MqttPersistable get(String key) throws MqttPersistenceException
+	{
+		checkIsOpen();
+
+		Entry entry = this.index.get(key);
+
+		if (entry == null) {
+			return null;
+		}
+
+		ByteBuffer buffer = entry.segment.buffer.duplicate();
+		buffer.position(entry.offset + 8);
+
+		int keyLength     = buffer.getInt();
+		int headerLength  = buffer.getInt();
+		int payloadLength = buffer.getInt();
+
+		byte[] header  = new byte[headerLength];
+		byte[] payload = new byte[payloadLength];
+
+		buffer.position(buffer.position() + keyLength);
+		buffer.get(header).get(payload);
+
+		return new MqttPersistentData(key, header, 0, headerLength, payload, 0, payloadLength);
+	}
+
+	@Override
+	public synchronized void remove(String key) throws MqttPersistenceException
+	{
+		checkIsOpen();
+
+		Entry entry = this.index.remove(key);
+
+		if (entry == null) {
+			return;
+		}
+
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + keyBytes.length);
+
+		record.putInt(RECORD_REMOVE).putInt(0).putInt(keyBytes.length).putInt(0).putInt(0);
+		record.put(keyBytes);
+
+		append(record);
+		release(entry);
+		this.removeCount++;
+
+		compact();
+	}
+
+	@Override
+	public synchronized Enumeration<String> keys() throws MqttPersistenceException
+	{
+		checkIsOpen();
+
+		return Collections.enumeration(new ArrayList<>(this.index.keySet()));
+	}
+
+	@Override
+	public synchronized void clear() throws MqttPersistenceException
+	{
+		checkIsOpen();
+
+		this.index.clear();
+
+		for (Segment segment : new ArrayList<>(this.segments.values())) {
+			deleteSegment(segment);
+		}
+
+		try {
+			startSegment(this.segmentSize);
+		} catch (IOException e) {
+			throw new MqttPersistenceException(e);
+		}
+	}
+
+	@Override
+	public synchronized boolean containsKey(String key) throws MqttPersistenceException
+	{
+		checkIsOpen();
+
+		return this.index.containsKey(key);
+	}
+
+	public synchronized int getSegmentCount()
+	{
+		return this.segments.size();
+	}
+
+	/**
+	 * Returns the counts, in the same "key=value" CSV format as the
+	 * other metrics summaries.
+	 *
+	 * @return String
+	 */
+	public synchronized String getMetricsSummary()
+	{
+		long liveBytes = 0L;
+
+		for (Segment segment : this.segments.values()) {
+			liveBytes += segment.liveBytes;
+		}
+
+		return "keys=" + this.index.size() + ",segments=" + this.segments.size() + ",liveBytes=" + liveBytes +
+			",puts=" + this.putCount + ",removes=" + this.removeCount +
+			",compacted=" + this.compactedCount + ",deletedSegments=" + this.deletedSegCount;
+	}
+
+
+	// private methods
+
+	private void checkIsOpen() throws MqttPersistenceException
+	{
+		if (this.activeSegment == null) {
+			throw new MqttPersistenceException();
+		}
+	}
+
+	// appends the record (with its CRC still 0) to the active segment,
+	// starting a new one if it doesn't fit
+	private Entry append(ByteBuffer record) throws MqttPersistenceException
+	{
+		byte[] bytes = record.array();
+
+		this.crc.reset();
+		this.crc.update(bytes, 8, bytes.length - 8);
+		record.putInt(4, (int) this.crc.getValue());
+
+		try {
+			if (this.activeSegment.writePos + bytes.length > this.activeSegment.buffer.capacity()) {
+				startSegment(Math.max(this.segmentSize, bytes.length));
+			}
+		} catch (IOException e) {
+			throw new MqttPersistenceException(e);
+		}
+
+		Segment segment = this.activeSegment;
+		ByteBuffer buffer = segment.buffer.duplicate();
+
+		buffer.position(segment.writePos);
+		buffer.put(bytes);
+
+		Entry entry = new Entry(segment, segment.writePos, bytes.length);
+
+		segment.writePos += bytes.length;
+
+		if (this.syncWrites) {
+			segment.buffer.force();
+		}
+
+		return entry;
+	}
+
+	// counts a put record's entry as live in its segment; remove records
+	// are never live
+	private Entry track(Entry entry)
+	{
+		entry.segment.liveCount++;
+		entry.segment.liveBytes += entry.length;
+
+		return entry;
+	}
+
+	private void release(Entry entry)
+	{
+		if (entry != null) {
+			entry.segment.liveCount--;
+			entry.segment.liveBytes -= entry.length;
+		}
+	}
+
+	// deletes the oldest sealed segments with no live records, and
+	// compacts the oldest if it's mostly dead
+	private void compact() throws MqttPersistenceException
+	{
+		while (this.segments.size() > 1) {
+			Segment oldest = this.segments.firstEntry().getValue();
+
+			if (oldest == this.activeSegment) {
+				return;
+			}
+
+			if (oldest.liveCount > 0) {
+				if (oldest.liveBytes > oldest.writePos * COMPACT_LIVE_RATIO) {
+					return;
+				}
+
+				for (Map.Entry<String, Entry> e : new ArrayList<>(this.index.entrySet())) {
+					Entry entry = e.getValue();
+
+					if (entry.segment == oldest) {
+						ByteBuffer record = ByteBuffer.allocate(entry.length);
+						ByteBuffer buffer = oldest.buffer.duplicate();
+
+						buffer.position(entry.offset).limit(entry.offset + entry.length);
+						record.put(buffer);
+						record.putInt(4, 0);
+
+						e.setValue(track(append(record)));
+						release(entry);
+						this.compactedCount++;
+					}
+				}
+			}
+
+			deleteSegment(oldest);
+		}
+	}
+
+	// rebuilds the index from the segment's records
+	private void replay(Segment segment)
+	{
+		ByteBuffer buffer = segment.buffer.duplicate();
+		int pos = 0;
+
+		while (pos + RECORD_HEADER_SIZE <= buffer.capacity()) {
+			buffer.position(pos);
+
+			int type          = buffer.getInt();
+			int recordCrc     = buffer.getInt();
+			int keyLength     = buffer.getInt();
+			int headerLength  = buffer.getInt();
+			int payloadLength = buffer.getInt();
+
+			if (type != RECORD_PUT && type != RECORD_REMOVE) {
+				break;
+			}
+
+			long length = (long) RECORD_HEADER_SIZE + keyLength + headerLength + payloadLength;
+
+			if (keyLength < 0 || headerLength < 0 || payloadLength < 0 || pos + length > buffer.capacity()) {
+				break;
+			}
+
+			byte[] bytes = new byte[(int) length];
+
+			buffer.position(pos);
+			buffer.get(bytes);
+
+			this.crc.reset();
+			this.crc.update(bytes, 8, bytes.length - 8);
+
+			if ((int) this.crc.getValue() != recordCrc) {
+				break;
+			}
+
+			String key = new String(bytes, RECORD_HEADER_SIZE, keyLength, StandardCharsets.UTF_8);
+
+			if (type == RECORD_PUT) {
+				release(this.index.put(key, track(new Entry(segment, pos, bytes.length))));
+			} else {
+				release(this.index.remove(key));
+			}
+
+			pos += bytes.length;
+		}
+
+		// zero a torn record, so it isn't mistaken for one once overwritten
+		if (pos + 4 <= buffer.capacity() && buffer.getInt(pos) != 0) {
+			_Logger.warning("Truncating torn MQTT persistence record: " + segment.path + " at " + pos);
+
+			for (int i = pos; i < buffer.capacity(); i++) {
+				segment.buffer.put(i, (byte) 0);
+			}
+		}
+
+		segment.writePos = pos;
+	}
+
+	private void startSegment(int size) throws IOException
+	{
+		int id = this.nextSegmentId++;
+
+		Segment segment = openSegment(id, this.clientDir.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX)), size);
+
+		this.segments.put(id, segment);
+		this.activeSegment = segment;
+	}
+
+	private Segment openSegment(int id, Path path, int size) throws IOException
+	{
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			// an existing segment is mapped at its own size
+			long mapSize = (size > 0 ? size : channel.size());
+
+			return new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, mapSize));
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private void deleteSegment(Segment segment)
+	{
+		this.segments.remove(segment.id);
+		this.deletedSegCount++;
+
+		try {
+			segment.channel.close();
+			Files.deleteIfExists(segment.path);
+		} catch (IOException e) {
+			// the mapping is only released once it's garbage collected,
+			// which on some platforms blocks deleting the file
+			_Logger.warning("Failed to delete MQTT persistence segment: " + segment.path + ". " + e);
+		}
+	}
+
+	private void closeSegments()
+	{
+		for (Segment segment : this.segments.values()) {
+			try {
+				segment.buffer.force();
+				segment.channel.close();
+			} catch (IOException e) {
+				_Logger.warning("Failed to close MQTT persistence segment: " + segment.path + ". " + e);
+			}
+		}
+
+		this.segments.clear();
+		this.index.clear();
+		this.activeSegment = null;
+	}
+
+	private Integer toSegmentId(Path file)
+	{
+		String name = file.getFileName().toString();
+
+		try {
+			return Integer.valueOf(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	// as with Paho's file persistence, keeps only letters, digits and '-'
+	private static String toDirName(String name)
+	{
+		StringBuilder dirName = new StringBuilder(name.length());
+
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+
+			if (Character.isLetterOrDigit(c) || c == '-') {
+				dirName.append(c);
+			}
+		}
+
+		return dirName.toString();
+	}
+
+
+	private static class Segment
+	{
+		final int id;
+		final Path path;
+		final FileChannel channel;
+		final MappedByteBuffer buffer;
+
+		int writePos  = 0;
+		int liveCount = 0;
+		int liveBytes = 0;
+
+		Segment(int id, Path path, FileChannel channel, MappedByteBuffer buffer)
+		{
+			this.id = id;
+			this.path = path;
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+	}
+
+	// the location of a key's latest put record
+	private static class Entry
+	{
+		final Segment segment;
+		final int offset;
+		final int length;
+
+		Entry(Segment segment, int offset, int length)
+		{
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+}
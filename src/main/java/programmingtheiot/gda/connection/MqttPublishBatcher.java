@@ -0,0 +1,301 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.connection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ThreadUtil;
+
+/**
+ * Coalesces payloads published to the same topic in a burst into one
+ * framed MQTT message (see {@link MqttBatchCodec}), cutting the per
+ * message broker and transport overhead at high publish rates.
+ * <p>
+ * A topic's batch is published when its window has passed since the
+ * first payload was added, or as soon as it reaches the max payload
+ * count or max byte size, whichever comes first. A batch holding a
+ * single payload is published as is, without a frame, so a topic with
+ * a low publish rate is unchanged on the wire. A batch is published
+ * with the highest QoS of its payloads.
+ * <p>
+ * Payloads are published in the order they were added, per topic.
+ * Instances are thread-safe.
+ *
+ */
+public class MqttPublishBatcher
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(MqttPublishBatcher.class.getName());
+
+	/**
+	 * Publishes a batch (or single payload) to the broker.
+	 *
+	 */
+	@FunctionalInterface
+	public interface Publisher
+	{
+		boolean publish(String topic, byte[] payload, int qos);
+	}
+
+
+	// private var's
+
+	private final Publisher publisher;
+	private final long windowMillis;
+	private final int maxBytes;
+	private final int maxCount;
+
+	private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService flushExecutor;
+
+	private final AtomicLong payloadCount = new AtomicLong();
+	private final AtomicLong messageCount = new AtomicLong();
+	private final AtomicLong failedCount  = new AtomicLong();
+
+	private volatile boolean isClosed = false;
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param publisher Publishes each batch to the broker.
+	 * @param windowMillis The longest a payload is held for its batch.
+	 * @param maxBytes The max frame size; a payload that won't fit in the
+	 * current batch starts a new one.
+	 * @param maxCount The max payloads per batch.
+	 */
+	public MqttPublishBatcher(Publisher publisher, long windowMillis, int maxBytes, int maxCount)
+	{
+		super();
+
+		if (publisher == null) {
+			throw new IllegalArgumentException("Publisher is null");
+		}
+
+		this.publisher = publisher;
+		this.windowMillis = Math.max(windowMillis, 0L);
+		this.maxBytes = Math.max(maxBytes, 1);
+		this.maxCount = Math.max(maxCount, 1);
+
+		this.flushExecutor = Executors.newSingleThreadScheduledExecutor(
+			ThreadUtil.getInstance().createThreadFactory("mqtt-batch-", false));
+	}
+
+
+	// public methods
+
+	/**
+	 * Adds the payload to the topic's batch, publishing the batch if it's
+	 * full. Otherwise it's published once the window has passed.
+	 *
+	 * @param topic The topic.
+	 * @param payload The payload.
+	 * @param qos The payload's QoS.
+	 * @return boolean True if the payload was batched, or published
+	 * successfully; false if it failed to publish, or the batcher is closed.
+	 */
+	public boolean add(String topic, byte[] payload, int qos)
+	{
+		if (this.isClosed) {
+			return false;
+		}
+
+		this.payloadCount.incrementAndGet();
+
+		Batch batch = this.batches.computeIfAbsent(topic, Batch::new);
+
+		synchronized (batch) {
+			boolean success = true;
+
+			if (! batch.isEmpty() && batch.frameSize + MqttBatchCodec.getEntrySize(payload.length) > this.maxBytes) {
+				success = flush(batch);
+			}
+
+			batch.add(payload, qos);
+
+			if (batch.payloads.size() >= this.maxCount || batch.frameSize >= this.maxBytes) {
+				return flush(batch) && success;
+			}
+
+			if (batch.payloads.size() == 1) {
+				scheduleFlush(batch);
+			}
+
+			return success;
+		}
+	}
+
+	/**
+	 * Publishes all pending batches now.
+	 *
+	 */
+	public void flushAll()
+	{
+		for (Batch batch : this.batches.values()) {
+			synchronized (batch) {
+				flush(batch);
+			}
+		}
+	}
+
+	/**
+	 * Publishes all pending batches, and stops the flush timer. Payloads
+	 * added afterwards are rejected.
+	 *
+	 */
+	public void close()
+	{
+		this.isClosed = true;
+		this.flushExecutor.shutdownNow();
+
+		flushAll();
+
+		_Logger.info("Publish batcher closed: " + getMetricsSummary());
+	}
+
+	public long getPayloadCount()
+	{
+		return this.payloadCount.get();
+	}
+
+	public long getMessageCount()
+	{
+		return this.messageCount.get();
+	}
+
+	public long getFailedCount()
+	{
+		return this.failedCount.get();
+	}
+
+	/**
+	 * Returns the counts, in the same "key=value" CSV format as the
+	 * other metrics summaries.
+	 *
+	 * @return String
+	 */
+	public String getMetricsSummary()
+	{
+		long payloads = this.payloadCount.get();
+		long messages = this.messageCount.get();
+
+		return "payloads=" + payloads + ",messages=" + messages + ",failed=" + this.failedCount.get() +
+			",payloadsPerMessage=" + (messages > 0 ? String.format("%.2f", (double) payloads / messages) : "0.00");
+	}
+
+
+	// private methods
+
+	private void scheduleFlush(Batch batch)
+	{
+		long generation = batch.generation;
+
+		try {
+			this.flushExecutor.schedule(() -> {
+				synchronized (batch) {
+					// skip if the batch was already published when full
+					if (batch.generation == generation) {
+						flush(batch);
+					}
+				}
+			}, this.windowMillis, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// closed, so the batch is (or was) flushed by close()
+		}
+	}
+
+	// must be called holding the batch's lock
+	private boolean flush(Batch batch)
+	{
+		if (batch.isEmpty()) {
+			return true;
+		}
+
+		List<byte[]> payloads = batch.payloads;
+		byte[] message = (payloads.size() == 1 ? payloads.get(0) : MqttBatchCodec.encode(payloads));
+
+		boolean success = false;
+
+		try {
+			success = this.publisher.publish(batch.topic, message, batch.qos);
+		} catch (RuntimeException e) {
+			_Logger.warning("Failed to publish batch to topic '" + batch.topic + "': " + e);
+		}
+
+		this.messageCount.incrementAndGet();
+
+		if (! success) {
+			this.failedCount.incrementAndGet();
+			_Logger.warning("Failed to publish batch of " + payloads.size() + " payload(s) to topic: " + batch.topic);
+		}
+
+		batch.clear();
+
+		return success;
+	}
+
+
+	// the pending payloads for a topic; guarded by the instance's lock
+	private static class Batch
+	{
+		final String topic;
+		final List<byte[]> payloads = new ArrayList<>();
+
+		int  frameSize  = 0;
+		int  qos        = 0;
+		long generation = 0L;
+
+		Batch(String topic)
+		{
+			this.topic = topic;
+		}
+
+		boolean isEmpty()
+		{
+			return this.payloads.isEmpty();
+		}
+
+		void add(byte[] payload, int qos)
+		{
+			if (this.payloads.isEmpty()) {
+				// the header and (1 byte) count, which are close enough for a limit
+				this.frameSize = MqttBatchCodec.MAGIC_HEADER.length + 1;
+				this.qos = qos;
+			}
+
+			this.payloads.add(payload);
+			this.frameSize += MqttBatchCodec.getEntrySize(payload.length);
+			this.qos = Math.max(this.qos, qos);
+		}
+
+		void clear()
+		{
+			this.payloads.clear();
+			this.frameSize = 0;
+			this.qos = 0;
+			this.generation++;
+		}
+	}
+
+}
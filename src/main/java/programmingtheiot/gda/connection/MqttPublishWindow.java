@@ -0,0 +1,401 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.connection;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Bounds the number of pipelined publishes awaiting delivery. Up to the
+ * max in-flight count are handed to the sender at once; the rest wait in
+ * a bounded outbound queue, and are sent, in order, as earlier publishes
+ * complete. When the queue is full, the {@link OverflowPolicy} decides
+ * whether the publisher blocks, the oldest queued publish is dropped, or
+ * the new publish fails.
+ * <p>
+ * Each publish returns a future that completes with true once the
+ * sender reports the message delivered (for the MQTT client, when
+ * Paho's delivery completes), or with false if it failed, was dropped
+ * or was rejected. Instances are thread-safe.
+ *
+ */
+public class MqttPublishWindow
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(MqttPublishWindow.class.getName());
+
+	/**
+	 * What happens to a publish when the outbound queue is full.
+	 *
+	 */
+	public enum OverflowPolicy
+	{
+		// wait for room in the queue, up to the publish timeout
+		BLOCK("block"),
+		// drop the oldest queued publish to make room
+		DROP_OLDEST("dropOldest"),
+		// fail the new publish
+		FAIL("fail");
+
+		/**
+		 * Looks up a policy by its config name (case insensitive).
+		 *
+		 * @param valStr The config name.
+		 * @return OverflowPolicy The policy, or null if not found.
+		 */
+		public static OverflowPolicy getEnumFromValue(String valStr)
+		{
+			if (valStr != null) {
+				for (OverflowPolicy policy : values()) {
+					if (policy.name.equalsIgnoreCase(valStr.trim())) {
+						return policy;
+					}
+				}
+			}
+
+			return null;
+		}
+
+		private final String name;
+
+		private OverflowPolicy(String name)
+		{
+			this.name = name;
+		}
+
+		public String getName()
+		{
+			return this.name;
+		}
+	}
+
+	/**
+	 * Sends a message, returning a future that completes once it's delivered.
+	 *
+	 */
+	@FunctionalInterface
+	public interface Sender
+	{
+		CompletableFuture<Boolean> send(String topic, byte[] payload, int qos) throws Exception;
+	}
+
+
+	// private var's
+
+	private final Sender sender;
+	private final int maxInFlight;
+	private final int maxQueued;
+	private final OverflowPolicy policy;
+	private final long timeoutMillis;
+
+	// guarded by lock
+	private final ArrayDeque<Publish> queue = new ArrayDeque<>();
+	private int inFlightCount = 0;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notFull = this.lock.newCondition();
+	private final Condition drained = this.lock.newCondition();
+
+	private final AtomicLong deliveredCount = new AtomicLong();
+	private final AtomicLong failedCount    = new AtomicLong();
+	private final AtomicLong droppedCount   = new AtomicLong();
+	private final AtomicLong rejectedCount  = new AtomicLong();
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param sender Sends each message.
+	 * @param maxInFlight The max publishes awaiting delivery at once.
+	 * @param maxQueued The max publishes waiting for an in-flight slot.
+	 * @param policy What to do when the queue is full (BLOCK if null).
+	 * @param timeoutMillis The longest a publish blocks for room in the
+	 * queue with the BLOCK policy; 0 to wait indefinitely.
+	 */
+	public MqttPublishWindow(Sender sender, int maxInFlight, int maxQueued, OverflowPolicy policy, long timeoutMillis)
+	{
+		super();
+
+		if (sender == null) {
+			throw new IllegalArgumentException("Sender is null");
+		}
+
+		this.sender = sender;
+		this.maxInFlight = Math.max(maxInFlight, 1);
+		this.maxQueued = Math.max(maxQueued, 0);
+		this.policy = (policy != null ? policy : OverflowPolicy.BLOCK);
+		this.timeoutMillis = Math.max(timeoutMillis, 0L);
+	}
+
+
+	// public methods
+
+	/**
+	 * Sends the message now if there's an in-flight slot free; otherwise
+	 * queues it, applying the overflow policy if the queue is full.
+	 *
+	 * @param topic The topic.
+	 * @param payload The payload.
+	 * @param qos The QoS.
+	 * @return CompletableFuture<Boolean> Completes with true once the
+	 * message is delivered; false if it isn't.
+	 */
+	public CompletableFuture<Boolean> publish(String topic, byte[] payload, int qos)
+	{
+		return publish(topic, payload, qos, true);
+	}
+
+	/**
+	 * As {@link #publish(String, byte[], int)}, but if mayBlock is false,
+	 * the BLOCK policy queues the message past the limit instead of
+	 * waiting for room. This is for publishes made on the thread that
+	 * reports deliveries (e.g. Paho's callback thread), which would
+	 * otherwise wait for room that only it can free.
+	 *
+	 * @param topic The topic.
+	 * @param payload The payload.
+	 * @param qos The QoS.
+	 * @param mayBlock False if the calling thread mustn't wait for room.
+	 * @return CompletableFuture<Boolean> Completes with true once the
+	 * message is delivered; false if it isn't.
+	 */
+	public CompletableFuture<Boolean> publish(String topic, byte[] payload, int qos, boolean mayBlock)
+	{
+		Publish publish = new Publish(topic, payload, qos);
+		Publish dropped = null;
+		boolean sendNow = false;
+		boolean rejected = false;
+
+		this.lock.lock();
+
+		try {
+			if (this.inFlightCount < this.maxInFlight && this.queue.isEmpty()) {
+				this.inFlightCount++;
+				sendNow = true;
+			} else if (this.queue.size() < this.maxQueued) {
+				this.queue.add(publish);
+			} else if (this.policy == OverflowPolicy.DROP_OLDEST && this.maxQueued > 0) {
+				dropped = this.queue.poll();
+				this.queue.add(publish);
+			} else if (this.policy == OverflowPolicy.BLOCK && ! mayBlock) {
+				this.queue.add(publish);
+			} else if (this.policy == OverflowPolicy.BLOCK && awaitRoom()) {
+				if (this.inFlightCount < this.maxInFlight && this.queue.isEmpty()) {
+					this.inFlightCount++;
+					sendNow = true;
+				} else {
+					this.queue.add(publish);
+				}
+			} else {
+				rejected = true;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			rejected = true;
+		} finally {
+			this.lock.unlock();
+		}
+
+		if (dropped != null) {
+			this.droppedCount.incrementAndGet();
+			dropped.future.complete(false);
+		}
+
+		if (rejected) {
+			this.rejectedCount.incrementAndGet();
+			publish.future.complete(false);
+		} else if (sendNow) {
+			send(publish);
+		}
+
+		return publish.future;
+	}
+
+	/**
+	 * Waits until no publishes are in flight or queued.
+	 *
+	 * @param timeoutMillis The longest to wait.
+	 * @return boolean True if drained; false if the wait timed out or
+	 * was interrupted.
+	 */
+	public boolean awaitDrained(long timeoutMillis)
+	{
+		long remainingNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(timeoutMillis, 0L));
+
+		this.lock.lock();
+
+		try {
+			while (this.inFlightCount > 0 || ! this.queue.isEmpty()) {
+				if (remainingNanos <= 0L) {
+					return false;
+				}
+
+				remainingNanos = this.drained.awaitNanos(remainingNanos);
+			}
+
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	public int getInFlightCount()
+	{
+		this.lock.lock();
+
+		try {
+			return this.inFlightCount;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	public int getQueuedCount()
+	{
+		this.lock.lock();
+
+		try {
+			return this.queue.size();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	public long getDeliveredCount()
+	{
+		return this.deliveredCount.get();
+	}
+
+	public long getFailedCount()
+	{
+		return this.failedCount.get();
+	}
+
+	public long getDroppedCount()
+	{
+		return this.droppedCount.get();
+	}
+
+	public long getRejectedCount()
+	{
+		return this.rejectedCount.get();
+	}
+
+	/**
+	 * Returns the counts, in the same "key=value" CSV format as the
+	 * other metrics summaries.
+	 *
+	 * @return String
+	 */
+	public String getMetricsSummary()
+	{
+		return "policy=" + this.policy.getName() +
+			",inFlight=" + getInFlightCount() + ",queued=" + getQueuedCount() +
+			",delivered=" + this.deliveredCount.get() + ",failed=" + this.failedCount.get() +
+			",dropped=" + this.droppedCount.get() + ",rejected=" + this.rejectedCount.get();
+	}
+
+
+	// private methods
+
+	// must be called holding the lock
+	private boolean awaitRoom() throws InterruptedException
+	{
+		long remainingNanos = TimeUnit.MILLISECONDS.toNanos(this.timeoutMillis);
+
+		while (this.queue.size() >= this.maxQueued &&
+			! (this.inFlightCount < this.maxInFlight && this.queue.isEmpty()))
+		{
+			if (this.timeoutMillis == 0L) {
+				this.notFull.await();
+			} else if (remainingNanos <= 0L) {
+				return false;
+			} else {
+				remainingNanos = this.notFull.awaitNanos(remainingNanos);
+			}
+		}
+
+		return true;
+	}
+
+	private void send(Publish publish)
+	{
+		CompletableFuture<Boolean> delivery = null;
+
+		try {
+			delivery = this.sender.send(publish.topic, publish.payload, publish.qos);
+		} catch (Exception e) {
+			_Logger.warning("Failed to publish message to topic '" + publish.topic + "': " + e);
+		}
+
+		if (delivery == null) {
+			onComplete(publish, false);
+		} else {
+			delivery.whenComplete((success, t) -> onComplete(publish, t == null && Boolean.TRUE.equals(success)));
+		}
+	}
+
+	private void onComplete(Publish publish, boolean success)
+	{
+		Publish next = null;
+
+		this.lock.lock();
+
+		try {
+			next = this.queue.poll();
+
+			// the slot passes straight to the next publish, if there is one
+			if (next == null && --this.inFlightCount == 0) {
+				this.drained.signalAll();
+			}
+
+			this.notFull.signal();
+		} finally {
+			this.lock.unlock();
+		}
+
+		(success ? this.deliveredCount : this.failedCount).incrementAndGet();
+		publish.future.complete(success);
+
+		if (next != null) {
+			send(next);
+		}
+	}
+
+
+	private static class Publish
+	{
+		final String topic;
+		final byte[] payload;
+		final int qos;
+		final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+		Publish(String topic, byte[] payload, int qos)
+		{
+			this.topic = topic;
+			this.payload = payload;
+			this.qos = qos;
+		}
+	}
+
+}
@@ -0,0 +1,272 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.connection;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps MQTT topics to the handlers registered for matching topic
+ * filters. Filters without wildcards are kept in a hash map; filters
+ * with '+' (one level) or '#' (the remaining levels) wildcards are kept
+ * in a trie with a node per level. Routing a topic is one hash lookup,
+ * and only if that misses, one walk down the trie, so it's proportional
+ * to the topic length, not the number of routes.
+ * <p>
+ * If several filters match a topic, the most specific wins: an exact
+ * filter, then, level by level, a literal level over '+', over '#'.
+ * As with MQTT subscriptions, a filter ending in "/#" also matches its
+ * parent topic, and wildcards don't match topics starting with '$'.
+ * <p>
+ * Routing is lock-free, and may run concurrently with adding and
+ * removing routes. Instances are thread-safe.
+ *
+ * @param <H> The handler type.
+ */
+public class MqttTopicRouter<H>
+{
+	// static
+
+	public static final char   LEVEL_SEPARATOR = '/';
+	public static final String SINGLE_LEVEL_WILDCARD = "+";
+	public static final String MULTI_LEVEL_WILDCARD  = "#";
+
+
+	// private var's
+
+	private final Map<String, H> exactRoutes = new ConcurrentHashMap<>();
+	private final Node<H> root = new Node<>();
+
+	// constructors
+
+	public MqttTopicRouter()
+	{
+		super();
+	}
+
+
+	// public methods
+
+	/**
+	 * Routes topics matching the filter to the handler, replacing any
+	 * handler already routed from that filter.
+	 *
+	 * @param topicFilter The topic filter, which may contain wildcards.
+	 * @param handler The handler.
+	 * @return H The replaced handler, or null if there was none.
+	 * @throws IllegalArgumentException If the filter is invalid, e.g. it
+	 * has a wildcard that isn't a whole level, or a '#' that isn't last.
+	 */
+	public synchronized H addRoute(String topicFilter, H handler)
+	{
+		if (handler == null) {
+			throw new IllegalArgumentException("Handler is null");
+		}
+
+		if (! isWildcardFilter(topicFilter)) {
+			return this.exactRoutes.put(topicFilter, handler);
+		}
+
+		Node<H> node = this.root;
+
+		for (String level : topicFilter.split(String.valueOf(LEVEL_SEPARATOR), -1)) {
+			node = node.children.computeIfAbsent(level, l -> new Node<>());
+		}
+
+		H replaced = node.handler;
+		node.handler = handler;
+
+		return replaced;
+	}
+
+	/**
+	 * Removes the route from the filter.
+	 *
+	 * @param topicFilter The topic filter, as it was added.
+	 * @return H The removed handler, or null if there was none.
+	 */
+	public synchronized H removeRoute(String topicFilter)
+	{
+		if (topicFilter == null) {
+			return null;
+		}
+
+		if (! isWildcardFilter(topicFilter)) {
+			return this.exactRoutes.remove(topicFilter);
+		}
+
+		String[] levels = topicFilter.split(String.valueOf(LEVEL_SEPARATOR), -1);
+
+		return removeRoute(this.root, levels, 0);
+	}
+
+	/**
+	 * Returns the handler for the most specific filter matching the topic.
+	 *
+	 * @param topic The topic a message was received on.
+	 * @return H The handler, or null if no filter matches.
+	 */
+	public H route(String topic)
+	{
+		if (topic == null) {
+			return null;
+		}
+
+		H handler = this.exactRoutes.get(topic);
+
+		if (handler == null && ! this.root.children.isEmpty() && ! topic.startsWith("$")) {
+			handler = match(this.root, topic, 0);
+		}
+
+		return handler;
+	}
+
+	/**
+	 * Returns true if a filter is routed.
+	 *
+	 * @param topicFilter The topic filter, as it was added.
+	 * @return boolean
+	 */
+	public boolean hasRoute(String topicFilter)
+	{
+		if (topicFilter == null) {
+			return false;
+		}
+
+		if (! topicFilter.contains(SINGLE_LEVEL_WILDCARD) && ! topicFilter.contains(MULTI_LEVEL_WILDCARD)) {
+			return this.exactRoutes.containsKey(topicFilter);
+		}
+
+		Node<H> node = this.root;
+
+		for (String level : topicFilter.split(String.valueOf(LEVEL_SEPARATOR), -1)) {
+			node = node.children.get(level);
+
+			if (node == null) {
+				return false;
+			}
+		}
+
+		return node.handler != null;
+	}
+
+	/**
+	 * Returns true if the filter has a '+' or '#' wildcard, validating it.
+	 *
+	 * @param topicFilter The topic filter.
+	 * @return boolean
+	 * @throws IllegalArgumentException If the filter is null, empty or invalid.
+	 */
+	public static boolean isWildcardFilter(String topicFilter)
+	{
+		if (topicFilter == null || topicFilter.isEmpty()) {
+			throw new IllegalArgumentException("Topic filter is null or empty");
+		}
+
+		boolean hasWildcard = false;
+		int levelStart = 0;
+
+		for (int i = 0; i <= topicFilter.length(); i++) {
+			if (i < topicFilter.length() && topicFilter.charAt(i) != LEVEL_SEPARATOR) {
+				char c = topicFilter.charAt(i);
+
+				if (c == '+' || c == '#') {
+					hasWildcard = true;
+
+					// a wildcard must be the whole level, and '#' the last one
+					if (i != levelStart ||
+						(i + 1 < topicFilter.length() && topicFilter.charAt(i + 1) != LEVEL_SEPARATOR) ||
+						(c == '#' && i + 1 != topicFilter.length()))
+					{
+						throw new IllegalArgumentException("Invalid topic filter: " + topicFilter);
+					}
+				}
+			} else {
+				levelStart = i + 1;
+			}
+		}
+
+		return hasWildcard;
+	}
+
+
+	// private methods
+
+	// matches the topic's levels from pos down the trie, preferring a
+	// literal level, then '+', then '#'
+	private H match(Node<H> node, String topic, int pos)
+	{
+		if (pos > topic.length()) {
+			// past the last level; "a/#" also matches "a"
+			Node<H> multi = node.children.get(MULTI_LEVEL_WILDCARD);
+
+			return (node.handler != null ? node.handler : (multi != null ? multi.handler : null));
+		}
+
+		int end = topic.indexOf(LEVEL_SEPARATOR, pos);
+
+		if (end < 0) {
+			end = topic.length();
+		}
+
+		H handler = null;
+		Node<H> child = node.children.get(topic.substring(pos, end));
+
+		if (child != null) {
+			handler = match(child, topic, end + 1);
+		}
+
+		if (handler == null && (child = node.children.get(SINGLE_LEVEL_WILDCARD)) != null) {
+			handler = match(child, topic, end + 1);
+		}
+
+		if (handler == null && (child = node.children.get(MULTI_LEVEL_WILDCARD)) != null) {
+			handler = child.handler;
+		}
+
+		return handler;
+	}
+
+	// removes the route, and prunes the nodes left without routes
+	private H removeRoute(Node<H> node, String[] levels, int i)
+	{
+		if (i == levels.length) {
+			H removed = node.handler;
+			node.handler = null;
+
+			return removed;
+		}
+
+		Node<H> child = node.children.get(levels[i]);
+
+		if (child == null) {
+			return null;
+		}
+
+		H removed = removeRoute(child, levels, i + 1);
+
+		if (child.handler == null && child.children.isEmpty()) {
+			node.children.remove(levels[i]);
+		}
+
+		return removed;
+	}
+
+
+	private static class Node<H>
+	{
+		final Map<String, Node<H>> children = new ConcurrentHashMap<>();
+
+		volatile H handler = null;
+	}
+
+}
@@ -2,6 +2,7 @@ package programmingtheiot.gda.connection;
 
 import programmingtheiot.common.IDataMessageListener;
 import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.AnthropicConversation;
 import programmingtheiot.data.AnthropicMessage;
 import programmingtheiot.data.ExecuteToolRequest;
 import programmingtheiot.data.LLMHttpRequest;
@@ -13,6 +14,8 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Logger;
 
 import com.google.gson.Gson;
@@ -20,6 +23,8 @@ import com.google.gson.JsonObject;
 
 import programmingtheiot.common.ConfigConst;
 import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.EventLogger;
+import programmingtheiot.common.ThreadUtil;
 
 public class PuetceClientConnector implements IRequestResponseClient
 {
@@ -27,6 +32,12 @@ public class PuetceClientConnector implements IRequestResponseClient
 	
 	private static final Logger _Logger =
 		Logger.getLogger(PuetceClientConnector.class.getName());
+	
+	private static final EventLogger _EventLogger =
+		EventLogger.getLogger(PuetceClientConnector.class);
+
+	// Gson instances are thread-safe, so one is shared by all requests
+	private static final Gson _Gson = new Gson();
 
     private String host = ConfigConst.DEFAULT_HOST;
 	private int port = ConfigConst.DEFAULT_PUETCE_PORT;
@@ -35,6 +46,7 @@ public class PuetceClientConnector implements IRequestResponseClient
     private IDataMessageListener dataMessageListener = null;
     
     private HttpClient client = null;
+    private ExecutorService requestExecutor = null;
 
     public PuetceClientConnector() {
         super();
@@ -50,18 +62,50 @@ public class PuetceClientConnector implements IRequestResponseClient
 
         this.uriPath = "http://" + host + ":" + port + "/";
 
-        this.client = HttpClient.newHttpClient();
+        // in virtual thread mode, blocking requests and async response
+        // handling both run on virtual threads; otherwise, requests are
+        // sent on the caller's thread, using the client's default executor
+        if (ThreadUtil.getInstance().useVirtualThreads()) {
+            this.requestExecutor = ThreadUtil.getInstance().createTaskExecutor("puetce-request-");
+
+            this.client = HttpClient.newBuilder()
+                .executor(this.requestExecutor)
+                .build();
+        } else {
+            this.client = HttpClient.newHttpClient();
+        }
     }
 
     // convenience
 
+    /**
+     * Sends the conversation, using its cached message encodings, so
+     * only the messages added since the last send are encoded.
+     * 
+     * @param conversation The conversation to send.
+     * @param systemPrompt The system prompt.
+     * @param useTools True if the LLM may use tools.
+     * @param randomness The randomness of the response.
+     * @return boolean True if the request was sent; false otherwise.
+     */
+    public boolean sendMessage(
+        AnthropicConversation conversation,
+        String systemPrompt,
+        boolean useTools,
+        float randomness
+    ) {
+        return sendPostRequest(
+            ResourceNameEnum.GDA_MESSAGE_PUETCE_RESOURCE, null, false,
+            conversation.toSendMessageJson(systemPrompt, useTools, randomness), 5);
+    }
+
     public boolean sendMessage(
         List<AnthropicMessage> messages,
         String systemPrompt,
         boolean useTools,
         float randomness
     ) {
-        Gson gson = new Gson();
+        Gson gson = _Gson;
 
         // collect arguments
         MessagesRequest msgReq = new MessagesRequest(
@@ -79,7 +123,7 @@ public class PuetceClientConnector implements IRequestResponseClient
         String name,
         JsonObject input
     ) {
-        Gson gson = new Gson();
+        Gson gson = _Gson;
 
         // collect arguments
         ExecuteToolRequest execToolReq = new ExecuteToolRequest(
@@ -109,8 +153,30 @@ public class PuetceClientConnector implements IRequestResponseClient
         return true;
     }
 
+    /**
+     * Sends the GET request. In virtual thread mode, it's sent on the
+     * request executor, so the blocking send doesn't hold up the caller;
+     * otherwise it's sent on the caller's thread. The response is passed to
+     * {@link #_onGetResponse(HttpResponse, ResourceNameEnum)}.
+     * 
+     * @return boolean True if the request was sent (or queued); false otherwise.
+     */
     @Override
     public boolean sendGetRequest(ResourceNameEnum resource, String name, boolean enableCON, int timeout) {
+        if (this.requestExecutor == null) {
+            return sendGetRequestBlocking(resource);
+        }
+
+        try {
+            this.requestExecutor.execute(() -> sendGetRequestBlocking(resource));
+            return true;
+        } catch (RejectedExecutionException e) {
+            _Logger.warning("HTTP request rejected: " + e);
+            return false;
+        }
+    }
+
+    private boolean sendGetRequestBlocking(ResourceNameEnum resource) {
         String uri = uriPath + resource.getResourceName();
         
         HttpRequest request = HttpRequest.newBuilder()
@@ -123,13 +189,13 @@ public class PuetceClientConnector implements IRequestResponseClient
         try {
             response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
 
-            _Logger.info("Received: " + response);
+            _EventLogger.info("puetce.response", "resource", resource, "status", response.statusCode(), "chars", response.body().length());
 
             if (response.statusCode() < 200 || response.statusCode() >= 300) {
-                _Logger.info("Received error (code " + response.statusCode() + ") response: " + response.body());
+                _Logger.warning("Received error (code " + response.statusCode() + ") response: " + response.body());
                 return false;
             } else {
-                _Logger.info("Received response: " + response.body());
+                _EventLogger.fine("puetce.response.body", "body", response.body());
 
                 this._onGetResponse(response, resource);
 
@@ -210,7 +276,8 @@ public class PuetceClientConnector implements IRequestResponseClient
         } else if (response.statusCode() < 200 || response.statusCode() >= 300) {
             _Logger.warning("Received error (code " + response.statusCode() + ") response: " + response.body());
         } else {
-            _Logger.info("Received response: " + response.body());
+            _EventLogger.info("puetce.response", "resource", resource, "status", response.statusCode(), "chars", response.body().length());
+            _EventLogger.fine("puetce.response.body", "body", response.body());
             dataMessageListener.handleIncomingMessage(resource, response.body());
         }
     }
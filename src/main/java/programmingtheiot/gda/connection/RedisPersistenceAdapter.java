@@ -11,26 +11,43 @@
 
 package programmingtheiot.gda.connection;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import programmingtheiot.common.ConfigConst;
 import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.ThreadUtil;
 import programmingtheiot.data.ActuatorData;
 import programmingtheiot.data.DataUtil;
 import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SensorDataBatch;
 import programmingtheiot.data.SystemPerformanceData;
 
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
 import redis.clients.jedis.exceptions.JedisConnectionException;
 
 /**
  * Shell representation of class for student implementation.
+ * <p>
+ * Connections are borrowed from a {@link JedisPool} per call, since a
+ * single {@link Jedis} connection isn't safe to share across the
+ * threads that may be storing data concurrently.
+ * <p>
+ * In virtual thread mode, the store operations are written behind on
+ * their own virtual thread, so callers don't block on Redis I/O. The
+ * pool size still bounds the number of concurrent connections.
  * 
  */
 public class RedisPersistenceAdapter implements IPersistenceClient
@@ -43,8 +60,10 @@ public class RedisPersistenceAdapter implements IPersistenceClient
 	// private var's
 	private String host;
 	private int port;
-	private Jedis client = null;
-	private boolean connected = false;
+	private int maxConnections = ConfigConst.DEFAULT_MAX_CONNECTIONS;
+	private JedisPool clientPool = null;
+	private ExecutorService storeExecutor = null;
+	private volatile boolean connected = false;
 	
 	// constructors
 	
@@ -66,9 +85,6 @@ public class RedisPersistenceAdapter implements IPersistenceClient
 			ConfigConst.PORT_KEY
 		);
 
-		// create redis cli instance
-		this.client = new Jedis(this.host, this.port);
-		
 		initConfig();
 	}
 	
@@ -92,9 +108,20 @@ public class RedisPersistenceAdapter implements IPersistenceClient
 			return true;
 		}
 
-		try {
-			this.client.connect();
-			if (this.client.ping().equals("PONG")) {
+		if (this.clientPool == null) {
+			JedisPoolConfig poolConfig = new JedisPoolConfig();
+			poolConfig.setMaxTotal(this.maxConnections);
+			poolConfig.setMaxIdle(this.maxConnections);
+
+			this.clientPool = new JedisPool(poolConfig, this.host, this.port);
+		}
+
+		if (this.storeExecutor == null && ThreadUtil.getInstance().useVirtualThreads()) {
+			this.storeExecutor = ThreadUtil.getInstance().createTaskExecutor("redis-store-");
+		}
+
+		try (Jedis client = this.clientPool.getResource()) {
+			if (client.ping().equals("PONG")) {
 				_Logger.info("Redis client connected to " + this.host + ":" + this.port);
 				this.connected = true;
 				return true;
@@ -121,8 +148,22 @@ public class RedisPersistenceAdapter implements IPersistenceClient
 			return true;
 		}
 
+		if (this.storeExecutor != null) {
+			// let pending writes finish before closing their connections
+			this.storeExecutor.shutdown();
+
+			try {
+				this.storeExecutor.awaitTermination(5L, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			this.storeExecutor = null;
+		}
+
 		try {
-			this.client.disconnect();
+			this.clientPool.close();
+			this.clientPool = null;
 			this.connected = false;
 			_Logger.info("Redis client disconnected from " + this.host + ":" + this.port);
 			return true;
@@ -153,7 +194,12 @@ public class RedisPersistenceAdapter implements IPersistenceClient
 		
 		List<ActuatorData> dataList = new ArrayList<>();
 
-		String rsltJson = this.client.get(topic);
+		byte[] rsltJson = null;
+
+		try (Jedis client = this.clientPool.getResource()) {
+			rsltJson = client.get(topic.getBytes(StandardCharsets.UTF_8));
+		}
+
 		ActuatorData ad = DataUtil.getInstance().jsonToActuatorData(rsltJson);
 		if (ad != null) {
 			dataList.add(ad);
@@ -180,7 +226,12 @@ public class RedisPersistenceAdapter implements IPersistenceClient
 
 		List<SensorData> dataList = new ArrayList<>();
 
-		String rsltJson = this.client.get(topic);
+		byte[] rsltJson = null;
+
+		try (Jedis client = this.clientPool.getResource()) {
+			rsltJson = client.get(topic.getBytes(StandardCharsets.UTF_8));
+		}
+
 		SensorData sd = DataUtil.getInstance().jsonToSensorData(rsltJson);
 		if (sd != null) {
 			dataList.add(sd);
@@ -218,19 +269,16 @@ public class RedisPersistenceAdapter implements IPersistenceClient
 			return false;
 		}
 
-		try {
-			for (ActuatorData ad : data) {
-				if (ad != null) {
-					String key = topic + ":" + ad.getName() + ":" + System.currentTimeMillis();
-					String jsonData = DataUtil.getInstance().actuatorDataToJson(ad);
-					this.client.set(key, jsonData);
-				}
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+
+		for (ActuatorData ad : data) {
+			if (ad != null) {
+				String key = topic + ":" + ad.getName() + ":" + System.currentTimeMillis();
+				addEntry(entries, key, DataUtil.getInstance().actuatorDataToJsonBytes(ad));
 			}
-			return true;
-		} catch (JedisConnectionException e) {
-			_Logger.log(Level.SEVERE, "Error storing actuator data to Redis server.", e);
-			return false;
 		}
+
+		return storeEntries(entries, "actuator data");
 	}
 
 	/**
@@ -254,19 +302,49 @@ public class RedisPersistenceAdapter implements IPersistenceClient
 			return false;
 		}
 
-		try {
-			for (SensorData sd : data) {
-				if (sd != null) {
-					String key = topic + ":" + sd.getName() + ":" + System.currentTimeMillis();
-					String jsonData = DataUtil.getInstance().sensorDataToJson(sd);
-					this.client.set(key, jsonData);
-				}
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+
+		for (SensorData sd : data) {
+			if (sd != null) {
+				String key = topic + ":" + sd.getName() + ":" + System.currentTimeMillis();
+				addEntry(entries, key, DataUtil.getInstance().sensorDataToJsonBytes(sd));
 			}
-			return true;
-		} catch (JedisConnectionException e) {
-			_Logger.log(Level.SEVERE, "Error storing sensor data to Redis server.", e);
+		}
+
+		return storeEntries(entries, "sensor data");
+	}
+
+	/**
+	 * Stores each reading in the batch, encoded straight from the batch's
+	 * columns, with the same keys and JSON as
+	 * {@link #storeData(String, int, SensorData...)}, in one MSET.
+	 */
+	@Override
+	public boolean storeData(String topic, int qos, SensorDataBatch batch)
+	{
+		if (!connected) {
+			_Logger.warning("Redis client is not connected.");
+			return false;
+		}
+
+		if (topic == null || topic.isEmpty()) {
+			_Logger.warning("Topic is null or empty.");
 			return false;
 		}
+
+		if (batch == null || batch.isEmpty()) {
+			_Logger.warning("No SensorData provided to store.");
+			return false;
+		}
+
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+
+		for (int i = 0; i < batch.size(); i++) {
+			String key = topic + ":" + batch.getName(i) + ":" + System.currentTimeMillis();
+			addEntry(entries, key, DataUtil.getInstance().sensorDataBatchItemToJsonBytes(batch, i));
+		}
+
+		return storeEntries(entries, "sensor data");
 	}
 
 	/**
@@ -290,29 +368,105 @@ public class RedisPersistenceAdapter implements IPersistenceClient
 			return false;
 		}
 
-		try {
-			for (SystemPerformanceData spd : data) {
-				if (spd != null) {
-					String key = topic + ":" + spd.getName() + ":" + System.currentTimeMillis();
-					String jsonData = DataUtil.getInstance().systemPerformanceDataToJson(spd);
-					this.client.set(key, jsonData);
-				}
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+
+		for (SystemPerformanceData spd : data) {
+			if (spd != null) {
+				String key = topic + ":" + spd.getName() + ":" + System.currentTimeMillis();
+				addEntry(entries, key, DataUtil.getInstance().systemPerformanceDataToJsonBytes(spd));
 			}
-			return true;
-		} catch (JedisConnectionException e) {
-			_Logger.log(Level.SEVERE, "Error storing system performance data to Redis server.", e);
-			return false;
 		}
+
+		return storeEntries(entries, "system performance data");
 	}
 	
 	
 	// private methods
 	
+	/**
+	 * Writes the key / JSON entries to Redis, either on the calling thread
+	 * or, in virtual thread mode, on a new virtual thread.
+	 * 
+	 * @param entries The entries to store.
+	 * @param dataType The data type name, used for logging.
+	 * @return boolean True if stored (or queued for storing); false otherwise.
+	 */
+	private boolean storeEntries(Map<String, byte[]> entries, String dataType)
+	{
+		ExecutorService executor = this.storeExecutor;
+
+		if (executor != null) {
+			try {
+				executor.execute(() -> writeEntries(entries, dataType));
+				return true;
+			} catch (RejectedExecutionException e) {
+				_Logger.warning("Redis client is disconnecting. Dropping " + dataType + ".");
+				return false;
+			}
+		}
+
+		return writeEntries(entries, dataType);
+	}
+
+	/**
+	 * Adds the entry, appending a sequence number to the key if the batch
+	 * already has an entry for the same name in the same millisecond.
+	 * 
+	 */
+	private void addEntry(Map<String, byte[]> entries, String key, byte[] jsonData)
+	{
+		String uniqueKey = key;
+
+		for (int seqNo = 1; entries.containsKey(uniqueKey); seqNo++) {
+			uniqueKey = key + ":" + seqNo;
+		}
+
+		entries.put(uniqueKey, jsonData);
+	}
+
+	/**
+	 * Writes all entries with a single MSET, so a batch costs one round
+	 * trip to the server rather than one per item. The binary form is
+	 * used so the encoded JSON is sent as-is.
+	 * 
+	 */
+	private boolean writeEntries(Map<String, byte[]> entries, String dataType)
+	{
+		if (entries.isEmpty()) {
+			return true;
+		}
+
+		byte[][] keysValues = new byte[entries.size() * 2][];
+		int i = 0;
+
+		for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+			keysValues[i++] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+			keysValues[i++] = entry.getValue();
+		}
+
+		try (Jedis client = this.clientPool.getResource()) {
+			client.mset(keysValues);
+			return true;
+		} catch (JedisConnectionException e) {
+			_Logger.log(Level.SEVERE, "Error storing " + dataType + " to Redis server.", e);
+			return false;
+		}
+	}
+
 	/**
 	 * 
 	 */
 	private void initConfig()
 	{
+		this.maxConnections = ConfigUtil.getInstance().getInteger(
+			ConfigConst.DATA_GATEWAY_SERVICE,
+			ConfigConst.MAX_CONNECTIONS_KEY,
+			ConfigConst.DEFAULT_MAX_CONNECTIONS
+		);
+
+		if (this.maxConnections <= 0) {
+			this.maxConnections = ConfigConst.DEFAULT_MAX_CONNECTIONS;
+		}
 	}
 
 }
@@ -0,0 +1,275 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.connection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.IDataMessageListener;
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.common.ResourceNameEnum;
+
+/**
+ * Spreads MQTT traffic across several broker connections, each an
+ * {@link MqttClientConnector} with its own client ID (the configured
+ * one, with "-<connection index>" appended), network thread and
+ * callback thread, so a multi-core gateway isn't limited to what one
+ * connection's threads can move.
+ * <p>
+ * Each topic is owned by one connection, chosen by consistent hashing
+ * of the topic without its format suffix (see {@link ConsistentHashRing}),
+ * so all publishes and subscriptions for a topic, in any format, share
+ * a connection, and per-topic ordering is kept. A wildcard subscription
+ * is owned by the connection for its filter, so it's received on that
+ * connection only.
+ * <p>
+ * The connection listener is notified once all connections are
+ * connected (and again after any of them reconnects).
+ *
+ */
+public class ShardedMqttClientConnector implements IPubSubClient, IConnectionListener
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(ShardedMqttClientConnector.class.getName());
+
+
+	// private var's
+
+	private final List<MqttClientConnector> connections;
+	private final ConsistentHashRing<ShardRef> ring;
+
+	private volatile IConnectionListener connectionListener = null;
+
+	// constructors
+
+	/**
+	 * Default. Opens connectionCount connections, using the
+	 * Mqtt.GatewayService config section.
+	 *
+	 */
+	public ShardedMqttClientConnector()
+	{
+		this(ConfigUtil.getInstance().getInteger(
+			ConfigConst.MQTT_GATEWAY_SERVICE, ConfigConst.MQTT_CONNECTION_COUNT_KEY, ConfigConst.DEFAULT_MQTT_CONNECTION_COUNT));
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param connectionCount The number of connections (at least 1).
+	 */
+	public ShardedMqttClientConnector(int connectionCount)
+	{
+		super();
+
+		connectionCount = Math.max(connectionCount, 1);
+
+		List<MqttClientConnector> connections = new ArrayList<>(connectionCount);
+		List<ShardRef> shards = new ArrayList<>(connectionCount);
+
+		for (int i = 0; i < connectionCount; i++) {
+			MqttClientConnector connection = new MqttClientConnector();
+
+			connection.setClientID(connection.getClientID() + "-" + i);
+			connection.setConnectionListener(this);
+
+			connections.add(connection);
+			shards.add(new ShardRef(i));
+		}
+
+		this.connections = Collections.unmodifiableList(connections);
+		this.ring = new ConsistentHashRing<>(shards, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+
+		for (int i = 0; i < connectionCount; i++) {
+			final int index = i;
+
+			connections.get(i).setTopicOwner(topic -> getConnectionIndex(topic) == index);
+		}
+
+		_Logger.info("Sharded MQTT client created with " + connectionCount + " connections");
+	}
+
+
+	// public methods
+
+	@Override
+	public boolean connectClient()
+	{
+		boolean success = true;
+
+		for (MqttClientConnector connection : this.connections) {
+			success &= connection.connectClient();
+		}
+
+		return success;
+	}
+
+	@Override
+	public boolean disconnectClient()
+	{
+		boolean success = true;
+
+		for (MqttClientConnector connection : this.connections) {
+			success &= connection.disconnectClient();
+		}
+
+		return success;
+	}
+
+	public boolean isConnected()
+	{
+		for (MqttClientConnector connection : this.connections) {
+			if (! connection.isConnected()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean publishMessage(ResourceNameEnum topic, String msg, int qos)
+	{
+		return getConnection(topic.getResourceName()).publishMessage(topic, msg, qos);
+	}
+
+	@Override
+	public boolean publishMessage(ResourceNameEnum topic, byte[] payload, int qos)
+	{
+		return getConnection(topic.getResourceName()).publishMessage(topic, payload, qos);
+	}
+
+	@Override
+	public boolean publishMessage(ResourceNameEnum topic, byte[] payload, PayloadFormatEnum format, int qos)
+	{
+		return getConnection(topic.getResourceName()).publishMessage(topic, payload, format, qos);
+	}
+
+	/**
+	 * See {@link MqttClientConnector#publishMessageAsync(ResourceNameEnum, byte[], PayloadFormatEnum, int)}.
+	 *
+	 */
+	public CompletableFuture<Boolean> publishMessageAsync(
+		ResourceNameEnum topic, byte[] payload, PayloadFormatEnum format, int qos)
+	{
+		return getConnection(topic.getResourceName()).publishMessageAsync(topic, payload, format, qos);
+	}
+
+	@Override
+	public boolean subscribeToTopic(ResourceNameEnum topic, int qos)
+	{
+		return getConnection(topic.getResourceName()).subscribeToTopic(topic, qos);
+	}
+
+	@Override
+	public boolean unsubscribeFromTopic(ResourceNameEnum topic)
+	{
+		return getConnection(topic.getResourceName()).unsubscribeFromTopic(topic);
+	}
+
+	@Override
+	public boolean setDataMessageListener(IDataMessageListener listener)
+	{
+		if (listener == null) {
+			return false;
+		}
+
+		for (MqttClientConnector connection : this.connections) {
+			connection.setDataMessageListener(listener);
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean setConnectionListener(IConnectionListener listener)
+	{
+		if (listener == null) {
+			_Logger.warning("No connection listener specified");
+			return false;
+		}
+
+		this.connectionListener = listener;
+
+		return true;
+	}
+
+	@Override
+	public void onConnect()
+	{
+		IConnectionListener listener = this.connectionListener;
+
+		if (listener != null && isConnected()) {
+			listener.onConnect();
+		}
+	}
+
+	@Override
+	public void onDisconnect()
+	{
+		IConnectionListener listener = this.connectionListener;
+
+		if (listener != null) {
+			listener.onDisconnect();
+		}
+	}
+
+	public int getConnectionCount()
+	{
+		return this.connections.size();
+	}
+
+	/**
+	 * Returns the index of the connection that owns the topic.
+	 *
+	 * @param topic The topic or topic filter, with or without a format suffix.
+	 * @return int
+	 */
+	public int getConnectionIndex(String topic)
+	{
+		return this.ring.getNode(PayloadFormatEnum.getEnumFromTopic(topic).stripTopicSuffix(topic)).index;
+	}
+
+
+	// private methods
+
+	private MqttClientConnector getConnection(String topic)
+	{
+		return this.connections.get(getConnectionIndex(topic));
+	}
+
+
+	// a connection's place on the ring, named for its index
+	private static class ShardRef
+	{
+		final int index;
+
+		ShardRef(int index)
+		{
+			this.index = index;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "connection-" + this.index;
+		}
+	}
+
+}
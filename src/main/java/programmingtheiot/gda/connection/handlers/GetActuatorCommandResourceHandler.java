@@ -8,6 +8,7 @@ import org.eclipse.californium.core.server.resources.CoapExchange;
 
 import programmingtheiot.common.IActuatorDataListener;
 import programmingtheiot.common.IDataMessageListener;
+import programmingtheiot.common.PayloadFormatEnum;
 import programmingtheiot.common.ResourceNameEnum;
 import programmingtheiot.data.ActuatorData;
 import programmingtheiot.data.DataUtil;
@@ -58,9 +59,12 @@ public class GetActuatorCommandResourceHandler extends GenericCoapResourceHandle
     @Override
     public void handleGET(CoapExchange context) {
         context.accept();
-        String jsonData = DataUtil.getInstance()
-            .actuatorDataToJson(this.actuatorData);
-        context.respond(ResponseCode.CONTENT, jsonData);
+        // CBOR if the client asks for it with the Accept option; JSON otherwise
+        PayloadFormatEnum format =
+            PayloadFormatEnum.getEnumFromContentFormat(context.getRequestOptions().getAccept());
+        byte[] payload = DataUtil.getInstance()
+            .iotDataToBytes(this.actuatorData, format);
+        context.respond(ResponseCode.CONTENT, payload, format.getContentFormat());
     }
 
     @Override
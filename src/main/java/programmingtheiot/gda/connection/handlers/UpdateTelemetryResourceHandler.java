@@ -7,10 +7,8 @@ import org.eclipse.californium.core.coap.CoAP.ResponseCode;
 import org.eclipse.californium.core.server.resources.CoapExchange;
 
 import programmingtheiot.common.IDataMessageListener;
+import programmingtheiot.common.PayloadFormatEnum;
 import programmingtheiot.common.ResourceNameEnum;
-import programmingtheiot.data.DataUtil;
-import programmingtheiot.data.SensorData;
-import programmingtheiot.data.SystemPerformanceData;
 
 public class UpdateTelemetryResourceHandler extends GenericCoapResourceHandler {
 	// static
@@ -60,18 +58,23 @@ public class UpdateTelemetryResourceHandler extends GenericCoapResourceHandler {
         }
 
         try {
-            String jsonData = new String(context.getRequestPayload());
+            // decoding is left to the listener, so the message's arrival
+            // time is taken here rather than after decoding; the format
+            // is given by the Content-Format option, and is JSON if unset
+            PayloadFormatEnum format =
+                PayloadFormatEnum.getEnumFromContentFormat(context.getRequestOptions().getContentFormat());
 
-            SensorData sd = 
-                DataUtil.getInstance().jsonToSensorData(jsonData);
+            boolean success = this.dataMsgListener.handleRawDataMessage(
+                ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, context.getRequestPayload(), format);
 
-            this.dataMsgListener.handleSensorMessage(
-                ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE, sd);
-
-            context.respond(
-                ResponseCode.CHANGED,
-                "Handled Update sensor data request: " + super.getName()
-            );
+            if (success) {
+                context.respond(
+                    ResponseCode.CHANGED,
+                    "Handled Update sensor data request: " + super.getName()
+                );
+            } else {
+                context.respond(ResponseCode.BAD_REQUEST);
+            }
         } catch (Exception e) {
             _Logger.log(Level.WARNING, "Failed to handle PUT request", e);
             context.respond(ResponseCode.BAD_REQUEST);
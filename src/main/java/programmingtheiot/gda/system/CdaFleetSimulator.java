@@ -0,0 +1,470 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * You may find it more helpful to your design to adjust the
+ * functionality, constants and interfaces (if there are any)
+ * provided within in order to meet the needs of your specific
+ * Programming the Internet of Things project.
+ */
+
+package programmingtheiot.gda.system;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.common.ThreadUtil;
+import programmingtheiot.data.BaseIotData;
+import programmingtheiot.data.DataUtil;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+import programmingtheiot.gda.connection.IPubSubClient;
+import programmingtheiot.gda.connection.LoopbackPubSubClient;
+
+/**
+ * Simulates a fleet of CDAs, each with its own location ID, publishing
+ * sensor messages (temperature, humidity and pressure) and system
+ * performance messages through the given pub/sub client - normally a
+ * {@link LoopbackPubSubClient}, so the GDA can be load tested with no
+ * broker, but any connected client will do.
+ * <p>
+ * Each simulated CDA publishes on its own schedule: the first cycle is
+ * randomly offset within the interval, so the fleet doesn't publish in
+ * lock step, and each interval after that is randomly varied by up to
+ * the configured jitter percentage. Sensor values follow a bounded
+ * random walk per device.
+ * <p>
+ * The sustained publish rate and dropped (failed) publishes are logged
+ * periodically, along with the loopback client's delivery counters if
+ * it's one; a summary for the whole run is logged when stopped.
+ *
+ */
+public class CdaFleetSimulator
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(CdaFleetSimulator.class.getName());
+
+	public static final String HUMIDITY_SENSOR_NAME = "HumiditySensor";
+	public static final String PRESSURE_SENSOR_NAME = "PressureSensor";
+
+	public static final int    SENSOR_MSGS_PER_CYCLE = 3;
+
+	/**
+	 * The state of one simulated CDA. Each device's sensor and system
+	 * performance cycles are never run concurrently with themselves,
+	 * but may run concurrently with each other, so they don't share
+	 * any mutable state.
+	 *
+	 */
+	private static class SimulatedDevice
+	{
+		private final String locationID;
+
+		private float temperature;
+		private float humidity;
+		private float pressure;
+
+		private float cpuUtil;
+		private float memUtil;
+		private float diskUtil;
+
+		private SimulatedDevice(String locationID)
+		{
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+
+			this.locationID = locationID;
+
+			this.temperature = 18.0f + random.nextFloat() * 8.0f;
+			this.humidity    = 30.0f + random.nextFloat() * 20.0f;
+			this.pressure    = 990.0f + random.nextFloat() * 40.0f;
+
+			this.cpuUtil  = 5.0f + random.nextFloat() * 20.0f;
+			this.memUtil  = 20.0f + random.nextFloat() * 40.0f;
+			this.diskUtil = 30.0f + random.nextFloat() * 30.0f;
+		}
+	}
+
+	// private var's
+
+	private final IPubSubClient pubSubClient;
+	private final DataUtil dataUtil = DataUtil.getInstance();
+
+	private int fleetSize = ConfigConst.DEFAULT_FLEET_SIZE;
+	private String locationIDPrefix = ConfigConst.DEFAULT_FLEET_LOCATION_ID_PREFIX;
+	private long sensorIntervalMillis = ConfigConst.DEFAULT_FLEET_SENSOR_INTERVAL;
+	private long sysPerfIntervalMillis = ConfigConst.DEFAULT_FLEET_SYS_PERF_INTERVAL;
+	private double jitter = ConfigConst.DEFAULT_FLEET_JITTER_PCT / 100.0;
+	private int threadCount = ConfigConst.DEFAULT_FLEET_THREADS;
+	private int reportSecs = ConfigConst.DEFAULT_FLEET_REPORT_SECS;
+	private int qos = ConfigConst.DEFAULT_QOS;
+
+	private List<SimulatedDevice> devices = null;
+	private ScheduledExecutorService publishExecutor = null;
+	private ScheduledExecutorService reportExecutor = null;
+	private volatile boolean isStarted = false;
+
+	private final LongAdder publishedCount = new LongAdder();
+	private final LongAdder droppedCount = new LongAdder();
+
+	// report state; only accessed by the report thread, or once stopped
+	private long startNanos = 0L;
+	private long lastReportNanos = 0L;
+	private long lastPublishedCount = 0L;
+	private long lastDroppedCount = 0L;
+	private long lastDeliveredCount = 0L;
+	private long lastRejectedCount = 0L;
+
+	// constructors
+
+	/**
+	 * Constructor. Reads the fleet size, intervals and jitter from
+	 * the configuration file.
+	 *
+	 * @param pubSubClient The client to publish the fleet's messages with.
+	 * It's expected to be connected before {@link #startSimulator()} is called.
+	 */
+	public CdaFleetSimulator(IPubSubClient pubSubClient)
+	{
+		super();
+
+		if (pubSubClient == null) {
+			throw new IllegalArgumentException("Pub/sub client must not be null");
+		}
+
+		this.pubSubClient = pubSubClient;
+
+		ConfigUtil configUtil = ConfigUtil.getInstance();
+
+		this.fleetSize = configUtil.getInteger(
+			ConfigConst.GATEWAY_DEVICE, ConfigConst.FLEET_SIZE_KEY, ConfigConst.DEFAULT_FLEET_SIZE);
+		this.locationIDPrefix = configUtil.getProperty(
+			ConfigConst.GATEWAY_DEVICE, ConfigConst.FLEET_LOCATION_ID_PREFIX_KEY, ConfigConst.DEFAULT_FLEET_LOCATION_ID_PREFIX);
+		this.sensorIntervalMillis = configUtil.getInteger(
+			ConfigConst.GATEWAY_DEVICE, ConfigConst.FLEET_SENSOR_INTERVAL_KEY, ConfigConst.DEFAULT_FLEET_SENSOR_INTERVAL);
+		this.sysPerfIntervalMillis = configUtil.getInteger(
+			ConfigConst.GATEWAY_DEVICE, ConfigConst.FLEET_SYS_PERF_INTERVAL_KEY, ConfigConst.DEFAULT_FLEET_SYS_PERF_INTERVAL);
+		this.threadCount = configUtil.getInteger(
+			ConfigConst.GATEWAY_DEVICE, ConfigConst.FLEET_THREADS_KEY, ConfigConst.DEFAULT_FLEET_THREADS);
+		this.reportSecs = configUtil.getInteger(
+			ConfigConst.GATEWAY_DEVICE, ConfigConst.FLEET_REPORT_SECS_KEY, ConfigConst.DEFAULT_FLEET_REPORT_SECS);
+		this.qos = configUtil.getInteger(
+			ConfigConst.GATEWAY_DEVICE, ConfigConst.DEFAULT_QOS_KEY, ConfigConst.DEFAULT_QOS);
+
+		int jitterPct = configUtil.getInteger(
+			ConfigConst.GATEWAY_DEVICE, ConfigConst.FLEET_JITTER_PCT_KEY, ConfigConst.DEFAULT_FLEET_JITTER_PCT);
+
+		// validate; an interval of 0 (or less) disables that message type
+		if (this.fleetSize <= 0) {
+			this.fleetSize = ConfigConst.DEFAULT_FLEET_SIZE;
+		}
+		if (this.threadCount <= 0) {
+			this.threadCount = ConfigConst.DEFAULT_FLEET_THREADS;
+		}
+		if (jitterPct < 0 || jitterPct > 100) {
+			jitterPct = ConfigConst.DEFAULT_FLEET_JITTER_PCT;
+		}
+
+		this.jitter = jitterPct / 100.0;
+
+		_Logger.info(
+			"Fleet simulator initialized. Devices: " + this.fleetSize +
+			", sensor interval: " + this.sensorIntervalMillis + " ms" +
+			", system performance interval: " + this.sysPerfIntervalMillis + " ms" +
+			", jitter: " + jitterPct + "%" +
+			", offered load: " + String.format("%.1f", getOfferedRate()) + " msg/s");
+	}
+
+
+	// public methods
+
+	/**
+	 * Returns the fleet's nominal publish rate, in messages per second.
+	 *
+	 * @return double
+	 */
+	public double getOfferedRate()
+	{
+		double rate = 0.0;
+
+		if (this.sensorIntervalMillis > 0L) {
+			rate += SENSOR_MSGS_PER_CYCLE * 1000.0 / this.sensorIntervalMillis;
+		}
+		if (this.sysPerfIntervalMillis > 0L) {
+			rate += 1000.0 / this.sysPerfIntervalMillis;
+		}
+
+		return rate * this.fleetSize;
+	}
+
+	public int getFleetSize()
+	{
+		return this.fleetSize;
+	}
+
+	public long getPublishedCount()
+	{
+		return this.publishedCount.sum();
+	}
+
+	public long getDroppedCount()
+	{
+		return this.droppedCount.sum();
+	}
+
+	public synchronized boolean startSimulator()
+	{
+		if (this.isStarted) {
+			_Logger.warning("Fleet simulator already started");
+			return false;
+		}
+
+		this.devices = new ArrayList<>(this.fleetSize);
+
+		int idWidth = String.valueOf(this.fleetSize).length();
+
+		for (int i = 1; i <= this.fleetSize; i++) {
+			this.devices.add(new SimulatedDevice(this.locationIDPrefix + String.format("%0" + idWidth + "d", i)));
+		}
+
+		this.publishExecutor = Executors.newScheduledThreadPool(
+			this.threadCount, ThreadUtil.getInstance().createThreadFactory("fleet-sim-", false));
+
+		this.isStarted = true;
+
+		this.startNanos = System.nanoTime();
+		this.lastReportNanos = this.startNanos;
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+
+		for (SimulatedDevice device : this.devices) {
+			if (this.sensorIntervalMillis > 0L) {
+				this.publishExecutor.schedule(
+					() -> runSensorCycle(device),
+					random.nextLong(this.sensorIntervalMillis), TimeUnit.MILLISECONDS);
+			}
+			if (this.sysPerfIntervalMillis > 0L) {
+				this.publishExecutor.schedule(
+					() -> runSysPerfCycle(device),
+					random.nextLong(this.sysPerfIntervalMillis), TimeUnit.MILLISECONDS);
+			}
+		}
+
+		if (this.reportSecs > 0) {
+			this.reportExecutor = Executors.newSingleThreadScheduledExecutor(
+				ThreadUtil.getInstance().createThreadFactory("fleet-sim-report-", false));
+			this.reportExecutor.scheduleAtFixedRate(
+				this::logReport, this.reportSecs, this.reportSecs, TimeUnit.SECONDS);
+		}
+
+		_Logger.info("Fleet simulator started with " + this.fleetSize + " simulated CDAs");
+
+		return true;
+	}
+
+	public synchronized boolean stopSimulator()
+	{
+		if (! this.isStarted) {
+			_Logger.warning("Fleet simulator not started");
+			return false;
+		}
+
+		this.isStarted = false;
+
+		if (this.reportExecutor != null) {
+			this.reportExecutor.shutdownNow();
+			this.reportExecutor = null;
+		}
+
+		this.publishExecutor.shutdownNow();
+
+		try {
+			this.publishExecutor.awaitTermination(5L, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		this.publishExecutor = null;
+
+		logSummary();
+
+		return true;
+	}
+
+
+	// private methods
+
+	private long nextDelayMillis(long intervalMillis)
+	{
+		if (this.jitter <= 0.0) {
+			return intervalMillis;
+		}
+
+		double factor = 1.0 + this.jitter * (ThreadLocalRandom.current().nextDouble() * 2.0 - 1.0);
+
+		return Math.max(1L, Math.round(intervalMillis * factor));
+	}
+
+	private void runSensorCycle(SimulatedDevice device)
+	{
+		if (! this.isStarted) {
+			return;
+		}
+
+		try {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+
+			device.temperature = walk(device.temperature, 0.2f, 10.0f, 35.0f, random);
+			device.humidity    = walk(device.humidity, 0.5f, 10.0f, 70.0f, random);
+			device.pressure    = walk(device.pressure, 0.3f, 950.0f, 1050.0f, random);
+
+			publishSensorData(device, ConfigConst.TEMP_SENSOR_TYPE, ConfigConst.TEMP_SENSOR_NAME, device.temperature);
+			publishSensorData(device, ConfigConst.HUMIDITY_SENSOR_TYPE, HUMIDITY_SENSOR_NAME, device.humidity);
+			publishSensorData(device, ConfigConst.PRESSURE_SENSOR_TYPE, PRESSURE_SENSOR_NAME, device.pressure);
+		} catch (Exception e) {
+			_Logger.log(Level.WARNING, "Failed to run sensor cycle for device: " + device.locationID, e);
+		}
+
+		reschedule(() -> runSensorCycle(device), this.sensorIntervalMillis);
+	}
+
+	private void runSysPerfCycle(SimulatedDevice device)
+	{
+		if (! this.isStarted) {
+			return;
+		}
+
+		try {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+
+			device.cpuUtil  = walk(device.cpuUtil, 5.0f, 0.0f, 100.0f, random);
+			device.memUtil  = walk(device.memUtil, 1.0f, 0.0f, 100.0f, random);
+			device.diskUtil = walk(device.diskUtil, 0.1f, 0.0f, 100.0f, random);
+
+			SystemPerformanceData data = new SystemPerformanceData();
+			data.setLocationID(device.locationID);
+			data.setCpuUtilization(device.cpuUtil);
+			data.setMemoryUtilization(device.memUtil);
+			data.setDiskUtilization(device.diskUtil);
+
+			publish(ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE, data);
+		} catch (Exception e) {
+			_Logger.log(Level.WARNING, "Failed to run system performance cycle for device: " + device.locationID, e);
+		}
+
+		reschedule(() -> runSysPerfCycle(device), this.sysPerfIntervalMillis);
+	}
+
+	private void publishSensorData(SimulatedDevice device, int typeID, String name, float value)
+	{
+		SensorData data = new SensorData(typeID);
+		data.setName(name);
+		data.setLocationID(device.locationID);
+		data.setValue(value);
+
+		publish(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, data);
+	}
+
+	/**
+	 * Publishes the data, encoded in the format configured for the resource.
+	 *
+	 */
+	private void publish(ResourceNameEnum resource, BaseIotData data)
+	{
+		PayloadFormatEnum format = this.dataUtil.getPayloadFormat(resource);
+		byte[] msg = this.dataUtil.iotDataToBytes(data, format);
+
+		if (this.pubSubClient.publishMessage(resource, msg, format, this.qos)) {
+			this.publishedCount.increment();
+		} else {
+			this.droppedCount.increment();
+		}
+	}
+
+	private void reschedule(Runnable cycle, long intervalMillis)
+	{
+		ScheduledExecutorService executor = this.publishExecutor;
+
+		if (this.isStarted && executor != null) {
+			try {
+				executor.schedule(cycle, nextDelayMillis(intervalMillis), TimeUnit.MILLISECONDS);
+			} catch (Exception e) {
+				// the simulator is being stopped
+			}
+		}
+	}
+
+	private float walk(float value, float maxStep, float min, float max, ThreadLocalRandom random)
+	{
+		float next = value + (random.nextFloat() * 2.0f - 1.0f) * maxStep;
+
+		return Math.max(min, Math.min(max, next));
+	}
+
+	private void logReport()
+	{
+		long nanos = System.nanoTime();
+		double secs = (nanos - this.lastReportNanos) / 1.0e9;
+
+		long published = getPublishedCount();
+		long dropped = getDroppedCount();
+
+		StringBuilder sb = new StringBuilder("Fleet simulator: ");
+		sb.append(String.format(
+			"devices=%d, offered=%.1f msg/s, published=%.1f msg/s, dropped=%d (total %d)",
+			this.fleetSize, getOfferedRate(), (published - this.lastPublishedCount) / secs,
+			dropped - this.lastDroppedCount, dropped));
+
+		this.lastPublishedCount = published;
+		this.lastDroppedCount = dropped;
+
+		if (this.pubSubClient instanceof LoopbackPubSubClient) {
+			LoopbackPubSubClient loopbackClient = (LoopbackPubSubClient) this.pubSubClient;
+
+			long delivered = loopbackClient.getDeliveredCount();
+			long rejected = loopbackClient.getRejectedCount();
+
+			sb.append(String.format(
+				", delivered=%.1f msg/s, rejected=%d (total %d), queued=%d",
+				(delivered - this.lastDeliveredCount) / secs,
+				rejected - this.lastRejectedCount, rejected, loopbackClient.getQueuedCount()));
+
+			this.lastDeliveredCount = delivered;
+			this.lastRejectedCount = rejected;
+		}
+
+		this.lastReportNanos = nanos;
+
+		_Logger.info(sb.toString());
+	}
+
+	private void logSummary()
+	{
+		double secs = (System.nanoTime() - this.startNanos) / 1.0e9;
+
+		StringBuilder sb = new StringBuilder("Fleet simulator stopped: ");
+		sb.append(String.format(
+			"devices=%d, run time=%.1f s, offered=%.1f msg/s, published=%d (%.1f msg/s), dropped=%d",
+			this.fleetSize, secs, getOfferedRate(), getPublishedCount(), getPublishedCount() / secs, getDroppedCount()));
+
+		if (this.pubSubClient instanceof LoopbackPubSubClient) {
+			sb.append("\n\t").append(((LoopbackPubSubClient) this.pubSubClient).getMetricsSummary());
+		}
+
+		_Logger.info(sb.toString());
+	}
+
+}
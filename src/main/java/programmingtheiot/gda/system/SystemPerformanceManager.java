@@ -20,6 +20,7 @@ import programmingtheiot.common.ConfigConst;
 import programmingtheiot.common.ConfigUtil;
 import programmingtheiot.common.IDataMessageListener;
 import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.common.ThreadUtil;
 import programmingtheiot.data.SystemPerformanceData;
 
 import java.util.logging.Logger;
@@ -64,7 +65,8 @@ public class SystemPerformanceManager
 			ConfigConst.NOT_SET
 		);
 
-		this.scheduledExecutorService = Executors.newScheduledThreadPool(1);
+		this.scheduledExecutorService = Executors.newScheduledThreadPool(
+			1, ThreadUtil.getInstance().createThreadFactory("sys-perf-task-"));
 		this.cpuUtilTask = new SystemCpuUtilTask();
 		this.memUtilTask = new SystemMemUtilTask();
 
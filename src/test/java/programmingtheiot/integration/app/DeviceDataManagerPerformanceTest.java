@@ -0,0 +1,350 @@
+/**
+ *
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.integration.app;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.ActuatorData;
+import programmingtheiot.data.BaseIotData;
+import programmingtheiot.data.DataUtil;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+import programmingtheiot.gda.app.DeviceDataManager;
+import programmingtheiot.gda.app.LatencyHistogram;
+import programmingtheiot.integration.connection.StubCloudClient;
+import programmingtheiot.integration.connection.StubPersistenceClient;
+import programmingtheiot.integration.connection.StubPubSubClient;
+
+/**
+ * This test case class contains very basic performance tests for
+ * DeviceDataManager. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ * Each test drives one DeviceDataManager entry point at a series of
+ * increasing offered loads, with the MQTT, cloud and persistence
+ * clients replaced by in-memory stubs with fixed latencies, so no
+ * broker, Redis or cloud service is needed. For each load step, the
+ * achieved throughput and latency percentiles are logged; the point at
+ * which throughput stops tracking the offered load (or latency climbs
+ * sharply) is the saturation point of the gateway's core logic.
+ *
+ * Latency is measured from the time each message was scheduled to be
+ * sent (not when it actually was), so producer stalls show up as latency
+ * rather than being hidden. For sensor and system performance messages,
+ * a message is complete once the stub cloud client has sent it; the
+ * ingest pipeline and dispatch settings are read from the configuration
+ * file as usual.
+ *
+ */
+public class DeviceDataManagerPerformanceTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(DeviceDataManagerPerformanceTest.class.getName());
+
+	public static final int[] OFFERED_RATES         = { 1000, 2000, 5000, 10000, 20000 };
+	public static final int   PRODUCER_THREADS      = 4;
+	public static final int   DEVICE_COUNT          = 20;
+	public static final long  STEP_SECS             = 5L;
+	public static final long  MAX_DRAIN_SECS        = 30L;
+
+	public static final long  MQTT_LATENCY_MICROS    = 200L;
+	public static final long  CLOUD_LATENCY_MICROS   = 2000L;
+	public static final long  PERSIST_LATENCY_MICROS = 1000L;
+
+	/**
+	 * Sends one message to the manager.
+	 *
+	 */
+	@FunctionalInterface
+	private interface MessageSender
+	{
+		/**
+		 * @param locationID The sending device.
+		 * @param scheduledNanos The time the message was scheduled to be sent.
+		 * @param result The step result, for synchronous senders to record
+		 * the message's completion.
+		 * @return boolean The manager's return value.
+		 */
+		public boolean send(String locationID, long scheduledNanos, StepResult result);
+	}
+
+	/**
+	 * The counters and latency histogram for one load step.
+	 *
+	 */
+	private static class StepResult
+	{
+		private final LatencyHistogram histogram = new LatencyHistogram();
+		private final AtomicLong sentCount = new AtomicLong();
+		private final AtomicLong rejectedCount = new AtomicLong();
+		private final AtomicLong completedCount = new AtomicLong();
+		private final AtomicLong stepCompletedCount = new AtomicLong();
+		private volatile long endNanos = Long.MAX_VALUE;
+
+		private void complete(long scheduledNanos)
+		{
+			long nanos = System.nanoTime();
+
+			this.histogram.record((nanos - scheduledNanos) / 1000L);
+			this.completedCount.incrementAndGet();
+
+			// throughput only counts what completed while the load was applied
+			if (nanos <= this.endNanos) {
+				this.stepCompletedCount.incrementAndGet();
+			}
+		}
+	}
+
+	// member var's
+
+	private StubPubSubClient mqttClient = null;
+	private StubCloudClient cloudClient = null;
+	private StubPersistenceClient persistenceClient = null;
+	private DeviceDataManager devDataMgr = null;
+
+	// in-flight messages and when they were scheduled to be sent, keyed
+	// by getMessageKey(); sensor data is uplinked as a batch, so the sent
+	// instances are copies, and are matched by a message ID
+	private Map<Object, Long> inFlightMessages = new ConcurrentHashMap<>();
+	private AtomicLong nextMessageID = new AtomicLong();
+	private volatile StepResult curResult = null;
+
+
+	// test setup methods
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		ConfigUtil.getInstance();
+
+		this.mqttClient = new StubPubSubClient(MQTT_LATENCY_MICROS);
+		this.cloudClient = new StubCloudClient(CLOUD_LATENCY_MICROS);
+		this.persistenceClient = new StubPersistenceClient(PERSIST_LATENCY_MICROS);
+
+		this.cloudClient.setSendListener((data) -> {
+			Long scheduledNanos = this.inFlightMessages.remove(getMessageKey(data));
+			StepResult result = this.curResult;
+
+			if (scheduledNanos != null && result != null) {
+				result.complete(scheduledNanos);
+			}
+		});
+
+		this.devDataMgr = new DeviceDataManager(this.mqttClient, this.cloudClient, this.persistenceClient);
+		this.devDataMgr.startManager();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception
+	{
+		this.devDataMgr.stopManager();
+	}
+
+	// test methods
+
+	@Test
+	public void testSensorMessageLoad() throws Exception
+	{
+		execLoadTest("handleSensorMessage", (locationID, scheduledNanos, result) -> {
+			SensorData data = new SensorData(ConfigConst.TEMP_SENSOR_TYPE);
+			data.setName(ConfigConst.TEMP_SENSOR_NAME);
+			data.setLocationID(locationID);
+			data.setValue(21.5f);
+			data.setStateData(String.valueOf(this.nextMessageID.incrementAndGet()));
+
+			this.inFlightMessages.put(getMessageKey(data), scheduledNanos);
+
+			return this.devDataMgr.handleSensorMessage(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, data);
+		});
+	}
+
+	@Test
+	public void testSystemPerformanceMessageLoad() throws Exception
+	{
+		execLoadTest("handleSystemPerformanceMessage", (locationID, scheduledNanos, result) -> {
+			SystemPerformanceData data = new SystemPerformanceData();
+			data.setLocationID(locationID);
+			data.setCpuUtilization(12.5f);
+			data.setMemoryUtilization(45.0f);
+			data.setDiskUtilization(60.0f);
+
+			this.inFlightMessages.put(getMessageKey(data), scheduledNanos);
+
+			return this.devDataMgr.handleSystemPerformanceMessage(ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE, data);
+		});
+	}
+
+	@Test
+	public void testCloudActuatorCommandLoad() throws Exception
+	{
+		ActuatorData actuatorData = new ActuatorData();
+		actuatorData.setTypeID(ConfigConst.HUMIDIFIER_ACTUATOR_TYPE);
+		actuatorData.setName(ConfigConst.HUMIDIFIER_ACTUATOR_NAME);
+		actuatorData.setCommand(ConfigConst.ON_COMMAND);
+		actuatorData.setValue(40.0f);
+
+		// handleIncomingMessage() decodes the actuator command JSON as is
+		String payload = DataUtil.getInstance().actuatorDataToJson(actuatorData);
+
+		// this path is synchronous, so completion is when the call returns
+		execLoadTest("handleIncomingMessage", (locationID, scheduledNanos, result) -> {
+			boolean success = this.devDataMgr.handleIncomingMessage(ResourceNameEnum.CDA_ACTUATOR_CMD_RESOURCE, payload);
+
+			if (success) {
+				result.complete(scheduledNanos);
+			}
+
+			return success;
+		});
+	}
+
+
+	// private methods
+
+	/**
+	 * Returns the in-flight key for the data: the message ID carried as
+	 * sensor data's state data, or otherwise the instance itself (as
+	 * BaseIotData doesn't override equals()).
+	 *
+	 */
+	private Object getMessageKey(BaseIotData data)
+	{
+		if (data instanceof SensorData && ((SensorData) data).getStateData() != null) {
+			return ((SensorData) data).getStateData();
+		}
+
+		return data;
+	}
+
+	private void execLoadTest(String name, MessageSender sender) throws Exception
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format(
+			"%n\tLoad test: %s | producers = %d | devices = %d | step = %d s | stub latency (us): mqtt = %d, cloud = %d, persist = %d",
+			name, PRODUCER_THREADS, DEVICE_COUNT, STEP_SECS, MQTT_LATENCY_MICROS, CLOUD_LATENCY_MICROS, PERSIST_LATENCY_MICROS));
+		sb.append(String.format(
+			"%n\t%10s %10s %10s %10s %10s %10s %10s %10s %10s",
+			"offered/s", "sent", "done/s", "rejected", "lost", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+
+		for (int rate : OFFERED_RATES) {
+			StepResult result = execLoadStep(rate, sender);
+			LatencyHistogram.Summary summary = result.histogram.getSummaryAndReset();
+
+			long lostCount = result.sentCount.get() - result.rejectedCount.get() - result.completedCount.get();
+
+			sb.append(String.format(
+				"%n\t%10d %10d %10.1f %10d %10d %10.2f %10.2f %10.2f %10.2f",
+				rate, result.sentCount.get(), (double) result.stepCompletedCount.get() / STEP_SECS,
+				result.rejectedCount.get(), lostCount,
+				summary.getP50Micros() / 1000.0, summary.getP90Micros() / 1000.0,
+				summary.getP99Micros() / 1000.0, summary.getMaxMicros() / 1000.0));
+
+			assertTrue(result.completedCount.get() > 0);
+		}
+
+		_Logger.info(sb.toString());
+	}
+
+	/**
+	 * Sends messages at the offered rate for STEP_SECS, spread evenly
+	 * across the producer threads and devices, then waits for in-flight
+	 * messages to drain before the next step starts.
+	 *
+	 */
+	private StepResult execLoadStep(int rate, MessageSender sender) throws Exception
+	{
+		StepResult result = new StepResult();
+
+		this.inFlightMessages.clear();
+		this.curResult = result;
+
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1L) * PRODUCER_THREADS / rate;
+		long startNanos = System.nanoTime();
+		long endNanos = startNanos + TimeUnit.SECONDS.toNanos(STEP_SECS);
+
+		result.endNanos = endNanos;
+
+		List<Thread> producers = new ArrayList<>();
+
+		for (int i = 0; i < PRODUCER_THREADS; i++) {
+			int producerIndex = i;
+
+			Thread producer = new Thread(() -> {
+				// stagger the producers, so sends are evenly spaced overall
+				long scheduledNanos = startNanos + (intervalNanos * producerIndex / PRODUCER_THREADS);
+				int sequenceNo = producerIndex;
+
+				while (scheduledNanos < endNanos) {
+					long waitNanos = scheduledNanos - System.nanoTime();
+
+					if (waitNanos > 0L) {
+						LockSupport.parkNanos(waitNanos);
+					}
+
+					String locationID = "constraineddevice" + (sequenceNo % DEVICE_COUNT);
+
+					result.sentCount.incrementAndGet();
+
+					if (! sender.send(locationID, scheduledNanos, result)) {
+						result.rejectedCount.incrementAndGet();
+					}
+
+					scheduledNanos += intervalNanos;
+					sequenceNo += PRODUCER_THREADS;
+				}
+			}, "load-producer-" + i);
+
+			producers.add(producer);
+			producer.start();
+		}
+
+		for (Thread producer : producers) {
+			producer.join();
+		}
+
+		long drainEndMillis = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(MAX_DRAIN_SECS);
+
+		while (result.completedCount.get() + result.rejectedCount.get() < result.sentCount.get() &&
+			System.currentTimeMillis() < drainEndMillis) {
+			Thread.sleep(10L);
+		}
+
+		this.curResult = null;
+
+		return result;
+	}
+
+}
@@ -0,0 +1,135 @@
+/**
+ *
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.integration.app;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.ThreadUtil;
+import programmingtheiot.data.DataUtil;
+import programmingtheiot.data.SensorData;
+
+/**
+ * This test case class contains very basic performance tests for
+ * the virtual thread and platform thread execution modes provided
+ * by ThreadUtil. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ * Both tests run the same workload directly on a ThreadUtil task
+ * executor: each message is decoded, then sleeps for a fixed time to
+ * simulate a Redis write or HTTP call. This compares the two executor
+ * types only; it doesn't measure the gateway's own message handling.
+ * The virtual thread test is skipped on JVMs older than Java 21.
+ *
+ */
+public class VirtualThreadPerformanceTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(VirtualThreadPerformanceTest.class.getName());
+
+	public static final int  MAX_TEST_RUNS = 10000;
+	public static final long BLOCKING_IO_MILLIS = 10L;
+	public static final long MAX_WAIT_SECS = 300L;
+
+	// member var's
+
+	private String payload = null;
+
+
+	// test setup methods
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		ConfigUtil.getInstance();
+
+		SensorData sensorData = new SensorData();
+		sensorData.setLocationID("constraineddevice001");
+
+		this.payload = DataUtil.getInstance().sensorDataToJson(sensorData);
+	}
+
+	// test methods
+
+	@Test
+	public void testPlatformThreadWorkload() throws Exception
+	{
+		execTestWorkload(false);
+	}
+
+	@Test
+	public void testVirtualThreadWorkload() throws Exception
+	{
+		Assume.assumeTrue(
+			"Virtual threads not supported by this JVM", ThreadUtil.getInstance().isVirtualThreadSupported());
+
+		execTestWorkload(true);
+	}
+
+	// private methods
+
+	private void execTestWorkload(boolean useVirtualThreads) throws Exception
+	{
+		ExecutorService executor =
+			ThreadUtil.getInstance().createTaskExecutor("perf-test-", useVirtualThreads);
+
+		CountDownLatch latch = new CountDownLatch(MAX_TEST_RUNS);
+
+		long startMillis = System.currentTimeMillis();
+
+		for (int sequenceNo = 1; sequenceNo <= MAX_TEST_RUNS; sequenceNo++) {
+			executor.execute(() -> {
+				try {
+					SensorData data = DataUtil.getInstance().jsonToSensorData(this.payload);
+					assertNotNull(data);
+
+					Thread.sleep(BLOCKING_IO_MILLIS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					latch.countDown();
+				}
+			});
+		}
+
+		assertTrue(latch.await(MAX_WAIT_SECS, TimeUnit.SECONDS));
+
+		long endMillis = System.currentTimeMillis();
+		long elapsedMillis = endMillis - startMillis;
+
+		executor.shutdown();
+
+		String msg = String.format(
+			"\n\tTesting Workload: threads = %s | pool size = %s | msgs = %s | blocking I/O = %s ms | elapsed = %s | msgs/sec = %.1f",
+			(useVirtualThreads ? "virtual" : "platform"),
+			(useVirtualThreads ? "n/a" : ThreadUtil.getInstance().getTaskPoolSize()),
+			MAX_TEST_RUNS, BLOCKING_IO_MILLIS,
+			(float) elapsedMillis / 1000, (MAX_TEST_RUNS * 1000.0f) / Math.max(1L, elapsedMillis));
+
+		_Logger.info(msg);
+	}
+
+}
@@ -11,6 +11,10 @@ package programmingtheiot.integration.connection;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import org.junit.After;
@@ -18,6 +22,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import programmingtheiot.common.ConfigUtil;
+import programmingtheiot.common.PayloadFormatEnum;
 import programmingtheiot.common.ResourceNameEnum;
 import programmingtheiot.data.DataUtil;
 import programmingtheiot.data.SensorData;
@@ -30,8 +35,9 @@ import programmingtheiot.gda.connection.MqttClientConnector;
  * additional functionality within their Programming the IoT
  * environment.
  * 
- * IMPORTANT NOTE: This test expects MqttClientConnector to be
- * configured using the synchronous MqttClient.
+ * IMPORTANT NOTE: The testPublishQoS* tests run with whichever publish
+ * mode is configured (see useAsyncClient). The testSyncVsPipelined*
+ * tests set each mode in turn, and compare their throughput.
  *
  */
 public class MqttClientPerformanceTest
@@ -45,8 +51,6 @@ public class MqttClientPerformanceTest
 	
 	// member var's
 	
-	// TODO: make sure MqttClientConnector is configured to
-	// use the synchronous MqttClient
 	private MqttClientConnector mqttClient = null;
 	
 	
@@ -116,8 +120,101 @@ public class MqttClientPerformanceTest
 		execTestPublish(MAX_TEST_RUNS, 2);
 	}
 	
+	/**
+	 * Test method for {@link programmingtheiot.gda.connection.MqttClientConnector#publishMessageAsync(ResourceNameEnum, byte[], PayloadFormatEnum, int)}.
+	 */
+	@Test
+	public void testSyncVsPipelinedQoS0()
+	{
+		execTestSyncVsPipelined(MAX_TEST_RUNS, 0);
+	}
+	
+	/**
+	 * Test method for {@link programmingtheiot.gda.connection.MqttClientConnector#publishMessageAsync(ResourceNameEnum, byte[], PayloadFormatEnum, int)}.
+	 */
+	@Test
+	public void testSyncVsPipelinedQoS1()
+	{
+		execTestSyncVsPipelined(MAX_TEST_RUNS, 1);
+	}
+	
+	/**
+	 * Test method for {@link programmingtheiot.gda.connection.MqttClientConnector#publishMessageAsync(ResourceNameEnum, byte[], PayloadFormatEnum, int)}.
+	 */
+	@Test
+	public void testSyncVsPipelinedQoS2()
+	{
+		execTestSyncVsPipelined(MAX_TEST_RUNS, 2);
+	}
+	
 	// private methods
 	
+	/**
+	 * Publishes the same messages synchronously, then pipelined, waiting
+	 * for every delivery in both cases, and logs each mode's throughput.
+	 * 
+	 * @param maxTestRuns
+	 * @param qos
+	 */
+	private void execTestSyncVsPipelined(int maxTestRuns, int qos)
+	{
+		byte[] payload = DataUtil.getInstance().sensorDataToJsonBytes(new SensorData());
+		
+		double syncRate = execTestPublishAsync(maxTestRuns, qos, payload, false);
+		double pipelinedRate = execTestPublishAsync(maxTestRuns, qos, payload, true);
+		
+		String msg = String.format(
+			"\n\tTesting Sync vs Pipelined: QoS = %s | msgs = %s | payload size = %s | sync = %.1f msgs/sec | pipelined = %.1f msgs/sec",
+			qos, maxTestRuns, payload.length, syncRate, pipelinedRate);
+		
+		_Logger.info(msg);
+	}
+	
+	/**
+	 * @param maxTestRuns
+	 * @param qos
+	 * @param payload
+	 * @param useAsyncClient
+	 * @return double The msgs/sec, once all are delivered
+	 */
+	private double execTestPublishAsync(int maxTestRuns, int qos, byte[] payload, boolean useAsyncClient)
+	{
+		this.mqttClient.setUseAsyncClient(useAsyncClient);
+		
+		assertTrue(this.mqttClient.connectClient());
+		
+		List<CompletableFuture<Boolean>> deliveries = new ArrayList<>(maxTestRuns);
+		
+		long startNanos = System.nanoTime();
+		
+		for (int sequenceNo = 1; sequenceNo <= maxTestRuns; sequenceNo++) {
+			deliveries.add(this.mqttClient.publishMessageAsync(
+				ResourceNameEnum.CDA_MGMT_STATUS_CMD_RESOURCE, payload, PayloadFormatEnum.JSON, qos));
+		}
+		
+		int deliveredCount = 0;
+		
+		try {
+			CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+			
+			for (CompletableFuture<Boolean> delivery : deliveries) {
+				if (delivery.get()) {
+					deliveredCount++;
+				}
+			}
+		} catch (Exception e) {
+			fail("Publishes not delivered: " + e);
+		}
+		
+		long elapsedNanos = System.nanoTime() - startNanos;
+		
+		assertTrue(this.mqttClient.disconnectClient());
+		assertEquals(maxTestRuns, deliveredCount);
+		
+		return maxTestRuns / (elapsedNanos / 1000000000.0d);
+	}
+	
+	
 	/**
 	 * @param maxTestRuns
 	 * @param qos
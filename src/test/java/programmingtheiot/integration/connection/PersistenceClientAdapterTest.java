@@ -11,6 +11,7 @@ package programmingtheiot.integration.connection;
 
 import static org.junit.Assert.*;
 
+import java.util.Set;
 import java.util.logging.Logger;
 
 import org.junit.After;
@@ -22,6 +23,7 @@ import org.junit.Test;
 import programmingtheiot.data.ActuatorData;
 import programmingtheiot.data.DataUtil;
 import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SensorDataBatch;
 import programmingtheiot.data.SystemPerformanceData;
 import programmingtheiot.gda.connection.RedisPersistenceAdapter;
 import redis.clients.jedis.Jedis;
@@ -204,6 +206,65 @@ public class PersistenceClientAdapterTest
 		this.rpa.disconnectClient();
 	}
 	
+	/**
+	 * Test method for {@link programmingtheiot.gda.connection.RedisPersistenceAdapter#storeData(java.lang.String, int, programmingtheiot.data.SensorDataBatch)}.
+	 * Each reading is stored with its location and state data.
+	 */
+	@Test
+	public void testStoreDataStringIntSensorDataBatch()
+	{
+		String topic = "sensorbatchtopic";
+		Jedis client = new Jedis("localhost", 6379);
+		
+		try {
+			client.connect();
+			assertTrue(client.ping().equals("PONG"));
+			
+			for (String key : client.keys(topic + ":*")) {
+				client.del(key);
+			}
+		} catch (Exception e) {
+			fail("Could not connect to Redis server at localhost:6379");
+		}
+		
+		SensorDataBatch batch = new SensorDataBatch();
+		
+		for (int i = 0; i < 10; i++) {
+			SensorData sd = new SensorData();
+			sd.setName("testSensorData");
+			sd.setValue(123.45f + i);
+			sd.setLatitude(45.5f);
+			sd.setLongitude(-122.5f);
+			sd.setElevation(10.0f + i);
+			sd.setStateData("{\"reading\":" + i + "}");
+			batch.add(sd);
+		}
+		
+		this.rpa.connectClient();
+		assertTrue(this.rpa.storeData(topic, 0, batch));
+		
+		// pending writes are finished on disconnect
+		this.rpa.disconnectClient();
+		
+		Set<String> keys = client.keys(topic + ":*");
+		assertEquals(batch.size(), keys.size());
+		
+		for (String key : keys) {
+			SensorData sd = DataUtil.getInstance().jsonToSensorData(client.get(key));
+			int i = Math.round(sd.getElevation() - 10.0f);
+			
+			assertEquals("testSensorData", sd.getName());
+			assertEquals(123.45f + i, sd.getValue(), 0.001f);
+			assertEquals(45.5f, sd.getLatitude(), 0.0f);
+			assertEquals(-122.5f, sd.getLongitude(), 0.0f);
+			assertEquals("{\"reading\":" + i + "}", sd.getStateData());
+			
+			client.del(key);
+		}
+		
+		client.close();
+	}
+	
 	/**
 	 * Test method for {@link programmingtheiot.gda.connection.RedisPersistenceAdapter#storeData(java.lang.String, int, programmingtheiot.data.SystemPerformanceData[])}.
 	 */
@@ -0,0 +1,159 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.integration.connection;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import programmingtheiot.common.IDataMessageListener;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.BaseIotData;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SensorDataBatch;
+import programmingtheiot.data.SystemPerformanceData;
+import programmingtheiot.gda.connection.ICloudClient;
+
+/**
+ * In-memory ICloudClient for performance tests. Each send call blocks
+ * for the configured latency (once per call, including batch calls, like
+ * a single publish), then hands each item to the send listener, if set.
+ *
+ */
+public class StubCloudClient implements ICloudClient
+{
+	// private var's
+
+	private final long latencyNanos;
+	private final AtomicLong sendCount = new AtomicLong();
+	private final AtomicLong itemCount = new AtomicLong();
+
+	private volatile Consumer<BaseIotData> sendListener = null;
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param latencyMicros The time each send call blocks for, in microseconds.
+	 */
+	public StubCloudClient(long latencyMicros)
+	{
+		super();
+
+		this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+	}
+
+
+	// public methods
+
+	public void setSendListener(Consumer<BaseIotData> listener)
+	{
+		this.sendListener = listener;
+	}
+
+	public long getSendCount()
+	{
+		return this.sendCount.get();
+	}
+
+	public long getItemCount()
+	{
+		return this.itemCount.get();
+	}
+
+	@Override
+	public boolean connectClient()
+	{
+		return true;
+	}
+
+	@Override
+	public boolean disconnectClient()
+	{
+		return true;
+	}
+
+	@Override
+	public boolean sendEdgeDataToCloud(ResourceNameEnum resource, SensorData data)
+	{
+		return send(List.of(data));
+	}
+
+	@Override
+	public boolean sendEdgeDataToCloud(ResourceNameEnum resource, SystemPerformanceData data)
+	{
+		return send(List.of(data));
+	}
+
+	@Override
+	public boolean sendSensorDataToCloud(ResourceNameEnum resource, List<SensorData> dataList)
+	{
+		return send(dataList);
+	}
+
+	/**
+	 * Sends the batch as one call. The listener is handed a copy of each
+	 * reading, as the batch doesn't keep the original instances.
+	 *
+	 */
+	@Override
+	public boolean sendSensorDataToCloud(ResourceNameEnum resource, SensorDataBatch batch)
+	{
+		return send(batch.toSensorDataList());
+	}
+
+	@Override
+	public boolean sendSystemPerformanceDataToCloud(ResourceNameEnum resource, List<SystemPerformanceData> dataList)
+	{
+		return send(dataList);
+	}
+
+	@Override
+	public boolean subscribeToCloudEvents(ResourceNameEnum resource)
+	{
+		return true;
+	}
+
+	@Override
+	public boolean unsubscribeFromCloudEvents(ResourceNameEnum resource)
+	{
+		return true;
+	}
+
+	@Override
+	public boolean setDataMessageListener(IDataMessageListener listener)
+	{
+		return true;
+	}
+
+
+	// private methods
+
+	private boolean send(List<? extends BaseIotData> dataList)
+	{
+		if (this.latencyNanos > 0L) {
+			LockSupport.parkNanos(this.latencyNanos);
+		}
+
+		this.sendCount.incrementAndGet();
+		this.itemCount.addAndGet(dataList.size());
+
+		Consumer<BaseIotData> listener = this.sendListener;
+
+		if (listener != null) {
+			dataList.forEach(listener);
+		}
+
+		return true;
+	}
+
+}
@@ -0,0 +1,126 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.integration.connection;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import programmingtheiot.data.ActuatorData;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+import programmingtheiot.gda.connection.IPersistenceClient;
+import programmingtheiot.gda.connection.IPersistenceListener;
+
+/**
+ * In-memory IPersistenceClient for performance tests. Each store call
+ * blocks for the configured latency (once per call, like a single
+ * MSET), then only counts the data; nothing is kept.
+ *
+ */
+public class StubPersistenceClient implements IPersistenceClient
+{
+	// private var's
+
+	private final long latencyNanos;
+	private final AtomicLong storeCount = new AtomicLong();
+	private final AtomicLong itemCount = new AtomicLong();
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param latencyMicros The time each store call blocks for, in microseconds.
+	 */
+	public StubPersistenceClient(long latencyMicros)
+	{
+		super();
+
+		this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+	}
+
+
+	// public methods
+
+	public long getStoreCount()
+	{
+		return this.storeCount.get();
+	}
+
+	public long getItemCount()
+	{
+		return this.itemCount.get();
+	}
+
+	@Override
+	public boolean connectClient()
+	{
+		return true;
+	}
+
+	@Override
+	public boolean disconnectClient()
+	{
+		return true;
+	}
+
+	@Override
+	public ActuatorData[] getActuatorData(String topic, Date startDate, Date endDate)
+	{
+		return new ActuatorData[0];
+	}
+
+	@Override
+	public SensorData[] getSensorData(String topic, Date startDate, Date endDate)
+	{
+		return new SensorData[0];
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public void registerDataStorageListener(Class cType, IPersistenceListener listener, String... topics)
+	{
+	}
+
+	@Override
+	public boolean storeData(String topic, int qos, ActuatorData... data)
+	{
+		return store(data.length);
+	}
+
+	@Override
+	public boolean storeData(String topic, int qos, SensorData... data)
+	{
+		return store(data.length);
+	}
+
+	@Override
+	public boolean storeData(String topic, int qos, SystemPerformanceData... data)
+	{
+		return store(data.length);
+	}
+
+
+	// private methods
+
+	private boolean store(int count)
+	{
+		if (this.latencyNanos > 0L) {
+			LockSupport.parkNanos(this.latencyNanos);
+		}
+
+		this.storeCount.incrementAndGet();
+		this.itemCount.addAndGet(count);
+
+		return true;
+	}
+
+}
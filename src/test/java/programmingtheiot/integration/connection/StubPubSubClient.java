@@ -0,0 +1,103 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.integration.connection;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import programmingtheiot.common.IDataMessageListener;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.gda.connection.IConnectionListener;
+import programmingtheiot.gda.connection.IPubSubClient;
+
+/**
+ * In-memory IPubSubClient for performance tests. Publishes block for
+ * the configured latency, then are counted and discarded; subscriptions
+ * are accepted but nothing is ever delivered.
+ *
+ */
+public class StubPubSubClient implements IPubSubClient
+{
+	// private var's
+
+	private final long latencyNanos;
+	private final AtomicLong publishCount = new AtomicLong();
+
+	// constructors
+
+	/**
+	 * Constructor.
+	 *
+	 * @param latencyMicros The time each publish blocks for, in microseconds.
+	 */
+	public StubPubSubClient(long latencyMicros)
+	{
+		super();
+
+		this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+	}
+
+
+	// public methods
+
+	public long getPublishCount()
+	{
+		return this.publishCount.get();
+	}
+
+	@Override
+	public boolean connectClient()
+	{
+		return true;
+	}
+
+	@Override
+	public boolean disconnectClient()
+	{
+		return true;
+	}
+
+	@Override
+	public boolean publishMessage(ResourceNameEnum topicName, String msg, int qos)
+	{
+		if (this.latencyNanos > 0L) {
+			LockSupport.parkNanos(this.latencyNanos);
+		}
+
+		this.publishCount.incrementAndGet();
+
+		return true;
+	}
+
+	@Override
+	public boolean subscribeToTopic(ResourceNameEnum topicName, int qos)
+	{
+		return true;
+	}
+
+	@Override
+	public boolean unsubscribeFromTopic(ResourceNameEnum topicName)
+	{
+		return true;
+	}
+
+	@Override
+	public boolean setDataMessageListener(IDataMessageListener listener)
+	{
+		return true;
+	}
+
+	@Override
+	public boolean setConnectionListener(IConnectionListener listener)
+	{
+		return true;
+	}
+
+}
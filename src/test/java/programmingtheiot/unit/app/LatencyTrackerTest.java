@@ -0,0 +1,130 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.app;
+
+import static org.junit.Assert.*;
+
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.gda.app.IngestMessage;
+import programmingtheiot.gda.app.LatencyHistogram;
+import programmingtheiot.gda.app.LatencyTracker;
+
+/**
+ * This test case class contains very basic unit tests for
+ * LatencyHistogram and LatencyTracker. It should not be considered
+ * complete, but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class LatencyTrackerTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(LatencyTrackerTest.class.getName());
+
+	public static final int    TEST_VALUE_COUNT = 10000;
+	public static final double MAX_ERROR        = 0.125;
+
+
+	// test methods
+
+	@Test
+	public void testHistogramPercentiles()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		for (int i = 1; i <= TEST_VALUE_COUNT; i++) {
+			histogram.record(i);
+		}
+
+		LatencyHistogram.Summary summary = histogram.getSummaryAndReset();
+
+		_Logger.info("Histogram summary: " + summary);
+
+		assertEquals(TEST_VALUE_COUNT, summary.getCount());
+		assertEquals(TEST_VALUE_COUNT, summary.getMaxMicros());
+		assertWithinError(TEST_VALUE_COUNT / 2, summary.getP50Micros());
+		assertWithinError(TEST_VALUE_COUNT * 90 / 100, summary.getP90Micros());
+		assertWithinError(TEST_VALUE_COUNT * 99 / 100, summary.getP99Micros());
+
+		// each summary covers a single interval
+		assertEquals(0, histogram.getSummaryAndReset().getCount());
+	}
+
+	@Test
+	public void testHistogramExactSmallValues()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		histogram.record(-5L);
+		histogram.record(3L);
+		histogram.record(Long.MAX_VALUE);
+
+		LatencyHistogram.Summary summary = histogram.getSummaryAndReset();
+
+		assertEquals(3, summary.getCount());
+		assertEquals(3L, summary.getP50Micros());
+		assertEquals(LatencyHistogram.MAX_VALUE_MICROS, summary.getMaxMicros());
+	}
+
+	@Test
+	public void testTrackerSummary() throws Exception
+	{
+		LatencyTracker tracker = new LatencyTracker();
+		ResourceNameEnum resource = ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE;
+
+		IngestMessage msg = new IngestMessage(resource, "{}".getBytes());
+		msg.setData(new SensorData());
+
+		tracker.record(msg, IngestMessage.Stage.DECODED);
+		tracker.record(msg, IngestMessage.Stage.PERSISTED);
+		Thread.sleep(5L);
+		tracker.record(msg, IngestMessage.Stage.ANALYZED);
+		tracker.record(msg, IngestMessage.Stage.UPLINKED);
+
+		String json = tracker.getSummaryJsonAndReset();
+
+		_Logger.info("Tracker summary: " + json);
+
+		JsonObject stages =
+			JsonParser.parseString(json).getAsJsonObject()
+				.getAsJsonObject("resources").getAsJsonObject(resource.getResourceName());
+
+		assertEquals(5, stages.size());
+		assertEquals(1, stages.getAsJsonObject("analyze").get("count").getAsLong());
+		assertTrue(stages.getAsJsonObject("analyze").get("max").getAsLong() >= 5000L);
+		assertTrue(
+			stages.getAsJsonObject(LatencyTracker.TOTAL_LABEL).get("max").getAsLong() >=
+			stages.getAsJsonObject("analyze").get("max").getAsLong());
+
+		// nothing recorded since the last summary
+		assertEquals(
+			0, JsonParser.parseString(tracker.getSummaryJsonAndReset()).getAsJsonObject().getAsJsonObject("resources").size());
+	}
+
+
+	// private methods
+
+	private void assertWithinError(long expected, long actual)
+	{
+		assertTrue("Expected ~" + expected + ", was " + actual, actual >= expected);
+		assertTrue("Expected ~" + expected + ", was " + actual, actual <= expected * (1.0 + MAX_ERROR));
+	}
+
+}
@@ -0,0 +1,119 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.app;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.gda.app.LatestSensorDataRegistry;
+
+/**
+ * This test case class contains very basic unit tests for
+ * LatestSensorDataRegistry. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class LatestSensorDataRegistryTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(LatestSensorDataRegistryTest.class.getName());
+
+	public static final String TEST_LOCATION_ID = "constraineddevice001";
+	public static final int    TEST_UPDATE_COUNT = 1000;
+
+
+	// test methods
+
+	@Test
+	public void testUpdateAndGetLatest()
+	{
+		LatestSensorDataRegistry registry = new LatestSensorDataRegistry();
+
+		assertTrue(registry.getSnapshot(TEST_LOCATION_ID).isEmpty());
+		assertNull(registry.getLatest(TEST_LOCATION_ID, ConfigConst.TEMP_SENSOR_TYPE));
+
+		registry.update(createSensorData(TEST_LOCATION_ID, ConfigConst.TEMP_SENSOR_TYPE, 21.0f));
+		registry.update(createSensorData(TEST_LOCATION_ID, ConfigConst.HUMIDITY_SENSOR_TYPE, 35.0f));
+		registry.update(createSensorData(TEST_LOCATION_ID, ConfigConst.TEMP_SENSOR_TYPE, 22.5f));
+
+		LatestSensorDataRegistry.Snapshot snapshot = registry.getSnapshot(TEST_LOCATION_ID);
+
+		_Logger.info("Snapshot version: " + snapshot.getVersion() + ", readings: " + snapshot.getReadings());
+
+		assertEquals(3, snapshot.getVersion());
+		assertEquals(2, snapshot.getReadings().size());
+		assertEquals(22.5f, snapshot.getReading(ConfigConst.TEMP_SENSOR_TYPE).getValue(), 0.0f);
+		assertEquals(35.0f, snapshot.getReading(ConfigConst.HUMIDITY_SENSOR_TYPE).getValue(), 0.0f);
+		assertNull(snapshot.getReading(ConfigConst.PRESSURE_SENSOR_TYPE));
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws Exception
+	{
+		LatestSensorDataRegistry registry = new LatestSensorDataRegistry();
+		LatestSensorDataRegistry.Snapshot emptySnapshot = registry.getSnapshot(TEST_LOCATION_ID);
+
+		int[] typeIDs = {
+			ConfigConst.TEMP_SENSOR_TYPE, ConfigConst.HUMIDITY_SENSOR_TYPE, ConfigConst.PRESSURE_SENSOR_TYPE
+		};
+
+		List<Thread> threads = new ArrayList<>();
+
+		for (int typeID : typeIDs) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < TEST_UPDATE_COUNT; i++) {
+					registry.update(createSensorData(TEST_LOCATION_ID, typeID, i));
+				}
+			});
+
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		LatestSensorDataRegistry.Snapshot snapshot = registry.getSnapshot(TEST_LOCATION_ID);
+
+		// no update is lost, and earlier snapshots are never modified
+		assertEquals(typeIDs.length * TEST_UPDATE_COUNT, snapshot.getVersion());
+		assertTrue(emptySnapshot.isEmpty());
+
+		for (int typeID : typeIDs) {
+			assertEquals(TEST_UPDATE_COUNT - 1, snapshot.getReading(typeID).getValue(), 0.0f);
+		}
+
+		assertEquals(1, registry.getLocationCount());
+	}
+
+
+	// private methods
+
+	private SensorData createSensorData(String locationID, int typeID, float value)
+	{
+		SensorData data = new SensorData(typeID);
+		data.setLocationID(locationID);
+		data.setValue(value);
+
+		return data;
+	}
+
+}
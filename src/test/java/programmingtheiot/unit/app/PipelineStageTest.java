@@ -0,0 +1,313 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.app;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.IotDataPool;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.gda.app.DataIngestionPipeline;
+import programmingtheiot.gda.app.DataIngestionPipeline.StageHandler;
+import programmingtheiot.gda.app.IngestMessage;
+import programmingtheiot.gda.app.PartitionedExecutor;
+import programmingtheiot.gda.app.PipelineStage;
+
+/**
+ * This test case class contains very basic unit tests for
+ * PipelineStage. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class PipelineStageTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(PipelineStageTest.class.getName());
+
+	public static final int TEST_ITEM_COUNT = 100;
+
+
+	// test methods
+
+	@Test
+	public void testProcessAllItems() throws Exception
+	{
+		CountDownLatch latch = new CountDownLatch(TEST_ITEM_COUNT);
+
+		PipelineStage<Integer> stage =
+			new PipelineStage<>("test", 4, 16, 0L, (item) -> latch.countDown());
+
+		stage.start();
+
+		for (int i = 0; i < TEST_ITEM_COUNT; i++) {
+			assertTrue(stage.submit(i));
+		}
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+		stage.stop();
+
+		_Logger.info(stage.getMetricsSummary());
+
+		assertEquals(TEST_ITEM_COUNT, stage.getSubmittedCount());
+		assertEquals(TEST_ITEM_COUNT, stage.getProcessedCount());
+		assertEquals(0, stage.getDroppedCount());
+		assertTrue(stage.getMaxQueueDepth() <= stage.getQueueCapacity());
+	}
+
+	@Test
+	public void testDropWhenFull() throws Exception
+	{
+		CountDownLatch release = new CountDownLatch(1);
+
+		// single worker blocked on the first item, so the queue fills up
+		PipelineStage<Integer> stage = new PipelineStage<>("test", 1, 2, 10L, (item) -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		stage.start();
+
+		int accepted = 0;
+
+		for (int i = 0; i < 10; i++) {
+			if (stage.submit(i)) { accepted++; }
+		}
+
+		release.countDown();
+		stage.stop();
+
+		assertTrue(accepted < 10);
+		assertEquals(10 - accepted, stage.getDroppedCount());
+		assertEquals(accepted, stage.getProcessedCount());
+	}
+
+	@Test
+	public void testMicroBatches() throws Exception
+	{
+		int maxBatchSize = 16;
+
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch latch = new CountDownLatch(TEST_ITEM_COUNT);
+		List<Integer> batchSizes = new ArrayList<>();
+
+		// single worker blocked on the first batch, so the rest queue up
+		PipelineStage<Integer> stage = new PipelineStage<>("test", 1, TEST_ITEM_COUNT, 0L, false, maxBatchSize, (batch) -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			batchSizes.add(batch.size());
+			batch.forEach((item) -> latch.countDown());
+		});
+
+		stage.start();
+
+		for (int i = 0; i < TEST_ITEM_COUNT; i++) {
+			assertTrue(stage.submit(i));
+		}
+
+		release.countDown();
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+		stage.stop();
+
+		_Logger.info(stage.getMetricsSummary() + ", batchSizes=" + batchSizes);
+
+		assertEquals(TEST_ITEM_COUNT, stage.getProcessedCount());
+		assertEquals(batchSizes.size(), stage.getBatchCount());
+		assertTrue(stage.getBatchCount() < TEST_ITEM_COUNT);
+
+		for (int batchSize : batchSizes) {
+			assertTrue(batchSize <= maxBatchSize);
+		}
+	}
+
+	@Test
+	public void testOrderedLanesPreserveKeyOrder() throws Exception
+	{
+		String[] keys = {"device-001", "device-002", "device-003", "device-004", "device-005"};
+
+		CountDownLatch latch = new CountDownLatch(TEST_ITEM_COUNT * keys.length);
+		Map<String, List<Integer>> results = new ConcurrentHashMap<>();
+
+		PartitionedExecutor executor = new PartitionedExecutor("test", 4, 64, 0L);
+
+		executor.start();
+
+		for (int i = 0; i < TEST_ITEM_COUNT; i++) {
+			for (String key : keys) {
+				int seqNum = i;
+
+				// lists are only ever appended to from the key's own lane
+				assertTrue(executor.execute(key, () -> {
+					results.computeIfAbsent(key, (k) -> new ArrayList<>()).add(seqNum);
+					latch.countDown();
+				}));
+			}
+		}
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+		executor.stop();
+
+		_Logger.info(executor.getMetricsSummary());
+
+		for (String key : keys) {
+			List<Integer> seqNums = results.get(key);
+
+			assertEquals(TEST_ITEM_COUNT, seqNums.size());
+
+			for (int i = 0; i < TEST_ITEM_COUNT; i++) {
+				assertEquals(i, seqNums.get(i).intValue());
+			}
+		}
+	}
+
+	@Test
+	public void testOrderedPipelineKeysRawMessagesByDevice() throws Exception
+	{
+		String[] keys = {"device-001", "device-002", "device-003", "device-004", "device-005", "device-006"};
+
+		CountDownLatch latch = new CountDownLatch(TEST_ITEM_COUNT * keys.length);
+		Map<String, List<Integer>> results = new ConcurrentHashMap<>();
+		Map<String, String> decodeThreads = new ConcurrentHashMap<>();
+
+		// the raw messages aren't scanned before they're submitted
+		DataIngestionPipeline pipeline = new DataIngestionPipeline(
+			(batch) -> {
+				for (IngestMessage msg : batch) {
+					String payload = new String(msg.getPayload());
+					int seqNum = Integer.parseInt(payload.substring(payload.lastIndexOf(':') + 1, payload.length() - 1));
+
+					// lists are only ever appended to from the device's own lane
+					results.computeIfAbsent(msg.getScannedLocationID(), (k) -> new ArrayList<>()).add(seqNum);
+					decodeThreads.put(Thread.currentThread().getName(), msg.getScannedLocationID());
+					latch.countDown();
+				}
+
+				return batch;
+			},
+			(batch) -> batch,
+			(batch) -> batch,
+			(batch) -> batch,
+			true);
+
+		assertTrue(pipeline.isOrdered());
+
+		pipeline.startPipeline();
+
+		for (int i = 0; i < TEST_ITEM_COUNT; i++) {
+			for (String key : keys) {
+				byte[] payload = ("{\"locationID\":\"" + key + "\",\"seqNum\":" + i + "}").getBytes();
+
+				assertTrue(pipeline.submitRawMessage(
+					ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, payload, PayloadFormatEnum.JSON));
+			}
+		}
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+		pipeline.stopPipeline();
+
+		// the devices were spread across the decode lanes, each in order
+		assertTrue(decodeThreads.size() > 1);
+
+		for (String key : keys) {
+			List<Integer> seqNums = results.get(key);
+
+			assertEquals(TEST_ITEM_COUNT, seqNums.size());
+
+			for (int i = 0; i < TEST_ITEM_COUNT; i++) {
+				assertEquals(i, seqNums.get(i).intValue());
+			}
+		}
+	}
+
+	@Test
+	public void testFailedBatchReleasesPooledData() throws Exception
+	{
+		IotDataPool<SensorData> pool = IotDataPool.createSensorDataPool(TEST_ITEM_COUNT, true);
+
+		// the persister fails every batch
+		assertAllReleased(pool, (batch) -> {
+			throw new IllegalStateException("Persist failed");
+		});
+
+		// the persister passes on only the first message of each batch
+		assertAllReleased(pool, (batch) -> batch.subList(0, 1));
+
+		_Logger.info(pool.getMetricsSummary());
+	}
+
+	@Test
+	public void testSubmitWhenStopped()
+	{
+		PipelineStage<Integer> stage = new PipelineStage<>("test", 1, 2, 0L, (item) -> {});
+
+		assertFalse(stage.submit(1));
+	}
+
+
+	// private methods
+
+	private void assertAllReleased(IotDataPool<SensorData> pool, StageHandler persister) throws Exception
+	{
+		CountDownLatch latch = new CountDownLatch(TEST_ITEM_COUNT);
+
+		DataIngestionPipeline pipeline = new DataIngestionPipeline(
+			(batch) -> {
+				for (IngestMessage msg : batch) {
+					msg.setData(pool.acquire(), pool);
+					latch.countDown();
+				}
+
+				return batch;
+			},
+			persister,
+			(batch) -> batch,
+			(batch) -> batch);
+
+		pipeline.startPipeline();
+
+		for (int i = 0; i < TEST_ITEM_COUNT; i++) {
+			assertTrue(pipeline.submitRawMessage(
+				ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, new byte[] { '{', '}' }, PayloadFormatEnum.JSON));
+		}
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+		pipeline.stopPipeline();
+
+		assertEquals(pool.getCreatedCount(), pool.getIdleCount());
+		assertEquals(0L, pool.checkForLeaks());
+	}
+
+}
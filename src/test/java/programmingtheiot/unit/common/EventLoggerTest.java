@@ -0,0 +1,172 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.common;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import programmingtheiot.common.EventLogger;
+
+/**
+ * This test case class contains very basic unit tests for
+ * EventLogger. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class EventLoggerTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(EventLoggerTest.class.getName());
+
+	public static final int  TEST_EVENT_COUNT = 100;
+	public static final long MAX_WAIT_MILLIS  = 5000L;
+
+
+	// member var's
+
+	private EventLogger eventLogger = null;
+	private List<String> messages = new CopyOnWriteArrayList<>();
+	private Handler handler = null;
+
+
+	// test setup methods
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.eventLogger = EventLogger.getLogger(EventLoggerTest.class);
+		this.handler = new Handler() {
+			@Override
+			public void publish(LogRecord record)
+			{
+				messages.add(record.getMessage());
+			}
+
+			@Override
+			public void flush()
+			{
+			}
+
+			@Override
+			public void close()
+			{
+			}
+		};
+
+		_Logger.addHandler(this.handler);
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		_Logger.removeHandler(this.handler);
+		_Logger.setLevel(null);
+	}
+
+
+	// test methods
+
+	@Test
+	public void testEventFormat() throws Exception
+	{
+		this.eventLogger.info("test.format", "resource", "PIOT/Test", "value", 42);
+
+		waitForMessages(1);
+
+		assertEquals("test.format resource=PIOT/Test value=42", this.messages.get(0));
+	}
+
+	@Test
+	public void testNoFormattingWhenLevelOff() throws Exception
+	{
+		AtomicInteger formatCount = new AtomicInteger();
+
+		Object value = new Object() {
+			@Override
+			public String toString()
+			{
+				return "formatted-" + formatCount.incrementAndGet();
+			}
+		};
+
+		_Logger.setLevel(Level.WARNING);
+
+		this.eventLogger.info("test.off", "value", value);
+		this.eventLogger.infoSampled("test.off", "sampleKey", "value", value);
+
+		assertFalse(this.eventLogger.isLoggable(Level.INFO));
+
+		// the marker event is written after anything queued before it
+		this.eventLogger.warning("test.marker");
+
+		waitForMessages(1);
+
+		assertEquals(0, formatCount.get());
+		assertEquals(1, this.messages.size());
+	}
+
+	@Test
+	public void testSampledEventsAreRateLimited() throws Exception
+	{
+		int sampleLimit = EventLogger.getSampleLimit();
+
+		for (int i = 0; i < TEST_EVENT_COUNT; i++) {
+			this.eventLogger.infoSampled("test.sampled", "keyA", "seq", i);
+			this.eventLogger.infoSampled("test.sampled", "keyB", "seq", i);
+		}
+
+		waitForMessages(2 * sampleLimit);
+
+		// let the next window start, then check the suppressed count is reported
+		Thread.sleep(EventLogger.getSampleWindowMillis() + 100L);
+
+		this.eventLogger.infoSampled("test.sampled", "keyA", "seq", TEST_EVENT_COUNT);
+
+		waitForMessages(2 * sampleLimit + 1);
+
+		int writtenCount = this.messages.size();
+		String lastMessage = this.messages.get(writtenCount - 1);
+
+		_Logger.info("Sampled events written: " + writtenCount + " of " + (2 * TEST_EVENT_COUNT + 1));
+
+		assertEquals(2 * sampleLimit + 1, writtenCount);
+		assertTrue(lastMessage.endsWith("seq=" + TEST_EVENT_COUNT + " suppressed=" + (TEST_EVENT_COUNT - sampleLimit)));
+	}
+
+
+	// private methods
+
+	private void waitForMessages(int count) throws Exception
+	{
+		long endMillis = System.currentTimeMillis() + MAX_WAIT_MILLIS;
+
+		while (this.messages.size() < count && System.currentTimeMillis() < endMillis) {
+			Thread.sleep(10L);
+		}
+
+		// give the appender a moment to write anything unexpected
+		Thread.sleep(50L);
+	}
+
+}
@@ -0,0 +1,101 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.connection;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.gda.connection.ConsistentHashRing;
+
+/**
+ * This test case class contains very basic unit tests for
+ * ConsistentHashRing. It should not be considered complete, but serve
+ * as a starting point for the student implementing additional
+ * functionality within their Programming the IoT environment.
+ *
+ */
+public class ConsistentHashRingTest
+{
+	// static
+
+	public static final int KEY_COUNT = 10000;
+
+	private static final Logger _Logger =
+		Logger.getLogger(ConsistentHashRingTest.class.getName());
+
+
+	// test methods
+
+	@Test
+	public void testEvenAndStableMapping()
+	{
+		List<String> nodes = List.of("connection-0", "connection-1", "connection-2", "connection-3");
+		ConsistentHashRing<String> ring = new ConsistentHashRing<>(nodes, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+		ConsistentHashRing<String> ring2 = new ConsistentHashRing<>(nodes, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+
+		Map<String, Integer> counts = new HashMap<>();
+
+		for (int i = 0; i < KEY_COUNT; i++) {
+			String key = ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE.getResourceName() + "/device" + i;
+			String node = ring.getNode(key);
+
+			assertEquals(node, ring2.getNode(key));
+			counts.merge(node, 1, Integer::sum);
+		}
+
+		_Logger.info("Keys per node: " + counts);
+
+		assertEquals(nodes.size(), counts.size());
+
+		// within half of an even share
+		for (int count : counts.values()) {
+			assertTrue(count > KEY_COUNT / nodes.size() / 2);
+			assertTrue(count < KEY_COUNT / nodes.size() * 3 / 2);
+		}
+	}
+
+	@Test
+	public void testAddingNodeMovesFewKeys()
+	{
+		ConsistentHashRing<String> ring = new ConsistentHashRing<>(
+			List.of("connection-0", "connection-1", "connection-2"), ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+		ConsistentHashRing<String> ring2 = new ConsistentHashRing<>(
+			List.of("connection-0", "connection-1", "connection-2", "connection-3"), ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+
+		int movedCount = 0;
+
+		for (int i = 0; i < KEY_COUNT; i++) {
+			String key = "PIOT/ConstrainedDevice/Topic" + i;
+			String node = ring.getNode(key);
+			String node2 = ring2.getNode(key);
+
+			if (! node.equals(node2)) {
+				// keys only move to the new node
+				assertEquals("connection-3", node2);
+				movedCount++;
+			}
+		}
+
+		// about a quarter of the keys move
+		assertTrue(movedCount > KEY_COUNT / 8);
+		assertTrue(movedCount < KEY_COUNT / 2);
+
+		ConsistentHashRing<String> singleRing = new ConsistentHashRing<>(List.of("connection-0"), 1);
+
+		assertEquals("connection-0", singleRing.getNode("any"));
+	}
+
+}
@@ -0,0 +1,112 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.connection;
+
+import static org.junit.Assert.*;
+
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.gda.connection.DeadbandFilter;
+
+/**
+ * This test case class contains very basic unit tests for
+ * DeadbandFilter. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class DeadbandFilterTest
+{
+	// static
+
+	public static final String DEFAULT_NAME = "TempSensor";
+	public static final String DEFAULT_LOCATION = "constraineddevice001";
+	public static final int    SENSOR_COUNT = 1000;
+
+	private static final Logger _Logger =
+		Logger.getLogger(DeadbandFilterTest.class.getName());
+
+
+	// test methods
+
+	@Test
+	public void testAbsoluteDeadbandAndHeartbeat()
+	{
+		DeadbandFilter filter = new DeadbandFilter(0.5f, 0.0f, 60);
+		int typeID = ConfigConst.TEMP_SENSOR_TYPE;
+
+		assertTrue(filter.isReportable(DEFAULT_LOCATION, DEFAULT_NAME, typeID, 0, 20.0f, 0L));
+
+		// within the deadband of the last reported value (not the last received)
+		assertFalse(filter.isReportable(DEFAULT_LOCATION, DEFAULT_NAME, typeID, 0, 20.4f, 1000L));
+		assertFalse(filter.isReportable(DEFAULT_LOCATION, DEFAULT_NAME, typeID, 0, 19.6f, 2000L));
+		assertTrue(filter.isReportable(DEFAULT_LOCATION, DEFAULT_NAME, typeID, 0, 20.6f, 3000L));
+
+		// a status change is always reported
+		assertTrue(filter.isReportable(DEFAULT_LOCATION, DEFAULT_NAME, typeID, 1, 20.6f, 4000L));
+
+		// and so is a steady value after the max silence
+		assertFalse(filter.isReportable(DEFAULT_LOCATION, DEFAULT_NAME, typeID, 1, 20.6f, 63999L));
+		assertTrue(filter.isReportable(DEFAULT_LOCATION, DEFAULT_NAME, typeID, 1, 20.6f, 64000L));
+
+		// each location and name is tracked separately
+		assertTrue(filter.isReportable("constraineddevice002", DEFAULT_NAME, typeID, 1, 20.6f, 64000L));
+		assertTrue(filter.isReportable(DEFAULT_LOCATION, null, typeID, 1, 20.6f, 64000L));
+
+		// a reading that failed to send is forgotten, so the next one is reported
+		filter.forget(DEFAULT_LOCATION, DEFAULT_NAME);
+		assertTrue(filter.isReportable(DEFAULT_LOCATION, DEFAULT_NAME, typeID, 1, 20.6f, 65000L));
+
+		_Logger.info(filter.getMetricsSummary());
+
+		assertEquals(3L, filter.getSuppressedCount());
+		assertEquals(3, filter.getTrackedCount());
+	}
+
+	@Test
+	public void testPercentDeadbandAndTypeSettings()
+	{
+		DeadbandFilter filter = new DeadbandFilter(0.0f, 10.0f, 0);
+
+		filter.setTypeSettings(ConfigConst.HUMIDITY_SENSOR_TYPE, 0.0f, 0.0f, 0);
+
+		assertTrue(filter.isReportable(DEFAULT_LOCATION, DEFAULT_NAME, ConfigConst.TEMP_SENSOR_TYPE, 0, 100.0f, 0L));
+		assertFalse(filter.isReportable(DEFAULT_LOCATION, DEFAULT_NAME, ConfigConst.TEMP_SENSOR_TYPE, 0, 109.0f, 1L));
+		assertTrue(filter.isReportable(DEFAULT_LOCATION, DEFAULT_NAME, ConfigConst.TEMP_SENSOR_TYPE, 0, 111.0f, 2L));
+
+		// no heartbeat, and a zero deadband reports every change
+		assertFalse(filter.isReportable(DEFAULT_LOCATION, DEFAULT_NAME, ConfigConst.TEMP_SENSOR_TYPE, 0, 111.0f, Long.MAX_VALUE));
+
+		assertTrue(filter.isReportable(DEFAULT_LOCATION, "HumiditySensor", ConfigConst.HUMIDITY_SENSOR_TYPE, 0, 40.0f, 0L));
+		assertFalse(filter.isReportable(DEFAULT_LOCATION, "HumiditySensor", ConfigConst.HUMIDITY_SENSOR_TYPE, 0, 40.0f, 1L));
+		assertTrue(filter.isReportable(DEFAULT_LOCATION, "HumiditySensor", ConfigConst.HUMIDITY_SENSOR_TYPE, 0, 40.01f, 2L));
+	}
+
+	@Test
+	public void testManySensors()
+	{
+		DeadbandFilter filter = new DeadbandFilter(1.0f, 0.0f, 0);
+
+		for (int i = 0; i < SENSOR_COUNT; i++) {
+			assertTrue(filter.isReportable(DEFAULT_LOCATION + i, DEFAULT_NAME, 0, 0, i, 0L));
+		}
+
+		for (int i = 0; i < SENSOR_COUNT; i++) {
+			assertFalse(filter.isReportable(DEFAULT_LOCATION + i, DEFAULT_NAME, 0, 0, i + 0.5f, 1L));
+		}
+
+		assertEquals(SENSOR_COUNT, filter.getTrackedCount());
+		assertEquals(SENSOR_COUNT, filter.getSuppressedCount());
+	}
+
+}
@@ -0,0 +1,192 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.connection;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import programmingtheiot.common.IActuatorDataListener;
+import programmingtheiot.common.IDataMessageListener;
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.common.ResourceNameEnum;
+import programmingtheiot.data.ActuatorData;
+import programmingtheiot.data.SensorData;
+import programmingtheiot.data.SystemPerformanceData;
+import programmingtheiot.gda.connection.LoopbackPubSubClient;
+
+/**
+ * This test case class contains very basic unit tests for
+ * LoopbackPubSubClient. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class LoopbackPubSubClientTest
+{
+	// static
+
+	private static final Logger _Logger =
+		Logger.getLogger(LoopbackPubSubClientTest.class.getName());
+
+	public static final String TEST_MSG         = "{\"locationID\":\"constraineddevice001\"}";
+	public static final int    TEST_MSG_COUNT   = 100;
+	public static final int    TEST_QUEUE_SIZE  = 10;
+
+	/**
+	 * Records raw messages; optionally blocks delivery until released.
+	 *
+	 */
+	private static class TestListener implements IDataMessageListener
+	{
+		private final List<ResourceNameEnum> resources = new CopyOnWriteArrayList<>();
+		private final CountDownLatch releaseLatch;
+		private final CountDownLatch receivedLatch;
+
+		private TestListener(int expectedCount, boolean blockDelivery)
+		{
+			this.receivedLatch = new CountDownLatch(expectedCount);
+			this.releaseLatch = new CountDownLatch(blockDelivery ? 1 : 0);
+		}
+
+		@Override
+		public boolean handleRawDataMessage(ResourceNameEnum resourceName, byte[] payload, PayloadFormatEnum format)
+		{
+			try {
+				this.releaseLatch.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			this.resources.add(resourceName);
+			this.receivedLatch.countDown();
+
+			return resourceName != ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE;
+		}
+
+		@Override
+		public boolean handleActuatorCommandResponse(ResourceNameEnum resourceName, ActuatorData data)
+		{
+			return false;
+		}
+
+		@Override
+		public boolean handleActuatorCommandRequest(ResourceNameEnum resourceName, ActuatorData data)
+		{
+			return false;
+		}
+
+		@Override
+		public boolean handleIncomingMessage(ResourceNameEnum resourceName, String msg)
+		{
+			return false;
+		}
+
+		@Override
+		public boolean handleSensorMessage(ResourceNameEnum resourceName, SensorData data)
+		{
+			return false;
+		}
+
+		@Override
+		public boolean handleSystemPerformanceMessage(ResourceNameEnum resourceName, SystemPerformanceData data)
+		{
+			return false;
+		}
+
+		@Override
+		public void setActuatorDataListener(String name, IActuatorDataListener listener)
+		{
+		}
+	}
+
+
+	// test methods
+
+	@Test
+	public void testPublishIsLoopedBackToSubscribers() throws Exception
+	{
+		LoopbackPubSubClient client = new LoopbackPubSubClient(TEST_MSG_COUNT, 1);
+		TestListener listener = new TestListener(TEST_MSG_COUNT, false);
+
+		client.setDataMessageListener(listener);
+
+		// not connected yet, so this is dropped
+		assertFalse(client.publishMessage(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, TEST_MSG, 1));
+
+		assertTrue(client.connectClient());
+		assertTrue(client.subscribeToTopic(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, 1));
+		assertTrue(client.subscribeToTopic(ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE, 1));
+
+		for (int i = 0; i < TEST_MSG_COUNT; i++) {
+			ResourceNameEnum resource = (i % 2 == 0 ?
+				ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE : ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE);
+
+			assertTrue(client.publishMessage(resource, TEST_MSG, 1));
+		}
+
+		// nothing is subscribed to this, so it's discarded
+		assertTrue(client.publishMessage(ResourceNameEnum.CDA_ACTUATOR_CMD_RESOURCE, TEST_MSG, 1));
+
+		assertTrue(listener.receivedLatch.await(5L, TimeUnit.SECONDS));
+		assertTrue(client.disconnectClient());
+
+		_Logger.info(client.getMetricsSummary());
+
+		assertEquals(TEST_MSG_COUNT + 2, client.getPublishCount());
+		assertEquals(TEST_MSG_COUNT / 2, client.getDeliveredCount());
+		assertEquals(TEST_MSG_COUNT / 2, client.getRejectedCount());
+		assertEquals(1, client.getDroppedCount());
+		assertEquals(1, client.getUnroutedCount());
+
+		// with one delivery thread, messages arrive in publish order
+		for (int i = 0; i < TEST_MSG_COUNT; i += 2) {
+			assertEquals(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, listener.resources.get(i));
+			assertEquals(ResourceNameEnum.CDA_SYSTEM_PERF_MSG_RESOURCE, listener.resources.get(i + 1));
+		}
+	}
+
+	@Test
+	public void testFullQueueDropsMessages() throws Exception
+	{
+		LoopbackPubSubClient client = new LoopbackPubSubClient(TEST_QUEUE_SIZE, 1);
+		TestListener listener = new TestListener(1, true);
+
+		client.setDataMessageListener(listener);
+		client.connectClient();
+		client.subscribeToTopic(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, 1);
+
+		int acceptedCount = 0;
+
+		// delivery is blocked, so at most the queue size, plus the one
+		// message being delivered, can be accepted
+		for (int i = 0; i < TEST_MSG_COUNT; i++) {
+			if (client.publishMessage(ResourceNameEnum.CDA_SENSOR_MSG_RESOURCE, TEST_MSG, 1)) {
+				acceptedCount++;
+			}
+		}
+
+		listener.releaseLatch.countDown();
+		client.disconnectClient();
+
+		_Logger.info(client.getMetricsSummary());
+
+		assertTrue(acceptedCount >= TEST_QUEUE_SIZE && acceptedCount <= TEST_QUEUE_SIZE + 1);
+		assertEquals(TEST_MSG_COUNT - acceptedCount, client.getDroppedCount());
+		assertEquals(acceptedCount, client.getDeliveredCount());
+	}
+
+}
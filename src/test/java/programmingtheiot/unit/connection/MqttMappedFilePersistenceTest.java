@@ -0,0 +1,225 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.connection;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+import org.eclipse.paho.client.mqttv3.internal.MqttPersistentData;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import programmingtheiot.gda.connection.MqttMappedFilePersistence;
+
+/**
+ * This test case class contains very basic unit tests for
+ * MqttMappedFilePersistence. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class MqttMappedFilePersistenceTest
+{
+	// static
+
+	public static final String CLIENT_ID  = "GatewayDevice001";
+	public static final String SERVER_URI = "tcp://localhost:1883";
+
+	private static final Logger _Logger =
+		Logger.getLogger(MqttMappedFilePersistenceTest.class.getName());
+
+
+	// member var's
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+
+	// test methods
+
+	@Test
+	public void testPutGetRemoveAndReopen() throws Exception
+	{
+		Path baseDir = this.tempFolder.getRoot().toPath();
+		MqttMappedFilePersistence persistence = openPersistence(baseDir, MqttMappedFilePersistence.MIN_SEGMENT_SIZE);
+
+		persistence.put("s-1", createData("s-1", "header1", "payload1"));
+		persistence.put("s-2", createData("s-2", "header2", null));
+		persistence.put("s-3", createData("s-3", "header3", "payload3"));
+		persistence.put("s-1", createData("s-1", "header1b", "payload1b"));
+		persistence.remove("s-3");
+		persistence.remove("unknown");
+
+		assertTrue(persistence.containsKey("s-1"));
+		assertFalse(persistence.containsKey("s-3"));
+		assertData(persistence.get("s-1"), "header1b", "payload1b");
+		assertNull(persistence.get("s-3"));
+
+		persistence.close();
+
+		try {
+			persistence.get("s-1");
+			fail("Expected an exception");
+		} catch (MqttPersistenceException e) {
+			// expected
+		}
+
+		persistence = openPersistence(baseDir, MqttMappedFilePersistence.MIN_SEGMENT_SIZE);
+
+		List<String> keys = Collections.list(persistence.keys());
+		Collections.sort(keys);
+
+		assertEquals(List.of("s-1", "s-2"), keys);
+		assertData(persistence.get("s-1"), "header1b", "payload1b");
+		assertData(persistence.get("s-2"), "header2", "");
+
+		persistence.clear();
+		persistence.close();
+
+		persistence = openPersistence(baseDir, MqttMappedFilePersistence.MIN_SEGMENT_SIZE);
+
+		assertFalse(persistence.keys().hasMoreElements());
+
+		persistence.close();
+	}
+
+	@Test
+	public void testSegmentDeletionAndCompaction() throws Exception
+	{
+		Path baseDir = this.tempFolder.getRoot().toPath();
+		MqttMappedFilePersistence persistence = openPersistence(baseDir, MqttMappedFilePersistence.MIN_SEGMENT_SIZE);
+
+		String payload = new String(new char[200]).replace('\0', 'x');
+
+		// a long-lived message, then a window of messages that are
+		// delivered in turn, rolling many segments
+		persistence.put("s-0", createData("s-0", "header0", "payload0"));
+
+		for (int i = 1; i <= 1000; i++) {
+			persistence.put("s-" + i, createData("s-" + i, "header" + i, payload));
+
+			if (i > 10) {
+				persistence.remove("s-" + (i - 10));
+			}
+		}
+
+		_Logger.info(persistence.getMetricsSummary());
+
+		// the long-lived message was compacted forward, so only a few
+		// segments are left
+		assertTrue(persistence.getSegmentCount() <= 3);
+		assertData(persistence.get("s-0"), "header0", "payload0");
+
+		persistence.close();
+
+		persistence = openPersistence(baseDir, MqttMappedFilePersistence.MIN_SEGMENT_SIZE);
+
+		assertEquals(11, Collections.list(persistence.keys()).size());
+		assertData(persistence.get("s-0"), "header0", "payload0");
+		assertData(persistence.get("s-1000"), "header1000", payload);
+
+		// a record larger than the segment size gets its own segment
+		String largePayload = new String(new char[10000]).replace('\0', 'y');
+
+		persistence.put("s-large", createData("s-large", "header", largePayload));
+		assertData(persistence.get("s-large"), "header", largePayload);
+
+		persistence.close();
+	}
+
+	@Test
+	public void testTornRecord() throws Exception
+	{
+		Path baseDir = this.tempFolder.getRoot().toPath();
+		MqttMappedFilePersistence persistence = openPersistence(baseDir, MqttMappedFilePersistence.MIN_SEGMENT_SIZE);
+
+		persistence.put("s-1", createData("s-1", "header1", "payload1"));
+		persistence.put("s-2", createData("s-2", "header2", "payload2"));
+		persistence.close();
+
+		// corrupt the last byte of the second record, as if the write
+		// was cut short
+		Path segmentFile;
+
+		try (Stream<Path> files = Files.walk(baseDir)) {
+			List<Path> segmentFiles = files
+				.filter(p -> p.getFileName().toString().startsWith(MqttMappedFilePersistence.SEGMENT_PREFIX))
+				.collect(Collectors.toList());
+
+			assertEquals(1, segmentFiles.size());
+			segmentFile = segmentFiles.get(0);
+		}
+
+		int secondRecordEnd = 2 * (20 + 3 + 7 + 8);
+
+		try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 0x7F }), secondRecordEnd - 1);
+		}
+
+		persistence = openPersistence(baseDir, MqttMappedFilePersistence.MIN_SEGMENT_SIZE);
+
+		assertTrue(persistence.containsKey("s-1"));
+		assertFalse(persistence.containsKey("s-2"));
+
+		// the torn record is overwritten by the next one
+		persistence.put("s-3", createData("s-3", "header3", "payload3"));
+		persistence.close();
+
+		persistence = openPersistence(baseDir, MqttMappedFilePersistence.MIN_SEGMENT_SIZE);
+
+		assertData(persistence.get("s-3"), "header3", "payload3");
+		assertEquals(2, Collections.list(persistence.keys()).size());
+
+		persistence.close();
+	}
+
+
+	// private methods
+
+	private MqttMappedFilePersistence openPersistence(Path baseDir, int segmentSize) throws MqttPersistenceException
+	{
+		MqttMappedFilePersistence persistence = new MqttMappedFilePersistence(baseDir, segmentSize, false);
+		persistence.open(CLIENT_ID, SERVER_URI);
+
+		return persistence;
+	}
+
+	private MqttPersistable createData(String key, String header, String payload)
+	{
+		byte[] headerBytes = header.getBytes(StandardCharsets.UTF_8);
+		byte[] payloadBytes = (payload != null ? payload.getBytes(StandardCharsets.UTF_8) : null);
+
+		return new MqttPersistentData(
+			key, headerBytes, 0, headerBytes.length,
+			payloadBytes, 0, (payloadBytes != null ? payloadBytes.length : 0));
+	}
+
+	private void assertData(MqttPersistable data, String header, String payload) throws MqttPersistenceException
+	{
+		assertNotNull(data);
+		assertEquals(header, new String(data.getHeaderBytes(), data.getHeaderOffset(), data.getHeaderLength(), StandardCharsets.UTF_8));
+		assertEquals(payload, new String(data.getPayloadBytes(), data.getPayloadOffset(), data.getPayloadLength(), StandardCharsets.UTF_8));
+	}
+
+}
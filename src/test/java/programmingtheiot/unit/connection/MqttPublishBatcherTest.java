@@ -0,0 +1,198 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.connection;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import programmingtheiot.gda.connection.MqttBatchCodec;
+import programmingtheiot.gda.connection.MqttPublishBatcher;
+
+/**
+ * This test case class contains very basic unit tests for
+ * MqttPublishBatcher and MqttBatchCodec. It should not be considered
+ * complete, but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class MqttPublishBatcherTest
+{
+	// static
+
+	public static final String TOPIC = "PIOT/ConstrainedDevice/ActuatorCmd";
+	public static final String OTHER_TOPIC = "PIOT/ConstrainedDevice/MgmtStatusCmd";
+	public static final int    PAYLOAD_COUNT = 200;
+
+	private static final Logger _Logger =
+		Logger.getLogger(MqttPublishBatcherTest.class.getName());
+
+
+	// test methods
+
+	@Test
+	public void testCodecRoundTrip()
+	{
+		List<byte[]> payloads = new ArrayList<>();
+		payloads.add(new byte[0]);
+		payloads.add(toBytes("{\"command\":1}"));
+		payloads.add(new byte[300]);
+
+		byte[] frame = MqttBatchCodec.encode(payloads);
+
+		assertTrue(MqttBatchCodec.isBatch(frame));
+		assertFalse(MqttBatchCodec.isBatch(payloads.get(1)));
+		assertFalse(MqttBatchCodec.isBatch(null));
+
+		List<byte[]> payloads2 = MqttBatchCodec.decode(frame);
+
+		assertEquals(payloads.size(), payloads2.size());
+
+		for (int i = 0; i < payloads.size(); i++) {
+			assertArrayEquals(payloads.get(i), payloads2.get(i));
+		}
+
+		// a truncated frame, a count larger than the frame, and trailing data
+		byte[][] invalidFrames = {
+			new byte[] { 0x00, 'P', 'B', 0x01, 0x02, 0x01, 'a' },
+			new byte[] { 0x00, 'P', 'B', 0x01, 0x7F, 0x00 },
+			new byte[] { 0x00, 'P', 'B', 0x01, 0x01, 0x01, 'a', 'b' },
+			new byte[] { 0x00, 'P', 'B', 0x01, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF }
+		};
+
+		for (byte[] invalidFrame : invalidFrames) {
+			try {
+				MqttBatchCodec.decode(invalidFrame);
+				fail("Expected an exception");
+			} catch (IllegalArgumentException e) {
+				_Logger.fine("Invalid frame: " + e);
+			}
+		}
+	}
+
+	@Test
+	public void testBatchByCountAndBytes()
+	{
+		List<Published> published = Collections.synchronizedList(new ArrayList<>());
+		MqttPublishBatcher batcher = createBatcher(published, 60000L, 1024, 10);
+
+		for (int i = 0; i < PAYLOAD_COUNT; i++) {
+			assertTrue(batcher.add(TOPIC, toBytes("payload" + i), i % 2));
+		}
+
+		// a payload that doesn't fit sends the current batch first
+		batcher.add(OTHER_TOPIC, new byte[1000], 0);
+		batcher.add(OTHER_TOPIC, new byte[1000], 0);
+
+		assertEquals(PAYLOAD_COUNT / 10 + 1, published.size());
+
+		List<byte[]> payloads = unbatch(published, TOPIC);
+
+		assertEquals(PAYLOAD_COUNT, payloads.size());
+
+		for (int i = 0; i < PAYLOAD_COUNT; i++) {
+			assertEquals("payload" + i, new String(payloads.get(i), StandardCharsets.UTF_8));
+		}
+
+		// each batch is sent with the highest QoS of its payloads
+		assertEquals(1, published.get(0).qos);
+
+		// the last payload is held until it's flushed, and sent unframed
+		Published last = published.get(published.size() - 1);
+
+		assertEquals(OTHER_TOPIC, last.topic);
+		assertEquals(1000, last.payload.length);
+
+		batcher.close();
+
+		assertEquals(PAYLOAD_COUNT / 10 + 2, published.size());
+		assertFalse(batcher.add(TOPIC, toBytes("closed"), 0));
+
+		_Logger.info(batcher.getMetricsSummary());
+	}
+
+	@Test
+	public void testBatchByWindow() throws Exception
+	{
+		List<Published> published = Collections.synchronizedList(new ArrayList<>());
+		MqttPublishBatcher batcher = createBatcher(published, 20L, 16384, 1000);
+
+		for (int i = 0; i < 5; i++) {
+			batcher.add(TOPIC, toBytes("payload" + i), 0);
+		}
+
+		long endMillis = System.currentTimeMillis() + 5000L;
+
+		while (published.isEmpty() && System.currentTimeMillis() < endMillis) {
+			Thread.sleep(5L);
+		}
+
+		assertEquals(1, published.size());
+		assertTrue(MqttBatchCodec.isBatch(published.get(0).payload));
+		assertEquals(5, unbatch(published, TOPIC).size());
+		assertEquals(5L, batcher.getPayloadCount());
+		assertEquals(1L, batcher.getMessageCount());
+
+		batcher.close();
+	}
+
+
+	// private methods
+
+	private MqttPublishBatcher createBatcher(List<Published> published, long windowMillis, int maxBytes, int maxCount)
+	{
+		return new MqttPublishBatcher(
+			(topic, payload, qos) -> published.add(new Published(topic, payload, qos)), windowMillis, maxBytes, maxCount);
+	}
+
+	private List<byte[]> unbatch(List<Published> published, String topic)
+	{
+		List<byte[]> payloads = new ArrayList<>();
+
+		for (Published p : published) {
+			if (p.topic.equals(topic)) {
+				if (MqttBatchCodec.isBatch(p.payload)) {
+					payloads.addAll(MqttBatchCodec.decode(p.payload));
+				} else {
+					payloads.add(p.payload);
+				}
+			}
+		}
+
+		return payloads;
+	}
+
+	private byte[] toBytes(String text)
+	{
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+
+	private static class Published
+	{
+		final String topic;
+		final byte[] payload;
+		final int qos;
+
+		Published(String topic, byte[] payload, int qos)
+		{
+			this.topic = topic;
+			this.payload = payload;
+			this.qos = qos;
+		}
+	}
+
+}
@@ -0,0 +1,192 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.connection;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import programmingtheiot.gda.connection.MqttPublishWindow;
+import programmingtheiot.gda.connection.MqttPublishWindow.OverflowPolicy;
+
+/**
+ * This test case class contains very basic unit tests for
+ * MqttPublishWindow. It should not be considered complete, but serve
+ * as a starting point for the student implementing additional
+ * functionality within their Programming the IoT environment.
+ *
+ */
+public class MqttPublishWindowTest
+{
+	// static
+
+	public static final String TOPIC = "PIOT/ConstrainedDevice/MgmtStatusCmd";
+
+	private static final Logger _Logger =
+		Logger.getLogger(MqttPublishWindowTest.class.getName());
+
+
+	// test methods
+
+	@Test
+	public void testInFlightLimit()
+	{
+		List<CompletableFuture<Boolean>> sent = Collections.synchronizedList(new ArrayList<>());
+		MqttPublishWindow window = createWindow(sent, 3, 10, OverflowPolicy.FAIL, 0L);
+
+		List<CompletableFuture<Boolean>> deliveries = new ArrayList<>();
+
+		for (int i = 0; i < 8; i++) {
+			deliveries.add(window.publish(TOPIC, new byte[] { (byte) i }, 1));
+		}
+
+		assertEquals(3, sent.size());
+		assertEquals(3, window.getInFlightCount());
+		assertEquals(5, window.getQueuedCount());
+
+		// each delivery sends the next queued publish, in order
+		sent.get(0).complete(true);
+		sent.get(1).complete(false);
+
+		assertEquals(5, sent.size());
+		assertTrue(deliveries.get(0).join());
+		assertFalse(deliveries.get(1).join());
+		assertFalse(deliveries.get(3).isDone());
+
+		for (int i = 2; i < 8; i++) {
+			sent.get(i).complete(true);
+		}
+
+		assertTrue(window.awaitDrained(1000L));
+		assertEquals(0, window.getInFlightCount());
+		assertEquals(7L, window.getDeliveredCount());
+		assertEquals(1L, window.getFailedCount());
+
+		_Logger.info(window.getMetricsSummary());
+	}
+
+	@Test
+	public void testOverflowPolicies()
+	{
+		List<CompletableFuture<Boolean>> sent = Collections.synchronizedList(new ArrayList<>());
+		MqttPublishWindow window = createWindow(sent, 1, 2, OverflowPolicy.DROP_OLDEST, 0L);
+
+		CompletableFuture<Boolean> first = window.publish(TOPIC, new byte[1], 0);
+		CompletableFuture<Boolean> oldest = window.publish(TOPIC, new byte[1], 0);
+
+		window.publish(TOPIC, new byte[1], 0);
+		window.publish(TOPIC, new byte[1], 0);
+
+		assertFalse(oldest.join());
+		assertFalse(first.isDone());
+		assertEquals(1L, window.getDroppedCount());
+		assertEquals(2, window.getQueuedCount());
+
+		window = createWindow(sent, 1, 1, OverflowPolicy.FAIL, 0L);
+		window.publish(TOPIC, new byte[1], 0);
+		window.publish(TOPIC, new byte[1], 0);
+
+		assertFalse(window.publish(TOPIC, new byte[1], 0).join());
+		assertEquals(1L, window.getRejectedCount());
+
+		// blocks for the timeout, then rejects
+		window = createWindow(sent, 1, 1, OverflowPolicy.BLOCK, 50L);
+		window.publish(TOPIC, new byte[1], 0);
+		window.publish(TOPIC, new byte[1], 0);
+
+		long startMillis = System.currentTimeMillis();
+
+		assertFalse(window.publish(TOPIC, new byte[1], 0).join());
+		assertTrue(System.currentTimeMillis() - startMillis >= 40L);
+		assertEquals(1L, window.getRejectedCount());
+		assertFalse(window.awaitDrained(10L));
+	}
+
+	@Test(timeout = 10000L)
+	public void testPublishFromCallbackThread() throws Exception
+	{
+		// as with Paho, deliveries are reported on a single callback
+		// thread, which also runs the message handlers
+		ExecutorService callbackThread = Executors.newSingleThreadExecutor();
+		List<CompletableFuture<Boolean>> sent = Collections.synchronizedList(new ArrayList<>());
+
+		MqttPublishWindow window = new MqttPublishWindow(
+			(topic, payload, qos) -> {
+				CompletableFuture<Boolean> delivery = new CompletableFuture<>();
+				sent.add(delivery);
+				return delivery;
+			},
+			1, 1, OverflowPolicy.BLOCK, 0L);
+
+		try {
+			window.publish(TOPIC, new byte[1], 1);
+			window.publish(TOPIC, new byte[1], 1);
+
+			// a handler publishes into the full window; waiting for room
+			// would block the only thread that can free it
+			CompletableFuture<Boolean> handlerPublish = callbackThread.submit(
+				() -> window.publish(TOPIC, new byte[1], 1, false)).get();
+
+			assertFalse(handlerPublish.isDone());
+			assertEquals(2, window.getQueuedCount());
+
+			// the deliveries are then reported on the callback thread
+			for (int i = 0; i < 3; i++) {
+				CompletableFuture<Boolean> delivery = sent.get(i);
+				callbackThread.submit(() -> delivery.complete(true)).get();
+			}
+
+			assertTrue(handlerPublish.join());
+			assertTrue(window.awaitDrained(1000L));
+			assertEquals(3L, window.getDeliveredCount());
+			assertEquals(0L, window.getRejectedCount());
+		} finally {
+			callbackThread.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSenderFailure()
+	{
+		MqttPublishWindow window = new MqttPublishWindow(
+			(topic, payload, qos) -> { throw new IllegalStateException("Not connected"); },
+			1, 1, OverflowPolicy.BLOCK, 0L);
+
+		for (int i = 0; i < 3; i++) {
+			assertFalse(window.publish(TOPIC, new byte[1], 0).join());
+		}
+
+		assertEquals(3L, window.getFailedCount());
+		assertEquals(0, window.getInFlightCount());
+	}
+
+
+	// private methods
+
+	private MqttPublishWindow createWindow(
+		List<CompletableFuture<Boolean>> sent, int maxInFlight, int maxQueued, OverflowPolicy policy, long timeoutMillis)
+	{
+		return new MqttPublishWindow(
+			(topic, payload, qos) -> {
+				CompletableFuture<Boolean> delivery = new CompletableFuture<>();
+				sent.add(delivery);
+				return delivery;
+			},
+			maxInFlight, maxQueued, policy, timeoutMillis);
+	}
+
+}
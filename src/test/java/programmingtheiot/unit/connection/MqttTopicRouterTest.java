@@ -0,0 +1,104 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.connection;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import programmingtheiot.gda.connection.MqttTopicRouter;
+
+/**
+ * This test case class contains very basic unit tests for
+ * MqttTopicRouter. It should not be considered complete, but serve
+ * as a starting point for the student implementing additional
+ * functionality within their Programming the IoT environment.
+ *
+ */
+public class MqttTopicRouterTest
+{
+	// test methods
+
+	@Test
+	public void testExactAndWildcardRoutes()
+	{
+		MqttTopicRouter<String> router = new MqttTopicRouter<>();
+
+		router.addRoute("PIOT/ConstrainedDevice/SensorMsg", "sensor");
+		router.addRoute("PIOT/ConstrainedDevice/SensorMsg/cbor", "sensorCbor");
+		router.addRoute("PIOT/ConstrainedDevice/SensorMsg/+", "sensorDevice");
+		router.addRoute("PIOT/ConstrainedDevice/SensorMsg/+/cbor", "sensorDeviceCbor");
+		router.addRoute("PIOT/+/SystemPerfMsg", "perf");
+		router.addRoute("PIOT/#", "any");
+
+		assertEquals("sensor", router.route("PIOT/ConstrainedDevice/SensorMsg"));
+		assertEquals("sensorCbor", router.route("PIOT/ConstrainedDevice/SensorMsg/cbor"));
+		assertEquals("sensorDevice", router.route("PIOT/ConstrainedDevice/SensorMsg/device001"));
+		assertEquals("sensorDeviceCbor", router.route("PIOT/ConstrainedDevice/SensorMsg/device001/cbor"));
+		assertEquals("perf", router.route("PIOT/GatewayDevice/SystemPerfMsg"));
+
+		// a literal level is tried before '+', then '#'
+		assertEquals("any", router.route("PIOT/ConstrainedDevice/SensorMsg/device001/json"));
+		assertEquals("any", router.route("PIOT/GatewayDevice/SystemPerfMsg/device001"));
+
+		// "a/#" also matches "a", but wildcards don't match '$' topics
+		assertEquals("any", router.route("PIOT"));
+		assertNull(router.route("Other/ConstrainedDevice/SensorMsg"));
+		assertNull(router.route(null));
+
+		router.addRoute("#", "all");
+
+		assertEquals("all", router.route("Other/Topic"));
+		assertNull(router.route("$SYS/broker/uptime"));
+	}
+
+	@Test
+	public void testReplaceAndRemoveRoutes()
+	{
+		MqttTopicRouter<String> router = new MqttTopicRouter<>();
+
+		assertNull(router.addRoute("PIOT/+/ActuatorCmd", "cmd"));
+		assertEquals("cmd", router.addRoute("PIOT/+/ActuatorCmd", "cmd2"));
+		assertTrue(router.hasRoute("PIOT/+/ActuatorCmd"));
+
+		router.addRoute("PIOT/+/ActuatorCmd/+", "cmdDevice");
+
+		assertEquals("cmd2", router.removeRoute("PIOT/+/ActuatorCmd"));
+		assertNull(router.removeRoute("PIOT/+/ActuatorCmd"));
+		assertFalse(router.hasRoute("PIOT/+/ActuatorCmd"));
+		assertNull(router.route("PIOT/ConstrainedDevice/ActuatorCmd"));
+		assertEquals("cmdDevice", router.route("PIOT/ConstrainedDevice/ActuatorCmd/device001"));
+
+		router.addRoute("PIOT/ConstrainedDevice/ActuatorCmd", "exact");
+
+		assertEquals("exact", router.removeRoute("PIOT/ConstrainedDevice/ActuatorCmd"));
+		assertNull(router.route("PIOT/ConstrainedDevice/ActuatorCmd"));
+	}
+
+	@Test
+	public void testInvalidFilters()
+	{
+		MqttTopicRouter<String> router = new MqttTopicRouter<>();
+
+		String[] invalidFilters = { "", "PIOT/#/SensorMsg", "PIOT/Sensor+", "PIOT/+Msg", "PIOT#" };
+
+		for (String filter : invalidFilters) {
+			try {
+				router.addRoute(filter, "handler");
+				fail("Expected an exception for: " + filter);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+
+		assertFalse(MqttTopicRouter.isWildcardFilter("PIOT/ConstrainedDevice/SensorMsg"));
+		assertTrue(MqttTopicRouter.isWildcardFilter("+/+/#"));
+	}
+
+}
@@ -0,0 +1,119 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.data;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import programmingtheiot.data.*;
+
+/**
+ * This test case class contains very basic unit tests for
+ * AnthropicConversation. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class AnthropicConversationTest
+{
+	// static
+
+	public static final String SYSTEM_PROMPT = "Your name is Ripley. Use <tags> & \"quotes\" = escaped.";
+	public static final int    MESSAGE_COUNT = 10;
+
+	// member var's
+
+	private Gson gson = new Gson();
+
+
+	// test methods
+
+	@Test
+	public void testMatchesGsonEncoding()
+	{
+		AnthropicConversation conversation = new AnthropicConversation();
+		List<AnthropicMessage> messages = new ArrayList<>();
+
+		assertEquals(toGsonJson(messages, SYSTEM_PROMPT, false, 0.5f), conversation.toSendMessageJson(SYSTEM_PROMPT, false, 0.5f));
+
+		for (int i = 0; i < MESSAGE_COUNT; i++) {
+			AnthropicMessage message = createMessage(i);
+
+			conversation.add(message);
+			messages.add(message);
+
+			String systemPrompt = (i % 3 == 0 ? null : SYSTEM_PROMPT + " \u00fc " + (i / 2));
+			float randomness = i * 0.1f;
+
+			assertEquals(
+				toGsonJson(messages, systemPrompt, i % 2 == 0, randomness),
+				conversation.toSendMessageJson(systemPrompt, i % 2 == 0, randomness));
+		}
+
+		assertEquals(MESSAGE_COUNT, conversation.size());
+
+		conversation.add(null);
+		conversation.clear();
+		messages.clear();
+
+		assertTrue(conversation.isEmpty());
+		assertEquals(toGsonJson(messages, SYSTEM_PROMPT, true, 1.0f), conversation.toSendMessageJson(SYSTEM_PROMPT, true, 1.0f));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidRandomness()
+	{
+		new AnthropicConversation().toSendMessageJson(SYSTEM_PROMPT, false, Float.NaN);
+	}
+
+
+	// private methods
+
+	private AnthropicMessage createMessage(int index)
+	{
+		List<AnthropicContentBlock> content = new ArrayList<>();
+
+		if (index % 2 == 0) {
+			content.add(new AnthropicContentBlock.Text("Message " + index + ": <what's the temperature?>"));
+
+			return new AnthropicMessage(AnthropicRole.USER, content);
+		}
+
+		JsonObject input = new JsonObject();
+		input.addProperty("locationID", "constraineddevice001");
+		input.addProperty("value", index);
+
+		content.add(new AnthropicContentBlock.Text(null));
+		content.add(new AnthropicContentBlock.ToolUse("tool" + index, "get_sensor_data", input));
+
+		List<ToolResultContentBlock> result = new ArrayList<>();
+		result.add(new ToolResultContentBlock.Text("21.5"));
+		content.add(new AnthropicContentBlock.ToolResult("tool" + index, result, false));
+
+		return new AnthropicMessage(AnthropicRole.ASSISTANT, content);
+	}
+
+	private String toGsonJson(List<AnthropicMessage> messages, String systemPrompt, boolean useTools, float randomness)
+	{
+		MessagesRequest msgReq = new MessagesRequest(messages, systemPrompt, useTools, randomness);
+		LLMHttpRequest req = new LLMHttpRequest(
+			AnthropicConversation.SEND_MESSAGE_ENDPOINT, this.gson.toJsonTree(msgReq).getAsJsonObject());
+
+		return this.gson.toJson(req);
+	}
+
+}
@@ -0,0 +1,248 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.data;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.data.*;
+
+/**
+ * This test case class contains very basic unit tests for the CBOR
+ * codecs (CborByteWriter, CborByteReader and the CBOR DataUtil
+ * methods). It should not be considered complete, but serve as a
+ * starting point for the student implementing additional
+ * functionality within their Programming the IoT environment.
+ *
+ */
+public class CborCodecTest
+{
+	// static
+
+	public static final String DEFAULT_NAME = "CborCodecTestName";
+	public static final String DEFAULT_LOCATION = "constraineddevice001";
+	public static final String UNICODE_TEXT = "\u00fc \u20ac \ud83d\ude00";
+	public static final int    RANDOM_VALUE_COUNT = 1000;
+
+	private static final Logger _Logger =
+		Logger.getLogger(CborCodecTest.class.getName());
+
+	// member var's
+
+	private DataUtil dataUtil = DataUtil.getInstance();
+
+
+	// test methods
+
+	@Test
+	public void testEncodingMatchesSpec()
+	{
+		// examples from RFC 8949, appendix A
+		assertEncoding("00", new CborByteWriter().value(0));
+		assertEncoding("17", new CborByteWriter().value(23));
+		assertEncoding("1818", new CborByteWriter().value(24));
+		assertEncoding("1903e8", new CborByteWriter().value(1000));
+		assertEncoding("1a000f4240", new CborByteWriter().value(1000000));
+		assertEncoding("1b000000e8d4a51000", new CborByteWriter().value(1000000000000L));
+		assertEncoding("20", new CborByteWriter().value(-1));
+		assertEncoding("3903e7", new CborByteWriter().value(-1000));
+		assertEncoding("3b7fffffffffffffff", new CborByteWriter().value(Long.MIN_VALUE));
+		assertEncoding("f90000", new CborByteWriter().value(0.0f));
+		assertEncoding("f98000", new CborByteWriter().value(-0.0f));
+		assertEncoding("f93c00", new CborByteWriter().value(1.0f));
+		assertEncoding("f93e00", new CborByteWriter().value(1.5f));
+		assertEncoding("f97bff", new CborByteWriter().value(65504.0f));
+		assertEncoding("fa47c35000", new CborByteWriter().value(100000.0f));
+		assertEncoding("fa7f7fffff", new CborByteWriter().value(Float.MAX_VALUE));
+		assertEncoding("f90001", new CborByteWriter().value(5.960464477539063e-8f));
+		assertEncoding("f90400", new CborByteWriter().value(0.00006103515625f));
+		assertEncoding("f9c400", new CborByteWriter().value(-4.0f));
+		assertEncoding("f97c00", new CborByteWriter().value(Float.POSITIVE_INFINITY));
+		assertEncoding("f97e00", new CborByteWriter().value(Float.NaN));
+		assertEncoding("f4", new CborByteWriter().value(false));
+		assertEncoding("f6", new CborByteWriter().nullValue());
+		assertEncoding("60", new CborByteWriter().value(""));
+		assertEncoding("6449455446", new CborByteWriter().value("IETF"));
+		assertEncoding("62c3bc", new CborByteWriter().value("\u00fc"));
+		assertEncoding("64f0908591", new CborByteWriter().value("\ud800\udd51"));
+		assertEncoding("bf0102ff", new CborByteWriter().beginMap().key(1).value(2).endMap());
+	}
+
+	@Test
+	public void testRoundTrip()
+	{
+		SensorData sensorData = new SensorData(1013);
+		sensorData.setName(DEFAULT_NAME);
+		sensorData.setLocationID(DEFAULT_LOCATION);
+		sensorData.setStatusCode(-12);
+		sensorData.setLatitude(42.5f);
+		sensorData.setValue(21.37f);
+		sensorData.setStateData(UNICODE_TEXT);
+
+		byte[] cborBytes = this.dataUtil.sensorDataToCbor(sensorData);
+		byte[] jsonBytes = this.dataUtil.sensorDataToJsonBytes(sensorData);
+
+		_Logger.info("SensorData: CBOR " + cborBytes.length + " bytes, JSON " + jsonBytes.length + " bytes.");
+
+		assertTrue(cborBytes.length < jsonBytes.length / 2);
+
+		SensorData sensorData2 = this.dataUtil.cborToSensorData(cborBytes);
+
+		assertSameData(sensorData, sensorData2);
+
+		ActuatorData actuatorData = new ActuatorData();
+		actuatorData.setName(DEFAULT_NAME);
+		actuatorData.setCommand(1);
+		actuatorData.setValue(40.0f);
+		actuatorData.setAsResponse();
+
+		ActuatorData actuatorData2 = this.dataUtil.bytesToActuatorData(
+			this.dataUtil.iotDataToBytes(actuatorData, PayloadFormatEnum.CBOR), PayloadFormatEnum.CBOR);
+
+		assertSameData(actuatorData, actuatorData2);
+
+		SystemPerformanceData sysPerfData = new SystemPerformanceData();
+		sysPerfData.setCpuUtilization(12.345f);
+		sysPerfData.setDiskUtilization(1.0e-7f);
+		sysPerfData.setMemoryUtilization(-0.0f);
+
+		SystemPerformanceData sysPerfData2 =
+			this.dataUtil.cborToSystemPerformanceData(this.dataUtil.systemPerformanceDataToCbor(sysPerfData));
+
+		assertSameData(sysPerfData, sysPerfData2);
+
+		SystemStateData sysStateData = new SystemStateData();
+		sysStateData.setCommand(1);
+		sysStateData.addSensorData(sensorData);
+		sysStateData.addSystemPerformanceData(sysPerfData);
+
+		SystemStateData sysStateData2 =
+			this.dataUtil.cborToSystemStateData(this.dataUtil.systemStateDataToCbor(sysStateData));
+
+		assertSameData(sysStateData, sysStateData2);
+		assertSameData(sensorData, sysStateData2.getSensorDataList().get(0));
+
+		assertNull(this.dataUtil.cborToSensorData(this.dataUtil.sensorDataToCbor(null)));
+		assertNull(this.dataUtil.cborToSensorData(new byte[0]));
+	}
+
+	@Test
+	public void testRandomValues()
+	{
+		Random random = new Random(42L);
+		SensorData data = new SensorData();
+
+		for (int i = 0; i < RANDOM_VALUE_COUNT; i++) {
+			float value = Float.intBitsToFloat(random.nextInt());
+
+			// and some values that fit in half-precision
+			if (i % 2 == 0) {
+				value = (random.nextInt(4096) - 2048) / (float) (1 << random.nextInt(24));
+			}
+
+			data.setValue(value);
+			data.setTypeID(random.nextInt());
+			data.setStatusCode(random.nextInt());
+
+			SensorData data2 = this.dataUtil.cborToSensorData(this.dataUtil.sensorDataToCbor(data));
+
+			if (Float.isNaN(value)) {
+				assertTrue(Float.isNaN(data2.getValue()));
+			} else {
+				assertEquals(Float.floatToIntBits(value), Float.floatToIntBits(data2.getValue()));
+			}
+
+			assertEquals(data.getTypeID(), data2.getTypeID());
+			assertEquals(data.getStatusCode(), data2.getStatusCode());
+		}
+	}
+
+	@Test
+	public void testDefiniteLengthAndUnknownKeys()
+	{
+		// {1: "a", "x": [1, {2: 3}], 10: 1.5, 40: h'0102', 2: "2025-01-01T00:00:00Z", 9: 1}
+		byte[] cborBytes = toBytes(
+			"a6" + "0161" + "61" + "6178" + "8201a10203" + "0af93e00" + "1828420102" +
+			"0274323032352d30312d30315430303a30303a30305a" + "0901");
+
+		SensorData data = this.dataUtil.cborToSensorData(cborBytes);
+
+		assertEquals("a", data.getName());
+		assertEquals(1.5f, data.getValue(), 0.0f);
+		assertEquals("2025-01-01T00:00:00Z", data.getTimeStamp());
+		assertEquals(1L, data.getTimeStampMillis());
+
+		// the ISO time stamp is derived from the millis when not present
+		data = this.dataUtil.cborToSensorData(toBytes("a1091b0000018bcfe56800"));
+
+		assertEquals(1700000000000L, data.getTimeStampMillis());
+		assertEquals("2023-11-14T22:13:20Z", data.getTimeStamp());
+	}
+
+	@Test
+	public void testInvalidInput()
+	{
+		String[] invalidCbor = {
+			"bf", "a201", "bf01ff", "bf0a61ff", "bf0a6161", "a10af93e0000", "80", "bf0a1cff", "bf04fa3fc00000ff"
+		};
+
+		for (String cbor : invalidCbor) {
+			try {
+				this.dataUtil.cborToSensorData(toBytes(cbor));
+				fail("Expected an exception for: " + cbor);
+			} catch (RuntimeException e) {
+				_Logger.fine("Invalid CBOR " + cbor + ": " + e);
+			}
+		}
+	}
+
+
+	// private methods
+
+	private void assertSameData(BaseIotData expected, BaseIotData actual)
+	{
+		// only the time stamp millis are sent, and the ISO time stamp is
+		// derived from them, so it must match exactly
+		assertEquals(Instant.ofEpochMilli(expected.getTimeStampMillis()).toString(), actual.getTimeStamp());
+
+		assertEquals(
+			new String(this.dataUtil.iotDataToBytes(expected, PayloadFormatEnum.JSON), StandardCharsets.UTF_8),
+			new String(this.dataUtil.iotDataToBytes(actual, PayloadFormatEnum.JSON), StandardCharsets.UTF_8));
+	}
+
+	private void assertEncoding(String expectedHex, CborByteWriter writer)
+	{
+		StringBuilder hex = new StringBuilder();
+
+		for (byte b : writer.toByteArray()) {
+			hex.append(String.format("%02x", b & 0xFF));
+		}
+
+		assertEquals(expectedHex, hex.toString());
+	}
+
+	private byte[] toBytes(String hex)
+	{
+		byte[] bytes = new byte[hex.length() / 2];
+
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+		}
+
+		return bytes;
+	}
+
+}
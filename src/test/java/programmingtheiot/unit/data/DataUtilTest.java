@@ -114,14 +114,7 @@ public class DataUtilTest
 		assertTrue(data.getMemoryUtilization() == data2.getMemoryUtilization());
 	}
 	
-	/**
-	 * NOTE: SystemStateData is not required for the exercises in Programming the IoT.
-	 * The test case below is disabled by default, but can easily be re-enabled by
-	 * uncommenting the @Test attribute if SystemStateData is optionally implemented.
-	 * 
-	 */
-	
-//	@Test
+	@Test
 	public void testSystemStateDatatoJsonAndBack()
 	{
 		DataUtil dataUtil = DataUtil.getInstance();
@@ -0,0 +1,179 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.data;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.data.*;
+
+/**
+ * This test case class contains very basic unit tests for
+ * IotDataPool, StringInterner and the pooled DataUtil decode methods.
+ * It should not be considered complete, but serve as a starting point
+ * for the student implementing additional functionality within their
+ * Programming the IoT environment.
+ *
+ */
+public class IotDataPoolTest
+{
+	// static
+
+	public static final String DEFAULT_NAME = "IotDataPoolTestName";
+	public static final String DEFAULT_LOCATION = "constraineddevice001";
+	public static final int    POOL_SIZE = 4;
+
+	private static final Logger _Logger =
+		Logger.getLogger(IotDataPoolTest.class.getName());
+
+	// member var's
+
+	private DataUtil dataUtil = DataUtil.getInstance();
+
+
+	// test methods
+
+	@Test
+	public void testPooledDecodeReusesInstances()
+	{
+		IotDataPool<SensorData> pool = null;
+
+		SensorData sensorData = new SensorData(ConfigConst.TEMP_SENSOR_TYPE);
+		sensorData.setName(DEFAULT_NAME);
+		sensorData.setLocationID(DEFAULT_LOCATION);
+		sensorData.setValue(21.5f);
+		sensorData.setStateData("on");
+
+		for (PayloadFormatEnum format : PayloadFormatEnum.values()) {
+			pool = IotDataPool.createSensorDataPool(POOL_SIZE, false);
+
+			byte[] payload = this.dataUtil.iotDataToBytes(sensorData, format);
+
+			SensorData data1 = this.dataUtil.bytesToSensorData(payload, format, pool);
+			assertEquals(21.5f, data1.getValue(), 0.0f);
+			assertTrue(pool.release(data1));
+
+			SensorData data2 = this.dataUtil.bytesToSensorData(payload, format, pool);
+			assertSame(data1, data2);
+			assertEquals(DEFAULT_NAME, data2.getName());
+			assertEquals(sensorData.getTimeStampMillis(), data2.getTimeStampMillis());
+
+			// names and location IDs are interned
+			SensorData data3 = this.dataUtil.bytesToSensorData(payload, format, pool);
+			assertNotSame(data2, data3);
+			assertSame(data2.getName(), data3.getName());
+			assertSame(data2.getLocationID(), data3.getLocationID());
+
+			pool.release(data2);
+			pool.release(data3);
+		}
+
+		// a reused instance is reset, so missing properties keep their defaults
+		SensorData data = this.dataUtil.bytesToSensorData(
+			"{\"value\":1.5}".getBytes(StandardCharsets.UTF_8), PayloadFormatEnum.JSON, pool);
+
+		assertEquals(1.5f, data.getValue(), 0.0f);
+		assertEquals(ConfigConst.NOT_SET, data.getName());
+		assertEquals(ConfigConst.NOT_SET, data.getLocationID());
+		assertEquals(ConfigConst.DEFAULT_TYPE_ID, data.getTypeID());
+		assertNull(data.getStateData());
+
+		_Logger.info(pool.getMetricsSummary());
+
+		assertEquals(2L, pool.getCreatedCount());
+		assertTrue(pool.getReusedCount() > 0L);
+	}
+
+	@Test
+	public void testReleaseLimits()
+	{
+		IotDataPool<ActuatorData> pool = IotDataPool.createActuatorDataPool(POOL_SIZE, false);
+
+		assertFalse(pool.release(null));
+		assertFalse(pool.release(new SensorData()));
+
+		ActuatorData[] dataArray = new ActuatorData[POOL_SIZE + 1];
+
+		for (int i = 0; i < dataArray.length; i++) {
+			dataArray[i] = pool.acquire();
+		}
+
+		for (int i = 0; i < POOL_SIZE; i++) {
+			assertTrue(pool.release(dataArray[i]));
+		}
+
+		// the pool is full
+		assertFalse(pool.release(dataArray[POOL_SIZE]));
+		assertEquals(POOL_SIZE, pool.getIdleCount());
+		assertEquals(1L, pool.getDiscardedCount());
+
+		// an invalid payload returns the instance to the pool
+		pool.acquire();
+
+		try {
+			this.dataUtil.bytesToActuatorData(
+				"{\"command\":".getBytes(StandardCharsets.UTF_8), PayloadFormatEnum.JSON, pool);
+			fail("Expected an exception");
+		} catch (RuntimeException e) {
+			_Logger.fine("Invalid payload: " + e);
+		}
+
+		assertEquals(POOL_SIZE - 1, pool.getIdleCount());
+	}
+
+	@Test
+	public void testLeakDetection() throws Exception
+	{
+		IotDataPool<SensorData> pool = IotDataPool.createSensorDataPool(POOL_SIZE, true);
+
+		SensorData data = pool.acquire();
+
+		assertTrue(pool.release(data));
+
+		// released twice
+		assertFalse(pool.release(data));
+
+		data = null;
+
+		// acquired (reusing the instance above), but never released
+		pool.acquire();
+
+		for (int i = 0; i < 10 && pool.checkForLeaks() == 0L; i++) {
+			System.gc();
+			Thread.sleep(50L);
+		}
+
+		assertEquals(1L, pool.checkForLeaks());
+	}
+
+	@Test
+	public void testStringInterner()
+	{
+		StringInterner interner = new StringInterner(16);
+		byte[] bytes = ("xx" + DEFAULT_LOCATION + "\u00e9").getBytes(StandardCharsets.UTF_8);
+
+		String s1 = interner.intern(bytes, 2, bytes.length - 2);
+		String s2 = interner.intern(bytes.clone(), 2, bytes.length - 2);
+
+		assertEquals(DEFAULT_LOCATION + "\u00e9", s1);
+		assertSame(s1, s2);
+
+		// too long to be cached
+		byte[] longBytes = new byte[StringInterner.MAX_LENGTH + 1];
+
+		assertNotSame(interner.intern(longBytes, 0, longBytes.length), interner.intern(longBytes, 0, longBytes.length));
+	}
+
+}
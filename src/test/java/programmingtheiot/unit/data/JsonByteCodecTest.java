@@ -0,0 +1,219 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.data;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+import programmingtheiot.data.*;
+
+/**
+ * This test case class contains very basic unit tests for the
+ * streaming JSON codecs (JsonByteWriter, JsonByteReader and the
+ * byte-based DataUtil methods), checked against Gson. It should not
+ * be considered complete, but serve as a starting point for the
+ * student implementing additional functionality within their
+ * Programming the IoT environment.
+ *
+ */
+public class JsonByteCodecTest
+{
+	// static
+
+	public static final String DEFAULT_NAME = "JsonByteCodecTestName";
+	public static final String DEFAULT_LOCATION = "constraineddevice001";
+	public static final String ESCAPED_TEXT = "<a href='x'>&amp;=\"q\"\\ \t\n\r\b\f \u0001 \u007f \u00e9 \u20ac \u2028 \u2029 \ud83d\ude00";
+	public static final int    RANDOM_VALUE_COUNT = 1000;
+
+	private static final Logger _Logger =
+		Logger.getLogger(JsonByteCodecTest.class.getName());
+
+	// member var's
+
+	private Gson gson = new Gson();
+	private DataUtil dataUtil = DataUtil.getInstance();
+
+
+	// test methods
+
+	@Test
+	public void testOutputMatchesGson()
+	{
+		SensorData sensorData = new SensorData(1013);
+		sensorData.setName(ESCAPED_TEXT);
+		sensorData.setLocationID(DEFAULT_LOCATION);
+		sensorData.setStatusCode(-12);
+		sensorData.setValue(21.5f);
+
+		assertGsonCompatible(sensorData, this.dataUtil.sensorDataToJsonBytes(sensorData));
+
+		sensorData.setStateData(ESCAPED_TEXT);
+
+		assertGsonCompatible(sensorData, this.dataUtil.sensorDataToJsonBytes(sensorData));
+
+		ActuatorData actuatorData = new ActuatorData();
+		actuatorData.setName(DEFAULT_NAME);
+		actuatorData.setCommand(1);
+		actuatorData.setValue(40.0f);
+		actuatorData.setStateData(ESCAPED_TEXT);
+		actuatorData.setAsResponse();
+
+		assertGsonCompatible(actuatorData, this.dataUtil.actuatorDataToJsonBytes(actuatorData));
+
+		SystemPerformanceData sysPerfData = new SystemPerformanceData();
+		sysPerfData.setCpuUtilization(12.345f);
+		sysPerfData.setDiskUtilization(1.0e-7f);
+		sysPerfData.setMemoryUtilization(-0.0f);
+
+		assertGsonCompatible(sysPerfData, this.dataUtil.systemPerformanceDataToJsonBytes(sysPerfData));
+
+		assertEquals("null", new String(this.dataUtil.sensorDataToJsonBytes(null), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testRandomValuesMatchGson()
+	{
+		Random random = new Random(42L);
+		SensorData data = new SensorData();
+
+		for (int i = 0; i < RANDOM_VALUE_COUNT; i++) {
+			float value = Float.intBitsToFloat(random.nextInt());
+
+			if (Float.isNaN(value) || Float.isInfinite(value)) {
+				continue;
+			}
+
+			data.setValue(value);
+			data.setTypeID(random.nextInt());
+			data.setStatusCode(random.nextInt());
+
+			byte[] jsonBytes = this.dataUtil.sensorDataToJsonBytes(data);
+
+			assertGsonCompatible(data, jsonBytes);
+
+			// and the value read back is the same as Gson's (and the original)
+			SensorData data2 = this.dataUtil.jsonToSensorData(jsonBytes);
+
+			assertEquals(Float.floatToIntBits(value), Float.floatToIntBits(data2.getValue()));
+			assertEquals(data.getTypeID(), data2.getTypeID());
+			assertEquals(data.getStatusCode(), data2.getStatusCode());
+		}
+	}
+
+	@Test
+	public void testReadMatchesGson()
+	{
+		String json =
+			" {\"value\" : \"21.25\", \"unknown\": {\"a\": [1, 2.5e3, {\"b\": null}], \"c\": \"}\"}," +
+			"\"name\":\"" + "Temp\\u0053ensor\\\\\\/\"," +
+			"\"statusCode\": 3.0, \"typeID\": \"1013\", \"locationID\": null," +
+			"\"latitude\": -12.5e-1, \"longitude\": 1E2, \"elevation\": null," +
+			"\"timeStamp\": \"2023-11-14T22:13:20Z\", \"timeStampMillis\": 1700000000000, \"stateData\": true, \"val\\u0075e\": 4.5} ";
+
+		SensorData gsonData = this.gson.fromJson(json, SensorData.class);
+		SensorData data = this.dataUtil.jsonToSensorData(json.getBytes(StandardCharsets.UTF_8));
+
+		_Logger.info("Decoded: " + data);
+
+		assertEquals(this.gson.toJson(gsonData), this.gson.toJson(data));
+		assertEquals(4.5f, data.getValue(), 0.0f);
+		assertEquals("TempSensor\\/", data.getName());
+		assertNull(data.getLocationID());
+		assertEquals("true", data.getStateData());
+
+		// a ByteBuffer, with the JSON in the middle of the backing array
+		byte[] padded = ("xx" + json + "yy").getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buffer = ByteBuffer.wrap(padded, 2, padded.length - 4).slice();
+
+		SensorData data2 = this.dataUtil.jsonToSensorData(buffer);
+
+		assertEquals(data.getTimeStampMillis(), data2.getTimeStampMillis());
+		assertEquals(0, buffer.position());
+
+		// the same for Gson's own output
+		ActuatorData actuatorData = new ActuatorData();
+		actuatorData.setStateData(ESCAPED_TEXT);
+		actuatorData.setAsResponse();
+		actuatorData.getTimeStamp();
+
+		ActuatorData actuatorData2 = this.dataUtil.jsonToActuatorData(
+			this.gson.toJson(actuatorData).getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(this.gson.toJson(actuatorData), this.gson.toJson(actuatorData2));
+	}
+
+	@Test
+	public void testMissingLocationIDMatchesGson()
+	{
+		String json = "{\"name\":\"TempSensor\",\"value\":21.5}";
+
+		SensorData gsonData = this.dataUtil.jsonToSensorData(json);
+		SensorData data = this.dataUtil.jsonToSensorData(json.getBytes(StandardCharsets.UTF_8));
+
+		// both default to the configured location ID
+		assertEquals(new SensorData().getLocationID(), gsonData.getLocationID());
+		assertEquals(gsonData.getLocationID(), data.getLocationID());
+
+		// the same for CBOR, which omits a null location ID
+		SensorData noLocationData = this.dataUtil.jsonToSensorData(
+			"{\"name\":\"TempSensor\",\"locationID\":null}".getBytes(StandardCharsets.UTF_8));
+
+		assertNull(noLocationData.getLocationID());
+
+		SensorData cborData = this.dataUtil.cborToSensorData(this.dataUtil.sensorDataToCbor(noLocationData));
+
+		assertEquals(gsonData.getLocationID(), cborData.getLocationID());
+	}
+
+	@Test
+	public void testEmptyAndInvalidInput()
+	{
+		assertNull(this.dataUtil.jsonToSensorData((byte[]) null));
+		assertNull(this.dataUtil.jsonToSensorData(new byte[0]));
+		assertNull(this.dataUtil.jsonToSensorData(" null ".getBytes(StandardCharsets.UTF_8)));
+
+		String[] invalidJson = {
+			"{", "[]", "{\"value\":}", "{\"value\":1.5x}", "{\"value\":1} {}",
+			"{\"name\":\"abc}", "{\"typeID\":1.5}", "{\"value\":1 \"name\":\"a\"}"
+		};
+
+		for (String json : invalidJson) {
+			try {
+				this.dataUtil.jsonToSensorData(json.getBytes(StandardCharsets.UTF_8));
+				fail("Expected an exception for: " + json);
+			} catch (RuntimeException e) {
+				_Logger.fine("Invalid JSON " + json + ": " + e);
+			}
+		}
+	}
+
+
+	// private methods
+
+	private void assertGsonCompatible(BaseIotData data, byte[] jsonBytes)
+	{
+		// Gson reads the time stamp field directly, and it's only set once formatted
+		data.getTimeStamp();
+		
+		// compared as UTF-8, as that's what goes on the wire
+		byte[] gsonBytes = this.gson.toJson(data).getBytes(StandardCharsets.UTF_8);
+
+		assertEquals(new String(gsonBytes, StandardCharsets.UTF_8), new String(jsonBytes, StandardCharsets.UTF_8));
+		assertArrayEquals(gsonBytes, jsonBytes);
+	}
+
+}
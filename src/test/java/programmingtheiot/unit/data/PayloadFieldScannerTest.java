@@ -0,0 +1,146 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.data;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.data.*;
+
+/**
+ * This test case class contains very basic unit tests for
+ * PayloadFieldScanner. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class PayloadFieldScannerTest
+{
+	// static
+
+	public static final String DEFAULT_NAME = "TempSensor";
+	public static final String DEFAULT_LOCATION = "constraineddevice001";
+
+	// member var's
+
+	private DataUtil dataUtil = DataUtil.getInstance();
+
+
+	// test methods
+
+	@Test
+	public void testScanEncodedData()
+	{
+		SensorData sensorData = new SensorData(ConfigConst.TEMP_SENSOR_TYPE);
+		sensorData.setName(DEFAULT_NAME);
+		sensorData.setLocationID(DEFAULT_LOCATION);
+		sensorData.setValue(21.5f);
+		sensorData.setStateData("{\"typeID\":1}");
+
+		ActuatorData actuatorData = new ActuatorData();
+		actuatorData.setTypeID(ConfigConst.HVAC_ACTUATOR_TYPE);
+		actuatorData.setLocationID(DEFAULT_LOCATION);
+
+		PayloadFieldScanner scanner = new PayloadFieldScanner();
+
+		for (PayloadFormatEnum format : PayloadFormatEnum.values()) {
+			assertTrue(scanner.scan(this.dataUtil.iotDataToBytes(sensorData, format), format));
+
+			assertTrue(scanner.hasTypeID());
+			assertTrue(scanner.hasTimeStampMillis());
+			assertEquals(ConfigConst.TEMP_SENSOR_TYPE, scanner.getTypeID());
+			assertEquals(sensorData.getTimeStampMillis(), scanner.getTimeStampMillis());
+			assertEquals(sensorData.getTimeStamp(), scanner.getTimeStamp());
+			assertEquals(DEFAULT_NAME, scanner.getName());
+			assertEquals(DEFAULT_LOCATION, scanner.getLocationID());
+
+			// the scanner is reused, and the names are interned as when decoding
+			SensorData sensorData2 = this.dataUtil.bytesToSensorData(
+				this.dataUtil.iotDataToBytes(sensorData, format), format);
+
+			assertSame(sensorData2.getLocationID(), scanner.getLocationID());
+
+			assertTrue(scanner.scan(this.dataUtil.iotDataToBytes(actuatorData, format), format));
+			assertEquals(ConfigConst.HVAC_ACTUATOR_TYPE, scanner.getTypeID());
+			assertEquals(DEFAULT_LOCATION, scanner.getLocationID());
+		}
+	}
+
+	@Test
+	public void testScanCdaPayloadWithoutMillis()
+	{
+		// as sent by the CDA, which has an ISO 8601 time stamp, but no millis
+		String json =
+			"{\"value\":21.5,\"name\":\"" + DEFAULT_NAME + "\",\"typeID\":1001," +
+			"\"timeStamp\":\"2025-03-01T12:30:45.123456+00:00\",\"statusCode\":0," +
+			"\"locationID\":\"" + DEFAULT_LOCATION + "\",\"latitude\":0.0,\"longitude\":0.0,\"elevation\":0.0}";
+
+		PayloadFieldScanner scanner = new PayloadFieldScanner();
+
+		assertTrue(scanner.scan(toJsonBytes(json), PayloadFormatEnum.JSON));
+		assertFalse(scanner.hasTimeStampMillis());
+		assertTrue(scanner.hasTimeStamp());
+		assertEquals("2025-03-01T12:30:45.123456+00:00", scanner.getTimeStamp());
+
+		// a redelivery has the same time stamp as the reading decoded from
+		// the first delivery, so it can be recognized as a duplicate
+		SensorData sensorData = this.dataUtil.bytesToSensorData(toJsonBytes(json), PayloadFormatEnum.JSON);
+		SensorReading reading = SensorReading.fromSensorData(sensorData);
+
+		assertEquals(scanner.getTimeStamp(), reading.getSourceTimeStamp());
+		assertEquals(scanner.getName(), reading.getName());
+
+		assertTrue(scanner.scan(toJsonBytes(json.replace("45.123456", "46.123456")), PayloadFormatEnum.JSON));
+		assertNotEquals(reading.getSourceTimeStamp(), scanner.getTimeStamp());
+	}
+
+		@Test
+	public void testMissingAndInvalidProperties()
+	{
+		PayloadFieldScanner scanner = new PayloadFieldScanner();
+
+		assertTrue(scanner.scan(toJsonBytes("{\"value\":[1,{\"typeID\":2}],\"typeID\":null,\"name\":\"a\"}"), PayloadFormatEnum.JSON));
+		assertFalse(scanner.hasTypeID());
+		assertFalse(scanner.hasTimeStampMillis());
+		assertNull(scanner.getLocationID());
+		assertEquals("a", scanner.getName());
+
+		// {4: 3, 5: "x"}
+		assertTrue(scanner.scan(new byte[] { (byte) 0xa2, 0x04, 0x03, 0x05, 0x61, 'x' }, PayloadFormatEnum.CBOR));
+		assertEquals(3, scanner.getTypeID());
+		assertEquals("x", scanner.getLocationID());
+		assertNull(scanner.getName());
+
+		String[] invalidJson = { "", "[]", "{\"typeID\":\"abc\"}", "{\"name\":" };
+
+		for (String json : invalidJson) {
+			assertFalse(scanner.scan(toJsonBytes(json), PayloadFormatEnum.JSON));
+			assertFalse(scanner.hasTypeID());
+			assertNull(scanner.getName());
+		}
+
+		assertFalse(scanner.scan(null, PayloadFormatEnum.CBOR));
+		assertFalse(scanner.scan(new byte[] { (byte) 0xa1, 0x04 }, PayloadFormatEnum.CBOR));
+	}
+
+
+	// private methods
+
+	private byte[] toJsonBytes(String json)
+	{
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
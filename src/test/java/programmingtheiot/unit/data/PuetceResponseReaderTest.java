@@ -0,0 +1,112 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.data;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.JsonSyntaxException;
+
+import programmingtheiot.data.*;
+
+/**
+ * This test case class contains very basic unit tests for
+ * PuetceResponseReader. It should not be considered complete,
+ * but serve as a starting point for the student implementing
+ * additional functionality within their Programming the IoT
+ * environment.
+ *
+ */
+public class PuetceResponseReaderTest
+{
+	// test methods
+
+	@Test
+	public void testReadMessageResponse()
+	{
+		// the block type may come last, and text may contain "null"
+		String json =
+			"{\"data\":{\"role\":\"assistant\",\"content\":[" +
+			"{\"text\":\"null and void\",\"type\":\"text\"}," +
+			"{\"type\":\"thinking\",\"thinking\":\"...\"}," +
+			"{\"type\":\"tool_use\",\"id\":\"toolu_01\",\"name\":\"set_humidifier\",\"input\":{\"value\":40.0,\"unit\":null}}," +
+			"{\"type\":\"tool_result\",\"tool_use_id\":\"toolu_01\",\"content\":\"done\",\"is_error\":null}," +
+			"{\"type\":\"text\",\"text\":null}" +
+			"],\"stop_reason\":null},\"status\":\"success\"}";
+
+		PuetceResponse response = PuetceResponseReader.read(json);
+
+		assertTrue(response.isSuccess());
+		assertNull(response.getToolResults());
+
+		AnthropicMessage message = response.getMessage();
+
+		assertEquals(AnthropicRole.ASSISTANT, message.role);
+		assertEquals(4, message.content.size());
+
+		assertEquals("null and void", ((AnthropicContentBlock.Text) message.content.get(0)).text);
+
+		AnthropicContentBlock.ToolUse toolUse = (AnthropicContentBlock.ToolUse) message.content.get(1);
+
+		assertEquals("toolu_01", toolUse.id);
+		assertEquals("set_humidifier", toolUse.name);
+		assertEquals(40.0f, toolUse.input.get("value").getAsFloat(), 0.0f);
+		assertTrue(toolUse.input.get("unit").isJsonNull());
+
+		AnthropicContentBlock.ToolResult toolResult = (AnthropicContentBlock.ToolResult) message.content.get(2);
+
+		assertFalse(toolResult.isError);
+		assertEquals("done", ((ToolResultContentBlock.Text) toolResult.content.get(0)).text);
+
+		assertNull(((AnthropicContentBlock.Text) message.content.get(3)).text);
+	}
+
+	@Test
+	public void testReadToolResponse()
+	{
+		PuetceResponse response = PuetceResponseReader.read(
+			"{\"status\":\"success\",\"data\":[{\"type\":\"text\",\"text\":\"21.5\"},{\"type\":\"image\"},{\"text\":null},1]}");
+
+		List<ToolResultContentBlock> results = response.getToolResults();
+
+		assertNull(response.getMessage());
+		assertEquals(2, results.size());
+		assertEquals("21.5", ((ToolResultContentBlock.Text) results.get(0)).text);
+		assertNull(((ToolResultContentBlock.Text) results.get(1)).text);
+
+		response = PuetceResponseReader.read("{\"status\":\"error\",\"data\":\"Unknown tool\"}");
+
+		assertFalse(response.isSuccess());
+		assertEquals("Unknown tool", response.getText());
+		assertNull(response.getToolResults());
+
+		assertNull(PuetceResponseReader.read(""));
+	}
+
+	@Test
+	public void testInvalidInput()
+	{
+		String[] invalidJson = {
+			"[]", "{\"status\":", "{\"status\":\"success\",\"data\":{\"content\":[}}", "{\"status\":{}}"
+		};
+
+		for (String json : invalidJson) {
+			try {
+				PuetceResponseReader.read(json);
+				fail("Expected an exception for: " + json);
+			} catch (JsonSyntaxException e) {
+				// expected
+			}
+		}
+	}
+
+}
@@ -0,0 +1,242 @@
+/**
+ * This class is part of the Programming the Internet of Things
+ * project, and is available via the MIT License, which can be
+ * found in the LICENSE file at the top level of this repository.
+ *
+ * Copyright (c) 2020 - 2025 by Andrew D. King
+ */
+
+package programmingtheiot.unit.data;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+import programmingtheiot.common.ConfigConst;
+import programmingtheiot.common.PayloadFormatEnum;
+import programmingtheiot.data.*;
+
+/**
+ * This test case class contains very basic unit tests for
+ * SensorDataBatch and the batch DataUtil methods. It should not be
+ * considered complete, but serve as a starting point for the student
+ * implementing additional functionality within their Programming the
+ * IoT environment.
+ *
+ */
+public class SensorDataBatchTest
+{
+	// static
+
+	public static final String   DEFAULT_LOCATION = "constraineddevice001";
+	public static final String[] SENSOR_NAMES = { "TempSensor", "HumiditySensor", "PressureSensor" };
+	public static final int      READING_COUNT = 100;
+
+	private static final Logger _Logger =
+		Logger.getLogger(SensorDataBatchTest.class.getName());
+
+	// member var's
+
+	private DataUtil dataUtil = DataUtil.getInstance();
+
+
+	// test methods
+
+	@Test
+	public void testAddAndDictionaries()
+	{
+		List<SensorData> dataList = createSensorDataList();
+		SensorDataBatch batch = new SensorDataBatch(4);
+
+		batch.addAll(dataList);
+		batch.add(null);
+
+		assertEquals(READING_COUNT, batch.size());
+		assertEquals(SENSOR_NAMES.length, batch.getNameCount());
+		assertEquals(1, batch.getLocationIDCount());
+
+		for (int i = 0; i < READING_COUNT; i++) {
+			SensorData expected = dataList.get(i);
+
+			assertSame(SENSOR_NAMES[i % SENSOR_NAMES.length], batch.getNameByIndex(batch.getNameIndex(i)));
+			assertEquals(expected.getName(), batch.getName(i));
+			assertEquals(expected.getValue(), batch.getValue(i), 0.0f);
+			assertEquals(expected.getTimeStampMillis(), batch.getTimeStampMillis(i));
+			assertSameData(expected, batch.toSensorData(i));
+		}
+
+		batch.clear();
+
+		assertTrue(batch.isEmpty());
+		assertEquals(0, batch.getNameCount());
+
+		// null names are a dictionary entry of their own
+		batch.add(null, DEFAULT_LOCATION, ConfigConst.DEFAULT_TYPE_ID, 0, 1.0f, 1L);
+
+		assertNull(batch.getName(0));
+		assertEquals(1, batch.getNameCount());
+	}
+
+	@Test
+	public void testRoundTrip()
+	{
+		List<SensorData> dataList = createSensorDataList();
+		SensorDataBatch batch = new SensorDataBatch();
+
+		batch.addAll(dataList);
+
+		for (PayloadFormatEnum format : PayloadFormatEnum.values()) {
+			byte[] batchBytes = this.dataUtil.sensorDataBatchToBytes(batch, format);
+
+			int itemBytes = 0;
+
+			for (SensorData data : dataList) {
+				itemBytes += this.dataUtil.iotDataToBytes(data, format).length;
+			}
+
+			_Logger.info("SensorDataBatch: " + format + " " + batchBytes.length + " bytes, " + itemBytes + " bytes as items.");
+
+			assertTrue(batchBytes.length < itemBytes / 2);
+
+			SensorDataBatch batch2 = this.dataUtil.bytesToSensorDataBatch(batchBytes, format);
+
+			assertEquals(batch.size(), batch2.size());
+			assertEquals(batch.getNameCount(), batch2.getNameCount());
+
+			for (int i = 0; i < batch.size(); i++) {
+				assertSameData(dataList.get(i), batch2.toSensorData(i));
+			}
+
+			assertArrayEquals(batchBytes, this.dataUtil.sensorDataBatchToBytes(batch2, format));
+
+			assertNull(this.dataUtil.bytesToSensorDataBatch(this.dataUtil.sensorDataBatchToBytes(null, format), format));
+			assertNull(this.dataUtil.bytesToSensorDataBatch(new byte[0], format));
+		}
+
+		// each reading also encodes on its own, as its SensorData would
+		for (int i = 0; i < batch.size(); i++) {
+			assertArrayEquals(
+				this.dataUtil.sensorDataToJsonBytes(batch.toSensorData(i)),
+				this.dataUtil.sensorDataBatchItemToJsonBytes(batch, i));
+		}
+
+		SensorDataBatch emptyBatch = this.dataUtil.jsonToSensorDataBatch(
+			this.dataUtil.sensorDataBatchToJsonBytes(new SensorDataBatch()));
+
+		assertTrue(emptyBatch.isEmpty());
+
+		// the location and state data columns are optional
+		SensorDataBatch plainBatch = this.dataUtil.jsonToSensorDataBatch((
+			"{\"names\":[\"a\"],\"locationIDs\":[\"b\"],\"nameIndex\":[0],\"locationIDIndex\":[0],"
+				+ "\"typeID\":[0],\"statusCode\":[0],\"value\":[1.0],\"timeStampMillis\":[1]}").getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(1, plainBatch.size());
+		assertEquals(ConfigConst.DEFAULT_LAT, plainBatch.getLatitude(0), 0.0f);
+		assertEquals(ConfigConst.DEFAULT_ELEVATION, plainBatch.getElevation(0), 0.0f);
+		assertNull(plainBatch.getStateData(0));
+	}
+
+	@Test
+	public void testInvalidInput()
+	{
+		String[] invalidJson = {
+			// columns of different lengths
+			"{\"names\":[\"a\"],\"locationIDs\":[\"b\"],\"nameIndex\":[0,0],\"locationIDIndex\":[0],"
+				+ "\"typeID\":[0],\"statusCode\":[0],\"value\":[1.0],\"timeStampMillis\":[1]}",
+			// a missing column
+			"{\"names\":[\"a\"],\"locationIDs\":[\"b\"],\"nameIndex\":[0],\"locationIDIndex\":[0],"
+				+ "\"typeID\":[0],\"statusCode\":[0],\"value\":[1.0]}",
+			// an optional column of a different length
+			"{\"names\":[\"a\"],\"locationIDs\":[\"b\"],\"nameIndex\":[0],\"locationIDIndex\":[0],"
+				+ "\"typeID\":[0],\"statusCode\":[0],\"value\":[1.0],\"timeStampMillis\":[1],\"stateData\":[]}",
+			// a name index out of range
+			"{\"names\":[\"a\"],\"locationIDs\":[\"b\"],\"nameIndex\":[1],\"locationIDIndex\":[0],"
+				+ "\"typeID\":[0],\"statusCode\":[0],\"value\":[1.0],\"timeStampMillis\":[1]}",
+			"{\"names\":[\"a\"],\"nameIndex\":[0"
+		};
+
+		for (String json : invalidJson) {
+			try {
+				this.dataUtil.jsonToSensorDataBatch(json.getBytes(StandardCharsets.UTF_8));
+				fail("Expected an exception for: " + json);
+			} catch (RuntimeException e) {
+				_Logger.fine("Invalid JSON " + json + ": " + e);
+			}
+		}
+
+		// {3: [0]} and {3: [_ 0]}, i.e. a missing column and an indefinite-length array
+		String[] invalidCbor = { "a1038100", "a1039f00ff" };
+
+		for (String cbor : invalidCbor) {
+			try {
+				this.dataUtil.cborToSensorDataBatch(toBytes(cbor));
+				fail("Expected an exception for: " + cbor);
+			} catch (RuntimeException e) {
+				_Logger.fine("Invalid CBOR " + cbor + ": " + e);
+			}
+		}
+	}
+
+
+	// private methods
+
+	private List<SensorData> createSensorDataList()
+	{
+		List<SensorData> dataList = new ArrayList<>(READING_COUNT);
+
+		for (int i = 0; i < READING_COUNT; i++) {
+			SensorData data = new SensorData(ConfigConst.TEMP_SENSOR_TYPE + (i % SENSOR_NAMES.length));
+			data.setName(SENSOR_NAMES[i % SENSOR_NAMES.length]);
+			data.setLocationID(DEFAULT_LOCATION);
+			data.setStatusCode(i % 2);
+			data.setValue(20.0f + i * 0.25f);
+
+			// some readings have a location, or state data
+			if (i % 10 == 0) {
+				data.setLatitude(45.5f);
+				data.setLongitude(-122.5f);
+				data.setElevation(i);
+			}
+
+			if (i % 25 == 0) {
+				data.setStateData("{\"reading\":" + i + "}");
+			}
+
+			dataList.add(data);
+		}
+
+		return dataList;
+	}
+
+	private void assertSameData(SensorData expected, SensorData actual)
+	{
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getLocationID(), actual.getLocationID());
+		assertEquals(expected.getTypeID(), actual.getTypeID());
+		assertEquals(expected.getStatusCode(), actual.getStatusCode());
+		assertEquals(expected.getValue(), actual.getValue(), 0.0f);
+		assertEquals(expected.getTimeStampMillis(), actual.getTimeStampMillis());
+		assertEquals(expected.getTimeStamp(), actual.getTimeStamp());
+		assertEquals(expected.getLatitude(), actual.getLatitude(), 0.0f);
+		assertEquals(expected.getLongitude(), actual.getLongitude(), 0.0f);
+		assertEquals(expected.getElevation(), actual.getElevation(), 0.0f);
+		assertEquals(expected.getStateData(), actual.getStateData());
+	}
+
+	private byte[] toBytes(String hex)
+	{
+		byte[] bytes = new byte[hex.length() / 2];
+
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+		}
+
+		return bytes;
+	}
+
+}
@@ -63,14 +63,7 @@ public class SystemStateDataTest
 	
 	// test methods
 	
-	/**
-	 * NOTE: SystemStateData is not required for the exercises in Programming the IoT.
-	 * The test cases below are disabled by default, but can easily be re-enabled by
-	 * uncommenting the @Test attribute if SystemStateData is optionally implemented.
-	 * 
-	 */
-	
-//	@Test
+	@Test
 	public void testDefaultValues()
 	{
 		SystemStateData ssd = new SystemStateData();
@@ -80,7 +73,7 @@ public class SystemStateDataTest
 		assertTrue(ssd.getCommand() == ConfigConst.DEFAULT_COMMAND);
 	}
 	
-//	@Test
+	@Test
 	public void testParameterUpdates()
 	{
 		SystemStateData ssd = createTestData();
@@ -104,7 +97,7 @@ public class SystemStateDataTest
 		}
 	}
 	
-//	@Test
+	@Test
 	public void testFullUpdate()
 	{
 		SystemStateData ssd = new SystemStateData();
@@ -135,6 +128,60 @@ public class SystemStateDataTest
 		}
 	}
 	
+	@Test
+	public void testDeltaUpdates()
+	{
+		SystemStateData ssd = createTestData();
+		SystemStateData receiver = new SystemStateData();
+		
+		// the first delta holds every item
+		SystemStateData delta = ssd.createDelta();
+		
+		assertFalse(ssd.hasChanges());
+		assertEquals(1, delta.getSensorDataList().size());
+		assertEquals(1, delta.getSystemPerformanceDataList().size());
+		
+		receiver.updateData(delta);
+		
+		// an unchanged reading isn't sent again, a changed or new one is
+		SensorData sd = new SensorData();
+		sd.setValue(DEFAULT_VAL);
+		ssd.addSensorData(sd);
+		
+		assertFalse(ssd.hasChanges());
+		
+		sd.setValue(DEFAULT_VAL + 1.0f);
+		ssd.addSensorData(sd);
+		
+		SensorData sd2 = new SensorData();
+		sd2.setName(DEFAULT_NAME);
+		ssd.addSensorData(sd2);
+		
+		// the stored item is a copy
+		sd.setValue(DEFAULT_VAL + 2.0f);
+		
+		delta = ssd.createDelta();
+		
+		_Logger.info("Delta: " + delta);
+		
+		assertEquals(2, delta.getSensorDataList().size());
+		assertTrue(delta.getSystemPerformanceDataList().isEmpty());
+		assertEquals(DEFAULT_VAL + 1.0f, delta.getSensorDataList().get(0).getValue(), 0.0f);
+		
+		// the receiver merges the delta into the full state
+		receiver.updateData(delta);
+		
+		assertEquals(2, receiver.getSensorDataList().size());
+		assertEquals(1, receiver.getSystemPerformanceDataList().size());
+		assertEquals(DEFAULT_VAL + 1.0f, receiver.getSensorDataList().get(0).getValue(), 0.0f);
+		assertEquals(DEFAULT_ACTION_CMD, receiver.getCommand());
+		
+		ssd.markAllChanged();
+		
+		assertEquals(2, ssd.createDelta().getSensorDataList().size());
+		assertTrue(ssd.createDelta().getSensorDataList().isEmpty());
+	}
+	
 	
 	// private
 	